@@ -54,17 +54,17 @@ public final class Program1Parse1 extends Program1 {
     private static String parseInstruction(Queue<String> tokens, Statement body) {
         assert tokens != null : "Violation of: tokens is not null";
         assert body != null : "Violation of: body is not null";
-        assert tokens.length() > 0 && tokens.front().equals("INSTRUCTION")
+        assert TokenStream.hasToken(tokens) && tokens.front().equals("INSTRUCTION")
                 : "" + "Violation of: <\"INSTRUCTION\"> is proper prefix of tokens";
 
-        Reporter.assertElseFatalError(tokens.length() > 0,
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens),
                 "Expected \"INSTRUCTION\" token, but no tokens left.");
         String instructionToken = tokens.dequeue();
         Reporter.assertElseFatalError(instructionToken.equals("INSTRUCTION"),
                 "Expected \"INSTRUCTION\" token");
 
         // instruction name
-        Reporter.assertElseFatalError(tokens.length() > 0,
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens),
                 "Missing instruction name after INSTRUCTION.");
         String instructionName = tokens.dequeue();
         Reporter.assertElseFatalError(Tokenizer.isIdentifier(instructionName),
@@ -79,7 +79,7 @@ public final class Program1Parse1 extends Program1 {
                 "Instruction name cannot be a primitive instruction: " + instructionName);
 
         // "IS"
-        Reporter.assertElseFatalError(tokens.length() > 0,
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens),
                 "Missing \"IS\" after instruction name.");
         String isToken = tokens.dequeue();
         Reporter.assertElseFatalError(isToken.equals("IS"),
@@ -89,14 +89,14 @@ public final class Program1Parse1 extends Program1 {
         body.parseBlock(tokens);
 
         // "END"
-        Reporter.assertElseFatalError(tokens.length() > 0,
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens),
                 "Missing \"END\" after instruction body.");
         String endToken = tokens.dequeue();
         Reporter.assertElseFatalError(endToken.equals("END"),
                 "Expected \"END\" after statement body");
 
         // ending name
-        Reporter.assertElseFatalError(tokens.length() > 0,
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens),
                 "Missing instruction name after END.");
         String endName = tokens.dequeue();
         Reporter.assertElseFatalError(endName.equals(instructionName),
@@ -133,7 +133,7 @@ public final class Program1Parse1 extends Program1 {
     @Override
     public void parse(Queue<String> tokens) {
         assert tokens != null : "Violation of: tokens is not null";
-        assert tokens.length() > 0
+        assert TokenStream.hasToken(tokens)
                 : "" + "Violation of: Tokenizer.END_OF_INPUT is a suffix of tokens";
 
         this.clear();
@@ -143,7 +143,7 @@ public final class Program1Parse1 extends Program1 {
                 "Error: expected 'PROGRAM' at beginning, found '" + programToken + "'.");
         // It will fail if it is not in proper format
 
-        Reporter.assertElseFatalError(tokens.length() > 0,
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens),
                 "Error: missing program name after PROGRAM."); // Check if it is empty,
         // if yes, then error
         String programName = tokens.dequeue(); // Get Program name
@@ -151,7 +151,7 @@ public final class Program1Parse1 extends Program1 {
                 "Error: '" + programName + "' is not a valid BL identifier.");
         this.setName(programName);
 
-        Reporter.assertElseFatalError(tokens.length() > 0,
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens),
                 "Error: missing 'IS' after program name."); // check if it is empty
         String isToken = tokens.dequeue(); // check is
         Reporter.assertElseFatalError(isToken.equals("IS"),
@@ -169,7 +169,7 @@ public final class Program1Parse1 extends Program1 {
             context.add(instructionName, instructionBody); // Add
         }
 
-        Reporter.assertElseFatalError(tokens.length() > 0,
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens),
                 "Error: missing 'BEGIN' before program body.");
         String beginToken = tokens.dequeue(); // remove begin
         Reporter.assertElseFatalError(beginToken.equals("BEGIN"),
@@ -179,20 +179,23 @@ public final class Program1Parse1 extends Program1 {
         mainBody.parseBlock(tokens);
         this.swapBody(mainBody);
 
-        Reporter.assertElseFatalError(tokens.length() > 0,
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens),
                 "Error: missing 'END' at end of program.");
         String endToken = tokens.dequeue(); // check END
         Reporter.assertElseFatalError(endToken.equals("END"),
                 "Error: expected 'END' after main body, found '" + endToken + "'.");
 
-        Reporter.assertElseFatalError(tokens.length() > 0,
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens),
                 "Error: missing program name after END.");
         String endName = tokens.dequeue(); // check PROGRAM name
         Reporter.assertElseFatalError(endName.equals(programName), "Error: ending name '"
                 + endName + "' does not match beginning name '" + programName + "'.");
 
-        Reporter.assertElseFatalError(
-                tokens.length() == 1 && tokens.front().equals(Tokenizer.END_OF_INPUT),
+        // END_OF_INPUT is the last token, so once it is at the front of a
+        // queue still being filled the length is final
+        Reporter.assertElseFatalError(TokenStream.hasToken(tokens)
+                && tokens.front().equals(Tokenizer.END_OF_INPUT)
+                && tokens.length() == 1,
                 "Error: unexpected tokens after end of program.");
 
         this.swapContext(context);
@@ -0,0 +1,647 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import components.queue.Queue;
+import components.queue.QueueSecondary;
+
+/**
+ * {@code Queue} represented as a bounded lock-free ring buffer that any
+ * number of producer and consumer threads can share, with implementations of
+ * primary methods, {@code front} and {@code replaceFront}, and non-blocking
+ * {@code offer}/{@code poll}, blocking {@code put}/{@code take} and batch
+ * {@code drainTo}.
+ *
+ * <p>
+ * This is D. Vyukov's bounded multi-producer multi-consumer queue. Each slot
+ * of the ring has a sequence number saying whose turn it is: a producer
+ * claims the slot at the tail by one compare-and-set of {@code tail}, stores
+ * its entry, and then publishes it by advancing the slot's sequence number; a
+ * consumer does the same at the head. Producers and consumers only contend
+ * among themselves, and no thread ever holds a lock. The capacity is fixed
+ * when the queue is constructed (rounded up to a power of 2, at least 2).
+ *
+ * <p>
+ * Because it is bounded and shared, the kernel methods wait rather than fail:
+ * {@code enqueue} (like {@code put}) waits while the queue is full, and
+ * {@code dequeue} (like {@code take}) and {@code front} wait while it is
+ * empty, until another thread makes room or adds an entry. This weakens the
+ * {@code Queue} precondition {@code this /= <>} rather than breaking the
+ * contract. {@code length}, though, only counts the entries already added, so
+ * a consumer that must know whether more are coming calls {@code hasEntry}
+ * (from {@code QueueWaiting}) instead, which waits on {@code front}. The
+ * parsers check for tokens through {@code TokenStream.hasToken}, which does
+ * this, so {@code Statement1Parse1} and {@code Program1Parse1} can parse a
+ * {@code QueueConcurrent<String>} that {@code TokenStream.tokens} is still
+ * filling on another thread.
+ *
+ * <p>
+ * Thread safety: {@code enqueue}, {@code dequeue}, {@code offer},
+ * {@code poll}, {@code put}, {@code take} and {@code drainTo} may be called
+ * concurrently by any number of threads, and each is atomic. {@code length}
+ * is exact whenever none of those is in progress. {@code front} and
+ * {@code replaceFront} are only meaningful with a single consumer thread.
+ * The iterator returns entries as it finds them and stops early if the queue
+ * changes under it. {@code clear}, {@code transferFrom} and the other
+ * secondary methods inherited from {@code QueueSecondary} (which combine
+ * several kernel calls) are not atomic, and need external synchronization if
+ * other threads use the queue at the same time; in particular {@code append}
+ * waits forever if the result does not fit.
+ *
+ * @param <T>
+ *            type of {@code Queue} entries
+ * @convention <pre>
+ * [|$this.entries| = |$this.sequence| is a power of 2]  and
+ * |$this.entries| >= MIN_CAPACITY  and
+ * [if no method is in progress,
+ *  0 <= $this.tail.get() - $this.head.get() <= |$this.entries|  and
+ *  for every position p with $this.head.get() <= p < $this.tail.get(),
+ *   $this.sequence[p mod |$this.entries|] = p + 1  and
+ *   $this.entries[p mod |$this.entries|] is not null  and
+ *  for every position p with $this.tail.get() <= p <
+ *   $this.head.get() + |$this.entries|,
+ *   $this.sequence[p mod |$this.entries|] = p  and
+ *   $this.entries[p mod |$this.entries|] is null]
+ * </pre>
+ * @correspondence <pre>
+ * this = [entries $this.entries[p mod |$this.entries|] for positions p from
+ *         $this.head.get() up to $this.tail.get()]
+ * </pre>
+ */
+public class QueueConcurrent<T> extends QueueSecondary<T>
+        implements QueueWaiting<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Smallest capacity; with one slot, a full slot and a free one would have
+     * the same sequence number.
+     */
+    private static final int MIN_CAPACITY = 2;
+
+    /**
+     * Number of times a waiting thread yields before it starts to park.
+     */
+    private static final int YIELDS = 64;
+
+    /**
+     * How long a waiting thread parks at a time, in nanoseconds.
+     */
+    private static final long PARK_NANOS = 50_000L;
+
+    /**
+     * Ring of entries.
+     */
+    private Object[] entries;
+
+    /**
+     * Sequence number of each slot: p if the slot is free for the entry at
+     * position p, p + 1 if it holds the entry at position p.
+     */
+    private AtomicLongArray sequence;
+
+    /**
+     * Position of the front entry, i.e., number of entries ever removed.
+     */
+    private AtomicLong head;
+
+    /**
+     * Position after the last entry, i.e., number of entries ever added.
+     */
+    private AtomicLong tail;
+
+    /**
+     * Returns the smallest power of 2 that is at least {@code n}.
+     *
+     * @param n
+     *            the lower bound
+     * @return the power of 2
+     * @requires 1 <= n <= 2^30
+     * @ensures <pre>
+     * [powerOfTwoAtLeast is a power of 2]  and
+     * n <= powerOfTwoAtLeast < 2 * n
+     * </pre>
+     */
+    private static int powerOfTwoAtLeast(int n) {
+        int power = 1;
+        while (power < n) {
+            power *= 2;
+        }
+        return power;
+    }
+
+    /**
+     * Waits a little before a thread tries again: yields the processor at
+     * first, then parks, depending on how many times it has waited already.
+     *
+     * @param waits
+     *            the number of times the caller has waited already
+     */
+    private static void backOff(int waits) {
+        if (waits < YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * [|$this.entries| = |$this.sequence| is a power of 2]  and
+     * |$this.entries| >= MIN_CAPACITY
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        int capacity = this.entries.length;
+        assert capacity == this.sequence.length()
+                : "Violation of: |$this.entries| = |$this.sequence|";
+        assert (capacity & (capacity - 1)) == 0
+                : "Violation of: [|$this.entries| is a power of 2]";
+        assert capacity >= MIN_CAPACITY
+                : "Violation of: |$this.entries| >= MIN_CAPACITY";
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            the capacity of the queue
+     * @requires [capacity is a power of 2] and capacity >= MIN_CAPACITY
+     */
+    private void createNewRep(int capacity) {
+        this.entries = new Object[capacity];
+        this.sequence = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.sequence.set(i, i);
+        }
+        this.head = new AtomicLong(0);
+        this.tail = new AtomicLong(0);
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor, for a queue of capacity
+     * {@code DEFAULT_CAPACITY}.
+     */
+    public QueueConcurrent() {
+        this.createNewRep(DEFAULT_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from capacity.
+     *
+     * @param capacity
+     *            the least number of entries the queue can hold; rounded up to
+     *            a power of 2, and to at least {@code MIN_CAPACITY}
+     * @requires 1 <= capacity <= 2^30
+     */
+    public QueueConcurrent(int capacity) {
+        assert 1 <= capacity : "Violation of: 1 <= capacity";
+        assert capacity <= (1 << 30) : "Violation of: capacity <= 2^30";
+        this.createNewRep(powerOfTwoAtLeast(Math.max(capacity, MIN_CAPACITY)));
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Queue<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(int.class)
+                    .newInstance(this.entries.length);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.entries.length);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Queue<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof QueueConcurrent<?> : ""
+                + "Violation of: source is of dynamic type QueueConcurrent<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * QueueConcurrent<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        QueueConcurrent<T> localSource = (QueueConcurrent<T>) source;
+        this.entries = localSource.entries;
+        this.sequence = localSource.sequence;
+        this.head = localSource.head;
+        this.tail = localSource.tail;
+        localSource.createNewRep(localSource.entries.length);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to the end of {@code this}, waiting while {@code this} is
+     * full.
+     *
+     * @param x
+     *            the entry to be added
+     * @aliases reference {@code x}
+     * @updates this
+     * @ensures this = #this * <x>
+     */
+    @Override
+    public final void enqueue(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        this.put(x);
+    }
+
+    /**
+     * Removes and returns the entry at the front of {@code this}, waiting
+     * while {@code this} is empty.
+     *
+     * @return the entry removed
+     * @updates this
+     * @ensures #this = <dequeue> * this
+     */
+    @Override
+    public final T dequeue() {
+        return this.take();
+    }
+
+    @Override
+    public final int length() {
+        assert this.conventionHolds();
+        long removed = this.head.get();
+        long length = this.tail.get() - removed;
+        return (int) Math.max(0L, Math.min(length, this.entries.length));
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new QueueConcurrentIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code QueueConcurrent}. It returns the entries from the front that it
+     * finds still in place, and stops at the first one removed since it
+     * started.
+     */
+    private final class QueueConcurrentIterator implements Iterator<T> {
+
+        /**
+         * Position of the next entry to return.
+         */
+        private long position;
+
+        /**
+         * Position after the last entry to return.
+         */
+        private long end;
+
+        /**
+         * The next entry to return, or null if there is none.
+         */
+        private T nextEntry;
+
+        /**
+         * No-argument constructor.
+         */
+        private QueueConcurrentIterator() {
+            this.position = QueueConcurrent.this.head.get();
+            this.end = QueueConcurrent.this.tail.get();
+            this.advance();
+            assert QueueConcurrent.this.conventionHolds();
+        }
+
+        /**
+         * Loads the entry at {@code position} into {@code nextEntry}, or null
+         * if there is none or it has been removed.
+         */
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            this.nextEntry = null;
+            if (this.position < this.end) {
+                Object[] ring = QueueConcurrent.this.entries;
+                AtomicLongArray seq = QueueConcurrent.this.sequence;
+                int slot = (int) (this.position & (ring.length - 1));
+                if (seq.get(slot) == this.position + 1) {
+                    T x = (T) ring[slot];
+                    // Only keep x if the slot was not reused while reading it
+                    if (seq.get(slot) == this.position + 1) {
+                        this.nextEntry = x;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextEntry != null;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = this.nextEntry;
+            this.position++;
+            this.advance();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    /**
+     * Reports the front of {@code this}, waiting while {@code this} is empty.
+     * Only meaningful if no other thread removes entries from {@code this}.
+     *
+     * @return the front entry of {@code this}
+     * @aliases reference returned by {@code front}
+     * @ensures <front> is prefix of this
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T front() {
+        long position = this.head.get();
+        int slot = (int) (position & (this.entries.length - 1));
+        int waits = 0;
+        while (this.sequence.get(slot) != position + 1) {
+            backOff(waits);
+            waits++;
+        }
+        return (T) this.entries[slot];
+    }
+
+    /**
+     * Replaces the front of {@code this} with {@code x}, and returns the old
+     * front, waiting while {@code this} is empty. Only meaningful if no other
+     * thread removes entries from {@code this}.
+     *
+     * @param x
+     *            the new front entry
+     * @return the old front entry
+     * @aliases reference {@code x}
+     * @updates this
+     * @ensures <pre>
+     * <replaceFront> is prefix of #this  and
+     * this = <x> * #this[1, |#this|)
+     * </pre>
+     */
+    @Override
+    public final T replaceFront(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        T front = this.front();
+        int slot = (int) (this.head.get() & (this.entries.length - 1));
+        this.entries[slot] = x;
+        return front;
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports whether {@code this} has an entry, waiting while {@code this} is
+     * empty. Only meaningful if no other thread removes entries from
+     * {@code this}; as a producer must eventually add an entry to an empty
+     * {@code QueueConcurrent} for a waiting consumer, this always returns
+     * true.
+     *
+     * @return true
+     * @ensures hasEntry = (this /= <>)
+     */
+    @Override
+    public final boolean hasEntry() {
+        this.front();
+        return true;
+    }
+
+    /**
+     * Reports the number of entries {@code this} can hold.
+     *
+     * @return the capacity of {@code this}
+     * @ensures capacity = [the capacity of this]
+     */
+    public final int capacity() {
+        return this.entries.length;
+    }
+
+    /**
+     * Adds {@code x} to the end of {@code this} if there is room, without
+     * waiting.
+     *
+     * @param x
+     *            the entry to be added
+     * @return whether x was added
+     * @aliases reference {@code x}
+     * @updates this
+     * @ensures <pre>
+     * if |#this| < [the capacity of this] then
+     *   this = #this * <x>  and  offer = true
+     * else
+     *   this = #this  and  offer = false
+     * </pre>
+     */
+    public final boolean offer(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Object[] ring = this.entries;
+        AtomicLongArray seq = this.sequence;
+        int mask = ring.length - 1;
+        boolean added = false;
+        boolean full = false;
+        long position = this.tail.get();
+        while (!added && !full) {
+            int slot = (int) (position & mask);
+            long difference = seq.get(slot) - position;
+            if (difference == 0) {
+                // Slot is free for this position: try to claim it
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    ring[slot] = x;
+                    seq.set(slot, position + 1);
+                    added = true;
+                } else {
+                    position = this.tail.get();
+                }
+            } else if (difference < 0) {
+                // Slot still holds the entry from one lap ago
+                full = true;
+            } else {
+                // Another producer took this position
+                position = this.tail.get();
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Removes and returns the entry at the front of {@code this}, or returns
+     * {@code null} if {@code this} is empty, without waiting.
+     *
+     * @return the entry removed, or null
+     * @updates this
+     * @ensures <pre>
+     * if #this = <> then
+     *   this = <>  and  poll = null
+     * else
+     *   #this = <poll> * this
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public final T poll() {
+        Object[] ring = this.entries;
+        AtomicLongArray seq = this.sequence;
+        int mask = ring.length - 1;
+        T removed = null;
+        boolean empty = false;
+        long position = this.head.get();
+        while (removed == null && !empty) {
+            int slot = (int) (position & mask);
+            long difference = seq.get(slot) - (position + 1);
+            if (difference == 0) {
+                // Slot holds the entry for this position: try to claim it
+                if (this.head.compareAndSet(position, position + 1)) {
+                    removed = (T) ring[slot];
+                    ring[slot] = null;
+                    seq.set(slot, position + ring.length);
+                } else {
+                    position = this.head.get();
+                }
+            } else if (difference < 0) {
+                // No producer has filled this slot yet
+                empty = true;
+            } else {
+                // Another consumer took this position
+                position = this.head.get();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Adds {@code x} to the end of {@code this}, waiting while {@code this} is
+     * full.
+     *
+     * @param x
+     *            the entry to be added
+     * @aliases reference {@code x}
+     * @updates this
+     * @ensures this = #this * <x>
+     */
+    public final void put(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        int waits = 0;
+        while (!this.offer(x)) {
+            backOff(waits);
+            waits++;
+        }
+    }
+
+    /**
+     * Removes and returns the entry at the front of {@code this}, waiting
+     * while {@code this} is empty.
+     *
+     * @return the entry removed
+     * @updates this
+     * @ensures #this = <take> * this
+     */
+    public final T take() {
+        int waits = 0;
+        T removed = this.poll();
+        while (removed == null) {
+            backOff(waits);
+            waits++;
+            removed = this.poll();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes up to {@code maxEntries} entries from the front of {@code this},
+     * without waiting, and adds them to the end of {@code q}, returning how
+     * many were moved.
+     *
+     * @param q
+     *            the queue to add the entries to
+     * @param maxEntries
+     *            the most entries to move
+     * @return the number of entries moved
+     * @updates this, q
+     * @requires q is not this and maxEntries >= 0
+     * @ensures <pre>
+     * drainTo = min(|#this|, maxEntries)  and
+     * #this = this' * this  and  |this'| = drainTo  and  q = #q * this'
+     * </pre>
+     */
+    public final int drainTo(Queue<T> q, int maxEntries) {
+        assert q != null : "Violation of: q is not null";
+        assert q != this : "Violation of: q is not this";
+        assert maxEntries >= 0 : "Violation of: maxEntries >= 0";
+
+        int moved = 0;
+        T x = null;
+        if (maxEntries > 0) {
+            x = this.poll();
+        }
+        while (x != null) {
+            q.enqueue(x);
+            moved++;
+            x = null;
+            if (moved < maxEntries) {
+                x = this.poll();
+            }
+        }
+        return moved;
+    }
+
+}
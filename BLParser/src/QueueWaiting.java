@@ -0,0 +1,22 @@
+import components.queue.Queue;
+
+/**
+ * {@code Queue} that other threads may still be adding entries to, so being
+ * empty now does not mean no more entries will come.
+ *
+ * @param <T>
+ *            type of {@code QueueWaiting} entries
+ */
+public interface QueueWaiting<T> extends Queue<T> {
+
+    /**
+     * Reports whether {@code this} has an entry, waiting while {@code this} is
+     * empty but another thread may still add one. Use this instead of
+     * {@code length() > 0} to find out whether an entry is coming.
+     *
+     * @return true iff an entry is or will be added to {@code this}
+     * @ensures hasEntry = (this /= <>)
+     */
+    boolean hasEntry();
+
+}
@@ -60,7 +60,7 @@ public final class Statement1Parse1 extends Statement1 {
     private static void parseIf(Queue<String> tokens, Statement s) {
         assert tokens != null : "Violation of: tokens is not null";
         assert s != null : "Violation of: s is not null";
-        assert tokens.length() > 0 && tokens.front().equals("IF")
+        assert TokenStream.hasToken(tokens) && tokens.front().equals("IF")
                 : "" + "Violation of: <\"IF\"> is proper prefix of tokens";
 
         // TODO - fill in body
@@ -134,7 +134,7 @@ public final class Statement1Parse1 extends Statement1 {
     private static void parseWhile(Queue<String> tokens, Statement s) {
         assert tokens != null : "Violation of: tokens is not null";
         assert s != null : "Violation of: s is not null";
-        assert tokens.length() > 0 && tokens.front().equals("WHILE")
+        assert TokenStream.hasToken(tokens) && tokens.front().equals("WHILE")
                 : "" + "Violation of: <\"WHILE\"> is proper prefix of tokens";
 
         // TODO - fill in body
@@ -182,7 +182,7 @@ public final class Statement1Parse1 extends Statement1 {
     private static void parseCall(Queue<String> tokens, Statement s) {
         assert tokens != null : "Violation of: tokens is not null";
         assert s != null : "Violation of: s is not null";
-        assert tokens.length() > 0 && Tokenizer.isIdentifier(tokens.front())
+        assert TokenStream.hasToken(tokens) && Tokenizer.isIdentifier(tokens.front())
                 : "" + "Violation of: identifier string is proper prefix of tokens";
 
         // TODO - fill in body
@@ -209,7 +209,7 @@ public final class Statement1Parse1 extends Statement1 {
     @Override
     public void parse(Queue<String> tokens) {
         assert tokens != null : "Violation of: tokens is not null";
-        assert tokens.length() > 0
+        assert TokenStream.hasToken(tokens)
                 : "" + "Violation of: Tokenizer.END_OF_INPUT is a suffix of tokens";
 
         // TODO - fill in body
@@ -236,7 +236,7 @@ public final class Statement1Parse1 extends Statement1 {
     @Override
     public void parseBlock(Queue<String> tokens) {
         assert tokens != null : "Violation of: tokens is not null";
-        assert tokens.length() > 0
+        assert TokenStream.hasToken(tokens)
                 : "" + "Violation of: Tokenizer.END_OF_INPUT is a suffix of tokens";
 
         // TODO - fill in body
@@ -0,0 +1,129 @@
+import components.queue.Queue;
+import components.simplereader.SimpleReader;
+import components.utilities.Tokenizer;
+
+/**
+ * Utility class to tokenize an input stream into a {@code Queue<String>} one
+ * line at a time, and to check for a next token in a queue that may still be
+ * filling. Together they let a parser run on one thread while a tokenizer
+ * fills a {@code QueueConcurrent<String>} on another.
+ */
+public final class TokenStream {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Definition of whitespace separators.
+     */
+    private static final String SEPARATORS = " \t\n\r";
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private TokenStream() {
+    }
+
+    /**
+     * Returns the first "word" (maximal length string of characters not in
+     * {@code SEPARATORS}) or "separator string" (maximal length string of
+     * characters in {@code SEPARATORS}) in the given {@code text} starting at
+     * the given {@code position}.
+     *
+     * @param text
+     *            the {@code String} from which to get the word or separator
+     *            string
+     * @param position
+     *            the starting index
+     * @return the first word or separator string found in {@code text} starting
+     *         at index {@code position}
+     * @requires 0 <= position < |text|
+     * @ensures <pre>
+     * nextWordOrSeparator =
+     *   text[position, position + |nextWordOrSeparator|)  and
+     * [nextWordOrSeparator is a maximal word or separator string]
+     * </pre>
+     */
+    private static String nextWordOrSeparator(String text, int position) {
+        assert text != null : "Violation of: text is not null";
+        assert 0 <= position : "Violation of: 0 <= position";
+        assert position < text.length() : "Violation of: position < |text|";
+
+        boolean isSeparator = SEPARATORS.indexOf(text.charAt(position)) >= 0;
+        int end = position + 1;
+        while (end < text.length()
+                && (SEPARATORS.indexOf(text.charAt(end)) >= 0) == isSeparator) {
+            end++;
+        }
+        return text.substring(position, end);
+    }
+
+    /*
+     * Public members ---------------------------------------------------------
+     */
+
+    /**
+     * Tokenizes the entire input getting rid of all whitespace separators and
+     * adds the non-separator tokens to the end of {@code tokens} as each line
+     * is read, so a parser reading {@code tokens} on another thread can start
+     * before the whole input has been read.
+     *
+     * @param in
+     *            the input stream
+     * @param tokens
+     *            the queue to add the tokens to
+     * @updates in.content, tokens
+     * @requires in.is_open
+     * @ensures <pre>
+     * tokens = #tokens *
+     *   [the non-whitespace tokens in #in.content] * <Tokenizer.END_OF_INPUT>  and
+     * in.content = <>
+     * </pre>
+     */
+    public static void tokens(SimpleReader in, Queue<String> tokens) {
+        assert in != null : "Violation of: in is not null";
+        assert in.isOpen() : "Violation of: in.is_open";
+        assert tokens != null : "Violation of: tokens is not null";
+
+        while (!in.atEOS()) {
+            String line = in.nextLine();
+            int position = 0;
+            while (position < line.length()) {
+                String token = nextWordOrSeparator(line, position);
+                if (SEPARATORS.indexOf(token.charAt(0)) < 0) {
+                    tokens.enqueue(token);
+                }
+                position += token.length();
+            }
+        }
+        tokens.enqueue(Tokenizer.END_OF_INPUT);
+    }
+
+    /**
+     * Reports whether {@code tokens} has a next token. A {@code QueueWaiting}
+     * may be empty only because the tokenizer has not caught up yet, so for
+     * one this asks {@code hasEntry}, which waits for the next token, instead
+     * of reading {@code length}. The parsers use this for their "no tokens
+     * left" checks.
+     *
+     * @param tokens
+     *            the input tokens
+     * @return true iff tokens has a next token
+     * @requires [if tokens is a QueueWaiting, another thread adds
+     *           <Tokenizer.END_OF_INPUT> to it eventually]
+     * @ensures hasToken = (tokens /= <>)
+     */
+    public static boolean hasToken(Queue<String> tokens) {
+        assert tokens != null : "Violation of: tokens is not null";
+
+        boolean hasToken;
+        if (tokens instanceof QueueWaiting) {
+            hasToken = ((QueueWaiting<String>) tokens).hasEntry();
+        } else {
+            hasToken = tokens.length() > 0;
+        }
+        return hasToken;
+    }
+
+}
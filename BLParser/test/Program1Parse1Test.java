@@ -1,11 +1,31 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
 import components.program.Program;
 import components.program.Program1;
+import components.queue.Queue;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
 
 /**
  * Customized JUnit test fixture for {@code Program1Parse1}.
  */
 public class Program1Parse1Test extends ProgramTest {
 
+    /**
+     * Capacity of the token queue shared with the tokenizer thread, small so
+     * that the tokenizer and the parser keep waiting for each other.
+     */
+    private static final int SMALL_CAPACITY = 4;
+
+    /**
+     * Time limit, in milliseconds, for the test and for joining the tokenizer
+     * thread, which is a daemon so that it cannot keep the JVM alive.
+     */
+    private static final long TIMEOUT = 10_000;
+
     @Override
     protected final Program constructorTest() {
         return new Program1Parse1();
@@ -16,4 +36,41 @@ public class Program1Parse1Test extends ProgramTest {
         return new Program1();
     }
 
+    /**
+     * Test of parse on tokens another thread is still adding.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the tokenizer thread
+     */
+    @Test(timeout = TIMEOUT)
+    public final void testParseWhileTokenizing() throws InterruptedException {
+        final String fileName = "test/program1.bl";
+        /*
+         * Setup
+         */
+        Program pRef = this.constructorRef();
+        SimpleReader file = new SimpleReader1L(fileName);
+        pRef.parse(file);
+        file.close();
+        Program pTest = this.constructorTest();
+        Queue<String> tokens = new QueueConcurrent<String>(SMALL_CAPACITY);
+        Thread tokenizer = new Thread(() -> {
+            SimpleReader in = new SimpleReader1L(fileName);
+            TokenStream.tokens(in, tokens);
+            in.close();
+        });
+        tokenizer.setDaemon(true);
+        tokenizer.start();
+        /*
+         * The call
+         */
+        pTest.parse(tokens);
+        /*
+         * Evaluation
+         */
+        tokenizer.join(TIMEOUT);
+        assertFalse(tokenizer.isAlive());
+        assertEquals(pRef, pTest);
+    }
+
 }
@@ -0,0 +1,172 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Customized JUnit test fixture for {@code QueueConcurrent}. The inherited
+ * tests use one thread; the tests below also share a queue between threads.
+ */
+public class QueueConcurrentTest extends QueueTest {
+
+    /**
+     * Small capacity, so that producers fill the queue and have to wait.
+     */
+    private static final int SMALL_CAPACITY = 8;
+
+    /**
+     * Number of producer threads, and of consumer threads.
+     */
+    private static final int THREADS = 3;
+
+    /**
+     * Number of entries each producer adds.
+     */
+    private static final int ENTRIES_PER_PRODUCER = 2000;
+
+    /**
+     * Time limit, in milliseconds, for each test that shares a queue between
+     * threads, and for joining each of its threads; the threads are daemons,
+     * so one left waiting after a failure does not keep the JVM alive.
+     */
+    private static final long TIMEOUT = 10_000;
+
+    @Override
+    protected final Queue<String> constructorTest() {
+        return new QueueConcurrent<String>();
+    }
+
+    @Override
+    protected final Queue<String> constructorRef() {
+        return new Queue1L<String>();
+    }
+
+    @Test
+    public final void testCapacityRoundedUp() {
+        final int capacity = 5;
+        final int roundedUp = 8;
+        QueueConcurrent<String> q = new QueueConcurrent<String>(capacity);
+        assertEquals(roundedUp, q.capacity());
+        assertEquals(2, new QueueConcurrent<String>(1).capacity());
+    }
+
+    @Test
+    public final void testOfferFullPollEmpty() {
+        QueueConcurrent<String> q = new QueueConcurrent<String>(2);
+        Queue<String> qExpected = this.constructorRef();
+        assertNull(q.poll());
+        assertTrue(q.offer("red"));
+        assertTrue(q.offer("green"));
+        assertFalse(q.offer("blue"));
+        assertEquals("red", q.poll());
+        assertTrue(q.offer("blue"));
+        qExpected.enqueue("green");
+        qExpected.enqueue("blue");
+        assertEquals(qExpected, q);
+    }
+
+    @Test
+    public final void testDrainTo() {
+        QueueConcurrent<String> q = new QueueConcurrent<String>(SMALL_CAPACITY);
+        Queue<String> q2 = this.constructorRef();
+        Queue<String> qExpected = this.constructorRef();
+        Queue<String> q2Expected = this.constructorRef();
+        q.enqueue("red");
+        q.enqueue("green");
+        q.enqueue("blue");
+        q2.enqueue("yellow");
+        q2Expected.enqueue("yellow");
+        q2Expected.enqueue("red");
+        q2Expected.enqueue("green");
+        qExpected.enqueue("blue");
+        int moved = q.drainTo(q2, 2);
+        assertEquals(2, moved);
+        assertEquals(qExpected, q);
+        assertEquals(q2Expected, q2);
+        q2Expected.enqueue("blue");
+        qExpected.dequeue();
+        moved = q.drainTo(q2, SMALL_CAPACITY);
+        assertEquals(1, moved);
+        assertEquals(qExpected, q);
+        assertEquals(q2Expected, q2);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public final void testDequeueWaitsForProducer() throws InterruptedException {
+        final QueueConcurrent<String> q = new QueueConcurrent<String>(
+                SMALL_CAPACITY);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < SMALL_CAPACITY * 2; i++) {
+                q.put(Integer.toString(i));
+            }
+        });
+        producer.setDaemon(true);
+        producer.start();
+        for (int i = 0; i < SMALL_CAPACITY * 2; i++) {
+            assertEquals(Integer.toString(i), q.front());
+            assertEquals(Integer.toString(i), q.dequeue());
+        }
+        producer.join(TIMEOUT);
+        assertFalse(producer.isAlive());
+        assertEquals(0, q.length());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public final void testManyProducersManyConsumers()
+            throws InterruptedException {
+        final int n = THREADS * ENTRIES_PER_PRODUCER;
+        final QueueConcurrent<Integer> q = new QueueConcurrent<Integer>(
+                SMALL_CAPACITY);
+        final AtomicIntegerArray seen = new AtomicIntegerArray(n);
+        final AtomicInteger outOfOrder = new AtomicInteger(0);
+        Thread[] threads = new Thread[2 * THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int producer = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < ENTRIES_PER_PRODUCER; i++) {
+                    q.put(producer * ENTRIES_PER_PRODUCER + i);
+                }
+            });
+            threads[THREADS + t] = new Thread(() -> {
+                /*
+                 * Each producer's entries must come out in the order it put
+                 * them, even when split between consumers
+                 */
+                int[] last = new int[THREADS];
+                Arrays.fill(last, -1);
+                for (int i = 0; i < ENTRIES_PER_PRODUCER; i++) {
+                    int x = q.take();
+                    int from = x / ENTRIES_PER_PRODUCER;
+                    if (x % ENTRIES_PER_PRODUCER <= last[from]) {
+                        outOfOrder.incrementAndGet();
+                    }
+                    last[from] = x % ENTRIES_PER_PRODUCER;
+                    seen.incrementAndGet(x);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TIMEOUT);
+            assertFalse(thread.isAlive());
+        }
+        assertEquals(0, q.length());
+        assertEquals(0, outOfOrder.get());
+        for (int i = 0; i < n; i++) {
+            assertEquals(1, seen.get(i));
+        }
+    }
+
+}
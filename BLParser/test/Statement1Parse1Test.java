@@ -1,11 +1,32 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
 import components.statement.Statement;
 import components.statement.Statement1;
+import components.utilities.Tokenizer;
 
 /**
  * Customized JUnit test fixture for {@code Statement1Parse1}.
  */
 public class Statement1Parse1Test extends StatementTest {
 
+    /**
+     * Capacity of the token queue shared with the tokenizer thread, small so
+     * that the tokenizer and the parser keep waiting for each other.
+     */
+    private static final int SMALL_CAPACITY = 4;
+
+    /**
+     * Time limit, in milliseconds, for the test and for joining the tokenizer
+     * thread, which is a daemon so that it cannot keep the JVM alive.
+     */
+    private static final long TIMEOUT = 10_000;
+
     @Override
     protected final Statement constructorTest() {
         return new Statement1Parse1();
@@ -16,4 +37,70 @@ public class Statement1Parse1Test extends StatementTest {
         return new Statement1();
     }
 
+    /**
+     * Starts a thread that tokenizes the file {@code fileName} into
+     * {@code tokens}.
+     *
+     * @param fileName
+     *            the name of the file
+     * @param tokens
+     *            the queue to add the tokens to
+     * @return the tokenizer thread
+     */
+    private static Thread startTokenizer(String fileName,
+            Queue<String> tokens) {
+        Thread tokenizer = new Thread(() -> {
+            SimpleReader file = new SimpleReader1L(fileName);
+            TokenStream.tokens(file, tokens);
+            file.close();
+        });
+        tokenizer.setDaemon(true);
+        tokenizer.start();
+        return tokenizer;
+    }
+
+    /**
+     * Test of parse on tokens another thread is still adding.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the tokenizer thread
+     */
+    @Test(timeout = TIMEOUT)
+    public final void testParseWhileTokenizing() throws InterruptedException {
+        final String[] fileNames = { "test/statement1.bl",
+            "test/statement3.bl" };
+        for (String fileName : fileNames) {
+            /*
+             * Setup
+             */
+            SimpleReader file = new SimpleReader1L(fileName);
+            Queue<String> tokensRef = Tokenizer.tokens(file);
+            file.close();
+            Statement sRef = this.constructorRef();
+            sRef.parse(tokensRef);
+            file = new SimpleReader1L(fileName);
+            Queue<String> tokensExpected = Tokenizer.tokens(file);
+            file.close();
+            this.constructorTest().parse(tokensExpected);
+            Queue<String> tokens = new QueueConcurrent<String>(SMALL_CAPACITY);
+            Thread tokenizer = startTokenizer(fileName, tokens);
+            Statement sTest = this.constructorTest();
+            /*
+             * The call
+             */
+            sTest.parse(tokens);
+            /*
+             * Evaluation
+             */
+            assertEquals(sRef, sTest);
+            while (!tokensExpected.front().equals(Tokenizer.END_OF_INPUT)) {
+                assertEquals(tokensExpected.dequeue(), tokens.dequeue());
+            }
+            assertEquals(Tokenizer.END_OF_INPUT, tokens.dequeue());
+            tokenizer.join(TIMEOUT);
+            assertFalse(tokenizer.isAlive());
+            assertEquals(0, tokens.length());
+        }
+    }
+
 }
@@ -0,0 +1,584 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.list.List;
+import components.list.ListSecondary;
+
+/**
+ * {@code List} represented as an unrolled doubly linked list, done
+ * "bare-handed", with implementations of primary methods and {@code retreat}
+ * and {@code moveToFinish} secondary methods.
+ *
+ * <p>
+ * Each node holds up to {@code blockCapacity} consecutive entries in an array
+ * instead of one entry, so {@code advance}, {@code retreat} and the iterator
+ * follow a pointer only once per block and otherwise step through an array,
+ * and a long list has far fewer nodes for the garbage collector to trace than
+ * {@code List3}. The fence is a node and an offset into it. When a node is
+ * full, {@code addRightFront} splits it in two; when {@code removeRightFront}
+ * leaves a node with few enough entries to fit in the next one, the two are
+ * merged. Execution-time performance of all methods implemented in this class
+ * is O(1), as {@code blockCapacity} is a constant.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code List} entries
+ * @convention <pre>
+ * $this.blockCapacity >= 2  and
+ * $this.leftLength >= 0  and
+ * [$this.rightLength >= 0] and
+ * [$this.preStart is not null]  and
+ * [$this.postFinish is not null]  and
+ * [$this.preStart points to the first node of a doubly linked list whose
+ *  last node is pointed to by $this.postFinish]  and
+ * [for every node n in the doubly linked list of nodes, except the one
+ *  pointed to by $this.preStart, n.previous.next = n]  and
+ * [for every node n in the doubly linked list of nodes, except the one
+ *  pointed to by $this.postFinish, n.next.previous = n]  and
+ * [for every node n other than $this.preStart and $this.postFinish,
+ *  |n.entries| = $this.blockCapacity  and  1 <= n.count <= |n.entries|  and
+ *  entries in n.entries[0, n.count) are not null  and
+ *  entries in n.entries[n.count, |n.entries|) are null]  and
+ * [the sum of n.count over those nodes is
+ *  $this.leftLength + $this.rightLength]  and
+ * [$this.fence is $this.postFinish and $this.fenceOffset = 0, or
+ *  $this.fence is one of those nodes and
+ *  0 <= $this.fenceOffset < $this.fence.count]  and
+ * [there are $this.leftLength entries before position $this.fenceOffset of
+ *  $this.fence]
+ * </pre>
+ * @correspondence <pre>
+ * this =
+ *  ([entries n.entries[0, n.count) of nodes from $this.preStart.next up to
+ *    position $this.fenceOffset of $this.fence],
+ *   [entries n.entries[0, n.count) of nodes from position $this.fenceOffset
+ *    of $this.fence through $this.postFinish.previous])
+ * </pre>
+ */
+public class List4<T> extends ListSecondary<T> {
+
+    /**
+     * Default number of entries a node can hold.
+     */
+    private static final int DEFAULT_BLOCK_CAPACITY = 64;
+
+    /**
+     * Node class for doubly linked list nodes, each holding a block of
+     * consecutive entries.
+     */
+    private final class Node {
+
+        /**
+         * Entries in node, or, if this is a "smart" Node, null.
+         */
+        private T[] entries;
+
+        /**
+         * Number of entries in use in this.entries.
+         */
+        private int count;
+
+        /**
+         * Next node in doubly linked list, or, if this is a trailing "smart"
+         * Node, irrelevant.
+         */
+        private Node next;
+
+        /**
+         * Previous node in doubly linked list, or, if this is a leading "smart"
+         * Node, irrelevant.
+         */
+        private Node previous;
+
+    }
+
+    /**
+     * Number of entries a node can hold.
+     */
+    private int blockCapacity;
+
+    /**
+     * "Smart node" before start node of doubly linked list.
+     */
+    private Node preStart;
+
+    /**
+     * "Smart node" after finish node of linked list.
+     */
+    private Node postFinish;
+
+    /**
+     * Node holding the first entry of this.right, or postFinish if
+     * this.right is empty.
+     */
+    private Node fence;
+
+    /**
+     * Position of the first entry of this.right in fence.
+     */
+    private int fenceOffset;
+
+    /**
+     * Length of this.left.
+     */
+    private int leftLength;
+
+    /**
+     * Length of this.right.
+     */
+    private int rightLength;
+
+    /**
+     * Returns a new node with no entries, linked in after {@code n}.
+     *
+     * @param n
+     *            the node to link after
+     * @return the new node
+     * @requires n is not $this.postFinish
+     */
+    @SuppressWarnings("unchecked")
+    private Node linkAfter(Node n) {
+        Node added = new Node();
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        added.entries = (T[]) (new Object[this.blockCapacity]);
+        added.count = 0;
+        added.previous = n;
+        added.next = n.next;
+        n.next.previous = added;
+        n.next = added;
+        return added;
+    }
+
+    /**
+     * Removes node {@code n} from the doubly linked list.
+     *
+     * @param n
+     *            the node to remove
+     * @requires n is neither $this.preStart nor $this.postFinish
+     */
+    private void unlink(Node n) {
+        n.previous.next = n.next;
+        n.next.previous = n.previous;
+    }
+
+    /**
+     * Inserts {@code x} at position {@code i} of node {@code n}, shifting the
+     * entries from there on up by one.
+     *
+     * @param n
+     *            the node
+     * @param i
+     *            the position
+     * @param x
+     *            the entry to insert
+     * @requires 0 <= i <= n.count < |n.entries|
+     */
+    private void insert(Node n, int i, T x) {
+        System.arraycopy(n.entries, i, n.entries, i + 1, n.count - i);
+        n.entries[i] = x;
+        n.count++;
+    }
+
+    /**
+     * Moves entries {@code n.entries[from, n.count)} to the end of node
+     * {@code m}.
+     *
+     * @param n
+     *            the node moved from
+     * @param from
+     *            position of the first entry moved
+     * @param m
+     *            the node moved to
+     * @requires 0 <= from <= n.count and m.count + n.count - from <=
+     *           |m.entries|
+     */
+    private void moveEntries(Node n, int from, Node m) {
+        int moved = n.count - from;
+        System.arraycopy(n.entries, from, m.entries, m.count, moved);
+        Arrays.fill(n.entries, from, n.count, null);
+        m.count += moved;
+        n.count = from;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.blockCapacity >= 2  and
+     * $this.leftLength >= 0  and
+     * [$this.rightLength >= 0] and
+     * [$this.preStart is not null]  and
+     * [$this.postFinish is not null]  and
+     * [$this.preStart points to the first node of a doubly linked list whose
+     *  last node is pointed to by $this.postFinish]  and
+     * [for every node n in the doubly linked list of nodes, except the one
+     *  pointed to by $this.preStart, n.previous.next = n]  and
+     * [for every node n in the doubly linked list of nodes, except the one
+     *  pointed to by $this.postFinish, n.next.previous = n]  and
+     * [for every node n other than $this.preStart and $this.postFinish,
+     *  |n.entries| = $this.blockCapacity  and  1 <= n.count <= |n.entries|  and
+     *  entries in n.entries[0, n.count) are not null  and
+     *  entries in n.entries[n.count, |n.entries|) are null]  and
+     * [the sum of n.count over those nodes is
+     *  $this.leftLength + $this.rightLength]  and
+     * [$this.fence is $this.postFinish and $this.fenceOffset = 0, or
+     *  $this.fence is one of those nodes and
+     *  0 <= $this.fenceOffset < $this.fence.count]  and
+     * [there are $this.leftLength entries before position $this.fenceOffset of
+     *  $this.fence]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.blockCapacity >= 2 : "Violation of: $this.blockCapacity >= 2";
+        assert this.leftLength >= 0 : "Violation of: $this.leftLength >= 0";
+        assert this.rightLength >= 0 : "Violation of: $this.rightLength >= 0";
+        assert this.preStart != null : "Violation of: $this.preStart is not null";
+        assert this.postFinish != null : "Violation of: $this.postFinish is not null";
+        assert this.fence != null : "Violation of: $this.fence is not null";
+
+        int length = this.leftLength + this.rightLength;
+        int count = 0;
+        boolean fenceFound = false;
+        Node n = this.preStart;
+        while ((count <= length) && (n != this.postFinish)) {
+            /*
+             * Check for every node n in the doubly linked list of nodes, except
+             * the one pointed to by $this.postFinish, n.next.previous = n
+             */
+            assert (n.next != null) && (n.next.previous == n)
+                    : "" + "Violation of: [for every node n in the doubly linked"
+                            + " list of nodes, except the one pointed to by"
+                            + " $this.postFinish, n.next.previous = n]";
+            n = n.next;
+            /*
+             * Check for every node n in the doubly linked list of nodes, except
+             * the one pointed to by $this.preStart, n.previous.next = n
+             */
+            assert n.previous.next == n
+                    : "" + "Violation of: [for every node n in the doubly linked"
+                            + " list of nodes, except the one pointed to by"
+                            + " $this.preStart, n.previous.next = n]";
+            if (n == this.fence) {
+                assert (n == this.postFinish) ? (this.fenceOffset == 0)
+                        : (0 <= this.fenceOffset && this.fenceOffset < n.count)
+                        : "" + "Violation of: [0 <= $this.fenceOffset <"
+                                + " $this.fence.count]";
+                assert count + this.fenceOffset == this.leftLength
+                        : "" + "Violation of: [there are $this.leftLength entries"
+                                + " before position $this.fenceOffset of"
+                                + " $this.fence]";
+                fenceFound = true;
+            }
+            if (n != this.postFinish) {
+                assert n.entries != null
+                        && n.entries.length == this.blockCapacity
+                        : "Violation of: |n.entries| = $this.blockCapacity";
+                assert 1 <= n.count && n.count <= n.entries.length
+                        : "Violation of: 1 <= n.count <= |n.entries|";
+                for (int i = 0; i < n.entries.length; i++) {
+                    assert (i < n.count) == (n.entries[i] != null)
+                            : "" + "Violation of: [entries in n.entries[0, n.count)"
+                                    + " are not null, the rest are null]";
+                }
+                count += n.count;
+            }
+        }
+        assert count == length : "" + "Violation of: [the sum of n.count is"
+                + " $this.leftLength + $this.rightLength]";
+        assert n == this.postFinish
+                : "" + "Violation of: [$this.postFinish points to the last"
+                        + " node in that doubly linked list]";
+        assert fenceFound : "Violation of: [$this.fence is in the list]";
+
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param capacity
+     *            number of entries a node can hold
+     */
+    private void createNewRep(int capacity) {
+        this.blockCapacity = capacity;
+        this.preStart = new Node();
+        this.postFinish = new Node();
+        this.preStart.next = this.postFinish;
+        this.postFinish.previous = this.preStart;
+        this.fence = this.postFinish;
+        this.fenceOffset = 0;
+        this.leftLength = 0;
+        this.rightLength = 0;
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public List4() {
+        this.createNewRep(DEFAULT_BLOCK_CAPACITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from the number of entries a node can hold.
+     *
+     * @param blockCapacity
+     *            number of entries a node can hold
+     * @requires blockCapacity >= 2
+     */
+    public List4(int blockCapacity) {
+        assert blockCapacity >= 2 : "Violation of: blockCapacity >= 2";
+        this.createNewRep(blockCapacity);
+        assert this.conventionHolds();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final List4<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(int.class)
+                    .newInstance(this.blockCapacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.blockCapacity);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(List<T> source) {
+        assert source instanceof List4<?>
+                : "" + "Violation of: source is of dynamic type List4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type List4<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        List4<T> localSource = (List4<T>) source;
+        this.blockCapacity = localSource.blockCapacity;
+        this.preStart = localSource.preStart;
+        this.postFinish = localSource.postFinish;
+        this.fence = localSource.fence;
+        this.fenceOffset = localSource.fenceOffset;
+        this.leftLength = localSource.leftLength;
+        this.rightLength = localSource.rightLength;
+        localSource.createNewRep(localSource.blockCapacity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    @Override
+    public final void addRightFront(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        if (this.fence == this.postFinish) {
+            // this.right is empty: add at the end of the last node, if any
+            Node last = this.postFinish.previous;
+            if (last == this.preStart || last.count == this.blockCapacity) {
+                last = this.linkAfter(last);
+            }
+            this.fence = last;
+            this.fenceOffset = last.count;
+            this.insert(last, last.count, x);
+        } else if (this.fence.count < this.blockCapacity) {
+            this.insert(this.fence, this.fenceOffset, x);
+        } else if (this.fenceOffset == 0 && this.fence.previous != this.preStart
+                && this.fence.previous.count < this.blockCapacity) {
+            // Fence is at the start of a full node: add at the end of the
+            // previous one instead
+            this.fence = this.fence.previous;
+            this.fenceOffset = this.fence.count;
+            this.insert(this.fence, this.fenceOffset, x);
+        } else {
+            // Fence node is full: split it in half
+            int half = this.blockCapacity / 2;
+            Node upper = this.linkAfter(this.fence);
+            this.moveEntries(this.fence, half, upper);
+            if (this.fenceOffset > half) {
+                this.fence = upper;
+                this.fenceOffset -= half;
+            }
+            this.insert(this.fence, this.fenceOffset, x);
+        }
+        this.rightLength++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeRightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        Node n = this.fence;
+        T removed = n.entries[this.fenceOffset];
+        System.arraycopy(n.entries, this.fenceOffset + 1, n.entries,
+                this.fenceOffset, n.count - this.fenceOffset - 1);
+        n.count--;
+        n.entries[n.count] = null;
+        if (n.count == 0) {
+            this.unlink(n);
+            this.fence = n.next;
+            this.fenceOffset = 0;
+        } else {
+            // Merge with the next node if the two now fit comfortably in one
+            Node next = n.next;
+            int mergeLimit = this.blockCapacity - this.blockCapacity / 4;
+            if (next != this.postFinish && n.count + next.count <= mergeLimit) {
+                this.moveEntries(next, 0, n);
+                this.unlink(next);
+            }
+            if (this.fenceOffset == n.count) {
+                this.fence = n.next;
+                this.fenceOffset = 0;
+            }
+        }
+        this.rightLength--;
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final void advance() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        this.fenceOffset++;
+        if (this.fenceOffset == this.fence.count) {
+            this.fence = this.fence.next;
+            this.fenceOffset = 0;
+        }
+        this.leftLength++;
+        this.rightLength--;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void moveToStart() {
+        this.fence = this.preStart.next;
+        this.fenceOffset = 0;
+        this.rightLength = this.rightLength + this.leftLength;
+        this.leftLength = 0;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final int leftLength() {
+        assert this.conventionHolds();
+        return this.leftLength;
+    }
+
+    @Override
+    public final int rightLength() {
+        assert this.conventionHolds();
+        return this.rightLength;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        assert this.conventionHolds();
+        return new List4Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code List4}.
+     */
+    private final class List4Iterator implements Iterator<T> {
+
+        /**
+         * Current node in the linked list.
+         */
+        private Node current;
+
+        /**
+         * Position of the next entry to return in current.
+         */
+        private int offset;
+
+        /**
+         * No-argument constructor.
+         */
+        private List4Iterator() {
+            this.current = List4.this.preStart.next;
+            this.offset = 0;
+            assert List4.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current != List4.this.postFinish;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = this.current.entries[this.offset];
+            this.offset++;
+            if (this.offset == this.current.count) {
+                this.current = this.current.next;
+                this.offset = 0;
+            }
+            assert List4.this.conventionHolds();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final void moveToFinish() {
+        this.fence = this.postFinish;
+        this.fenceOffset = 0;
+        this.leftLength = this.leftLength + this.rightLength;
+        this.rightLength = 0;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void retreat() {
+        assert this.leftLength() > 0 : "Violation of: this.left /= <>";
+
+        if (this.fenceOffset > 0) {
+            this.fenceOffset--;
+        } else {
+            this.fence = this.fence.previous;
+            this.fenceOffset = this.fence.count - 1;
+        }
+        this.rightLength++;
+        this.leftLength--;
+
+        assert this.conventionHolds();
+    }
+
+}
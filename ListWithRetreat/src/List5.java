@@ -0,0 +1,571 @@
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import components.list.List;
+import components.list.ListSecondary;
+
+/**
+ * {@code List} represented as an indexable skip list, done "bare-handed", with
+ * implementations of primary methods, {@code retreat} and {@code moveToFinish}
+ * secondary methods, and {@code moveTo}, which moves the fence to any
+ * position.
+ *
+ * <p>
+ * The bottom level is a doubly linked list like {@code List3}'s, so
+ * {@code advance}, {@code retreat} and {@code moveToStart} are O(1). Each node
+ * also has a random number of higher-level links, each recording how many
+ * entries it skips, so {@code moveTo} (and {@code moveToFinish}) can find any
+ * position in expected O(log n) time instead of O(n) calls to
+ * {@code advance}. {@code addRightFront} and {@code removeRightFront} also
+ * take expected O(log n) time, to fix the skip counts of the links over the
+ * fence. Node levels are drawn with probability 1/2 of each extra level, up to
+ * {@code MAX_LEVEL}.
+ * </p>
+ *
+ * @param <T>
+ *            type of {@code List} entries
+ * @convention <pre>
+ * $this.leftLength >= 0  and
+ * [$this.rightLength >= 0] and
+ * 1 <= $this.levels <= MAX_LEVEL  and
+ * [$this.preStart is not null]  and
+ * [$this.lastLeft is not null]  and
+ * [$this.preStart.next[0] points to the first node of a null-terminated
+ *  list, linked by next[0], of ($this.leftLength + $this.rightLength) nodes,
+ *  and previous[0] of each of these nodes is the one before it, the first
+ *  one's being $this.preStart]  and
+ * [$this.lastLeft is $this.preStart or the $this.leftLength-th node of that
+ *  list]  and
+ * [|$this.preStart.next| = MAX_LEVEL  and
+ *  1 <= |n.next| = |n.skip| <= $this.levels for every other node n]  and
+ * [with rank($this.preStart) = 0, rank(the k-th node) = k and
+ *  rank(null) = $this.leftLength + $this.rightLength + 1, for every node n
+ *  and 0 <= i < min(|n.next|, $this.levels), n.next[i] is the first node
+ *  after n with at least i + 1 levels, or null if there is none, and
+ *  n.skip[i] = rank(n.next[i]) - rank(n)]  and
+ * |$this.before| = |$this.beforeRank| = MAX_LEVEL  and
+ * [every entry of $this.before is null]
+ * </pre>
+ * @correspondence <pre>
+ * this =
+ *  ([data in nodes starting at $this.preStart.next[0] and running through
+ *    $this.lastLeft],
+ *   [data in nodes starting at $this.lastLeft.next[0] and running to the
+ *    end of the list])
+ * </pre>
+ */
+public class List5<T> extends ListSecondary<T> {
+
+    /**
+     * Largest number of levels of a node, enough for lists of up to about
+     * 2^MAX_LEVEL entries.
+     */
+    private static final int MAX_LEVEL = 32;
+
+    /**
+     * Node class for skip list nodes.
+     */
+    private final class Node {
+
+        /**
+         * Data in node, or, if this is the "smart" Node, irrelevant.
+         */
+        private T data;
+
+        /**
+         * Next node at each level, or null.
+         */
+        private Node[] next;
+
+        /**
+         * Number of entries from this node to next[i] at each level i.
+         */
+        private int[] skip;
+
+        /**
+         * Previous node at level 0.
+         */
+        private Node previous;
+
+        /**
+         * Constructor.
+         *
+         * @param data
+         *            data in node
+         * @param levels
+         *            number of levels of the node
+         */
+        private Node(T data, int levels) {
+            this.data = data;
+            this.next = List5.this.newNodeArray(levels);
+            this.skip = new int[levels];
+        }
+
+    }
+
+    /**
+     * "Smart node" before start node of skip list, with MAX_LEVEL levels.
+     */
+    private Node preStart;
+
+    /**
+     * Last node of skip list in this.left, or preStart.
+     */
+    private Node lastLeft;
+
+    /**
+     * Number of levels in use.
+     */
+    private int levels;
+
+    /**
+     * Length of this.left.
+     */
+    private int leftLength;
+
+    /**
+     * Length of this.right.
+     */
+    private int rightLength;
+
+    /**
+     * Scratch space for {@code find}'s nodes in {@code addRightFront} and
+     * {@code removeRightFront}, allocated once so those do not allocate it on
+     * every call; all null between calls, so it keeps no node alive.
+     */
+    private Node[] before;
+
+    /**
+     * Scratch space for {@code find}'s ranks in {@code addRightFront} and
+     * {@code removeRightFront}.
+     */
+    private int[] beforeRank;
+
+    /**
+     * Returns a new array of {@code length} null node references.
+     *
+     * @param length
+     *            the length of the array
+     * @return the new array
+     */
+    @SuppressWarnings("unchecked")
+    private Node[] newNodeArray(int length) {
+        /*
+         * Arrays of an inner class of a generic class cannot be created, so
+         * this cast results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        return (Node[]) new List5<?>.Node[length];
+    }
+
+    /**
+     * Returns a random number of levels for a new node: 1 with probability
+     * 1/2, 2 with probability 1/4, and so on, up to MAX_LEVEL.
+     *
+     * @return the number of levels
+     * @ensures 1 <= randomLevels <= MAX_LEVEL
+     */
+    private static int randomLevels() {
+        int bits = ThreadLocalRandom.current().nextInt() | (1 << (MAX_LEVEL - 1));
+        return Integer.numberOfTrailingZeros(bits) + 1;
+    }
+
+    /**
+     * Finds, at each level in use, the last node whose rank is at most
+     * {@code position}, and returns the node found at level 0, which has rank
+     * {@code position}.
+     *
+     * @param position
+     *            the rank to find
+     * @param before
+     *            where to record the node found at each level, or null
+     * @param beforeRank
+     *            where to record the rank of the node found at each level, or
+     *            null
+     * @return the node with rank position
+     * @updates before, beforeRank
+     * @requires <pre>
+     * 0 <= position <= $this.leftLength + $this.rightLength  and
+     * [before and beforeRank are both null or both have length MAX_LEVEL]
+     * </pre>
+     */
+    private Node find(int position, Node[] before, int[] beforeRank) {
+        Node n = this.preStart;
+        int rank = 0;
+        for (int i = this.levels - 1; i >= 0; i--) {
+            while (n.next[i] != null && rank + n.skip[i] <= position) {
+                rank += n.skip[i];
+                n = n.next[i];
+            }
+            if (before != null) {
+                before[i] = n;
+                beforeRank[i] = rank;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.leftLength >= 0  and
+     * [$this.rightLength >= 0] and
+     * 1 <= $this.levels <= MAX_LEVEL  and
+     * [$this.preStart is not null]  and
+     * [$this.lastLeft is not null]  and
+     * [$this.preStart.next[0] points to the first node of a null-terminated
+     *  list, linked by next[0], of ($this.leftLength + $this.rightLength) nodes,
+     *  and previous[0] of each of these nodes is the one before it, the first
+     *  one's being $this.preStart]  and
+     * [$this.lastLeft is $this.preStart or the $this.leftLength-th node of that
+     *  list]  and
+     * [|$this.preStart.next| = MAX_LEVEL  and
+     *  1 <= |n.next| = |n.skip| <= $this.levels for every other node n]  and
+     * [with rank($this.preStart) = 0, rank(the k-th node) = k and
+     *  rank(null) = $this.leftLength + $this.rightLength + 1, for every node n
+     *  and 0 <= i < min(|n.next|, $this.levels), n.next[i] is the first node
+     *  after n with at least i + 1 levels, or null if there is none, and
+     *  n.skip[i] = rank(n.next[i]) - rank(n)]  and
+     * |$this.before| = |$this.beforeRank| = MAX_LEVEL  and
+     * [every entry of $this.before is null]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.leftLength >= 0 : "Violation of: $this.leftLength >= 0";
+        assert this.rightLength >= 0 : "Violation of: $this.rightLength >= 0";
+        assert 1 <= this.levels && this.levels <= MAX_LEVEL
+                : "Violation of: 1 <= $this.levels <= MAX_LEVEL";
+        assert this.preStart != null : "Violation of: $this.preStart is not null";
+        assert this.lastLeft != null : "Violation of: $this.lastLeft is not null";
+        assert this.preStart.next.length == MAX_LEVEL
+                : "Violation of: |$this.preStart.next| = MAX_LEVEL";
+        assert this.before.length == MAX_LEVEL
+                && this.beforeRank.length == MAX_LEVEL
+                : "Violation of: |$this.before| = |$this.beforeRank| = MAX_LEVEL";
+        for (Node b : this.before) {
+            assert b == null
+                    : "Violation of: [every entry of $this.before is null]";
+        }
+
+        int length = this.leftLength + this.rightLength;
+        Map<Node, Integer> rank = new IdentityHashMap<Node, Integer>();
+        rank.put(this.preStart, 0);
+        Node n = this.preStart;
+        while (rank.size() <= length && n.next[0] != null) {
+            assert n.next[0].previous == n : "" + "Violation of: [previous[0] of"
+                    + " each node is the one before it]";
+            n = n.next[0];
+            assert 1 <= n.next.length && n.next.length <= this.levels
+                    && n.skip.length == n.next.length
+                    : "Violation of: 1 <= |n.next| = |n.skip| <= $this.levels";
+            rank.put(n, rank.size());
+        }
+        assert rank.size() == length + 1 && n.next[0] == null
+                : "" + "Violation of: [$this.preStart.next[0] points to the first"
+                        + " node of a null-terminated list of"
+                        + " ($this.leftLength + $this.rightLength) nodes]";
+        assert rank.get(this.lastLeft) != null
+                && rank.get(this.lastLeft) == this.leftLength
+                : "" + "Violation of: [$this.lastLeft is $this.preStart or the"
+                        + " $this.leftLength-th node of that list]";
+
+        for (int i = 0; i < this.levels; i++) {
+            Node m = this.preStart;
+            n = this.preStart.next[0];
+            while (m != null) {
+                while (n != null && n.next.length <= i) {
+                    n = n.next[0];
+                }
+                assert m.next[i] == n : "" + "Violation of: [n.next[i] is the"
+                        + " first node after n with at least i + 1 levels]";
+                int nextRank = (n == null) ? length + 1 : rank.get(n);
+                assert m.skip[i] == nextRank - rank.get(m) : ""
+                        + "Violation of: [n.skip[i] = rank(n.next[i]) - rank(n)]";
+                m = n;
+                if (n != null) {
+                    n = n.next[0];
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.preStart = new Node(null, MAX_LEVEL);
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            this.preStart.skip[i] = 1;
+        }
+        this.lastLeft = this.preStart;
+        this.levels = 1;
+        this.leftLength = 0;
+        this.rightLength = 0;
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public List5() {
+        this.before = this.newNodeArray(MAX_LEVEL);
+        this.beforeRank = new int[MAX_LEVEL];
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final List5<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(List<T> source) {
+        assert source instanceof List5<?>
+                : "" + "Violation of: source is of dynamic type List5<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type List5<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        List5<T> localSource = (List5<T>) source;
+        this.preStart = localSource.preStart;
+        this.lastLeft = localSource.lastLeft;
+        this.levels = localSource.levels;
+        this.leftLength = localSource.leftLength;
+        this.rightLength = localSource.rightLength;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    @Override
+    public final void addRightFront(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        int position = this.leftLength;
+        int length = this.leftLength + this.rightLength;
+        int nodeLevels = randomLevels();
+        for (int i = this.levels; i < nodeLevels; i++) {
+            // A new level starts as one link from preStart to the end
+            this.preStart.next[i] = null;
+            this.preStart.skip[i] = length + 1;
+        }
+        this.levels = Math.max(this.levels, nodeLevels);
+
+        Node[] before = this.before;
+        int[] beforeRank = this.beforeRank;
+        this.find(position, before, beforeRank);
+        /*
+         * The new node gets rank position + 1; links that pass over it
+         * skip one more entry, and links it splits are shared out
+         */
+        Node added = new Node(x, nodeLevels);
+        for (int i = 0; i < this.levels; i++) {
+            Node b = before[i];
+            if (i < nodeLevels) {
+                added.next[i] = b.next[i];
+                added.skip[i] = beforeRank[i] + b.skip[i] - position;
+                b.next[i] = added;
+                b.skip[i] = position + 1 - beforeRank[i];
+            } else {
+                b.skip[i]++;
+            }
+        }
+        added.previous = this.lastLeft;
+        if (added.next[0] != null) {
+            added.next[0].previous = added;
+        }
+        Arrays.fill(before, 0, this.levels, null);
+        this.rightLength++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeRightFront() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        Node[] before = this.before;
+        int[] beforeRank = this.beforeRank;
+        this.find(this.leftLength, before, beforeRank);
+        Node removed = this.lastLeft.next[0];
+        for (int i = 0; i < this.levels; i++) {
+            Node b = before[i];
+            if (b.next[i] == removed) {
+                b.next[i] = removed.next[i];
+                b.skip[i] += removed.skip[i] - 1;
+            } else {
+                b.skip[i]--;
+            }
+        }
+        if (removed.next[0] != null) {
+            removed.next[0].previous = this.lastLeft;
+        }
+        Arrays.fill(before, 0, this.levels, null);
+        while (this.levels > 1 && this.preStart.next[this.levels - 1] == null) {
+            this.levels--;
+        }
+        this.rightLength--;
+
+        assert this.conventionHolds();
+        return removed.data;
+    }
+
+    @Override
+    public final void advance() {
+        assert this.rightLength() > 0 : "Violation of: this.right /= <>";
+
+        this.lastLeft = this.lastLeft.next[0];
+        this.leftLength++;
+        this.rightLength--;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void moveToStart() {
+        this.lastLeft = this.preStart;
+        this.rightLength = this.rightLength + this.leftLength;
+        this.leftLength = 0;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final int leftLength() {
+        assert this.conventionHolds();
+        return this.leftLength;
+    }
+
+    @Override
+    public final int rightLength() {
+        assert this.conventionHolds();
+        return this.rightLength;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        assert this.conventionHolds();
+        return new List5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code List5}.
+     */
+    private final class List5Iterator implements Iterator<T> {
+
+        /**
+         * Current node in the linked list.
+         */
+        private Node current;
+
+        /**
+         * No-argument constructor.
+         */
+        private List5Iterator() {
+            this.current = List5.this.preStart.next[0];
+            assert List5.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current != null;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = this.current.data;
+            this.current = this.current.next[0];
+            assert List5.this.conventionHolds();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final void moveToFinish() {
+        this.moveTo(this.leftLength + this.rightLength);
+    }
+
+    @Override
+    public final void retreat() {
+        assert this.leftLength() > 0 : "Violation of: this.left /= <>";
+
+        this.lastLeft = this.lastLeft.previous;
+        this.rightLength++;
+        this.leftLength--;
+
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Moves the fence so that {@code this.left} has length {@code position},
+     * in expected O(log |this|) time.
+     *
+     * @param position
+     *            the new length of this.left
+     * @updates this
+     * @requires 0 <= position <= |this.left| + |this.right|
+     * @ensures <pre>
+     * this.left * this.right = #this.left * #this.right  and
+     * |this.left| = position
+     * </pre>
+     */
+    public final void moveTo(int position) {
+        assert 0 <= position : "Violation of: 0 <= position";
+        assert position <= this.leftLength() + this.rightLength()
+                : "Violation of: position <= |this.left| + |this.right|";
+
+        int length = this.leftLength + this.rightLength;
+        this.lastLeft = this.find(position, null, null);
+        this.leftLength = position;
+        this.rightLength = length - position;
+
+        assert this.conventionHolds();
+    }
+
+}
@@ -0,0 +1,118 @@
+import java.util.Random;
+
+import components.list.List;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare the time to move the fence of a long list to random
+ * positions with {@code moveToStart} and {@code advance} on {@code List3},
+ * and with {@code moveTo} on {@code List5}.
+ *
+ * <p>
+ * Usage: {@code ListSeekBenchmark [numberOfEntries [numberOfSeeks]]}
+ * (defaults 1,000,000 and 10,000). Times are averaged per seek, in
+ * nanoseconds. A seek on {@code List3} takes n/2 calls to {@code advance} on
+ * average, and one on {@code List5} about 2 log n steps through the skip
+ * list, so the ratio between them should grow almost linearly with n.
+ */
+public final class ListSeekBenchmark {
+
+    /**
+     * Default number of entries in the list.
+     */
+    private static final int DEFAULT_ENTRIES = 1_000_000;
+
+    /**
+     * Default number of fence moves.
+     */
+    private static final int DEFAULT_SEEKS = 10_000;
+
+    /**
+     * Seed for the random positions, so runs are repeatable.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ListSeekBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Puts {@code n} entries in {@code list}.
+     *
+     * @param list
+     *            the list to fill
+     * @param n
+     *            the number of entries
+     * @updates list
+     * @requires list = (<>, <>) and n >= 0
+     * @ensures list = (<0, 1, ..., n - 1>, <>)
+     */
+    private static void fill(List<Integer> list, int n) {
+        for (int i = 0; i < n; i++) {
+            list.addRightFront(i);
+            list.advance();
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional number of entries and
+     *            number of seeks
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int n = DEFAULT_ENTRIES;
+        int seeks = DEFAULT_SEEKS;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            seeks = Integer.parseInt(args[1]);
+        }
+        int[] positions = new int[seeks];
+        Random random = new Random(SEED);
+        for (int i = 0; i < seeks; i++) {
+            positions[i] = random.nextInt(n + 1);
+        }
+
+        List<Integer> list3 = new List3<Integer>();
+        fill(list3, n);
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int k : positions) {
+            list3.moveToStart();
+            for (int i = 0; i < k; i++) {
+                list3.advance();
+            }
+            checksum += list3.leftLength();
+        }
+        long elapsed = System.nanoTime() - start;
+        int perSeek = Math.max(1, seeks);
+        out.println("List3 moveToStart + advance, n=" + n + ": "
+                + (elapsed / perSeek) + " ns/seek (checksum "
+                + checksum + ")");
+
+        List5<Integer> list5 = new List5<Integer>();
+        fill(list5, n);
+        checksum = 0;
+        start = System.nanoTime();
+        for (int k : positions) {
+            list5.moveTo(k);
+            checksum += list5.leftLength();
+        }
+        elapsed = System.nanoTime() - start;
+        out.println("List5 moveTo, n=" + n + ": "
+                + (elapsed / perSeek) + " ns/seek (checksum "
+                + checksum + ")");
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,121 @@
+import java.util.concurrent.TimeUnit;
+
+import components.list.List;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare the time {@code List3} (one node per entry) and
+ * {@code List4} (unrolled, a block of entries per node) take to build a long
+ * list and to walk it with {@code advance}, {@code retreat} and the iterator.
+ *
+ * <p>
+ * Usage: {@code ListTraversalBenchmark [numberOfEntries]} (default
+ * 10,000,000, which needs a heap of a few GB, {@code -Xmx}). Building is
+ * timed once, in milliseconds. Each walk is timed {@code REPETITIONS} times
+ * and the best time is given in nanoseconds per entry. At that scale the
+ * difference is memory traffic: {@code List3} follows a pointer to a
+ * separately allocated node for every entry, while {@code List4} reads
+ * neighbouring entries from the same block.
+ */
+public final class ListTraversalBenchmark {
+
+    /**
+     * Default number of entries in the list.
+     */
+    private static final int DEFAULT_ENTRIES = 10_000_000;
+
+    /**
+     * Number of times each walk is timed; the best time is reported.
+     */
+    private static final int REPETITIONS = 5;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ListTraversalBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Builds a list of {@code n} entries in {@code list}, walks it, and
+     * outputs the times taken.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param list
+     *            the list to use
+     * @param n
+     *            the number of entries
+     * @updates out.content, list
+     * @requires out.is_open and list = (<>, <>) and n >= 0
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void run(SimpleWriter out, String label, List<Integer> list,
+            int n) {
+        Integer[] entries = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            entries[i] = i;
+        }
+        long start = System.nanoTime();
+        for (Integer x : entries) {
+            list.addRightFront(x);
+            list.advance();
+        }
+        long built = System.nanoTime();
+        out.println(label + " build n=" + n + ": "
+                + TimeUnit.NANOSECONDS.toMillis(built - start) + " ms");
+
+        long bestAdvance = Long.MAX_VALUE;
+        long bestRetreat = Long.MAX_VALUE;
+        long bestIterate = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int r = 0; r < REPETITIONS; r++) {
+            long t0 = System.nanoTime();
+            list.moveToStart();
+            while (list.rightLength() > 0) {
+                list.advance();
+            }
+            long t1 = System.nanoTime();
+            while (list.leftLength() > 0) {
+                list.retreat();
+            }
+            long t2 = System.nanoTime();
+            for (Integer x : list) {
+                checksum += x;
+            }
+            long t3 = System.nanoTime();
+            bestAdvance = Math.min(bestAdvance, t1 - t0);
+            bestRetreat = Math.min(bestRetreat, t2 - t1);
+            bestIterate = Math.min(bestIterate, t3 - t2);
+        }
+        int perEntry = Math.max(1, n);
+        out.println(label + " advance: " + ((double) bestAdvance / perEntry)
+                + " ns/entry, retreat: " + ((double) bestRetreat / perEntry)
+                + " ns/entry, iterate: " + ((double) bestIterate / perEntry)
+                + " ns/entry (checksum " + checksum + ")");
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional number of entries
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int n = DEFAULT_ENTRIES;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+
+        run(out, "List3", new List3<Integer>(), n);
+        run(out, "List4", new List4<Integer>(), n);
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,25 @@
+import components.list.List;
+import components.list.List1L;
+
+/**
+ * Customized JUnit test fixture for {@code List4} with the smallest nodes, so
+ * that even the short lists in the tests split and merge nodes.
+ */
+public class List4Test2 extends ListTest {
+
+    /**
+     * Node capacity to be used in tests.
+     */
+    private static final int TEST_BLOCK_CAPACITY = 2;
+
+    @Override
+    protected final List<String> constructorTest() {
+        return new List4<String>(TEST_BLOCK_CAPACITY);
+    }
+
+    @Override
+    protected final List<String> constructorRef() {
+        return new List1L<String>();
+    }
+
+}
@@ -0,0 +1,105 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.list.List;
+import components.list.List1L;
+
+/**
+ * Customized JUnit test fixture for {@code List5}, including its
+ * {@code moveTo} method.
+ */
+public class List5Test extends ListTest {
+
+    @Override
+    protected final List<String> constructorTest() {
+        return new List5<String>();
+    }
+
+    @Override
+    protected final List<String> constructorRef() {
+        return new List1L<String>();
+    }
+
+    /**
+     * Returns a {@code List5} holding the given entries, with the fence at
+     * {@code leftLength}.
+     *
+     * @param leftLength
+     *            the length of the left string
+     * @param args
+     *            the entries for the list
+     * @return the constructed list
+     * @requires 0 <= leftLength <= args.length
+     */
+    private List5<String> createFromArgsList5(int leftLength, String... args) {
+        List5<String> list = new List5<String>();
+        for (String s : args) {
+            list.addRightFront(s);
+            list.advance();
+        }
+        list.moveToStart();
+        for (int i = 0; i < leftLength; i++) {
+            list.advance();
+        }
+        return list;
+    }
+
+    @Test
+    public final void testMoveToEmpty() {
+        List5<String> list = this.createFromArgsList5(0);
+        List<String> listExpected = this.createFromArgsRef(0);
+        list.moveTo(0);
+        assertEquals(listExpected, list);
+    }
+
+    @Test
+    public final void testMoveToStartFromMiddle() {
+        List5<String> list = this.createFromArgsList5(2, "red", "green", "blue");
+        List<String> listExpected = this.createFromArgsRef(0, "red", "green",
+                "blue");
+        list.moveTo(0);
+        assertEquals(listExpected, list);
+    }
+
+    @Test
+    public final void testMoveToFinishFromStart() {
+        List5<String> list = this.createFromArgsList5(0, "red", "green", "blue");
+        List<String> listExpected = this.createFromArgsRef(3, "red", "green",
+                "blue");
+        list.moveTo(3);
+        assertEquals(listExpected, list);
+    }
+
+    @Test
+    public final void testMoveToSamePosition() {
+        List5<String> list = this.createFromArgsList5(1, "red", "green", "blue");
+        List<String> listExpected = this.createFromArgsRef(1, "red", "green",
+                "blue");
+        list.moveTo(1);
+        assertEquals(listExpected, list);
+    }
+
+    @Test
+    public final void testMoveToEveryPositionLong() {
+        final int n = 300;
+        String[] entries = new String[n];
+        for (int i = 0; i < n; i++) {
+            entries[i] = Integer.toString(i);
+        }
+        List5<String> list = this.createFromArgsList5(0, entries);
+        for (int k = n; k >= 0; k -= 7) {
+            list.moveTo(k);
+            assertEquals(k, list.leftLength());
+            assertEquals(n - k, list.rightLength());
+            if (k < n) {
+                String x = list.removeRightFront();
+                assertEquals(entries[k], x);
+                list.addRightFront(x);
+            }
+        }
+        list.moveTo(n / 2);
+        assertEquals(this.createFromArgsRef(n / 2, entries), list);
+    }
+
+}
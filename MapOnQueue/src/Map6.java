@@ -0,0 +1,609 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as two parallel arrays of keys and values that is
+ * searched by move-to-front while it is small and indexed by a hash table once
+ * it grows, with implementations of primary methods.
+ *
+ * <p>
+ * The pairs are kept packed at the start of {@code $this.keys} and
+ * {@code $this.values}. While there are at most {@code PROMOTE_SIZE} of them
+ * there is no index: {@code hasKey}, {@code value} and {@code remove} scan the
+ * arrays from the front, and a key that is found is moved to the front, like
+ * {@code Map2} does with its queue but with no allocation, so keys that are
+ * used often are found after a comparison or two. When {@code add} makes the
+ * map bigger, it builds {@code $this.index}, an open-addressing (linear
+ * probing) hash table holding the position in the arrays of each key, and
+ * from then on all operations take expected O(1) time. When {@code remove}
+ * shrinks the map below {@code DEMOTE_SIZE}, the index is dropped again; the
+ * gap between the two sizes keeps a map whose size hovers around either one
+ * from building and dropping its index over and over.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions <pre>
+ * HOME(
+ *   x: K,
+ *   n: integer
+ *  ): integer is
+ *  [computed result of spread(x.hashCode())] mod n
+ * </pre>
+ * @convention <pre>
+ * |$this.keys| = |$this.values| >= MIN_CAPACITY  and
+ * 0 <= $this.size <= |$this.keys|  and
+ * [entries in $this.keys[0, $this.size) and $this.values[0, $this.size)
+ *  are not null, and all other entries are null]  and
+ * [no two entries of $this.keys are equal]  and
+ * if $this.index = null then
+ *   $this.size <= PROMOTE_SIZE
+ * else
+ *   $this.size >= DEMOTE_SIZE  and  [|$this.index| is a power of 2]  and
+ *   $this.size * MAX_LOAD_DENOMINATOR <= |$this.index| * MAX_LOAD_NUMERATOR  and
+ *   [every entry of $this.index is 0 (empty) or p + 1 for a position p
+ *    in [0, $this.size), and each such p appears exactly once]  and
+ *   [the entry p + 1 for the key x = $this.keys[p] is in $this.index at
+ *    HOME(x, |$this.index|) or after it, with no empty entry between]
+ * </pre>
+ * @correspondence <pre>
+ * this = {(x, y): (K, V)
+ *         where there exists p: integer
+ *                   (0 <= p  and  p < $this.size  and
+ *                    <x> = $this.keys[p, p+1)  and
+ *                    <y> = $this.values[p, p+1))}
+ * </pre>
+ */
+public class Map6<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Smallest length of the keys and values arrays.
+     */
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * Largest size at which the map has no index.
+     */
+    private static final int PROMOTE_SIZE = 16;
+
+    /**
+     * Smallest size at which the map keeps its index.
+     */
+    private static final int DEMOTE_SIZE = 8;
+
+    /**
+     * Numerator of the maximum load factor of the index (1/2).
+     */
+    private static final int MAX_LOAD_NUMERATOR = 1;
+
+    /**
+     * Denominator of the maximum load factor of the index (1/2).
+     */
+    private static final int MAX_LOAD_DENOMINATOR = 2;
+
+    /**
+     * Keys, packed at the start.
+     */
+    private K[] keys;
+
+    /**
+     * Values, parallel to {@code keys}.
+     */
+    private V[] values;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Hash index: for each key, its position in {@code keys} plus one, or 0
+     * for an empty slot; null while the map is small.
+     */
+    private int[] index;
+
+    /**
+     * Returns the smallest index size that is a power of 2, at least
+     * {@code MIN_CAPACITY}, and big enough for {@code n} keys.
+     *
+     * @param n
+     *            the number of keys
+     * @return the index size to use
+     * @requires n >= 0
+     * @ensures <pre>
+     * [indexSizeFor is a power of 2]  and  indexSizeFor >= MIN_CAPACITY  and
+     * n * MAX_LOAD_DENOMINATOR <= indexSizeFor * MAX_LOAD_NUMERATOR  and
+     * [indexSizeFor is the smallest such number]
+     * </pre>
+     */
+    private static int indexSizeFor(int n) {
+        int indexSize = MIN_CAPACITY;
+        while (n * MAX_LOAD_DENOMINATOR > indexSize * MAX_LOAD_NUMERATOR) {
+            indexSize *= 2;
+        }
+        return indexSize;
+    }
+
+    /**
+     * Returns the home slot of {@code key} in an index of size {@code n}.
+     *
+     * @param key
+     *            the key
+     * @param n
+     *            the index size
+     * @return HOME(key, n)
+     * @requires [n is a power of 2]
+     * @ensures home = HOME(key, n)
+     */
+    private static int home(Object key, int n) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & (n - 1);
+    }
+
+    /**
+     * Returns the slot of the index that refers to {@code key}, or the empty
+     * slot where the probe sequence for {@code key} ends if it is not present.
+     *
+     * @param key
+     *            the key to be searched for
+     * @return the slot
+     * @requires $this.index /= null
+     * @ensures <pre>
+     * 0 <= findSlot < |$this.index|  and
+     * if key is in DOMAIN(this) then
+     *   <key> = $this.keys[$this.index[findSlot] - 1,
+     *                      $this.index[findSlot])
+     * else
+     *   $this.index[findSlot] = 0
+     * </pre>
+     */
+    private int findSlot(K key) {
+        int mask = this.index.length - 1;
+        int i = home(key, this.index.length);
+        while (this.index[i] != 0 && !this.keys[this.index[i] - 1].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the position of {@code key} in the keys array, or -1 if it is
+     * not there. While the map has no index, a key that is found is first
+     * moved to the front, so its position is 0.
+     *
+     * @param key
+     *            the key to be searched for
+     * @return the position of key, or -1
+     * @updates $this.keys, $this.values
+     * @ensures <pre>
+     * this = #this  and
+     * if key is in DOMAIN(this) then
+     *   <key> = $this.keys[find, find+1)
+     * else
+     *   find = -1
+     * </pre>
+     */
+    private int find(K key) {
+        int p = -1;
+        if (this.index == null) {
+            int i = 0;
+            while (i < this.size && !this.keys[i].equals(key)) {
+                i++;
+            }
+            if (i < this.size) {
+                if (i > 0) {
+                    this.moveToFront(i);
+                }
+                p = 0;
+            }
+        } else {
+            p = this.index[this.findSlot(key)] - 1;
+        }
+        return p;
+    }
+
+    /**
+     * Moves the pair at position {@code p} to position 0, shifting the pairs
+     * before it back by one.
+     *
+     * @param p
+     *            the position of the pair to move
+     * @updates $this.keys, $this.values
+     * @requires $this.index = null  and  0 <= p < $this.size
+     * @ensures this = #this  and  $this.keys[0] = #$this.keys[p]
+     */
+    private void moveToFront(int p) {
+        K key = this.keys[p];
+        V value = this.values[p];
+        // p is at most PROMOTE_SIZE, too few for System.arraycopy to pay off
+        for (int i = p; i > 0; i--) {
+            this.keys[i] = this.keys[i - 1];
+            this.values[i] = this.values[i - 1];
+        }
+        this.keys[0] = key;
+        this.values[0] = value;
+    }
+
+    /**
+     * Replaces the keys and values arrays with ones of length
+     * {@code capacity} holding the same pairs.
+     *
+     * @param capacity
+     *            the new length of the arrays
+     * @updates $this.keys, $this.values
+     * @requires capacity >= MIN_CAPACITY  and  $this.size <= capacity
+     * @ensures |$this.keys| = capacity  and  this = #this
+     */
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        K[] newKeys = (K[]) new Object[capacity];
+        V[] newValues = (V[]) new Object[capacity];
+        System.arraycopy(this.keys, 0, newKeys, 0, this.size);
+        System.arraycopy(this.values, 0, newValues, 0, this.size);
+        this.keys = newKeys;
+        this.values = newValues;
+    }
+
+    /**
+     * Builds a new index of {@code indexSize} slots for all the pairs.
+     *
+     * @param indexSize
+     *            the size of the new index
+     * @updates $this.index
+     * @requires <pre>
+     * [indexSize is a power of 2]  and
+     * $this.size * MAX_LOAD_DENOMINATOR <= indexSize * MAX_LOAD_NUMERATOR
+     * </pre>
+     * @ensures |$this.index| = indexSize  and  [$this.index indexes the pairs]
+     */
+    private void rebuildIndex(int indexSize) {
+        this.index = new int[indexSize];
+        int mask = indexSize - 1;
+        for (int p = 0; p < this.size; p++) {
+            int i = home(this.keys[p], indexSize);
+            while (this.index[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            this.index[i] = p + 1;
+        }
+    }
+
+    /**
+     * Empties slot {@code hole} of the index and shifts back any later entries
+     * of the same probe run that can move closer to their home slots, so that
+     * lookups never stop early at the new hole.
+     *
+     * @param hole
+     *            the slot to be emptied
+     * @updates $this.index
+     * @requires $this.index /= null  and  0 <= hole < |$this.index|
+     * @ensures <pre>
+     * [the entry formerly at slot hole is no longer in $this.index, and every
+     *  other entry still is]
+     * </pre>
+     */
+    private void deleteSlot(int hole) {
+        int n = this.index.length;
+        int mask = n - 1;
+        int i = hole;
+        int j = (i + 1) & mask;
+        while (this.index[j] != 0) {
+            int h = home(this.keys[this.index[j] - 1], n);
+            /*
+             * The entry at j may fill the hole at i only if its home slot is
+             * not cyclically within (i, j].
+             */
+            if (((j - h) & mask) >= ((j - i) & mask)) {
+                this.index[i] = this.index[j];
+                i = j;
+            }
+            j = (j + 1) & mask;
+        }
+        this.index[i] = 0;
+    }
+
+    /**
+     * Removes and returns the pair at position {@code p}, moving the last pair
+     * into its place and changing representation or shrinking the arrays if
+     * the map has become small enough.
+     *
+     * @param p
+     *            the position of the pair to be removed
+     * @return the removed pair
+     * @updates this
+     * @requires 0 <= p < $this.size
+     * @ensures <pre>
+     * removeAt = (#$this.keys[p], #$this.values[p])  and
+     * this = #this \ {removeAt}
+     * </pre>
+     */
+    private Pair<K, V> removeAt(int p) {
+        Pair<K, V> removed = new SimplePair<>(this.keys[p], this.values[p]);
+        int last = this.size - 1;
+        if (this.index != null) {
+            this.deleteSlot(this.findSlot(this.keys[p]));
+            if (p != last) {
+                // the last pair moves to position p
+                this.index[this.findSlot(this.keys[last])] = p + 1;
+            }
+        }
+        this.keys[p] = this.keys[last];
+        this.values[p] = this.values[last];
+        this.keys[last] = null;
+        this.values[last] = null;
+        this.size = last;
+
+        if (this.index != null) {
+            if (this.size < DEMOTE_SIZE) {
+                this.index = null;
+            } else if (4 * this.size * MAX_LOAD_DENOMINATOR < this.index.length
+                    * MAX_LOAD_NUMERATOR) {
+                this.rebuildIndex(indexSizeFor(this.size));
+            }
+        }
+        if (this.keys.length > MIN_CAPACITY && this.size < this.keys.length / 4) {
+            this.resize(this.keys.length / 2);
+        }
+        return removed;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * |$this.keys| = |$this.values| >= MIN_CAPACITY  and
+     * 0 <= $this.size <= |$this.keys|  and
+     * [entries in $this.keys[0, $this.size) and $this.values[0, $this.size)
+     *  are not null, and all other entries are null]  and
+     * if $this.index = null then
+     *   $this.size <= PROMOTE_SIZE
+     * else
+     *   $this.size >= DEMOTE_SIZE  and
+     *   [every position in [0, $this.size) is found through $this.index]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.keys.length == this.values.length
+                && this.keys.length >= MIN_CAPACITY
+                : "Violation of: |$this.keys| = |$this.values| >= MIN_CAPACITY";
+        assert 0 <= this.size && this.size <= this.keys.length
+                : "Violation of: 0 <= $this.size <= |$this.keys|";
+        for (int p = 0; p < this.keys.length; p++) {
+            boolean inUse = p < this.size;
+            assert (this.keys[p] != null) == inUse
+                    && (this.values[p] != null) == inUse
+                    : "Violation of: [entries in $this.keys[0, $this.size)"
+                            + " are not null, and all other entries are null]";
+        }
+        if (this.index == null) {
+            assert this.size <= PROMOTE_SIZE
+                    : "Violation of: $this.size <= PROMOTE_SIZE";
+        } else {
+            assert this.size >= DEMOTE_SIZE
+                    : "Violation of: $this.size >= DEMOTE_SIZE";
+            for (int p = 0; p < this.size; p++) {
+                assert this.index[this.findSlot(this.keys[p])] == p + 1
+                        : "Violation of: [every position is found through"
+                                + " $this.index]";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep() {
+        /*
+         * With "new K[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.keys = (K[]) new Object[MIN_CAPACITY];
+        this.values = (V[]) new Object[MIN_CAPACITY];
+        this.size = 0;
+        this.index = null;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map6() {
+
+        this.createNewRep();
+        assert this.conventionHolds();
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map6<?, ?>
+                : "" + "Violation of: source is of dynamic type Map6<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map6<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map6<K, V> localSource = (Map6<K, V>) source;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.size = localSource.size;
+        this.index = localSource.index;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        if (this.size == this.keys.length) {
+            this.resize(2 * this.keys.length);
+        }
+        int p = this.size;
+        this.keys[p] = key;
+        this.values[p] = value;
+        this.size++;
+        if (this.index != null) {
+            if (this.size * MAX_LOAD_DENOMINATOR > this.index.length
+                    * MAX_LOAD_NUMERATOR) {
+                this.rebuildIndex(2 * this.index.length);
+            } else {
+                this.index[this.findSlot(key)] = p + 1;
+            }
+        } else if (this.size > PROMOTE_SIZE) {
+            this.rebuildIndex(indexSizeFor(this.size));
+        } else {
+            // a new key is likely to be used next
+            this.moveToFront(p);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        Pair<K, V> removed = this.removeAt(this.find(key));
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        /*
+         * The last pair is the cheapest to remove. Without the index it is
+         * also the least recently used, as found keys move to the front; with
+         * the index slots keep no recency order, so it is just some pair
+         */
+        Pair<K, V> removed = this.removeAt(this.size - 1);
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.values[this.find(key)];
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.find(key) >= 0;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map6Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map6}.
+     */
+    private final class Map6Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Position of the next pair to return.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        Map6Iterator() {
+            this.current = 0;
+            assert Map6.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < Map6.this.size;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Pair<K, V> next = new SimplePair<>(Map6.this.keys[this.current],
+                    Map6.this.values[this.current]);
+            this.current++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
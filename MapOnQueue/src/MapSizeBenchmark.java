@@ -0,0 +1,175 @@
+import java.util.Random;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare the time {@code Map1L}, {@code Map2} (a queue searched by
+ * move-to-front) and {@code Map6} (adaptive) take on many tiny maps and on one
+ * large map.
+ *
+ * <p>
+ * Usage: {@code MapSizeBenchmark [largeSize]} (default 1,000,000). The tiny
+ * run builds {@code TINY_MAPS} maps of {@code TINY_SIZE} keys and looks up
+ * each one's keys {@code TINY_LOOKUPS} times, mostly its two favorites. The
+ * large run adds {@code largeSize} keys, looks each one up, and removes them
+ * all. {@code Map2} searches its whole queue for every lookup, so its large
+ * run is only given {@code MAP2_LIMIT} keys. The tiny time is per lookup
+ * (including each map's share of building it) and the large time is per key,
+ * both in nanoseconds. The tiny run shows what a short queue with the
+ * favorites at its front costs against hashing; the large run shows whether
+ * {@code Map6}'s time per key stays flat once it has switched to its hash
+ * index.
+ */
+public final class MapSizeBenchmark {
+
+    /**
+     * Default number of keys in the large map.
+     */
+    private static final int DEFAULT_LARGE_SIZE = 1_000_000;
+
+    /**
+     * Largest map given to {@code Map2}.
+     */
+    private static final int MAP2_LIMIT = 10_000;
+
+    /**
+     * Number of tiny maps.
+     */
+    private static final int TINY_MAPS = 100_000;
+
+    /**
+     * Number of keys in each tiny map.
+     */
+    private static final int TINY_SIZE = 6;
+
+    /**
+     * Number of lookups in each tiny map.
+     */
+    private static final int TINY_LOOKUPS = 20;
+
+    /**
+     * Seed for the random lookups.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private MapSizeBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Builds {@code TINY_MAPS} maps like {@code empty}, runs lookups on each,
+     * and outputs the time taken.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param empty
+     *            an empty map of the implementation to time
+     * @param keys
+     *            the keys
+     * @updates out.content
+     * @requires out.is_open and empty = {} and |keys| = TINY_SIZE
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void runTiny(SimpleWriter out, String label,
+            Map<String, Integer> empty, String[] keys) {
+        Random random = new Random(SEED);
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < TINY_MAPS; i++) {
+            Map<String, Integer> m = empty.newInstance();
+            for (int k = 0; k < keys.length; k++) {
+                m.add(keys[k], k);
+            }
+            for (int j = 0; j < TINY_LOOKUPS; j++) {
+                // three lookups in four go to one of two favorite keys
+                int k = random.nextInt(2 * keys.length);
+                if (k >= keys.length) {
+                    k = k & 1;
+                }
+                checksum += m.value(keys[k]);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        double lookups = (double) TINY_MAPS * TINY_LOOKUPS;
+        out.println(label + " tiny: " + (elapsed / lookups)
+                + " ns/lookup (checksum " + checksum + ")");
+    }
+
+    /**
+     * Adds {@code n} keys to {@code m}, looks each one up, removes them all,
+     * and outputs the time taken.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param m
+     *            an empty map of the implementation to time
+     * @param n
+     *            the number of keys
+     * @updates out.content
+     * @requires out.is_open and m = {} and n >= 0
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void runLarge(SimpleWriter out, String label,
+            Map<String, Integer> m, int n) {
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = "key" + i;
+        }
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            m.add(keys[i], i);
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            checksum += m.value(keys[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            checksum += m.remove(keys[i]).value();
+        }
+        long elapsed = System.nanoTime() - start;
+        out.println(label + " large n=" + n + ": "
+                + ((double) elapsed / Math.max(1, n)) + " ns/key (checksum "
+                + checksum + ")");
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional size of the large map
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int n = DEFAULT_LARGE_SIZE;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+        String[] tinyKeys = new String[TINY_SIZE];
+        for (int k = 0; k < TINY_SIZE; k++) {
+            tinyKeys[k] = "field" + k;
+        }
+
+        runTiny(out, "Map1L", new Map1L<String, Integer>(), tinyKeys);
+        runTiny(out, "Map2", new Map2<String, Integer>(), tinyKeys);
+        runTiny(out, "Map6", new Map6<String, Integer>(), tinyKeys);
+        int few = Math.min(n, MAP2_LIMIT);
+        runLarge(out, "Map2", new Map2<String, Integer>(), few);
+        runLarge(out, "Map6", new Map6<String, Integer>(), few);
+        runLarge(out, "Map1L", new Map1L<String, Integer>(), n);
+        runLarge(out, "Map6", new Map6<String, Integer>(), n);
+
+        out.close();
+    }
+
+}
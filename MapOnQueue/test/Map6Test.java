@@ -0,0 +1,70 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map6}.
+ */
+public class Map6Test extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map6<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Test for add and remove as the map grows past the size at which it is
+     * indexed and shrinks back below the size at which the index is dropped.
+     */
+    @Test
+    public final void testGrowAndShrink() {
+        final int n = 100;
+        final int left = 3;
+        Map<String, String> s = this.constructorTest();
+        Map<String, String> sExpected = this.constructorRef();
+        for (int i = 0; i < n; i++) {
+            s.add("k" + i, "v" + i);
+            sExpected.add("k" + i, "v" + i);
+        }
+        assertEquals(sExpected, s);
+        for (int i = 0; i < n; i++) {
+            assertEquals("v" + i, s.value("k" + i));
+        }
+        for (int i = left; i < n; i++) {
+            s.remove("k" + i);
+            sExpected.remove("k" + i);
+        }
+        assertEquals(sExpected, s);
+        assertTrue(s.hasKey("k0"));
+        assertTrue(!s.hasKey("k" + left));
+    }
+
+    /**
+     * Test for value and hasKey on a small map, whose lookups reorder it.
+     */
+    @Test
+    public final void testLookupsKeepPairs() {
+        Map<String, String> s = this.constructorTest();
+        Map<String, String> sExpected = this.constructorRef();
+        String[] keys = { "a", "b", "c", "d" };
+        for (String k : keys) {
+            s.add(k, k.toUpperCase());
+            sExpected.add(k, k.toUpperCase());
+        }
+        assertEquals("C", s.value("c"));
+        assertEquals("A", s.value("a"));
+        assertTrue(s.hasKey("d"));
+        assertTrue(!s.hasKey("e"));
+        assertEquals(sExpected, s);
+    }
+
+}
@@ -9,10 +9,34 @@ import components.map.MapSecondary;
  * {@code Map} represented as a hash table using {@code Map}s for the buckets,
  * with implementations of primary methods.
  *
+ * <p>
+ * By default the hash table has a fixed size. When constructed with
+ * {@code growIncrementally} set, the table doubles once the average bucket
+ * holds more than one pair, but the pairs are not all moved at once: the old
+ * table is kept in {@code $this.oldTable} and every {@code add},
+ * {@code remove} and {@code removeAny} migrates at most
+ * {@code MIGRATION_STEP} of its buckets, so no single call pays for a whole
+ * rehash. Buckets of the new table are created on first use for the same
+ * reason.
+ *
+ * <p>
+ * {@code newInstance} passes this map's initial table size and growth mode to
+ * the {@code (int, boolean)} constructor of the dynamic type, so a subclass
+ * should provide one; if it does not, its no-argument constructor is used.
+ *
  * @param <K>
  *            type of {@code Map} domain (key) entries
  * @param <V>
  *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions <pre>
+ * BUCKETS(
+ *   table: string of PARTIAL_FUNCTION,
+ *   lo: integer
+ *  ): finite set of PARTIAL_FUNCTION is
+ *  {pf: PARTIAL_FUNCTION
+ *   where there exists i: integer
+ *             (lo <= i  and  i < |table|  and  <pf> = table[i, i+1))}
+ * </pre>
  * @convention <pre>
  * |$this.hashTable| > 0  and
  * for all i: integer, pf: PARTIAL_FUNCTION, x: K
@@ -20,18 +44,30 @@ import components.map.MapSecondary;
  *            <pf> = $this.hashTable[i, i+1)  and
  *            x is in DOMAIN(pf))
  *   ([computed result of x.hashCode()] mod |$this.hashTable| = i))  and
- * for all i: integer
- *     where (0 <= i  and  i < |$this.hashTable|)
- *   ([entry at position i in $this.hashTable is not null])  and
- * $this.size = sum i: integer, pf: PARTIAL_FUNCTION
- *     where (0 <= i  and  i < |$this.hashTable|  and
- *            <pf> = $this.hashTable[i, i+1))
+ * [a null entry in $this.hashTable stands for an empty bucket]  and
+ * if $this.oldTable is not null then
+ *   $this.growIncrementally  and
+ *   0 <= $this.migrateIndex < |$this.oldTable|  and
+ *   for all i: integer, pf: PARTIAL_FUNCTION, x: K
+ *       where ($this.migrateIndex <= i  and  i < |$this.oldTable|  and
+ *              <pf> = $this.oldTable[i, i+1)  and
+ *              x is in DOMAIN(pf))
+ *     ([computed result of x.hashCode()] mod |$this.oldTable| = i))  and
+ *   [a null entry in $this.oldTable stands for an empty bucket]  and
+ *   [the domains of the buckets in BUCKETS($this.oldTable,
+ *    $this.migrateIndex) and BUCKETS($this.hashTable, 0) are pairwise
+ *    disjoint]  and
+ * $this.size = sum pf: PARTIAL_FUNCTION
+ *     where (pf is in BUCKETS($this.hashTable, 0)  or
+ *            ($this.oldTable is not null  and
+ *             pf is in BUCKETS($this.oldTable, $this.migrateIndex)))
  *   (|pf|)
  * </pre>
  * @correspondence <pre>
- * this = union i: integer, pf: PARTIAL_FUNCTION
- *            where (0 <= i  and  i < |$this.hashTable|  and
- *                   <pf> = $this.hashTable[i, i+1))
+ * this = union pf: PARTIAL_FUNCTION
+ *            where (pf is in BUCKETS($this.hashTable, 0)  or
+ *                   ($this.oldTable is not null  and
+ *                    pf is in BUCKETS($this.oldTable, $this.migrateIndex)))
  *          (pf)
  * </pre>
  *
@@ -49,11 +85,38 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     private static final int DEFAULT_HASH_TABLE_SIZE = 101;
 
+    /**
+     * Maximum number of old-table buckets migrated by a single call.
+     */
+    private static final int MIGRATION_STEP = 2;
+
     /**
      * Buckets for hashing.
      */
     private Map<K, V>[] hashTable;
 
+    /**
+     * Buckets of the table being migrated out of, or null when no resize is in
+     * progress.
+     */
+    private Map<K, V>[] oldTable;
+
+    /**
+     * Index of the next bucket of {@code oldTable} to be migrated.
+     */
+    private int migrateIndex;
+
+    /**
+     * Whether the hash table grows (incrementally) as pairs are added.
+     */
+    private boolean growIncrementally;
+
+    /**
+     * Size of hash table this was constructed with, passed on to
+     * {@code newInstance} along with {@code growIncrementally}.
+     */
+    private int initialHashTableSize;
+
     /**
      * Total size of abstract {@code this}.
      */
@@ -85,6 +148,102 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         return mod;
     }
 
+    /**
+     * Returns the bucket that holds, or would hold, {@code key}.
+     *
+     * @param key
+     *            the key
+     * @param create
+     *            whether to create the bucket if it does not exist yet
+     * @return the bucket for {@code key}, or null if it does not exist and
+     *         {@code create} is false
+     * @ensures <pre>
+     * [bucket is the bucket in which key is or would be stored according to
+     *  the convention]  and
+     * if create then [bucket is not null]
+     * </pre>
+     */
+    private Map<K, V> bucket(K key, boolean create) {
+        Map<K, V>[] table = this.hashTable;
+        int i = mod(key.hashCode(), table.length);
+        if (this.oldTable != null) {
+            int j = mod(key.hashCode(), this.oldTable.length);
+            if (j >= this.migrateIndex) {
+                // not migrated yet, so the key belongs in the old table
+                table = this.oldTable;
+                i = j;
+            }
+        }
+        if (create && table[i] == null) {
+            table[i] = new Map2<K, V>();
+        }
+        return table[i];
+    }
+
+    /**
+     * Moves every pair of bucket {@code $this.migrateIndex} of the old table
+     * into the current table and advances {@code $this.migrateIndex}, dropping
+     * the old table once it has been fully migrated.
+     *
+     * @updates $this
+     * @requires $this.oldTable is not null
+     * @ensures this = #this
+     */
+    private void migrateBucket() {
+        assert this.oldTable != null : "Violation of: $this.oldTable is not null";
+
+        Map<K, V> source = this.oldTable[this.migrateIndex];
+        this.oldTable[this.migrateIndex] = null;
+        this.migrateIndex++;
+        while (source != null && source.size() > 0) {
+            Pair<K, V> p = source.removeAny();
+            this.bucket(p.key(), true).add(p.key(), p.value());
+        }
+        if (this.migrateIndex == this.oldTable.length) {
+            this.oldTable = null;
+            this.migrateIndex = 0;
+        }
+    }
+
+    /**
+     * Performs a bounded amount of resize work: migrates up to
+     * {@code MIGRATION_STEP} old buckets if a resize is in progress, or starts
+     * a resize if the table has become too full.
+     *
+     * @updates $this
+     * @ensures this = #this
+     */
+    private void resizeStep() {
+        if (this.oldTable != null) {
+            for (int k = 0; k < MIGRATION_STEP && this.oldTable != null; k++) {
+                this.migrateBucket();
+            }
+        } else if (this.growIncrementally && this.size > this.hashTable.length) {
+            this.startResize(2 * this.hashTable.length + 1);
+        }
+    }
+
+    /**
+     * Starts migrating into a new, empty hash table of size
+     * {@code hashTableSize}. Buckets of the new table are left null and
+     * created on first use.
+     *
+     * @param hashTableSize
+     *            the size of the new hash table
+     * @updates $this
+     * @requires $this.oldTable is null  and  hashTableSize > 0
+     * @ensures this = #this  and  |$this.hashTable| = hashTableSize
+     */
+    @SuppressWarnings("unchecked")
+    private void startResize(int hashTableSize) {
+        assert this.oldTable == null : "Violation of: $this.oldTable is null";
+        assert hashTableSize > 0 : "Violation of: hashTableSize > 0";
+
+        this.oldTable = this.hashTable;
+        this.migrateIndex = 0;
+        this.hashTable = new Map[hashTableSize];
+    }
+
     /**
      * Creator of initial representation.
      *
@@ -112,6 +271,8 @@ public class Map4<K, V> extends MapSecondary<K, V> {
             // create new empty map and put in array.
             this.hashTable[i] = new Map2<K, V>();
         }
+        this.oldTable = null;
+        this.migrateIndex = 0;
         this.size = 0;
 
     }
@@ -125,6 +286,7 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     public Map4() {
 
+        this.initialHashTableSize = DEFAULT_HASH_TABLE_SIZE;
         this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
 
     }
@@ -139,6 +301,27 @@ public class Map4<K, V> extends MapSecondary<K, V> {
      */
     public Map4(int hashTableSize) {
 
+        this.initialHashTableSize = hashTableSize;
+        this.createNewRep(hashTableSize);
+
+    }
+
+    /**
+     * Constructor resulting in a hash table of initial size
+     * {@code hashTableSize} that, if {@code growIncrementally}, keeps growing
+     * as pairs are added without ever rehashing the whole table in one call.
+     *
+     * @param hashTableSize
+     *            initial size of hash table
+     * @param growIncrementally
+     *            whether the hash table grows incrementally
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public Map4(int hashTableSize, boolean growIncrementally) {
+
+        this.growIncrementally = growIncrementally;
+        this.initialHashTableSize = hashTableSize;
         this.createNewRep(hashTableSize);
 
     }
@@ -150,12 +333,27 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     @SuppressWarnings("unchecked")
     @Override
     public final Map<K, V> newInstance() {
+        Map<K, V> result;
         try {
-            return this.getClass().getConstructor().newInstance();
+            /*
+             * Use this map's settings, so new instances made by the secondary
+             * methods and by clients keep growing incrementally if this does;
+             * a subclass without the (int, boolean) constructor gets its
+             * no-argument one, and so the default settings, instead
+             */
+            try {
+                result = this.getClass()
+                        .getConstructor(int.class, boolean.class)
+                        .newInstance(this.initialHashTableSize,
+                                this.growIncrementally);
+            } catch (NoSuchMethodException e) {
+                result = this.getClass().getConstructor().newInstance();
+            }
         } catch (ReflectiveOperationException e) {
             throw new AssertionError(
                     "Cannot construct object of type " + this.getClass());
         }
+        return result;
     }
 
     @Override
@@ -176,6 +374,10 @@ public class Map4<K, V> extends MapSecondary<K, V> {
          */
         Map4<K, V> localSource = (Map4<K, V>) source;
         this.hashTable = localSource.hashTable;
+        this.oldTable = localSource.oldTable;
+        this.migrateIndex = localSource.migrateIndex;
+        this.growIncrementally = localSource.growIncrementally;
+        this.initialHashTableSize = localSource.initialHashTableSize;
         this.size = localSource.size;
         localSource.createNewRep(DEFAULT_HASH_TABLE_SIZE);
     }
@@ -189,9 +391,10 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         assert key != null : "Violation of: key is not null";
         assert value != null : "Violation of: value is not null";
         assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
-        // Use mod method to calculate which bucket to fill in the map
-        int i = mod(key.hashCode(), this.hashTable.length);
-        this.hashTable[i].add(key, value);
+        // Do a bounded slice of any pending resize work first
+        this.resizeStep();
+        // Find which bucket to fill in the map
+        this.bucket(key, true).add(key, value);
         // Size plus one
         this.size++;
     }
@@ -200,21 +403,34 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     public final Pair<K, V> remove(K key) {
         assert key != null : "Violation of: key is not null";
         assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
-        // Use mod method to calculate which bucket to remove the map
-        int i = mod(key.hashCode(), this.hashTable.length);
+        // Do a bounded slice of any pending resize work first
+        this.resizeStep();
         // Size reduce one unit
         this.size--;
-        return this.hashTable[i].remove(key);
+        // Find which bucket to remove the map from
+        return this.bucket(key, false).remove(key);
     }
 
     @Override
     public final Pair<K, V> removeAny() {
         assert this.size() > 0 : "Violation of: this /= empty_set";
+        // Do a bounded slice of any pending resize work first
+        this.resizeStep();
+        Map<K, V>[] table = this.hashTable;
         int i = 0;
-        while (i < this.hashTable.length && this.hashTable[i].size() == 0) {
+        if (this.oldTable != null) {
+            // not yet migrated buckets are as good a source as any
+            table = this.oldTable;
+            i = this.migrateIndex;
+        }
+        while (table[i] == null || table[i].size() == 0) {
             i++; // check for the first none empty index.
+            if (i == table.length) {
+                table = this.hashTable;
+                i = 0;
+            }
         }
-        Pair<K, V> removed = this.hashTable[i].removeAny();
+        Pair<K, V> removed = table[i].removeAny();
         this.size--; // size reduce by one.
         return removed;
     }
@@ -223,17 +439,19 @@ public class Map4<K, V> extends MapSecondary<K, V> {
     public final V value(K key) {
         assert key != null : "Violation of: key is not null";
         assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
-        // Use mod method to calculate which bucket has key
-        int i = mod(key.hashCode(), this.hashTable.length);
+        /*
+         * No resize work here: value may be called while an iterator is live,
+         * and moving pairs between tables would invalidate it.
+         */
         // After finding the bucket, then we easily find value related to the key
-        return this.hashTable[i].value(key);
+        return this.bucket(key, false).value(key);
     }
 
     @Override
     public final boolean hasKey(K key) {
         assert key != null : "Violation of: key is not null";
-        int i = mod(key.hashCode(), this.hashTable.length); // check if it have the key
-        return this.hashTable[i].hasKey(key);
+        Map<K, V> bucket = this.bucket(key, false); // check if it have the key
+        return bucket != null && bucket.hasKey(key);
     }
 
     @Override
@@ -258,9 +476,15 @@ public class Map4<K, V> extends MapSecondary<K, V> {
         private int numberSeen;
 
         /**
-         * Bucket from which current bucket iterator comes.
+         * Table from which current bucket iterator comes.
          */
-        private int currentBucket;
+        private Map<K, V>[] currentTable;
+
+        /**
+         * Bucket of {@code currentTable} from which the next bucket iterator
+         * will come.
+         */
+        private int nextBucket;
 
         /**
          * Bucket iterator from which next element will come.
@@ -272,8 +496,15 @@ public class Map4<K, V> extends MapSecondary<K, V> {
          */
         Map4Iterator() {
             this.numberSeen = 0;
-            this.currentBucket = 0;
-            this.bucketIterator = Map4.this.hashTable[0].iterator();
+            if (Map4.this.oldTable != null) {
+                // visit the not yet migrated buckets first
+                this.currentTable = Map4.this.oldTable;
+                this.nextBucket = Map4.this.migrateIndex;
+            } else {
+                this.currentTable = Map4.this.hashTable;
+                this.nextBucket = 0;
+            }
+            this.bucketIterator = null;
         }
 
         @Override
@@ -293,9 +524,17 @@ public class Map4<K, V> extends MapSecondary<K, V> {
                 throw new NoSuchElementException();
             }
             this.numberSeen++;
-            while (!this.bucketIterator.hasNext()) {
-                this.currentBucket++;
-                this.bucketIterator = Map4.this.hashTable[this.currentBucket].iterator();
+            while (this.bucketIterator == null || !this.bucketIterator.hasNext()) {
+                if (this.nextBucket == this.currentTable.length) {
+                    // old table exhausted, continue with the current one
+                    this.currentTable = Map4.this.hashTable;
+                    this.nextBucket = 0;
+                }
+                Map<K, V> bucket = this.currentTable[this.nextBucket];
+                this.nextBucket++;
+                if (bucket != null) {
+                    this.bucketIterator = bucket.iterator();
+                }
             }
             return this.bucketIterator.next();
         }
@@ -0,0 +1,504 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map} represented as an open-addressing hash table (linear probing)
+ * stored in two parallel arrays of keys and values, with implementations of
+ * primary methods.
+ *
+ * <p>
+ * Unlike {@code Map4}, no bucket objects are allocated: a pair lives directly
+ * in slot {@code i} of {@code $this.keys} and {@code $this.values}. The table
+ * doubles whenever the load factor would exceed {@code MAX_LOAD_NUMERATOR /
+ * MAX_LOAD_DENOMINATOR} and halves when it drops below
+ * {@code 1 / MIN_LOAD_DENOMINATOR}, so {@code add}, {@code remove},
+ * {@code value} and {@code hasKey} run in amortized O(1) expected time.
+ * Removal uses backward-shift deletion, so no tombstones are ever left behind.
+ *
+ * @param <K>
+ *            type of {@code Map} domain (key) entries
+ * @param <V>
+ *            type of {@code Map} range (associated value) entries
+ * @mathdefinitions <pre>
+ * HOME(
+ *   x: K,
+ *   n: integer
+ *  ): integer is
+ *  [computed result of spread(x.hashCode())] mod n
+ *
+ * PROBE_DISTANCE(
+ *   x: K,
+ *   i: integer,
+ *   n: integer
+ *  ): integer is
+ *  (i - HOME(x, n)) mod n
+ * </pre>
+ * @convention <pre>
+ * |$this.keys| = |$this.values|  and
+ * [|$this.keys| is a power of 2]  and
+ * |$this.keys| >= MIN_TABLE_SIZE  and
+ * $this.size * MAX_LOAD_DENOMINATOR <= |$this.keys| * MAX_LOAD_NUMERATOR  and
+ * for all i: integer
+ *     where (0 <= i  and  i < |$this.keys|)
+ *   ([entry at position i in $this.keys is null] iff
+ *    [entry at position i in $this.values is null])  and
+ * [no two non-null entries of $this.keys are equal]  and
+ * for all i, j: integer, x: K
+ *     where (0 <= i  and  i < |$this.keys|  and
+ *            <x> = $this.keys[i, i+1)  and
+ *            0 <= j  and  j < PROBE_DISTANCE(x, i, |$this.keys|))
+ *   ([entry at position (HOME(x, |$this.keys|) + j) mod |$this.keys|
+ *     in $this.keys is not null])  and
+ * $this.size = [number of non-null entries in $this.keys]  and
+ * 0 <= $this.removeAnyCursor  and  $this.removeAnyCursor < |$this.keys|
+ * </pre>
+ * @correspondence <pre>
+ * this = {(x, y): (K, V)
+ *         where there exists i: integer
+ *                   (0 <= i  and  i < |$this.keys|  and
+ *                    <x> = $this.keys[i, i+1)  and
+ *                    <y> = $this.values[i, i+1))}
+ * </pre>
+ */
+public class Map5<K, V> extends MapSecondary<K, V> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default size of hash table.
+     */
+    private static final int DEFAULT_HASH_TABLE_SIZE = 16;
+
+    /**
+     * Smallest size the hash table is ever allowed to shrink to.
+     */
+    private static final int MIN_TABLE_SIZE = 8;
+
+    /**
+     * Numerator of the maximum load factor (3/4).
+     */
+    private static final int MAX_LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the maximum load factor (3/4).
+     */
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    /**
+     * The table halves once fewer than 1 / MIN_LOAD_DENOMINATOR of its slots
+     * are in use.
+     */
+    private static final int MIN_LOAD_DENOMINATOR = 8;
+
+    /**
+     * Keys, one per slot, or null for an empty slot.
+     */
+    private K[] keys;
+
+    /**
+     * Values, parallel to {@code keys}.
+     */
+    private V[] values;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Slot where {@code removeAny} starts looking for an occupied slot; it
+     * picks up where the previous call stopped, so draining the map does not
+     * rescan the slots already emptied.
+     */
+    private int removeAnyCursor;
+
+    /**
+     * Returns the smallest power of 2 that is at least {@code n} and at least
+     * {@code MIN_TABLE_SIZE}.
+     *
+     * @param n
+     *            the requested size
+     * @return the table size to use
+     * @requires n > 0
+     * @ensures <pre>
+     * [tableSizeFor is a power of 2]  and
+     * tableSizeFor >= max(n, MIN_TABLE_SIZE)  and
+     * [tableSizeFor is the smallest such number]
+     * </pre>
+     */
+    private static int tableSizeFor(int n) {
+        assert n > 0 : "Violation of: n > 0";
+
+        int tableSize = MIN_TABLE_SIZE;
+        while (tableSize < n) {
+            tableSize *= 2;
+        }
+        return tableSize;
+    }
+
+    /**
+     * Returns the home slot of {@code key} in a table of size {@code n}.
+     *
+     * <p>
+     * The high bits of the hash code are folded into the low ones because the
+     * table size is a power of 2 and only the low bits survive the mask.
+     *
+     * @param key
+     *            the key
+     * @param n
+     *            the table size
+     * @return HOME(key, n)
+     * @requires [n is a power of 2]
+     * @ensures home = HOME(key, n)
+     */
+    private static int home(Object key, int n) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & (n - 1);
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or the empty slot where the probe
+     * sequence for {@code key} ends if it is not present.
+     *
+     * @param key
+     *            the key to be searched for
+     * @return the slot index
+     * @ensures <pre>
+     * 0 <= findSlot < |$this.keys|  and
+     * if key is in DOMAIN(this) then
+     *   <key> = $this.keys[findSlot, findSlot+1)
+     * else
+     *   [entry at position findSlot in $this.keys is null]
+     * </pre>
+     */
+    private int findSlot(K key) {
+        int mask = this.keys.length - 1;
+        int i = home(key, this.keys.length);
+        while (this.keys[i] != null && !this.keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Moves every entry into freshly allocated arrays of size
+     * {@code newTableSize}.
+     *
+     * @param newTableSize
+     *            the new size of the hash table
+     * @updates $this.keys, $this.values
+     * @requires <pre>
+     * [newTableSize is a power of 2]  and
+     * $this.size * MAX_LOAD_DENOMINATOR <= newTableSize * MAX_LOAD_NUMERATOR
+     * </pre>
+     * @ensures |$this.keys| = newTableSize  and  this = #this
+     */
+    @SuppressWarnings("unchecked")
+    private void rehash(int newTableSize) {
+        K[] oldKeys = this.keys;
+        V[] oldValues = this.values;
+        this.keys = (K[]) new Object[newTableSize];
+        this.values = (V[]) new Object[newTableSize];
+        int mask = newTableSize - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = home(oldKeys[j], newTableSize);
+                while (this.keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                this.keys[i] = oldKeys[j];
+                this.values[i] = oldValues[j];
+            }
+        }
+        this.removeAnyCursor = 0;
+    }
+
+    /**
+     * Empties slot {@code hole} and shifts back any later entries of the same
+     * probe run that can move closer to their home slots, so that lookups
+     * never stop early at the new hole.
+     *
+     * @param hole
+     *            the slot to be emptied
+     * @updates $this.keys, $this.values
+     * @requires 0 <= hole < |$this.keys|
+     * @ensures <pre>
+     * [the pair formerly at slot hole is no longer in $this.keys and
+     *  $this.values, and every other pair still is]
+     * </pre>
+     */
+    private void deleteSlot(int hole) {
+        int n = this.keys.length;
+        int mask = n - 1;
+        int i = hole;
+        int j = (i + 1) & mask;
+        while (this.keys[j] != null) {
+            int h = home(this.keys[j], n);
+            /*
+             * The entry at j may fill the hole at i only if its home slot is
+             * not cyclically within (i, j].
+             */
+            if (((j - h) & mask) >= ((j - i) & mask)) {
+                this.keys[i] = this.keys[j];
+                this.values[i] = this.values[j];
+                i = j;
+            }
+            j = (j + 1) & mask;
+        }
+        this.keys[i] = null;
+        this.values[i] = null;
+    }
+
+    /**
+     * Removes and returns the pair at slot {@code i}, shrinking the table if it
+     * has become too sparse.
+     *
+     * @param i
+     *            the slot of the pair to be removed
+     * @return the removed pair
+     * @updates this
+     * @requires [entry at position i in $this.keys is not null]
+     * @ensures <pre>
+     * removeAt = [the pair at slot i in #$this.keys and #$this.values]  and
+     * this = #this \ {removeAt}
+     * </pre>
+     */
+    private Pair<K, V> removeAt(int i) {
+        Pair<K, V> removed = new SimplePair<>(this.keys[i], this.values[i]);
+        this.deleteSlot(i);
+        this.size--;
+        if (this.keys.length > MIN_TABLE_SIZE
+                && this.size * MIN_LOAD_DENOMINATOR < this.keys.length) {
+            this.rehash(this.keys.length / 2);
+        }
+        return removed;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param hashTableSize
+     *            the requested size of the hash table
+     * @requires hashTableSize > 0
+     * @ensures <pre>
+     * |$this.keys| = tableSizeFor(hashTableSize)  and
+     * [all entries of $this.keys and $this.values are null]  and
+     * $this.size = 0  and  $this.removeAnyCursor = 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(int hashTableSize) {
+        /*
+         * With "new K[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        int tableSize = tableSizeFor(hashTableSize);
+        this.keys = (K[]) new Object[tableSize];
+        this.values = (V[]) new Object[tableSize];
+        this.size = 0;
+        this.removeAnyCursor = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Map5() {
+
+        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+
+    }
+
+    /**
+     * Constructor resulting in a hash table with room for at least
+     * {@code hashTableSize} slots; the table still grows as needed.
+     *
+     * @param hashTableSize
+     *            initial size of hash table
+     * @requires hashTableSize > 0
+     * @ensures this = {}
+     */
+    public Map5(int hashTableSize) {
+
+        this.createNewRep(hashTableSize);
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Map<K, V> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    @Override
+    public final void transferFrom(Map<K, V> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Map5<?, ?>
+                : "" + "Violation of: source is of dynamic type Map5<?,?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Map5<?,?>, and
+         * the ?,? must be K,V or the call would not have compiled.
+         */
+        Map5<K, V> localSource = (Map5<K, V>) source;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.size = localSource.size;
+        this.removeAnyCursor = localSource.removeAnyCursor;
+        localSource.createNewRep(DEFAULT_HASH_TABLE_SIZE);
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(K key, V value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+        // Grow first so the new pair always lands in the final table
+        if ((this.size + 1) * MAX_LOAD_DENOMINATOR > this.keys.length
+                * MAX_LOAD_NUMERATOR) {
+            this.rehash(this.keys.length * 2);
+        }
+        int i = this.findSlot(key);
+        this.keys[i] = key;
+        this.values[i] = value;
+        this.size++;
+    }
+
+    @Override
+    public final Pair<K, V> remove(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.removeAt(this.findSlot(key));
+    }
+
+    @Override
+    public final Pair<K, V> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+        /*
+         * Scan on (cyclically) from where the last call stopped rather than
+         * from slot 0: the slots it already passed were empty, and a drain
+         * loop would otherwise rescan an ever longer empty prefix, taking
+         * O(n^2) time in all. A rehash resets the cursor.
+         */
+        int mask = this.keys.length - 1;
+        int i = this.removeAnyCursor;
+        while (this.keys[i] == null) {
+            i = (i + 1) & mask;
+        }
+        this.removeAnyCursor = i;
+        return this.removeAt(i);
+    }
+
+    @Override
+    public final V value(K key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.values[this.findSlot(key)];
+    }
+
+    @Override
+    public final boolean hasKey(K key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.keys[this.findSlot(key)] != null;
+    }
+
+    @Override
+    public final int size() {
+
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<K, V>> iterator() {
+        return new Map5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Map5}.
+     */
+    private final class Map5Iterator implements Iterator<Pair<K, V>> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Slot at which to resume scanning for the next pair.
+         */
+        private int currentSlot;
+
+        /**
+         * No-argument constructor.
+         */
+        Map5Iterator() {
+            this.numberSeen = 0;
+            this.currentSlot = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < Map5.this.size;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.numberSeen++;
+            while (Map5.this.keys[this.currentSlot] == null) {
+                this.currentSlot++;
+            }
+            Pair<K, V> next = new SimplePair<>(Map5.this.keys[this.currentSlot],
+                    Map5.this.values[this.currentSlot]);
+            this.currentSlot++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,128 @@
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to measure per-operation latency of {@code Map.add} while a map
+ * grows from empty to many keys, comparing {@code Map4} with incremental
+ * resizing against {@code Map5}, which rehashes its whole table at once.
+ *
+ * <p>
+ * Usage: {@code MapGrowthBenchmark [numberOfKeys]} (default 10,000,000).
+ * Each {@code add} is timed on its own, so every latency includes the few
+ * tens of nanoseconds {@code System.nanoTime} itself costs; the interesting
+ * part is the tail, where {@code Map5}'s highest percentiles and maximum are
+ * whole-table rehashes that {@code Map4} spreads over many adds. Latencies
+ * are printed in nanoseconds and the total in milliseconds.
+ */
+public final class MapGrowthBenchmark {
+
+    /**
+     * Default number of keys added to each map.
+     */
+    private static final int DEFAULT_KEYS = 10_000_000;
+
+    /**
+     * Initial hash table size given to both maps.
+     */
+    private static final int INITIAL_TABLE_SIZE = 16;
+
+    /**
+     * Percentiles reported, in parts per ten thousand.
+     */
+    private static final int[] PERCENTILES = { 5000, 9000, 9900, 9990, 9999 };
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private MapGrowthBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Adds keys {@code 0 .. latencies.length - 1} to {@code m}, recording the
+     * time taken by each {@code add}.
+     *
+     * @param m
+     *            the map to grow
+     * @param latencies
+     *            the array to record per-add nanoseconds in
+     * @updates m
+     * @replaces latencies
+     * @requires m = {}
+     * @ensures <pre>
+     * DOMAIN(m) = {0, 1, ..., |latencies| - 1}  and
+     * [latencies[i] is the time taken to add key i]
+     * </pre>
+     */
+    private static void grow(Map<Integer, Integer> m, long[] latencies) {
+        for (int i = 0; i < latencies.length; i++) {
+            Integer key = i;
+            long start = System.nanoTime();
+            m.add(key, key);
+            latencies[i] = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Outputs the latency percentiles and maximum of {@code latencies}.
+     *
+     * @param out
+     *            the output stream
+     * @param name
+     *            the name of the map being reported
+     * @param latencies
+     *            the per-operation latencies, in nanoseconds
+     * @updates out.content
+     * @clears latencies
+     * @requires out.is_open and |latencies| > 0
+     * @ensures out.content = #out.content * [report for latencies]
+     */
+    private static void report(SimpleWriter out, String name, long[] latencies) {
+        long total = 0;
+        for (long t : latencies) {
+            total += t;
+        }
+        Arrays.sort(latencies);
+        out.println(name + ": total " + TimeUnit.NANOSECONDS.toMillis(total)
+                + " ms over " + latencies.length + " adds");
+        for (int p : PERCENTILES) {
+            int index = (int) ((long) p * (latencies.length - 1) / 10_000);
+            out.println("  p" + (p / 100.0) + " = " + latencies[index] + " ns");
+        }
+        out.println("  max = " + latencies[latencies.length - 1] + " ns");
+        Arrays.fill(latencies, 0);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional number of keys
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int n = DEFAULT_KEYS;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+        long[] latencies = new long[n];
+
+        Map<Integer, Integer> incremental = new Map4<>(INITIAL_TABLE_SIZE, true);
+        grow(incremental, latencies);
+        report(out, "Map4 (incremental resize)", latencies);
+        incremental.clear();
+
+        Map<Integer, Integer> whole = new Map5<>(INITIAL_TABLE_SIZE);
+        grow(whole, latencies);
+        report(out, "Map5 (whole-table rehash)", latencies);
+        whole.clear();
+
+        out.close();
+    }
+
+}
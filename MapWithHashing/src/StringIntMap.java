@@ -0,0 +1,469 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+import components.map.MapSecondary;
+
+/**
+ * {@code Map<String, Integer>} represented as an open-addressing hash table
+ * (linear probing) with the keys in a {@code String[]} and the values unboxed
+ * in a parallel {@code int[]}, with implementations of primary methods and an
+ * {@code increment} fast path for counting.
+ *
+ * <p>
+ * {@code increment} and {@code intValue} never box: counting a word that is
+ * already in the map is one probe and one {@code int} update, with no
+ * allocation. The regular {@code Map} methods still work and box on the way
+ * out. The table doubles when it gets more than 3/4 full and halves when it
+ * drops below 1/8 full; removal uses backward-shift deletion.
+ *
+ * @convention <pre>
+ * |$this.keys| = |$this.values|  and
+ * [|$this.keys| is a power of 2]  and
+ * |$this.keys| >= MIN_TABLE_SIZE  and
+ * $this.size * MAX_LOAD_DENOMINATOR <= |$this.keys| * MAX_LOAD_NUMERATOR  and
+ * [no two non-null entries of $this.keys are equal]  and
+ * [every non-null entry of $this.keys is reachable by linear probing from
+ *  its home slot without passing a null entry]  and
+ * $this.size = [number of non-null entries in $this.keys]  and
+ * 0 <= $this.removeAnyCursor  and  $this.removeAnyCursor < |$this.keys|
+ * </pre>
+ * @correspondence <pre>
+ * this = {(x, y): (string of character, integer)
+ *         where there exists i: integer
+ *                   (0 <= i  and  i < |$this.keys|  and
+ *                    <x> = $this.keys[i, i+1)  and
+ *                    <y> = $this.values[i, i+1))}
+ * </pre>
+ */
+public class StringIntMap extends MapSecondary<String, Integer> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default size of hash table.
+     */
+    private static final int DEFAULT_HASH_TABLE_SIZE = 16;
+
+    /**
+     * Smallest size the hash table is ever allowed to shrink to.
+     */
+    private static final int MIN_TABLE_SIZE = 8;
+
+    /**
+     * Numerator of the maximum load factor (3/4).
+     */
+    private static final int MAX_LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the maximum load factor (3/4).
+     */
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    /**
+     * The table halves once fewer than 1 / MIN_LOAD_DENOMINATOR of its slots
+     * are in use.
+     */
+    private static final int MIN_LOAD_DENOMINATOR = 8;
+
+    /**
+     * Keys, one per slot, or null for an empty slot.
+     */
+    private String[] keys;
+
+    /**
+     * Values, parallel to {@code keys}.
+     */
+    private int[] values;
+
+    /**
+     * Total size of abstract {@code this}.
+     */
+    private int size;
+
+    /**
+     * Slot where {@code removeAny} starts looking for an occupied slot; it
+     * picks up where the previous call stopped, so draining the map does not
+     * rescan the slots already emptied.
+     */
+    private int removeAnyCursor;
+
+    /**
+     * Returns the home slot of {@code key} in a table of size {@code n}.
+     *
+     * @param key
+     *            the key
+     * @param n
+     *            the table size
+     * @return the home slot
+     * @requires [n is a power of 2]
+     * @ensures 0 <= home < n
+     */
+    private static int home(String key, int n) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & (n - 1);
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or the empty slot where the probe
+     * sequence for {@code key} ends if it is not present.
+     *
+     * @param key
+     *            the key to be searched for
+     * @return the slot index
+     * @ensures <pre>
+     * 0 <= findSlot < |$this.keys|  and
+     * if key is in DOMAIN(this) then
+     *   <key> = $this.keys[findSlot, findSlot+1)
+     * else
+     *   [entry at position findSlot in $this.keys is null]
+     * </pre>
+     */
+    private int findSlot(String key) {
+        int mask = this.keys.length - 1;
+        int i = home(key, this.keys.length);
+        while (this.keys[i] != null && !this.keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Moves every entry into freshly allocated arrays of size
+     * {@code newTableSize}.
+     *
+     * @param newTableSize
+     *            the new size of the hash table
+     * @updates $this.keys, $this.values
+     * @requires <pre>
+     * [newTableSize is a power of 2]  and
+     * $this.size * MAX_LOAD_DENOMINATOR <= newTableSize * MAX_LOAD_NUMERATOR
+     * </pre>
+     * @ensures |$this.keys| = newTableSize  and  this = #this
+     */
+    private void rehash(int newTableSize) {
+        String[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.keys = new String[newTableSize];
+        this.values = new int[newTableSize];
+        int mask = newTableSize - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = home(oldKeys[j], newTableSize);
+                while (this.keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                this.keys[i] = oldKeys[j];
+                this.values[i] = oldValues[j];
+            }
+        }
+        this.removeAnyCursor = 0;
+    }
+
+    /**
+     * Stores the new pair ({@code key}, {@code value}) in slot {@code i},
+     * growing the table first if needed.
+     *
+     * @param i
+     *            the empty slot found for {@code key} by {@code findSlot}
+     * @param key
+     *            the key to be added
+     * @param value
+     *            the associated value
+     * @updates this
+     * @requires <pre>
+     * key is not in DOMAIN(this)  and  i = findSlot(key)
+     * </pre>
+     * @ensures this = #this union {(key, value)}
+     */
+    private void insertAt(int i, String key, int value) {
+        int slot = i;
+        if ((this.size + 1) * MAX_LOAD_DENOMINATOR > this.keys.length
+                * MAX_LOAD_NUMERATOR) {
+            this.rehash(this.keys.length * 2);
+            slot = this.findSlot(key);
+        }
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        this.size++;
+    }
+
+    /**
+     * Removes and returns the pair at slot {@code hole}, closing the gap with
+     * backward-shift deletion and shrinking the table if it has become too
+     * sparse.
+     *
+     * @param hole
+     *            the slot of the pair to be removed
+     * @return the removed pair
+     * @updates this
+     * @requires [entry at position hole in $this.keys is not null]
+     * @ensures <pre>
+     * removeAt = [the pair at slot hole]  and
+     * this = #this \ {removeAt}
+     * </pre>
+     */
+    private Pair<String, Integer> removeAt(int hole) {
+        Pair<String, Integer> removed = new SimplePair<>(this.keys[hole],
+                this.values[hole]);
+        int n = this.keys.length;
+        int mask = n - 1;
+        int i = hole;
+        int j = (i + 1) & mask;
+        while (this.keys[j] != null) {
+            int h = home(this.keys[j], n);
+            if (((j - h) & mask) >= ((j - i) & mask)) {
+                this.keys[i] = this.keys[j];
+                this.values[i] = this.values[j];
+                i = j;
+            }
+            j = (j + 1) & mask;
+        }
+        this.keys[i] = null;
+        this.values[i] = 0;
+        this.size--;
+        if (n > MIN_TABLE_SIZE && this.size * MIN_LOAD_DENOMINATOR < n) {
+            this.rehash(n / 2);
+        }
+        return removed;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.keys = new String[DEFAULT_HASH_TABLE_SIZE];
+        this.values = new int[DEFAULT_HASH_TABLE_SIZE];
+        this.size = 0;
+        this.removeAnyCursor = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public StringIntMap() {
+
+        this.createNewRep();
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final Map<String, Integer> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Map<String, Integer> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof StringIntMap
+                : "" + "Violation of: source is of dynamic type StringIntMap";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        StringIntMap localSource = (StringIntMap) source;
+        this.keys = localSource.keys;
+        this.values = localSource.values;
+        this.size = localSource.size;
+        this.removeAnyCursor = localSource.removeAnyCursor;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(String key, Integer value) {
+        assert key != null : "Violation of: key is not null";
+        assert value != null : "Violation of: value is not null";
+        assert !this.hasKey(key) : "Violation of: key is not in DOMAIN(this)";
+
+        this.insertAt(this.findSlot(key), key, value);
+    }
+
+    @Override
+    public final Pair<String, Integer> remove(String key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.removeAt(this.findSlot(key));
+    }
+
+    @Override
+    public final Pair<String, Integer> removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        /*
+         * Scan on (cyclically) from where the last call stopped rather than
+         * from slot 0, which would make a drain loop O(n^2)
+         */
+        int mask = this.keys.length - 1;
+        int i = this.removeAnyCursor;
+        while (this.keys[i] == null) {
+            i = (i + 1) & mask;
+        }
+        this.removeAnyCursor = i;
+        return this.removeAt(i);
+    }
+
+    @Override
+    public final Integer value(String key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.values[this.findSlot(key)];
+    }
+
+    @Override
+    public final boolean hasKey(String key) {
+        assert key != null : "Violation of: key is not null";
+
+        return this.keys[this.findSlot(key)] != null;
+    }
+
+    @Override
+    public final int size() {
+
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<Pair<String, Integer>> iterator() {
+        return new StringIntMapIterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports the value associated with {@code key} without boxing it.
+     *
+     * @param key
+     *            the key whose associated value is to be reported
+     * @return the value associated with key
+     * @requires key is in DOMAIN(this)
+     * @ensures (key, intValue) is in this
+     */
+    public final int intValue(String key) {
+        assert key != null : "Violation of: key is not null";
+        assert this.hasKey(key) : "Violation of: key is in DOMAIN(this)";
+
+        return this.values[this.findSlot(key)];
+    }
+
+    /**
+     * Adds {@code delta} to the value associated with {@code key}, first
+     * adding {@code key} with value 0 if it is not in {@code this}, and returns
+     * the new value. Does not allocate when {@code key} is already present.
+     *
+     * @param key
+     *            the key whose associated value is to be incremented
+     * @param delta
+     *            the amount to add
+     * @return the new value associated with key
+     * @updates this
+     * @ensures <pre>
+     * if key is in DOMAIN(#this) then
+     *   this = (#this \ {(key, #this(key))}) union {(key, #this(key) + delta)}
+     * else
+     *   this = #this union {(key, delta)}  and
+     * (key, increment) is in this
+     * </pre>
+     */
+    public final int increment(String key, int delta) {
+        assert key != null : "Violation of: key is not null";
+
+        int i = this.findSlot(key);
+        int result = delta;
+        if (this.keys[i] != null) {
+            result += this.values[i];
+            this.values[i] = result;
+        } else {
+            this.insertAt(i, key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code StringIntMap}.
+     */
+    private final class StringIntMapIterator
+            implements Iterator<Pair<String, Integer>> {
+
+        /**
+         * Number of elements seen already (i.e., |~this.seen|).
+         */
+        private int numberSeen;
+
+        /**
+         * Slot at which to resume scanning for the next pair.
+         */
+        private int currentSlot;
+
+        /**
+         * No-argument constructor.
+         */
+        StringIntMapIterator() {
+            this.numberSeen = 0;
+            this.currentSlot = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.numberSeen < StringIntMap.this.size;
+        }
+
+        @Override
+        public Pair<String, Integer> next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.numberSeen++;
+            while (StringIntMap.this.keys[this.currentSlot] == null) {
+                this.currentSlot++;
+            }
+            Pair<String, Integer> next = new SimplePair<>(
+                    StringIntMap.this.keys[this.currentSlot],
+                    StringIntMap.this.values[this.currentSlot]);
+            this.currentSlot++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map4} using non-default constructor
+ * with hash table size 101 and incremental growth.
+ */
+public class Map4TestIncremental extends MapTest {
+
+    /**
+     * Initial size of hash table to be used in tests.
+     */
+    private static final int TEST_HASH_TABLE_SIZE = 101;
+
+    /**
+     * Number of keys added in the growth tests; enough for several resizes.
+     */
+    private static final int GROWTH_KEYS = 5000;
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map4<String, String>(TEST_HASH_TABLE_SIZE, true);
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Testing add and value across several incremental resizes.
+     */
+    @Test
+    public final void testAddManyGrowing() {
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> mExpected = this.constructorRef();
+
+        for (int i = 0; i < GROWTH_KEYS; i++) {
+            m.add("key" + i, "value" + i);
+            mExpected.add("key" + i, "value" + i);
+        }
+        assertEquals(mExpected, m);
+        assertEquals("value1234", m.value("key1234"));
+    }
+
+    /**
+     * Testing remove and removeAny while a resize is in progress.
+     */
+    @Test
+    public final void testRemoveWhileGrowing() {
+        Map<String, String> m = this.constructorTest();
+        Map<String, String> mExpected = this.constructorRef();
+
+        for (int i = 0; i < GROWTH_KEYS; i++) {
+            m.add("key" + i, "value" + i);
+            mExpected.add("key" + i, "value" + i);
+            if (i % 3 == 0) {
+                m.remove("key" + i);
+                mExpected.remove("key" + i);
+            }
+        }
+        while (m.size() > GROWTH_KEYS / 2) {
+            Map.Pair<String, String> p = m.removeAny();
+            assertEquals(mExpected.remove(p.key()).value(), p.value());
+        }
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Testing that newInstance keeps the incremental-growth setting (read
+     * through reflection, as Map4 does not expose it).
+     *
+     * @throws ReflectiveOperationException
+     *             if Map4 has no growIncrementally field
+     */
+    @Test
+    public final void testNewInstanceGrowsIncrementally()
+            throws ReflectiveOperationException {
+        Map<String, String> m = this.constructorTest().newInstance();
+        Map<String, String> mExpected = this.constructorRef();
+
+        Field grow = Map4.class.getDeclaredField("growIncrementally");
+        grow.setAccessible(true);
+        assertTrue(grow.getBoolean(m));
+        for (int i = 0; i < GROWTH_KEYS; i++) {
+            m.add("key" + i, "value" + i);
+            mExpected.add("key" + i, "value" + i);
+        }
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Subclass of {@code Map4} with only a no-argument constructor.
+     *
+     * @param <K>
+     *            type of {@code Map} domain (key) entries
+     * @param <V>
+     *            type of {@code Map} range (associated value) entries
+     */
+    public static final class Map4NoArgument<K, V> extends Map4<K, V> {
+
+        /**
+         * No-argument constructor.
+         */
+        public Map4NoArgument() {
+            super();
+        }
+
+    }
+
+    /**
+     * Testing that newInstance falls back to the no-argument constructor of a
+     * subclass without the (int, boolean) one.
+     */
+    @Test
+    public final void testNewInstanceNoArgumentSubclass() {
+        Map<String, String> m = new Map4NoArgument<String, String>()
+                .newInstance();
+        Map<String, String> mExpected = this.constructorRef();
+
+        assertTrue(m instanceof Map4NoArgument<?, ?>);
+        m.add("key", "value");
+        mExpected.add("key", "value");
+        assertEquals(mExpected, m);
+    }
+
+}
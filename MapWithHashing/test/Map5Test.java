@@ -0,0 +1,50 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Customized JUnit test fixture for {@code Map5} using default constructor.
+ */
+public class Map5Test extends MapTest {
+
+    @Override
+    protected final Map<String, String> constructorTest() {
+        return new Map5<String, String>();
+    }
+
+    @Override
+    protected final Map<String, String> constructorRef() {
+        return new Map1L<String, String>();
+    }
+
+    /**
+     * Test draining a large map with removeAny, interleaved with adds that
+     * may land behind the scan cursor.
+     */
+    @Test
+    public final void testRemoveAnyDrainLarge() {
+        final int n = 200_000;
+        Map<String, String> m = this.constructorTest();
+        for (int i = 0; i < n; i++) {
+            m.add("k" + i, "v" + i);
+        }
+        Map<String, String> seen = this.constructorRef();
+        int added = n;
+        while (m.size() > 0) {
+            Map.Pair<String, String> p = m.removeAny();
+            assertEquals("v" + p.key().substring(1), p.value());
+            assertTrue(!seen.hasKey(p.key()));
+            seen.add(p.key(), p.value());
+            if (seen.size() % 1000 == 0 && added < n + 100) {
+                m.add("k" + added, "v" + added);
+                added++;
+            }
+        }
+        assertEquals(added, seen.size());
+    }
+
+}
@@ -0,0 +1,152 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * JUnit test fixture for {@code StringIntMap}'s kernel methods and its
+ * {@code increment} and {@code intValue} methods.
+ */
+public class StringIntMapTest {
+
+    /**
+     * Number of keys used in the growth tests; enough for several resizes.
+     */
+    private static final int MANY_KEYS = 2000;
+
+    /**
+     * Number of keys in the drain test; scanning from slot 0 on every
+     * removeAny takes billions of steps to drain this many.
+     */
+    private static final int DRAIN_KEYS = 200_000;
+
+    /**
+     * Testing add and value on an empty map.
+     */
+    @Test
+    public final void testAddEmpty() {
+        StringIntMap m = new StringIntMap();
+        Map<String, Integer> mExpected = new Map1L<>();
+
+        m.add("a", 1);
+        mExpected.add("a", 1);
+        assertEquals(mExpected, m);
+        assertEquals(Integer.valueOf(1), m.value("a"));
+    }
+
+    /**
+     * Testing increment on a key not in the map.
+     */
+    @Test
+    public final void testIncrementNewKey() {
+        StringIntMap m = new StringIntMap();
+        Map<String, Integer> mExpected = new Map1L<>();
+        mExpected.add("word", 3);
+
+        int result = m.increment("word", 3);
+        assertEquals(3, result);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Testing increment on a key already in the map.
+     */
+    @Test
+    public final void testIncrementExistingKey() {
+        StringIntMap m = new StringIntMap();
+        m.add("word", 1);
+        m.add("other", 7);
+        Map<String, Integer> mExpected = new Map1L<>();
+        mExpected.add("word", 3);
+        mExpected.add("other", 7);
+
+        m.increment("word", 1);
+        int result = m.increment("word", 1);
+        assertEquals(3, result);
+        assertEquals(3, m.intValue("word"));
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Testing increment with many keys, across several resizes.
+     */
+    @Test
+    public final void testIncrementMany() {
+        StringIntMap m = new StringIntMap();
+        Map<String, Integer> mExpected = new Map1L<>();
+
+        for (int i = 0; i < MANY_KEYS; i++) {
+            String key = "k" + (i % (MANY_KEYS / 2));
+            m.increment(key, 1);
+        }
+        for (int i = 0; i < MANY_KEYS / 2; i++) {
+            mExpected.add("k" + i, 2);
+        }
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Testing remove and removeAny until the map shrinks back to empty.
+     */
+    @Test
+    public final void testRemoveMany() {
+        StringIntMap m = new StringIntMap();
+        Map<String, Integer> mExpected = new Map1L<>();
+        for (int i = 0; i < MANY_KEYS; i++) {
+            m.add("k" + i, i);
+            mExpected.add("k" + i, i);
+        }
+
+        for (int i = 0; i < MANY_KEYS; i += 2) {
+            assertEquals(mExpected.remove("k" + i).value(), m.remove("k" + i).value());
+        }
+        assertEquals(mExpected, m);
+        while (m.size() > 0) {
+            Map.Pair<String, Integer> p = m.removeAny();
+            assertEquals(mExpected.remove(p.key()).value(), p.value());
+        }
+        assertEquals(0, mExpected.size());
+    }
+
+    /**
+     * Testing transferFrom.
+     */
+    @Test
+    public final void testTransferFrom() {
+        StringIntMap m = new StringIntMap();
+        StringIntMap source = new StringIntMap();
+        source.increment("a", 2);
+        Map<String, Integer> mExpected = new Map1L<>();
+        mExpected.add("a", 2);
+
+        m.transferFrom(source);
+        assertEquals(mExpected, m);
+        assertEquals(0, source.size());
+    }
+
+    /**
+     * Testing that removeAny drains a large map, returning every pair once.
+     */
+    @Test
+    public final void testRemoveAnyDrainLarge() {
+        StringIntMap m = new StringIntMap();
+        for (int i = 0; i < DRAIN_KEYS; i++) {
+            m.increment("w" + i, i);
+        }
+        boolean[] seen = new boolean[DRAIN_KEYS];
+        int removed = 0;
+        while (m.size() > 0) {
+            Map.Pair<String, Integer> p = m.removeAny();
+            int i = Integer.parseInt(p.key().substring(1));
+            assertEquals(Integer.valueOf(i), p.value());
+            assertTrue(!seen[i]);
+            seen[i] = true;
+            removed++;
+        }
+        assertEquals(DRAIN_KEYS, removed);
+    }
+
+}
@@ -172,4 +172,31 @@ public class NaturalNumber3 extends NaturalNumberSecondary {
         return this.rep.length() == 0;
     }
 
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final void setFromString(String s) {
+        assert s != null : "Violation of: s is not null";
+        assert s.matches("0|[1-9]\\d*")
+                : "" + "Violation of: there exists n: NATURAL (s = TO_STRING(n))";
+
+        // rep already is the numeral, so there is no need to go digit by digit
+        if (s.equals("0")) {
+            this.rep = "";
+        } else {
+            this.rep = s;
+        }
+    }
+
+    @Override
+    public final String toString() {
+        String result = this.rep;
+        if (this.rep.length() == 0) {
+            result = "0";
+        }
+        return result;
+    }
+
 }
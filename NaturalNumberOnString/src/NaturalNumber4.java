@@ -0,0 +1,1134 @@
+import java.util.Arrays;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumberSecondary;
+import components.simplewriter.SimpleWriter;
+
+/**
+ * {@code NaturalNumber} represented as an array of base-10<sup>9</sup> digits
+ * ("limbs"), least significant first, with implementations of primary methods.
+ *
+ * <p>
+ * Unlike {@code NaturalNumber3}, whose {@code multiplyBy10} and
+ * {@code divideBy10} build a new {@code String} for every decimal digit, this
+ * scales the limbs in place, so both take O(n) time with no allocation except
+ * when the array has to grow. Since each limb holds nine decimal digits, the
+ * arithmetic methods are overridden to work on whole limbs instead of going
+ * through the kernel one digit at a time: {@code add} and {@code subtract}
+ * take O(n) time, {@code divide} (Knuth's long division) O(n m) time, and
+ * {@code compareTo} usually O(1) time. Their argument may be of any
+ * {@code NaturalNumber} type, but one that is not a {@code NaturalNumber4} is
+ * converted first.
+ *
+ * <p>
+ * {@code multiply} uses the schoolbook method while the shorter factor has
+ * fewer digits than the Karatsuba threshold, Karatsuba's method (three
+ * half-size products, O(n<sup>1.585</sup>) time) up to the Toom-3 threshold,
+ * and Toom-Cook 3-way multiplication (five third-size products,
+ * O(n<sup>1.465</sup>) time) above it. A factor more than twice as long as the
+ * other is cut into pieces the length of the other. The thresholds can be
+ * tuned with {@code setMultiplyThresholds}. {@code power} squares and
+ * multiplies, so it takes O(log p) products.
+ *
+ * <p>
+ * Because each limb is exactly nine decimal digits, converting to and from a
+ * decimal {@code String} only regroups digits: {@code toString},
+ * {@code setFromString} and the {@code String} constructor take O(n) time,
+ * and {@code print} writes the digits to a {@code SimpleWriter} a limb at a
+ * time without building the whole {@code String}.
+ *
+ * @convention <pre>
+ * 0 <= $this.length <= |$this.limbs|  and
+ * [all entries of $this.limbs are in [0, BASE)]  and
+ * [if $this.length > 0 then $this.limbs[$this.length - 1] /= 0]
+ * </pre>
+ * @correspondence <pre>
+ * this = [sum of $this.limbs[i] * BASE^i for 0 <= i < $this.length]
+ * </pre>
+ */
+public class NaturalNumber4 extends NaturalNumberSecondary {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Base of the limbs.
+     */
+    private static final int BASE = 1_000_000_000;
+
+    /**
+     * Number of decimal digits in a limb.
+     */
+    private static final int BASE_DIGITS = 9;
+
+    /**
+     * Smallest capacity the limb array grows to.
+     */
+    private static final int MIN_CAPACITY = 4;
+
+    /**
+     * Default number of decimal digits the shorter factor must have for
+     * {@code multiply} to use Karatsuba's method.
+     */
+    public static final int DEFAULT_KARATSUBA_DIGITS = 360;
+
+    /**
+     * Default number of decimal digits the shorter factor must have for
+     * {@code multiply} to use Toom-Cook 3-way multiplication.
+     */
+    public static final int DEFAULT_TOOM3_DIGITS = 2_250;
+
+    /**
+     * Smallest threshold {@code setMultiplyThresholds} accepts; below it the
+     * split factors would not get shorter.
+     */
+    public static final int MIN_THRESHOLD_DIGITS = 5 * BASE_DIGITS;
+
+    /**
+     * Number of limbs the shorter factor must have for Karatsuba's method.
+     */
+    private static int karatsubaLimbs = DEFAULT_KARATSUBA_DIGITS / BASE_DIGITS;
+
+    /**
+     * Number of limbs the shorter factor must have for Toom-Cook 3-way
+     * multiplication.
+     */
+    private static int toom3Limbs = DEFAULT_TOOM3_DIGITS / BASE_DIGITS;
+
+    /**
+     * Limbs of {@code this}, least significant first.
+     */
+    private int[] limbs;
+
+    /**
+     * Number of limbs in use.
+     */
+    private int length;
+
+    /**
+     * Returns the number of limbs of {@code a[0, length)} left once leading
+     * zero limbs are dropped.
+     *
+     * @param a
+     *            the limbs
+     * @param length
+     *            the number of limbs to consider
+     * @return the number of significant limbs
+     * @requires 0 <= length <= |a|
+     * @ensures <pre>
+     * significantLength <= length  and
+     * [a[significantLength, length) are all 0]  and
+     * [if significantLength > 0 then a[significantLength - 1] /= 0]
+     * </pre>
+     */
+    private static int significantLength(int[] a, int length) {
+        int n = length;
+        while (n > 0 && a[n - 1] == 0) {
+            n--;
+        }
+        return n;
+    }
+
+    /**
+     * Compares the numbers with limbs {@code a[0, aLength)} and
+     * {@code b[0, bLength)}.
+     *
+     * @param a
+     *            the limbs of the first number
+     * @param aLength
+     *            the number of limbs of the first number
+     * @param b
+     *            the limbs of the second number
+     * @param bLength
+     *            the number of limbs of the second number
+     * @return negative, zero, or positive as the first number is less than,
+     *         equal to, or greater than the second
+     * @requires [neither number has a leading zero limb]
+     */
+    private static int compare(int[] a, int aLength, int[] b, int bLength) {
+        int result = Integer.compare(aLength, bLength);
+        if (result == 0) {
+            int i = aLength - 1;
+            while (i >= 0 && a[i] == b[i]) {
+                i--;
+            }
+            if (i >= 0) {
+                result = Integer.compare(a[i], b[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Multiplies {@code a[0, length)} by {@code m} and adds {@code carry}, in
+     * place.
+     *
+     * @param a
+     *            the limbs
+     * @param length
+     *            the number of limbs
+     * @param m
+     *            the multiplier
+     * @param carry
+     *            the number added
+     * @return the limb carried out of {@code a[length - 1]}
+     * @updates a
+     * @requires 0 <= length <= |a|  and  0 <= m <= BASE  and
+     *           0 <= carry < BASE
+     * @ensures <pre>
+     * [a[0, length) * m + carry =
+     *    #a[0, length) * m + carry - multiplyInPlace * BASE^length]
+     * </pre>
+     */
+    private static int multiplyInPlace(int[] a, int length, int m,
+            int carry) {
+        long c = carry;
+        for (int i = 0; i < length; i++) {
+            long t = (long) a[i] * m + c;
+            a[i] = (int) (t % BASE);
+            c = t / BASE;
+        }
+        return (int) c;
+    }
+
+    /**
+     * Divides {@code a[0, length)} by {@code d}, in place.
+     *
+     * @param a
+     *            the limbs
+     * @param length
+     *            the number of limbs
+     * @param d
+     *            the divisor
+     * @return the remainder
+     * @updates a
+     * @requires 0 <= length <= |a|  and  0 < d <= BASE
+     * @ensures <pre>
+     * #a[0, length) = a[0, length) * d + divideInPlace  and
+     * 0 <= divideInPlace < d
+     * </pre>
+     */
+    private static int divideInPlace(int[] a, int length, int d) {
+        long r = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            long t = r * BASE + a[i];
+            a[i] = (int) (t / d);
+            r = t % d;
+        }
+        return (int) r;
+    }
+
+    /**
+     * Returns the limbs of the sum of {@code a[0, aLength)} and
+     * {@code b[0, bLength)}.
+     *
+     * @param a
+     *            the limbs of the first number
+     * @param aLength
+     *            the number of limbs of the first number
+     * @param b
+     *            the limbs of the second number
+     * @param bLength
+     *            the number of limbs of the second number
+     * @return the limbs of the sum, possibly with a leading zero limb
+     * @ensures |add| = max(aLength, bLength) + 1  and
+     *          add = a[0, aLength) + b[0, bLength)
+     */
+    private static int[] add(int[] a, int aLength, int[] b, int bLength) {
+        int[] sum = new int[Math.max(aLength, bLength) + 1];
+        int carry = 0;
+        for (int i = 0; i < sum.length - 1; i++) {
+            int t = carry;
+            if (i < aLength) {
+                t += a[i];
+            }
+            if (i < bLength) {
+                t += b[i];
+            }
+            carry = 0;
+            if (t >= BASE) {
+                t -= BASE;
+                carry = 1;
+            }
+            sum[i] = t;
+        }
+        sum[sum.length - 1] = carry;
+        return sum;
+    }
+
+    /**
+     * Subtracts {@code b[0, bLength)} from {@code a[0, aLength)}, in place.
+     *
+     * @param a
+     *            the limbs of the minuend
+     * @param aLength
+     *            the number of limbs of the minuend
+     * @param b
+     *            the limbs of the subtrahend
+     * @param bLength
+     *            the number of limbs of the subtrahend
+     * @updates a
+     * @requires a[0, aLength) >= b[0, bLength)  and  bLength <= aLength
+     * @ensures a[0, aLength) = #a[0, aLength) - b[0, bLength)
+     */
+    private static void subtractInPlace(int[] a, int aLength, int[] b,
+            int bLength) {
+        int borrow = 0;
+        int i = 0;
+        while (i < aLength && (i < bLength || borrow > 0)) {
+            int t = a[i] - borrow;
+            if (i < bLength) {
+                t -= b[i];
+            }
+            borrow = 0;
+            if (t < 0) {
+                t += BASE;
+                borrow = 1;
+            }
+            a[i] = t;
+            i++;
+        }
+    }
+
+    /**
+     * Returns the limbs of the product of {@code a[0, aLength)} and
+     * {@code b[0, bLength)}, by the schoolbook method.
+     *
+     * @param a
+     *            the limbs of the first number
+     * @param aLength
+     *            the number of limbs of the first number
+     * @param b
+     *            the limbs of the second number
+     * @param bLength
+     *            the number of limbs of the second number
+     * @return the limbs of the product, possibly with a leading zero limb
+     * @ensures |multiply| = aLength + bLength  and
+     *          multiply = a[0, aLength) * b[0, bLength)
+     */
+    private static int[] schoolbookMultiply(int[] a, int aLength, int[] b,
+            int bLength) {
+        int[] product = new int[aLength + bLength];
+        for (int i = 0; i < aLength; i++) {
+            long ai = a[i];
+            if (ai != 0) {
+                long carry = 0;
+                for (int j = 0; j < bLength; j++) {
+                    // < BASE + (BASE - 1)^2 + BASE, which fits in a long
+                    long t = product[i + j] + ai * b[j] + carry;
+                    product[i + j] = (int) (t % BASE);
+                    carry = t / BASE;
+                }
+                product[i + bLength] = (int) carry;
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Returns a copy of the limbs {@code a[from, to)}, or an empty array if
+     * {@code from} is past the end.
+     *
+     * @param a
+     *            the limbs
+     * @param from
+     *            index of the first limb
+     * @param to
+     *            index past the last limb
+     * @return the limbs in [from, min(to, |a|))
+     * @requires 0 <= from <= to
+     */
+    private static int[] slice(int[] a, int from, int to) {
+        int[] slice = new int[0];
+        if (from < a.length) {
+            slice = Arrays.copyOfRange(a, from, Math.min(to, a.length));
+        }
+        return slice;
+    }
+
+    /**
+     * Adds {@code b * BASE^shift} to {@code a}, in place.
+     *
+     * @param a
+     *            the limbs of the sum
+     * @param b
+     *            the limbs of the number added
+     * @param shift
+     *            number of limbs b is shifted by
+     * @updates a
+     * @requires #a + b * BASE^shift < BASE^|a|
+     * @ensures a = #a + b * BASE^shift
+     */
+    private static void addShifted(int[] a, int[] b, int shift) {
+        int bLength = significantLength(b, b.length);
+        int carry = 0;
+        int i = 0;
+        while (i < bLength || carry > 0) {
+            int t = a[i + shift] + carry;
+            if (i < bLength) {
+                t += b[i];
+            }
+            carry = 0;
+            if (t >= BASE) {
+                t -= BASE;
+                carry = 1;
+            }
+            a[i + shift] = t;
+            i++;
+        }
+    }
+
+    /**
+     * Returns the limbs of {@code a + b}.
+     *
+     * @param a
+     *            the limbs of the first number
+     * @param b
+     *            the limbs of the second number
+     * @return the limbs of the sum
+     * @ensures plus = a + b
+     */
+    private static int[] plus(int[] a, int[] b) {
+        return add(a, significantLength(a, a.length), b,
+                significantLength(b, b.length));
+    }
+
+    /**
+     * Returns the limbs of {@code a - b}.
+     *
+     * @param a
+     *            the limbs of the minuend
+     * @param b
+     *            the limbs of the subtrahend
+     * @return the limbs of the difference
+     * @requires a >= b
+     * @ensures minus = a - b
+     */
+    private static int[] minus(int[] a, int[] b) {
+        int aLength = significantLength(a, a.length);
+        int[] difference = Arrays.copyOf(a, aLength);
+        subtractInPlace(difference, aLength, b,
+                significantLength(b, b.length));
+        return difference;
+    }
+
+    /**
+     * Returns the limbs of {@code a * m}.
+     *
+     * @param a
+     *            the limbs
+     * @param m
+     *            the multiplier
+     * @return the limbs of the product
+     * @requires 0 <= m < BASE
+     * @ensures times = a * m
+     */
+    private static int[] times(int[] a, int m) {
+        int[] product = Arrays.copyOf(a, a.length + 1);
+        product[a.length] = multiplyInPlace(product, a.length, m, 0);
+        return product;
+    }
+
+    /**
+     * Returns the limbs of the product of {@code a} and {@code b}, by
+     * Karatsuba's method.
+     *
+     * @param a
+     *            the limbs of the longer factor
+     * @param b
+     *            the limbs of the shorter factor
+     * @return the limbs of the product
+     * @requires [a and b have no leading zero limb]  and
+     *           |b| <= |a| <= 2 * |b|
+     * @ensures karatsuba = a * b
+     */
+    private static int[] karatsuba(int[] a, int[] b) {
+        int half = (a.length + 1) / 2;
+        int[] a0 = slice(a, 0, half);
+        int[] a1 = slice(a, half, a.length);
+        int[] b0 = slice(b, 0, half);
+        int[] b1 = slice(b, half, b.length);
+
+        int[] z0 = multiply(a0, a0.length, b0, b0.length);
+        int[] z2 = multiply(a1, a1.length, b1, b1.length);
+        int[] s = plus(a0, a1);
+        int[] t = plus(b0, b1);
+        // (a0 + a1)(b0 + b1) - z0 - z2 = a0 b1 + a1 b0
+        int[] z1 = minus(minus(multiply(s, s.length, t, t.length), z0), z2);
+
+        int[] product = new int[a.length + b.length];
+        addShifted(product, z0, 0);
+        addShifted(product, z1, half);
+        addShifted(product, z2, 2 * half);
+        return product;
+    }
+
+    /**
+     * Returns the limbs of the product of {@code a} and {@code b}, by
+     * Toom-Cook 3-way multiplication: it evaluates both factors, as
+     * polynomials in {@code BASE^k} of degree 2, at 0, 1, -1, 2 and infinity,
+     * multiplies the values, and interpolates the product with Bodrato's
+     * sequence of exact divisions.
+     *
+     * @param a
+     *            the limbs of the longer factor
+     * @param b
+     *            the limbs of the shorter factor
+     * @return the limbs of the product
+     * @requires [a and b have no leading zero limb]  and
+     *           |b| <= |a| <= 2 * |b|
+     * @ensures toom3 = a * b
+     */
+    private static int[] toom3(int[] a, int[] b) {
+        final int three = 3;
+        final int four = 4;
+        int k = (a.length + 2) / three;
+        int[] a0 = slice(a, 0, k);
+        int[] a1 = slice(a, k, 2 * k);
+        int[] a2 = slice(a, 2 * k, three * k);
+        int[] b0 = slice(b, 0, k);
+        int[] b1 = slice(b, k, 2 * k);
+        int[] b2 = slice(b, 2 * k, three * k);
+
+        // the value at -1 is the only one that can be negative
+        int[] a02 = plus(a0, a2);
+        int[] b02 = plus(b0, b2);
+        boolean aNegative = compare(a02, significantLength(a02, a02.length),
+                a1, significantLength(a1, a1.length)) < 0;
+        boolean bNegative = compare(b02, significantLength(b02, b02.length),
+                b1, significantLength(b1, b1.length)) < 0;
+        int[] am1;
+        int[] bm1;
+        if (aNegative) {
+            am1 = minus(a1, a02);
+        } else {
+            am1 = minus(a02, a1);
+        }
+        if (bNegative) {
+            bm1 = minus(b1, b02);
+        } else {
+            bm1 = minus(b02, b1);
+        }
+        int[] vm1 = multiply(am1, am1.length, bm1, bm1.length);
+        boolean vm1Negative = aNegative != bNegative;
+
+        int[] a1Sum = plus(a02, a1);
+        int[] b1Sum = plus(b02, b1);
+        int[] v1 = multiply(a1Sum, a1Sum.length, b1Sum, b1Sum.length);
+        // a(2) = 2 (a(1) + a2) - a0
+        int[] a2Sum = minus(times(plus(a1Sum, a2), 2), a0);
+        int[] b2Sum = minus(times(plus(b1Sum, b2), 2), b0);
+        int[] v2 = multiply(a2Sum, a2Sum.length, b2Sum, b2Sum.length);
+        int[] v0 = multiply(a0, a0.length, b0, b0.length);
+        int[] vInf = multiply(a2, a2.length, b2, b2.length);
+
+        /*
+         * With the product r4 x^4 + r3 x^3 + r2 x^2 + r1 x + r0, every value
+         * below is nonnegative
+         */
+        int[] t2;
+        int[] tm1;
+        if (vm1Negative) {
+            t2 = plus(v2, vm1);
+            tm1 = plus(v1, vm1);
+        } else {
+            t2 = minus(v2, vm1);
+            tm1 = minus(v1, vm1);
+        }
+        // t2 = r1 + r2 + 3 r3 + 5 r4, tm1 = r1 + r3
+        divideInPlace(t2, t2.length, three);
+        divideInPlace(tm1, tm1.length, 2);
+        // t1 = r1 + r2 + r3 + r4
+        int[] t1 = minus(v1, v0);
+        // t2 = r3 + 2 r4
+        t2 = minus(t2, t1);
+        divideInPlace(t2, t2.length, 2);
+        // t1 = r2
+        t1 = minus(minus(t1, tm1), vInf);
+        // t2 = r3
+        t2 = minus(t2, times(vInf, 2));
+        // tm1 = r1
+        tm1 = minus(tm1, t2);
+
+        int[] product = new int[a.length + b.length];
+        addShifted(product, v0, 0);
+        addShifted(product, tm1, k);
+        addShifted(product, t1, 2 * k);
+        addShifted(product, t2, three * k);
+        addShifted(product, vInf, four * k);
+        return product;
+    }
+
+    /**
+     * Returns the limbs of the product of {@code a[0, aLength)} and
+     * {@code b[0, bLength)}, by the schoolbook method, Karatsuba's method, or
+     * Toom-Cook 3-way multiplication, depending on the length of the shorter
+     * factor.
+     *
+     * @param a
+     *            the limbs of the first number
+     * @param aLength
+     *            the number of limbs of the first number
+     * @param b
+     *            the limbs of the second number
+     * @param bLength
+     *            the number of limbs of the second number
+     * @return the limbs of the product, possibly with leading zero limbs
+     * @requires 0 <= aLength <= |a|  and  0 <= bLength <= |b|
+     * @ensures multiply = a[0, aLength) * b[0, bLength)
+     */
+    private static int[] multiply(int[] a, int aLength, int[] b,
+            int bLength) {
+        int[] longer = a;
+        int longerLength = significantLength(a, aLength);
+        int[] shorter = b;
+        int shorterLength = significantLength(b, bLength);
+        if (longerLength < shorterLength) {
+            longer = b;
+            longerLength = shorterLength;
+            shorter = a;
+            shorterLength = significantLength(a, aLength);
+        }
+
+        int[] product;
+        if (shorterLength < karatsubaLimbs) {
+            product = schoolbookMultiply(longer, longerLength, shorter,
+                    shorterLength);
+        } else if (longerLength > 2 * shorterLength) {
+            // cut the longer factor into pieces as long as the shorter one
+            product = new int[longerLength + shorterLength];
+            for (int i = 0; i < longerLength; i += shorterLength) {
+                int[] piece = slice(longer, i,
+                        Math.min(i + shorterLength, longerLength));
+                addShifted(product,
+                        multiply(piece, piece.length, shorter, shorterLength),
+                        i);
+            }
+        } else {
+            int[] x = Arrays.copyOf(longer, longerLength);
+            int[] y = Arrays.copyOf(shorter, shorterLength);
+            if (shorterLength < toom3Limbs) {
+                product = karatsuba(x, y);
+            } else {
+                product = toom3(x, y);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Divides {@code u[0, uLength)} by {@code v[0, vLength)} with Knuth's
+     * Algorithm D (The Art of Computer Programming, volume 2, 4.3.1).
+     *
+     * @param u
+     *            the limbs of the dividend
+     * @param uLength
+     *            the number of limbs of the dividend
+     * @param v
+     *            the limbs of the divisor
+     * @param vLength
+     *            the number of limbs of the divisor
+     * @param remainder
+     *            array to hold the limbs of the remainder
+     * @return the limbs of the quotient, possibly with a leading zero limb
+     * @updates remainder
+     * @requires <pre>
+     * 2 <= vLength <= uLength  and  v[vLength - 1] /= 0  and
+     * |remainder| >= vLength
+     * </pre>
+     * @ensures <pre>
+     * |divide| = uLength - vLength + 1  and
+     * u[0, uLength) = divide * v[0, vLength) + remainder[0, vLength)  and
+     * remainder[0, vLength) < v[0, vLength)
+     * </pre>
+     */
+    private static int[] divide(int[] u, int uLength, int[] v, int vLength,
+            int[] remainder) {
+        /*
+         * Scale both numbers so the divisor's top limb is at least BASE / 2,
+         * which keeps each estimated quotient limb within 2 of the real one
+         */
+        int scale = BASE / (v[vLength - 1] + 1);
+        int[] un = Arrays.copyOf(u, uLength + 1);
+        un[uLength] = multiplyInPlace(un, uLength, scale, 0);
+        int[] vn = Arrays.copyOf(v, vLength);
+        multiplyInPlace(vn, vLength, scale, 0);
+        long vTop = vn[vLength - 1];
+        long vNext = vn[vLength - 2];
+
+        int[] quotient = new int[uLength - vLength + 1];
+        for (int j = uLength - vLength; j >= 0; j--) {
+            long top = (long) un[j + vLength] * BASE + un[j + vLength - 1];
+            long qHat = top / vTop;
+            long rHat = top % vTop;
+            while (rHat < BASE && (qHat >= BASE
+                    || qHat * vNext > rHat * BASE + un[j + vLength - 2])) {
+                qHat--;
+                rHat += vTop;
+            }
+
+            // un[j, j + vLength] -= qHat * vn
+            long carry = 0;
+            int borrow = 0;
+            for (int i = 0; i < vLength; i++) {
+                long p = qHat * vn[i] + carry;
+                carry = p / BASE;
+                long t = un[i + j] - p % BASE - borrow;
+                borrow = 0;
+                if (t < 0) {
+                    t += BASE;
+                    borrow = 1;
+                }
+                un[i + j] = (int) t;
+            }
+            long t = un[j + vLength] - carry - borrow;
+            if (t < 0) {
+                // qHat was one too large (rare): add vn back
+                qHat--;
+                carry = 0;
+                for (int i = 0; i < vLength; i++) {
+                    long s = un[i + j] + vn[i] + carry;
+                    un[i + j] = (int) (s % BASE);
+                    carry = s / BASE;
+                }
+                t += carry;
+            }
+            un[j + vLength] = (int) t;
+            quotient[j] = (int) qHat;
+        }
+
+        divideInPlace(un, vLength, scale);
+        System.arraycopy(un, 0, remainder, 0, vLength);
+        return quotient;
+    }
+
+    /**
+     * Returns {@code n} as a {@code NaturalNumber4}, converting it if it is of
+     * another type.
+     *
+     * @param n
+     *            the number
+     * @return n, or a copy of n of type NaturalNumber4
+     * @ensures local = n
+     */
+    private static NaturalNumber4 local(NaturalNumber n) {
+        NaturalNumber4 local;
+        if (n instanceof NaturalNumber4) {
+            local = (NaturalNumber4) n;
+        } else {
+            local = new NaturalNumber4(n);
+        }
+        return local;
+    }
+
+    /**
+     * Sets the representation to the limbs in {@code a}.
+     *
+     * @param a
+     *            the limbs, possibly with leading zero limbs
+     * @replaces $this
+     * @requires [all entries of a are in [0, BASE)]
+     * @ensures $this.limbs = a  and
+     *          $this.length = [number of significant limbs of a]
+     */
+    private void setLimbs(int[] a) {
+        this.limbs = a;
+        this.length = significantLength(a, a.length);
+    }
+
+    /**
+     * Sets the representation to the value of the decimal numeral {@code s},
+     * nine digits per limb.
+     *
+     * @param s
+     *            the numeral
+     * @replaces $this
+     * @requires there exists n: NATURAL (s = TO_STRING(n))
+     * @ensures this = [value of s]
+     */
+    private void setLimbs(String s) {
+        int[] a = new int[(s.length() + BASE_DIGITS - 1) / BASE_DIGITS];
+        int end = s.length();
+        for (int i = 0; i < a.length; i++) {
+            int start = Math.max(0, end - BASE_DIGITS);
+            int limb = 0;
+            for (int k = start; k < end; k++) {
+                limb = limb * RADIX + (s.charAt(k) - '0');
+            }
+            a[i] = limb;
+            end = start;
+        }
+        this.setLimbs(a);
+    }
+
+    /**
+     * Puts the nine decimal digits of {@code limb}, with leading zeros, in
+     * {@code digits[offset, offset + BASE_DIGITS)}.
+     *
+     * @param limb
+     *            the limb
+     * @param digits
+     *            the array to hold the digits
+     * @param offset
+     *            index in digits of the first digit
+     * @updates digits
+     * @requires 0 <= limb < BASE  and  0 <= offset  and
+     *           offset + BASE_DIGITS <= |digits|
+     * @ensures digits[offset, offset + BASE_DIGITS) =
+     *          [limb in decimal, padded with leading zeros]
+     */
+    private static void putDigits(int limb, char[] digits, int offset) {
+        int rest = limb;
+        for (int k = offset + BASE_DIGITS - 1; k >= offset; k--) {
+            digits[k] = (char) ('0' + rest % RADIX);
+            rest /= RADIX;
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.length <= |$this.limbs|  and
+     * [all entries of $this.limbs are in [0, BASE)]  and
+     * [if $this.length > 0 then $this.limbs[$this.length - 1] /= 0]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.length && this.length <= this.limbs.length
+                : "Violation of: 0 <= $this.length <= |$this.limbs|";
+        for (int limb : this.limbs) {
+            assert 0 <= limb && limb < BASE
+                    : "Violation of: [all entries of $this.limbs are in [0, BASE)]";
+        }
+        assert this.length == 0 || this.limbs[this.length - 1] != 0
+                : "Violation of: [no leading zero limb]";
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.limbs = new int[0];
+        this.length = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public NaturalNumber4() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from {@code int}.
+     *
+     * @param i
+     *            {@code int} to initialize from
+     */
+    public NaturalNumber4(int i) {
+        assert i >= 0 : "Violation of: i >= 0";
+        this.setLimbs(new int[] { i % BASE, i / BASE });
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from {@code String}.
+     *
+     * @param s
+     *            {@code String} to initialize from
+     */
+    public NaturalNumber4(String s) {
+        assert s != null : "Violation of: s is not null";
+        assert s.matches("0|[1-9]\\d*")
+                : "" + "Violation of: there exists n: NATURAL (s = TO_STRING(n))";
+        this.setLimbs(s);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from {@code NaturalNumber}.
+     *
+     * @param n
+     *            {@code NaturalNumber} to initialize from
+     */
+    public NaturalNumber4(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        if (n instanceof NaturalNumber4) {
+            NaturalNumber4 localN = (NaturalNumber4) n;
+            this.setLimbs(Arrays.copyOf(localN.limbs, localN.length));
+        } else {
+            this.setLimbs(n.toString());
+        }
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final NaturalNumber newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(NaturalNumber source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof NaturalNumber4
+                : "" + "Violation of: source is of dynamic type NaturalNumber4";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case.
+         */
+        NaturalNumber4 localSource = (NaturalNumber4) source;
+        this.limbs = localSource.limbs;
+        this.length = localSource.length;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void multiplyBy10(int k) {
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k < RADIX : "Violation of: k < 10";
+
+        int carry = multiplyInPlace(this.limbs, this.length, RADIX, k);
+        if (carry > 0) {
+            if (this.length == this.limbs.length) {
+                this.limbs = Arrays.copyOf(this.limbs,
+                        Math.max(MIN_CAPACITY, 2 * this.length));
+            }
+            this.limbs[this.length] = carry;
+            this.length++;
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final int divideBy10() {
+        int removed = divideInPlace(this.limbs, this.length, RADIX);
+        if (this.length > 0 && this.limbs[this.length - 1] == 0) {
+            this.length--;
+        }
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean isZero() {
+        return this.length == 0;
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final int compareTo(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+
+        NaturalNumber4 localN = local(n);
+        return compare(this.limbs, this.length, localN.limbs, localN.length);
+    }
+
+    @Override
+    public final void add(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+
+        NaturalNumber4 localN = local(n);
+        this.setLimbs(
+                add(this.limbs, this.length, localN.limbs, localN.length));
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void subtract(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        NaturalNumber4 localN = local(n);
+        assert compare(this.limbs, this.length, localN.limbs,
+                localN.length) >= 0 : "Violation of: this >= n";
+
+        subtractInPlace(this.limbs, this.length, localN.limbs, localN.length);
+        this.length = significantLength(this.limbs, this.length);
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void multiply(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+
+        NaturalNumber4 localN = local(n);
+        this.setLimbs(multiply(this.limbs, this.length, localN.limbs,
+                localN.length));
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void power(int p) {
+        assert p >= 0 : "Violation of: p >= 0";
+
+        int[] base = Arrays.copyOf(this.limbs, this.length);
+        int[] result = { 1 };
+        // square and multiply, from the highest bit of p down
+        for (int bit = Integer.highestOneBit(p); bit > 0; bit >>>= 1) {
+            result = multiply(result, result.length, result, result.length);
+            if ((p & bit) != 0) {
+                result = multiply(result, result.length, base, base.length);
+            }
+        }
+        this.setLimbs(result);
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final NaturalNumber divide(NaturalNumber n) {
+        assert n != null : "Violation of: n is not null";
+        assert !n.isZero() : "Violation of: n > 0";
+
+        NaturalNumber4 localN = local(n);
+        NaturalNumber4 remainder = new NaturalNumber4();
+        if (compare(this.limbs, this.length, localN.limbs,
+                localN.length) < 0) {
+            remainder.transferFrom(this);
+        } else if (localN.length == 1) {
+            int[] quotient = Arrays.copyOf(this.limbs, this.length);
+            int r = divideInPlace(quotient, quotient.length, localN.limbs[0]);
+            remainder.setLimbs(new int[] { r });
+            this.setLimbs(quotient);
+        } else {
+            int[] r = new int[localN.length];
+            int[] quotient = divide(this.limbs, this.length, localN.limbs,
+                    localN.length, r);
+            remainder.setLimbs(r);
+            this.setLimbs(quotient);
+        }
+
+        assert this.conventionHolds();
+        assert remainder.conventionHolds();
+        return remainder;
+    }
+
+    @Override
+    public final void setFromString(String s) {
+        assert s != null : "Violation of: s is not null";
+        assert s.matches("0|[1-9]\\d*")
+                : "" + "Violation of: there exists n: NATURAL (s = TO_STRING(n))";
+
+        this.setLimbs(s);
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final String toString() {
+        String result = "0";
+        if (this.length > 0) {
+            String top = Integer.toString(this.limbs[this.length - 1]);
+            char[] digits = new char[top.length()
+                    + (this.length - 1) * BASE_DIGITS];
+            top.getChars(0, top.length(), digits, 0);
+            int offset = top.length();
+            for (int i = this.length - 2; i >= 0; i--) {
+                putDigits(this.limbs[i], digits, offset);
+                offset += BASE_DIGITS;
+            }
+            result = new String(digits);
+        }
+        return result;
+    }
+
+    /*
+     * Decimal output ---------------------------------------------------------
+     */
+
+    /**
+     * Outputs the decimal numeral of {@code this} to {@code out}, a limb at a
+     * time, without building the whole numeral first.
+     *
+     * @param out
+     *            the output stream
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * TO_STRING(this)
+     */
+    public final void print(SimpleWriter out) {
+        assert out != null : "Violation of: out is not null";
+        assert out.isOpen() : "Violation of: out.is_open";
+
+        if (this.length == 0) {
+            out.print("0");
+        } else {
+            out.print(Integer.toString(this.limbs[this.length - 1]));
+            char[] digits = new char[BASE_DIGITS];
+            for (int i = this.length - 2; i >= 0; i--) {
+                putDigits(this.limbs[i], digits, 0);
+                out.print(String.valueOf(digits));
+            }
+        }
+    }
+
+    /*
+     * Multiplication thresholds ----------------------------------------------
+     */
+
+    /**
+     * Sets the numbers of decimal digits the shorter factor of
+     * {@code multiply} must have for it to switch from the schoolbook method
+     * to Karatsuba's method, and from Karatsuba's method to Toom-Cook 3-way
+     * multiplication, for all {@code NaturalNumber4}s. Pass
+     * {@code Integer.MAX_VALUE} to turn a method off.
+     *
+     * @param karatsubaDigits
+     *            digits from which Karatsuba's method is used
+     * @param toom3Digits
+     *            digits from which Toom-Cook 3-way multiplication is used
+     * @requires <pre>
+     * MIN_THRESHOLD_DIGITS <= karatsubaDigits <= toom3Digits
+     * </pre>
+     */
+    public static void setMultiplyThresholds(int karatsubaDigits,
+            int toom3Digits) {
+        assert MIN_THRESHOLD_DIGITS <= karatsubaDigits
+                : "Violation of: MIN_THRESHOLD_DIGITS <= karatsubaDigits";
+        assert karatsubaDigits <= toom3Digits
+                : "Violation of: karatsubaDigits <= toom3Digits";
+
+        karatsubaLimbs = karatsubaDigits / BASE_DIGITS;
+        toom3Limbs = toom3Digits / BASE_DIGITS;
+    }
+
+}
@@ -0,0 +1,297 @@
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import components.naturalnumber.NaturalNumber;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare the time {@code NaturalNumber3} (a {@code String} of
+ * digits), {@code NaturalNumber4} (base-10<sup>9</sup> limbs) and
+ * {@code java.math.BigInteger} take to multiply two numbers of 1,000 to
+ * 1,000,000 decimal digits, and to raise a 1,000-digit number to a power of
+ * the same size.
+ *
+ * <p>
+ * Usage:
+ * {@code NaturalNumberMultiplyBenchmark [maxDigits [karatsubaDigits toom3Digits]]}
+ * (default 1,000,000 and {@code NaturalNumber4}'s default thresholds).
+ * {@code NaturalNumber4} is timed with the schoolbook method alone, with
+ * Karatsuba's method and no Toom-3, and with all three. {@code NaturalNumber3}
+ * only runs up to {@code NATURAL_NUMBER3_LIMIT} digits and the schoolbook
+ * method up to {@code SCHOOLBOOK_LIMIT}. Each line ends with the last nine
+ * digits of the result, which should agree down a column. Times are per
+ * product, in microseconds; each tenfold step in the number of digits should
+ * multiply the schoolbook time by about 100, Karatsuba's by about 38 and
+ * Toom-3's by about 29, so the columns show where each threshold pays off.
+ */
+public final class NaturalNumberMultiplyBenchmark {
+
+    /**
+     * Default number of digits of the largest factors.
+     */
+    private static final int DEFAULT_MAX_DIGITS = 1_000_000;
+
+    /**
+     * Number of digits of the smallest factors; each size is ten times the
+     * one before.
+     */
+    private static final int MIN_DIGITS = 1_000;
+
+    /**
+     * Largest factors given to {@code NaturalNumber3}.
+     */
+    private static final int NATURAL_NUMBER3_LIMIT = 1_000;
+
+    /**
+     * Largest factors given to the schoolbook method.
+     */
+    private static final int SCHOOLBOOK_LIMIT = 100_000;
+
+    /**
+     * Each run repeats its product until it has handled about this many
+     * digits of factors, so the small sizes take long enough to time.
+     */
+    private static final int DIGITS_PER_RUN = 1_000_000;
+
+    /**
+     * Number of digits of the base of the powers.
+     */
+    private static final int POWER_BASE_DIGITS = 1_000;
+
+    /**
+     * Modulus giving the last nine digits of a result.
+     */
+    private static final int LAST_DIGITS = 1_000_000_000;
+
+    /**
+     * Seed for the random digits, so every implementation sees the same
+     * factors.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private NaturalNumberMultiplyBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns a random numeral of {@code digits} digits.
+     *
+     * @param random
+     *            the source of random digits
+     * @param digits
+     *            the number of digits
+     * @return the numeral
+     * @updates random
+     * @requires digits > 0
+     * @ensures <pre>
+     * |randomNumeral| = digits  and
+     * there exists n: NATURAL (randomNumeral = TO_STRING(n))
+     * </pre>
+     */
+    private static String randomNumeral(Random random, int digits) {
+        StringBuilder numeral = new StringBuilder(digits);
+        final int nonzeroDigits = NaturalNumber.RADIX - 1;
+        numeral.append((char) ('1' + random.nextInt(nonzeroDigits)));
+        for (int i = 1; i < digits; i++) {
+            numeral.append(
+                    (char) ('0' + random.nextInt(NaturalNumber.RADIX)));
+        }
+        return numeral.toString();
+    }
+
+    /**
+     * Returns the last nine digits of {@code n}.
+     *
+     * @param n
+     *            the number
+     * @return n mod LAST_DIGITS
+     * @clears n
+     * @ensures lastDigits = #n mod LAST_DIGITS
+     */
+    private static int lastDigits(NaturalNumber n) {
+        NaturalNumber remainder = n.divide(new NaturalNumber4(LAST_DIGITS));
+        n.clear();
+        return remainder.toInt();
+    }
+
+    /**
+     * Outputs a timing line.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param elapsed
+     *            total time of the run, in nanoseconds
+     * @param reps
+     *            number of operations in the run
+     * @param lastDigits
+     *            last nine digits of the result
+     * @updates out.content
+     * @requires out.is_open  and  reps > 0
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void report(SimpleWriter out, String label, long elapsed,
+            int reps, int lastDigits) {
+        out.println(label + ": " + TimeUnit.NANOSECONDS.toMicros(elapsed / reps)
+                + " us each (last digits " + lastDigits + ")");
+    }
+
+    /**
+     * Times {@code reps} products {@code x * y} by {@code NaturalNumber4}.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param x
+     *            the first factor
+     * @param y
+     *            the second factor
+     * @param reps
+     *            number of products
+     * @updates out.content
+     * @requires out.is_open  and  reps > 0
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void timeMultiply(SimpleWriter out, String label,
+            NaturalNumber4 x, NaturalNumber4 y, int reps) {
+        NaturalNumber4 product = new NaturalNumber4();
+        long elapsed = 0;
+        for (int i = 0; i < reps; i++) {
+            product = new NaturalNumber4(x);
+            long start = System.nanoTime();
+            product.multiply(y);
+            elapsed += System.nanoTime() - start;
+        }
+        report(out, label, elapsed, reps, lastDigits(product));
+    }
+
+    /**
+     * Times one product {@code x * y} by {@code NaturalNumber3}.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param x
+     *            the first factor
+     * @param y
+     *            the second factor
+     * @updates out.content, x
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [timing for this run]  and
+     *          x = 0
+     */
+    private static void timeMultiply(SimpleWriter out, String label,
+            NaturalNumber3 x, NaturalNumber3 y) {
+        long start = System.nanoTime();
+        x.multiply(y);
+        long elapsed = System.nanoTime() - start;
+        report(out, label, elapsed, 1, lastDigits(x));
+    }
+
+    /**
+     * Times {@code reps} products {@code x * y} by {@code BigInteger}.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param x
+     *            the first factor
+     * @param y
+     *            the second factor
+     * @param reps
+     *            number of products
+     * @updates out.content
+     * @requires out.is_open  and  reps > 0
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void timeMultiply(SimpleWriter out, String label,
+            BigInteger x, BigInteger y, int reps) {
+        BigInteger product = BigInteger.ZERO;
+        long start = System.nanoTime();
+        for (int i = 0; i < reps; i++) {
+            product = x.multiply(y);
+        }
+        long elapsed = System.nanoTime() - start;
+        report(out, label, elapsed, reps,
+                product.mod(BigInteger.valueOf(LAST_DIGITS)).intValue());
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional number of digits of the
+     *            largest factors, and optional Karatsuba and Toom-3
+     *            thresholds in digits
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int maxDigits = DEFAULT_MAX_DIGITS;
+        if (args.length > 0) {
+            maxDigits = Integer.parseInt(args[0]);
+        }
+        int karatsubaDigits = NaturalNumber4.DEFAULT_KARATSUBA_DIGITS;
+        int toom3Digits = NaturalNumber4.DEFAULT_TOOM3_DIGITS;
+        if (args.length > 2) {
+            karatsubaDigits = Integer.parseInt(args[1]);
+            toom3Digits = Integer.parseInt(args[2]);
+        }
+        Random random = new Random(SEED);
+
+        for (int digits = MIN_DIGITS; digits <= maxDigits; digits *= 10) {
+            String xNumeral = randomNumeral(random, digits);
+            String yNumeral = randomNumeral(random, digits);
+            NaturalNumber4 x = new NaturalNumber4(xNumeral);
+            NaturalNumber4 y = new NaturalNumber4(yNumeral);
+            int reps = Math.max(1, DIGITS_PER_RUN / digits);
+            String size = " d=" + digits;
+
+            if (digits <= NATURAL_NUMBER3_LIMIT) {
+                timeMultiply(out, "NaturalNumber3" + size,
+                        new NaturalNumber3(xNumeral),
+                        new NaturalNumber3(yNumeral));
+            }
+            if (digits <= SCHOOLBOOK_LIMIT) {
+                NaturalNumber4.setMultiplyThresholds(Integer.MAX_VALUE,
+                        Integer.MAX_VALUE);
+                timeMultiply(out, "NaturalNumber4 schoolbook" + size, x, y,
+                        reps);
+            }
+            NaturalNumber4.setMultiplyThresholds(karatsubaDigits,
+                    Integer.MAX_VALUE);
+            timeMultiply(out, "NaturalNumber4 Karatsuba" + size, x, y, reps);
+            NaturalNumber4.setMultiplyThresholds(karatsubaDigits, toom3Digits);
+            timeMultiply(out, "NaturalNumber4 Toom-3" + size, x, y, reps);
+            timeMultiply(out, "BigInteger" + size, new BigInteger(xNumeral),
+                    new BigInteger(yNumeral), reps);
+
+            int exponent = digits / POWER_BASE_DIGITS;
+            String baseNumeral = randomNumeral(random, POWER_BASE_DIGITS);
+            NaturalNumber4 power = new NaturalNumber4(baseNumeral);
+            long start = System.nanoTime();
+            power.power(exponent);
+            long elapsed = System.nanoTime() - start;
+            report(out, "NaturalNumber4 power p=" + exponent, elapsed, 1,
+                    lastDigits(power));
+            BigInteger bigBase = new BigInteger(baseNumeral);
+            start = System.nanoTime();
+            BigInteger bigPower = bigBase.pow(exponent);
+            elapsed = System.nanoTime() - start;
+            report(out, "BigInteger power p=" + exponent, elapsed, 1,
+                    bigPower.mod(BigInteger.valueOf(LAST_DIGITS)).intValue());
+        }
+
+        out.close();
+    }
+
+}
@@ -1,3 +1,8 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
 import components.naturalnumber.NaturalNumber;
 import components.naturalnumber.NaturalNumber1L;
 
@@ -50,4 +55,56 @@ public class NaturalNumber3Test extends NaturalNumberTest {
         return new NaturalNumber1L(n);
     }
 
+    /**
+     * Numerals at and around the 10^9 and 10^18 limb boundaries, including
+     * ones whose lower nine-digit groups start with zeros.
+     */
+    private static final String[] BOUNDARY_NUMERALS = { "1", "9",
+        "999999999", "1000000000", "1000000001", "999999999999999999",
+        "1000000000000000000", "1000000000000000001", "1000000001000000001",
+        "7000000000000000012345", "123456789000000000" };
+
+    /**
+     * Test setFromString then toString, replacing a number of a different
+     * length each time, at and around the limb boundaries.
+     */
+    @Test
+    public final void testSetFromStringToStringBoundaries() {
+        NaturalNumber n = this.constructorTest("123456789123456789123456789");
+        for (String s : BOUNDARY_NUMERALS) {
+            n.setFromString(s);
+            assertEquals(this.constructorRef(s), n);
+            assertEquals(s, n.toString());
+        }
+    }
+
+    /**
+     * Test setFromString and toString with zero, after a nonzero number.
+     */
+    @Test
+    public final void testSetFromStringToStringZero() {
+        NaturalNumber n = this.constructorTest("1000000000");
+        n.setFromString("0");
+        assertTrue(n.isZero());
+        assertEquals(this.constructorRef(), n);
+        assertEquals("0", n.toString());
+        assertEquals("0", this.constructorTest().toString());
+    }
+
+    /**
+     * Test toString after crossing a limb boundary with increment and
+     * decrement.
+     */
+    @Test
+    public final void testToStringAcrossBoundary() {
+        NaturalNumber n = this.constructorTest("999999999");
+        n.increment();
+        assertEquals("1000000000", n.toString());
+        n.decrement();
+        assertEquals("999999999", n.toString());
+        n = this.constructorTest("999999999999999999");
+        n.increment();
+        assertEquals("1000000000000000000", n.toString());
+    }
+
 }
@@ -0,0 +1,238 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.naturalnumber.NaturalNumber;
+import components.naturalnumber.NaturalNumber1L;
+
+/**
+ * Customized JUnit test fixture for {@code NaturalNumber4}.
+ */
+public class NaturalNumber4Test extends NaturalNumberTest {
+
+    @Override
+    protected final NaturalNumber constructorTest() {
+        return new NaturalNumber4();
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(int i) {
+
+        return new NaturalNumber4(i);
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(String s) {
+        return new NaturalNumber4(s);
+    }
+
+    @Override
+    protected final NaturalNumber constructorTest(NaturalNumber n) {
+        return new NaturalNumber4(n);
+    }
+
+    @Override
+    protected final NaturalNumber constructorRef() {
+        return new NaturalNumber1L();
+    }
+
+    @Override
+    protected final NaturalNumber constructorRef(int i) {
+
+        return new NaturalNumber1L(i);
+    }
+
+    @Override
+    protected final NaturalNumber constructorRef(String s) {
+
+        return new NaturalNumber1L(s);
+    }
+
+    @Override
+    protected final NaturalNumber constructorRef(NaturalNumber n) {
+
+        return new NaturalNumber1L(n);
+    }
+
+    /**
+     * Test multiplyBy10 carrying into a new limb.
+     */
+    @Test
+    public final void testMultiplyBy10NewLimb() {
+        NaturalNumber n = this.constructorTest("999999999");
+        NaturalNumber nExpected = this.constructorRef("9999999999");
+        n.multiplyBy10(9);
+        assertEquals(nExpected, n);
+    }
+
+    /**
+     * Test divideBy10 dropping a limb.
+     */
+    @Test
+    public final void testDivideBy10DropLimb() {
+        NaturalNumber n = this.constructorTest("1000000000");
+        NaturalNumber nExpected = this.constructorRef("100000000");
+        assertEquals(0, n.divideBy10());
+        assertEquals(nExpected, n);
+    }
+
+    /**
+     * Test add with a carry through several limbs.
+     */
+    @Test
+    public final void testAddCarry() {
+        NaturalNumber n = this.constructorTest("999999999999999999999999999");
+        NaturalNumber m = this.constructorTest(1);
+        NaturalNumber nExpected = this.constructorRef(
+                "1000000000000000000000000000");
+        NaturalNumber mExpected = this.constructorRef(1);
+        n.add(m);
+        assertEquals(nExpected, n);
+        assertEquals(mExpected, m);
+    }
+
+    /**
+     * Test subtract with a borrow through several limbs, down to zero limbs.
+     */
+    @Test
+    public final void testSubtractBorrow() {
+        NaturalNumber n = this.constructorTest("1000000000000000000000000000");
+        NaturalNumber m = this.constructorTest("999999999999999999999999999");
+        NaturalNumber nExpected = this.constructorRef(1);
+        n.subtract(m);
+        assertEquals(nExpected, n);
+        n.subtract(nExpected);
+        assertTrue(n.isZero());
+    }
+
+    /**
+     * Test multiply of multi-limb numbers.
+     */
+    @Test
+    public final void testMultiply() {
+        NaturalNumber n = this.constructorTest("123456789012345678901234567890");
+        NaturalNumber m = this.constructorTest("987654321098765432109876543210");
+        NaturalNumber nExpected = this.constructorRef(
+                "121932631137021795226185032733622923332237463801111263526900");
+        n.multiply(m);
+        assertEquals(nExpected, n);
+    }
+
+    /**
+     * Test divide by a multi-limb divisor.
+     */
+    @Test
+    public final void testDivide() {
+        NaturalNumber n = this.constructorTest(
+                "121932631137021795226185032733622923332237463801111263526999");
+        NaturalNumber m = this.constructorTest("987654321098765432109876543210");
+        NaturalNumber nExpected = this.constructorRef(
+                "123456789012345678901234567890");
+        NaturalNumber rExpected = this.constructorRef(99);
+        NaturalNumber r = n.divide(m);
+        assertEquals(nExpected, n);
+        assertEquals(rExpected, r);
+    }
+
+    /**
+     * Test divide by a single-limb divisor and by a larger divisor.
+     */
+    @Test
+    public final void testDivideSmallAndLarge() {
+        NaturalNumber n = this.constructorTest("1000000000000000000007");
+        NaturalNumber r = n.divide(this.constructorTest(10));
+        assertEquals(this.constructorRef("100000000000000000000"), n);
+        assertEquals(this.constructorRef(7), r);
+        r = n.divide(this.constructorTest("100000000000000000001"));
+        assertTrue(n.isZero());
+        assertEquals(this.constructorRef("100000000000000000000"), r);
+    }
+
+    /**
+     * Test compareTo on numbers of equal and different lengths.
+     */
+    @Test
+    public final void testCompareTo() {
+        NaturalNumber n = this.constructorTest("123456789123456789");
+        assertTrue(n.compareTo(this.constructorTest("123456789123456788")) > 0);
+        assertTrue(n.compareTo(this.constructorTest("1123456789123456789")) < 0);
+        assertEquals(0, n.compareTo(this.constructorRef("123456789123456789")));
+    }
+
+    /**
+     * Test multiply of numbers long enough for Karatsuba's method and
+     * Toom-Cook 3-way multiplication, with low thresholds so every level of
+     * the recursion is exercised.
+     */
+    @Test
+    public final void testMultiplyKaratsubaToom3() {
+        final int digits = 2000;
+        StringBuilder x = new StringBuilder("8");
+        StringBuilder y = new StringBuilder("1");
+        for (int i = 1; i < digits; i++) {
+            x.append((char) ('0' + (i * i) % NaturalNumber.RADIX));
+            y.append((char) ('9' - i % 2 * (i % 7)));
+        }
+        final int[][] thresholds = { { NaturalNumber4.MIN_THRESHOLD_DIGITS,
+                Integer.MAX_VALUE },
+                { NaturalNumber4.MIN_THRESHOLD_DIGITS,
+                        NaturalNumber4.MIN_THRESHOLD_DIGITS },
+                { NaturalNumber4.DEFAULT_KARATSUBA_DIGITS,
+                        NaturalNumber4.DEFAULT_TOOM3_DIGITS } };
+        NaturalNumber nExpected = this.constructorRef(x.toString());
+        nExpected.multiply(this.constructorRef(y.substring(digits / 3)));
+        try {
+            for (int[] t : thresholds) {
+                NaturalNumber4.setMultiplyThresholds(t[0], t[1]);
+                NaturalNumber n = this.constructorTest(x.toString());
+                n.multiply(this.constructorTest(y.substring(digits / 3)));
+                assertEquals(nExpected, n);
+            }
+        } finally {
+            // the thresholds are shared, so later tests must see the defaults
+            NaturalNumber4.setMultiplyThresholds(
+                    NaturalNumber4.DEFAULT_KARATSUBA_DIGITS,
+                    NaturalNumber4.DEFAULT_TOOM3_DIGITS);
+        }
+    }
+
+    /**
+     * Test power, including the zeroth power.
+     */
+    @Test
+    public final void testPower() {
+        final int p = 37;
+        NaturalNumber n = this.constructorTest("123456789123");
+        NaturalNumber nExpected = this.constructorRef("123456789123");
+        n.power(p);
+        nExpected.power(p);
+        assertEquals(nExpected, n);
+        n.power(0);
+        assertEquals(this.constructorRef(1), n);
+    }
+
+    /**
+     * Test toString on a number whose inner limbs need leading zeros.
+     */
+    @Test
+    public final void testToStringPadding() {
+        final String s = "7000000001000000000000012345";
+        NaturalNumber n = this.constructorTest(s);
+        assertEquals(s, n.toString());
+        assertEquals("0", this.constructorTest().toString());
+    }
+
+    /**
+     * Test setFromString replacing a longer number, and with zero.
+     */
+    @Test
+    public final void testSetFromString() {
+        NaturalNumber n = this.constructorTest("123456789123456789123456789");
+        n.setFromString("1000000000");
+        assertEquals(this.constructorRef("1000000000"), n);
+        n.setFromString("0");
+        assertTrue(n.isZero());
+    }
+
+}
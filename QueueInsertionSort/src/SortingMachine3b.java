@@ -0,0 +1,799 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as a single growable array that holds the
+ * entries unordered in insertion mode and sorted in extraction mode (using an
+ * adaptive natural merge sort), with implementations of primary methods.
+ *
+ * <p>
+ * Unlike {@code SortingMachine3}, {@code add} just appends to the array, in
+ * O(1) amortized time. All the sorting happens in
+ * {@code changeToExtractionMode}, with a simplified TimSort:
+ * <ul>
+ * <li>the array is scanned for natural runs (non-decreasing, or strictly
+ * decreasing and then reversed in place);</li>
+ * <li>runs shorter than a minimum length (between 16 and 32) are extended
+ * with binary insertion sort;</li>
+ * <li>runs are pushed on a stack and merged so that the lengths on the stack
+ * shrink at least as fast as the Fibonacci numbers, which keeps merges
+ * balanced;</li>
+ * <li>before each merge, galloping (exponential then binary search) skips the
+ * prefix of the left run and the suffix of the right run that are already in
+ * place, and only the shorter of what remains is copied to scratch
+ * space.</li>
+ * </ul>
+ * Input that is already sorted, reverse sorted, or made of a few sorted
+ * pieces is thus sorted in close to linear time; random input takes
+ * O(n log n). Afterwards {@code removeFirst} takes entries from the front of
+ * the array in O(1) time. The sort is stable, though {@code SortingMachine}
+ * does not require it.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_SORTED (
+ *   s: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y: T where (<x, y> is substring of s) (r(x, y))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])  and
+ * 0 <= $this.front  and
+ * 0 <= $this.size  and
+ * $this.front + $this.size <= |$this.entries|  and
+ * for all i: integer
+ *     where ($this.front <= i  and  i < $this.front + $this.size)
+ *   ([entry at position i in $this.entries is not null])  and
+ * if $this.insertionMode then
+ *   $this.front = 0
+ * else
+ *   IS_SORTED($this.entries[$this.front, $this.front + $this.size),
+ *     [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.entries[$this.front,
+ *                                        $this.front + $this.size)))
+ * </pre>
+ */
+public class SortingMachine3b<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial capacity of the entries array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Arrays shorter than this are sorted by binary insertion sort alone.
+     */
+    private static final int MIN_MERGE = 32;
+
+    /**
+     * Maximum number of pending runs; enough for any array length, because
+     * of the invariant {@code mergeCollapse} maintains.
+     */
+    private static final int MAX_PENDING_RUNS = 64;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries; sorted from {@code front} on in extraction mode.
+     */
+    private T[] entries;
+
+    /**
+     * Index of the first entry in extraction mode.
+     */
+    private int front;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * State of one run of the natural merge sort of a slice of an array: the
+     * array, its order, scratch space, and the stack of runs found but not yet
+     * merged.
+     *
+     * @param <T>
+     *            type of array entries
+     */
+    private static final class MergeState<T> {
+
+        /**
+         * The array being sorted.
+         */
+        private final T[] array;
+
+        /**
+         * Order.
+         */
+        private final Comparator<T> order;
+
+        /**
+         * Scratch space for merges; long enough for half the array.
+         */
+        private final T[] scratch;
+
+        /**
+         * Start index of each pending run.
+         */
+        private final int[] runBase;
+
+        /**
+         * Length of each pending run.
+         */
+        private final int[] runLength;
+
+        /**
+         * Number of pending runs.
+         */
+        private int runCount;
+
+        /**
+         * Constructor.
+         *
+         * @param array
+         *            the array being sorted
+         * @param length
+         *            the number of entries being sorted
+         * @param order
+         *            total preorder for sorting
+         */
+        @SuppressWarnings("unchecked")
+        private MergeState(T[] array, int length, Comparator<T> order) {
+            this.array = array;
+            this.order = order;
+            this.scratch = (T[]) (new Object[length / 2 + 1]);
+            this.runBase = new int[MAX_PENDING_RUNS];
+            this.runLength = new int[MAX_PENDING_RUNS];
+            this.runCount = 0;
+        }
+
+        /**
+         * Pushes the run {@code array[base, base + length)} on the stack.
+         *
+         * @param base
+         *            start index of the run
+         * @param length
+         *            length of the run
+         */
+        private void push(int base, int length) {
+            this.runBase[this.runCount] = base;
+            this.runLength[this.runCount] = length;
+            this.runCount++;
+        }
+
+        /**
+         * Merges pending runs until, for the lengths A, B, C, D of any four
+         * consecutive runs on top of the stack, B > C + D, C > D and
+         * A > B + C.
+         */
+        private void mergeCollapse() {
+            boolean done = false;
+            while (!done && this.runCount > 1) {
+                int[] len = this.runLength;
+                int n = this.runCount - 2;
+                if ((n > 0 && len[n - 1] <= len[n] + len[n + 1])
+                        || (n > 1 && len[n - 2] <= len[n - 1] + len[n])) {
+                    if (len[n - 1] < len[n + 1]) {
+                        n--;
+                    }
+                    this.mergeAt(n);
+                } else if (len[n] <= len[n + 1]) {
+                    this.mergeAt(n);
+                } else {
+                    done = true;
+                }
+            }
+        }
+
+        /**
+         * Merges all pending runs into one.
+         */
+        private void mergeForceCollapse() {
+            while (this.runCount > 1) {
+                int n = this.runCount - 2;
+                if (n > 0 && this.runLength[n - 1] < this.runLength[n + 1]) {
+                    n--;
+                }
+                this.mergeAt(n);
+            }
+        }
+
+        /**
+         * Merges the pending runs at stack indexes {@code i} and {@code i + 1}.
+         *
+         * @param i
+         *            stack index of the first of the two runs
+         * @requires i = runCount - 2  or  i = runCount - 3
+         */
+        private void mergeAt(int i) {
+            int base1 = this.runBase[i];
+            int length1 = this.runLength[i];
+            int base2 = this.runBase[i + 1];
+            int length2 = this.runLength[i + 1];
+            this.runLength[i] = length1 + length2;
+            if (i == this.runCount - 3) {
+                this.runBase[i + 1] = this.runBase[i + 2];
+                this.runLength[i + 1] = this.runLength[i + 2];
+            }
+            this.runCount--;
+
+            /*
+             * Entries of run 1 that come no later than the first of run 2 are
+             * already in place, and so are entries of run 2 that come no
+             * earlier than the last of run 1.
+             */
+            int k = gallop(this.array[base2], this.array, base1, length1, true,
+                    this.order);
+            base1 += k;
+            length1 -= k;
+            if (length1 > 0) {
+                length2 = gallop(this.array[base1 + length1 - 1], this.array,
+                        base2, length2, false, this.order);
+                if (length2 > 0) {
+                    if (length1 <= length2) {
+                        this.mergeLow(base1, length1, base2, length2);
+                    } else {
+                        this.mergeHigh(base1, length1, base2, length2);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Merges two adjacent runs, copying the first (shorter) one to scratch
+         * space and merging from the left.
+         *
+         * @param base1
+         *            start index of the first run
+         * @param length1
+         *            length of the first run
+         * @param base2
+         *            start index of the second run, base1 + length1
+         * @param length2
+         *            length of the second run
+         */
+        private void mergeLow(int base1, int length1, int base2, int length2) {
+            T[] a = this.array;
+            T[] tmp = this.scratch;
+            System.arraycopy(a, base1, tmp, 0, length1);
+            int i = 0;
+            int j = base2;
+            int end2 = base2 + length2;
+            int k = base1;
+            while (i < length1 && j < end2) {
+                if (this.order.compare(a[j], tmp[i]) < 0) {
+                    a[k] = a[j];
+                    j++;
+                } else {
+                    a[k] = tmp[i];
+                    i++;
+                }
+                k++;
+            }
+            System.arraycopy(tmp, i, a, k, length1 - i);
+        }
+
+        /**
+         * Merges two adjacent runs, copying the second (shorter) one to
+         * scratch space and merging from the right.
+         *
+         * @param base1
+         *            start index of the first run
+         * @param length1
+         *            length of the first run
+         * @param base2
+         *            start index of the second run, base1 + length1
+         * @param length2
+         *            length of the second run
+         */
+        private void mergeHigh(int base1, int length1, int base2, int length2) {
+            T[] a = this.array;
+            T[] tmp = this.scratch;
+            System.arraycopy(a, base2, tmp, 0, length2);
+            int i = base1 + length1 - 1;
+            int j = length2 - 1;
+            int k = base2 + length2 - 1;
+            while (i >= base1 && j >= 0) {
+                if (this.order.compare(tmp[j], a[i]) < 0) {
+                    a[k] = a[i];
+                    i--;
+                } else {
+                    a[k] = tmp[j];
+                    j--;
+                }
+                k--;
+            }
+            System.arraycopy(tmp, 0, a, base1, j + 1);
+        }
+
+    }
+
+    /**
+     * Returns how many of the leading entries of the sorted slice
+     * {@code array[base, base + length)} come before {@code key} (or, if
+     * {@code inclusive}, no later than {@code key}). Searches exponentially
+     * from the start of the slice, then by bisection, so the cost is
+     * logarithmic in the answer rather than in {@code length}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param key
+     *            the entry to search for
+     * @param array
+     *            the array
+     * @param base
+     *            start index of the slice
+     * @param length
+     *            length of the slice
+     * @param inclusive
+     *            whether entries equivalent to key are counted
+     * @param order
+     *            total preorder for sorting
+     * @return the number of entries of the slice that come before key
+     * @requires <pre>
+     * 0 <= base  and  0 <= length  and  base + length <= |array|  and
+     * IS_SORTED(array[base, base + length), [relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * 0 <= gallop <= length  and
+     * [array[base, base + gallop) come before key (or, if inclusive, no later)]  and
+     * [array[base + gallop, base + length) do not]
+     * </pre>
+     */
+    private static <T> int gallop(T key, T[] array, int base, int length,
+            boolean inclusive, Comparator<T> order) {
+        int limit = 0;
+        if (inclusive) {
+            limit = 1;
+        }
+        // Exponential search: the first low entries come before key
+        int low = 0;
+        int high = 1;
+        while (high <= length && order.compare(array[base + high - 1], key) < limit) {
+            low = high;
+            if (high <= length / 2) {
+                high = 2 * high;
+            } else {
+                high = length + 1;
+            }
+        }
+        // Bisection on [low, min(high - 1, length)]
+        high = Math.min(high - 1, length);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(array[base + mid], key) < limit) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the length of the run starting at {@code array[low]}, reversing
+     * it in place first if it is strictly decreasing.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param low
+     *            start index of the run
+     * @param high
+     *            end of the slice being sorted (exclusive)
+     * @param order
+     *            total preorder for sorting
+     * @return the length of the run
+     * @updates array
+     * @requires 0 <= low < high <= |array|
+     * @ensures <pre>
+     * 1 <= runLength <= high - low  and
+     * IS_SORTED(array[low, low + runLength),
+     *   [relation computed by order.compare method])  and
+     * perms(array, #array)
+     * </pre>
+     */
+    private static <T> int runLength(T[] array, int low, int high,
+            Comparator<T> order) {
+        int end = low + 1;
+        if (end < high) {
+            if (order.compare(array[end], array[low]) < 0) {
+                // Strictly decreasing, so reversing it keeps the sort stable
+                end++;
+                while (end < high && order.compare(array[end], array[end - 1]) < 0) {
+                    end++;
+                }
+                for (int i = low, j = end - 1; i < j; i++, j--) {
+                    T tmp = array[i];
+                    array[i] = array[j];
+                    array[j] = tmp;
+                }
+            } else {
+                end++;
+                while (end < high
+                        && order.compare(array[end], array[end - 1]) >= 0) {
+                    end++;
+                }
+            }
+        }
+        return end - low;
+    }
+
+    /**
+     * Sorts {@code array[low, high)}, given that {@code array[low, start)} is
+     * already sorted, by inserting each later entry after the last entry that
+     * comes no later than it, found by bisection.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param low
+     *            start index of the slice
+     * @param high
+     *            end index of the slice (exclusive)
+     * @param start
+     *            end of the already sorted prefix of the slice
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= low < start <= high <= |array|  and
+     * IS_SORTED(array[low, start), [relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(array[low, high), [relation computed by order.compare method])  and
+     * perms(array, #array)
+     * </pre>
+     */
+    private static <T> void binaryInsertionSort(T[] array, int low, int high,
+            int start, Comparator<T> order) {
+        for (int i = start; i < high; i++) {
+            T x = array[i];
+            int position = low + gallop(x, array, low, i - low, true, order);
+            System.arraycopy(array, position, array, position + 1, i - position);
+            array[position] = x;
+        }
+    }
+
+    /**
+     * Returns the minimum run length for an array of length {@code n}: n itself
+     * if it is less than {@code MIN_MERGE}, otherwise a number k with
+     * {@code MIN_MERGE / 2 <= k <= MIN_MERGE} such that n / k is close to, but
+     * no more than, a power of two, so the final merges are balanced.
+     *
+     * @param n
+     *            the length of the array
+     * @return the minimum run length
+     * @requires n >= 0
+     */
+    private static int minRunLength(int n) {
+        int m = n;
+        int r = 0;
+        while (m >= MIN_MERGE) {
+            r |= m & 1;
+            m >>= 1;
+        }
+        return m + r;
+    }
+
+    /**
+     * Sorts {@code array[0, length)} with an adaptive natural merge sort.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param length
+     *            the number of entries to sort
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= length <= |array|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(array[0, length), [relation computed by order.compare method])  and
+     * perms(array, #array)
+     * </pre>
+     */
+    private static <T> void sort(T[] array, int length, Comparator<T> order) {
+        if (length >= 2) {
+            MergeState<T> state = new MergeState<T>(array, length, order);
+            int minRun = minRunLength(length);
+            int low = 0;
+            while (low < length) {
+                int run = runLength(array, low, length, order);
+                if (run < minRun) {
+                    int forced = Math.min(minRun, length - low);
+                    binaryInsertionSort(array, low, low + forced, low + run, order);
+                    run = forced;
+                }
+                state.push(low, run);
+                state.mergeCollapse();
+                low += run;
+            }
+            state.mergeForceCollapse();
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.front  and
+     * 0 <= $this.size  and
+     * $this.front + $this.size <= |$this.entries|  and
+     * for all i: integer
+     *     where ($this.front <= i  and  i < $this.front + $this.size)
+     *   ([entry at position i in $this.entries is not null])  and
+     * if $this.insertionMode then
+     *   $this.front = 0
+     * else
+     *   IS_SORTED($this.entries[$this.front, $this.front + $this.size),
+     *     [relation computed by $this.machineOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.front : "Violation of: 0 <= $this.front";
+        assert 0 <= this.size : "Violation of: 0 <= $this.size";
+        assert this.front + this.size <= this.entries.length
+                : "Violation of: $this.front + $this.size <= |$this.entries|";
+        int end = this.front + this.size;
+        for (int i = this.front; i < end; i++) {
+            assert this.entries[i] != null : "Violation of: entries in"
+                    + " $this.entries[$this.front, $this.front + $this.size)"
+                    + " are not null";
+        }
+        if (this.insertionMode) {
+            assert this.front == 0
+                    : "Violation of: if $this.insertionMode then $this.front = 0";
+        } else {
+            for (int i = this.front + 1; i < end; i++) {
+                assert this.machineOrder.compare(this.entries[i - 1],
+                        this.entries[i]) <= 0
+                        : "" + "Violation of: if not $this.insertionMode then"
+                                + " IS_SORTED($this.entries[$this.front,"
+                                + " $this.front + $this.size),"
+                                + " [relation computed by $this.machineOrder.compare"
+                                + " method])";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * $this.front = 0  and
+     * $this.size = 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order) {
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.entries = (T[]) (new Object[INITIAL_CAPACITY]);
+        this.front = 0;
+        this.size = 0;
+        this.insertionMode = true;
+        this.machineOrder = order;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public SortingMachine3b(Comparator<T> order) {
+        this.createNewRep(order);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class)
+                    .newInstance(this.machineOrder);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine3b<?> : ""
+                + "Violation of: source is of dynamic type SortingMachine3b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine3b<?>, and the ? must be T or the call would
+         * not have compiled.
+         */
+        SortingMachine3b<T> localSource = (SortingMachine3b<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.entries = localSource.entries;
+        this.front = localSource.front;
+        this.size = localSource.size;
+        localSource.createNewRep(localSource.machineOrder);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+        // Double the array when it is full
+        if (this.size == this.entries.length) {
+            T[] bigger = (T[]) (new Object[2 * this.entries.length]);
+            System.arraycopy(this.entries, 0, bigger, 0, this.size);
+            this.entries = bigger;
+        }
+        this.entries[this.size] = x;
+        this.size++;
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+        sort(this.entries, this.size, this.machineOrder);
+        this.insertionMode = false;
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this.isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+        assert this.conventionHolds();
+        T first = this.entries[this.front];
+        this.entries[this.front] = null;
+        this.front++;
+        this.size--;
+        assert this.conventionHolds();
+        return first;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine3bIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine3b}.
+     */
+    private final class SortingMachine3bIterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry to return.
+         */
+        private int currentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine3bIterator() {
+            this.currentIndex = SortingMachine3b.this.front;
+            assert SortingMachine3b.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.currentIndex < SortingMachine3b.this.front
+                    + SortingMachine3b.this.size;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachine3b.this.entries[this.currentIndex];
+            this.currentIndex++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
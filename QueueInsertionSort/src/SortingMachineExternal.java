@@ -0,0 +1,908 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} that keeps at most {@code threshold} entries in
+ * memory and spills the rest to temporary files as sorted runs, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * Entries are added to an in-memory buffer. When the buffer is full it is
+ * sorted and written, through a {@code Serializer<T>}, to a new temporary file
+ * (a "run"). {@code changeToExtractionMode} sorts what is left in the buffer;
+ * if nothing was ever spilled, {@code removeFirst} simply takes entries from
+ * the front of the buffer. Otherwise the buffer is spilled as a last run, and
+ * {@code removeFirst} performs a k-way merge of the runs: each run is read
+ * sequentially, and the runs are kept in a binary heap ordered by their next
+ * entry (the "head"), so each {@code removeFirst} costs O(log k) comparisons
+ * plus one read. Run files are created in the directory named by the
+ * {@code java.io.tmpdir} system property, and deleted as soon as they are
+ * exhausted, or by {@code clear}; a machine dropped before then leaves its
+ * run files behind.
+ *
+ * <p>
+ * I/O errors are reported by throwing {@code UncheckedIOException}.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_SORTED (
+ *   s: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y: T where (<x, y> is substring of s) (r(x, y))
+ *
+ * RUN_ENTRIES (
+ *   r: Run
+ *  ) : string of T is
+ *  [the entries of r not yet returned by the merge: r.head, if not null,
+ *   followed by the last r.remaining entries written to r.file]
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])  and
+ * $this.threshold >= 1  and
+ * 0 <= $this.front  and
+ * 0 <= $this.bufferSize <= $this.threshold  and
+ * $this.front + $this.bufferSize <= |$this.buffer|  and
+ * 0 <= $this.runCount <= |$this.runs|  and
+ * [entries in $this.buffer[$this.front, $this.front + $this.bufferSize) are
+ *  not null]  and
+ * $this.size = $this.bufferSize +
+ *   [sum of |RUN_ENTRIES(r)| for r in $this.runs[0, $this.runCount)]  and
+ * for all r in $this.runs[0, $this.runCount)
+ *   (r.file holds r.count entries written by $this.serializer, in order)  and
+ * if $this.insertionMode then
+ *   $this.front = 0  and
+ *   for all r in $this.runs[0, $this.runCount)
+ *     (r.in = null  and  r.head = null  and  r.remaining = r.count > 0)
+ * else
+ *   IS_SORTED($this.buffer[$this.front, $this.front + $this.bufferSize),
+ *     [relation computed by $this.machineOrder.compare method])  and
+ *   if $this.runCount > 0 then $this.bufferSize = 0  and
+ *   for all r in $this.runs[0, $this.runCount)
+ *     (r.in is open on r.file after its first r.count - r.remaining
+ *      entries  and  r.head /= null  and
+ *      IS_SORTED(RUN_ENTRIES(r),
+ *        [relation computed by $this.machineOrder.compare method]))  and
+ *   [$this.runs[0, $this.runCount) is a binary heap ordered by
+ *    [relation computed by $this.machineOrder.compare method] on heads]
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.buffer[$this.front,
+ *                                       $this.front + $this.bufferSize)) union
+ *         [union of multiset_entries(RUN_ENTRIES(r))
+ *            for r in $this.runs[0, $this.runCount)])
+ * </pre>
+ */
+public class SortingMachineExternal<T> extends SortingMachineSecondary<T> {
+
+    /**
+     * Converts entries to and from bytes, so they can be spilled to disk.
+     *
+     * @param <T>
+     *            type of entries
+     */
+    public interface Serializer<T> {
+
+        /**
+         * Writes {@code x} to {@code out}.
+         *
+         * @param x
+         *            the entry to write
+         * @param out
+         *            the output stream
+         * @throws IOException
+         *             if {@code out} cannot be written
+         * @updates out
+         * @ensures [out has the bytes representing x appended]
+         */
+        void write(T x, DataOutputStream out) throws IOException;
+
+        /**
+         * Reads and returns the next entry from {@code in}.
+         *
+         * @param in
+         *            the input stream
+         * @return the entry read
+         * @throws IOException
+         *             if {@code in} cannot be read
+         * @updates in
+         * @requires [in is positioned at the bytes written by write for some
+         *           entry]
+         * @ensures [read is an entry equal to the one written, and in is
+         *          positioned after it]
+         */
+        T read(DataInputStream in) throws IOException;
+
+    }
+
+    /**
+     * {@code Serializer} for {@code String}s, written as their length in bytes
+     * followed by their UTF-8 encoding.
+     */
+    public static final class StringSerializer implements Serializer<String> {
+
+        @Override
+        public void write(String x, DataOutputStream out) throws IOException {
+            byte[] bytes = x.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public String read(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+    }
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default maximum number of entries kept in memory.
+     */
+    private static final int DEFAULT_THRESHOLD = 1_000_000;
+
+    /**
+     * Largest initial length of the buffer; it grows up to {@code threshold}
+     * as entries are added.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Size in bytes of the buffer of each run file stream.
+     */
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Prefix of the names of run files.
+     */
+    private static final String RUN_PREFIX = "sortingmachine";
+
+    /**
+     * Suffix of the names of run files.
+     */
+    private static final String RUN_SUFFIX = ".run";
+
+    /**
+     * A sorted run spilled to a temporary file.
+     *
+     * @param <T>
+     *            type of entries
+     */
+    private static final class Run<T> {
+
+        /**
+         * The file holding the run.
+         */
+        private final File file;
+
+        /**
+         * Number of entries in {@code file}.
+         */
+        private final int count;
+
+        /**
+         * Number of entries of {@code file} not yet read by the merge.
+         */
+        private int remaining;
+
+        /**
+         * The next entry of the run, once merging has started.
+         */
+        private T head;
+
+        /**
+         * Stream reading {@code file}, once merging has started.
+         */
+        private DataInputStream in;
+
+        /**
+         * Constructor.
+         *
+         * @param file
+         *            the file holding the run
+         * @param count
+         *            the number of entries in {@code file}
+         */
+        private Run(File file, int count) {
+            this.file = file;
+            this.count = count;
+            this.remaining = count;
+            this.head = null;
+            this.in = null;
+        }
+
+    }
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Serializer used to spill entries.
+     */
+    private Serializer<T> serializer;
+
+    /**
+     * Maximum number of entries kept in memory.
+     */
+    private int threshold;
+
+    /**
+     * Entries kept in memory; sorted from {@code front} on in extraction
+     * mode.
+     */
+    private T[] buffer;
+
+    /**
+     * Index of the first entry of {@code buffer} in extraction mode.
+     */
+    private int front;
+
+    /**
+     * Number of entries in {@code buffer}.
+     */
+    private int bufferSize;
+
+    /**
+     * Runs spilled to disk; a heap ordered by head in extraction mode.
+     */
+    private Run<T>[] runs;
+
+    /**
+     * Number of runs in {@code runs}.
+     */
+    private int runCount;
+
+    /**
+     * Total number of entries.
+     */
+    private int size;
+
+    /**
+     * Opens a buffered stream reading {@code file}.
+     *
+     * @param file
+     *            the file to read
+     * @return the stream
+     * @ensures [openRun is open on file, positioned at its beginning]
+     */
+    private static DataInputStream openRun(File file) {
+        try {
+            return new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file), STREAM_BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the next entry of {@code run} into {@code run.head}, or sets it to
+     * {@code null}, and closes the stream, if the run is exhausted.
+     *
+     * @param <T>
+     *            type of entries
+     * @param run
+     *            the run
+     * @param serializer
+     *            serializer used to write the run
+     * @updates run
+     * @requires run.in is open
+     * @ensures <pre>
+     * if #run.remaining > 0 then
+     *   [run.head is the next entry of run.file]  and
+     *   run.remaining = #run.remaining - 1
+     * else
+     *   run.head = null  and  [run.in is closed]
+     * </pre>
+     */
+    private static <T> void advance(Run<T> run, Serializer<T> serializer) {
+        try {
+            if (run.remaining > 0) {
+                run.head = serializer.read(run.in);
+                run.remaining--;
+            } else {
+                run.head = null;
+                run.in.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Given an array whose first {@code length} runs represent a complete
+     * binary tree that would be a heap (ordered by head) except at index
+     * {@code top}, sifts the run at {@code top} down to turn the subtree
+     * rooted there into a heap.
+     *
+     * @param <T>
+     *            type of entries
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param length
+     *            the number of runs in the tree
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= top < length <= |array|  and
+     * [heads of array[0, length) are not null]  and
+     * [the subtrees rooted at the children of top are heaps]  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * [the subtree rooted at top is a heap]  and
+     * perms(array, #array)
+     * </pre>
+     */
+    private static <T> void siftDown(Run<T>[] array, int top, int length,
+            Comparator<T> order) {
+        Run<T> x = array[top];
+        int hole = top;
+        int child = 2 * hole + 1;
+        boolean placed = false;
+        while (!placed && child < length) {
+            if (child + 1 < length && order.compare(array[child + 1].head,
+                    array[child].head) < 0) {
+                child++;
+            }
+            if (order.compare(array[child].head, x.head) < 0) {
+                array[hole] = array[child];
+                hole = child;
+                child = 2 * hole + 1;
+            } else {
+                placed = true;
+            }
+        }
+        array[hole] = x;
+    }
+
+    /**
+     * Sorts the buffer and writes it to a new run file, leaving the buffer
+     * empty.
+     *
+     * @updates $this
+     * @requires $this.insertionMode  or  $this.front = 0
+     * @ensures <pre>
+     * $this.bufferSize = 0  and
+     * $this.runs[0, $this.runCount) =
+     *   #$this.runs[0, #$this.runCount) * <[new run holding the sorted
+     *     entries of #$this.buffer[0, #$this.bufferSize)]>
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void spill() {
+        Arrays.sort(this.buffer, 0, this.bufferSize, this.machineOrder);
+        try {
+            File file = File.createTempFile(RUN_PREFIX, RUN_SUFFIX);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(file), STREAM_BUFFER_SIZE));
+            try {
+                for (int i = 0; i < this.bufferSize; i++) {
+                    this.serializer.write(this.buffer[i], out);
+                }
+            } finally {
+                out.close();
+            }
+            if (this.runCount == this.runs.length) {
+                Run<T>[] bigger = (Run<T>[]) (new Run<?>[2 * this.runs.length]);
+                System.arraycopy(this.runs, 0, bigger, 0, this.runCount);
+                this.runs = bigger;
+            }
+            this.runs[this.runCount] = new Run<T>(file, this.bufferSize);
+            this.runCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Arrays.fill(this.buffer, 0, this.bufferSize, null);
+        this.bufferSize = 0;
+    }
+
+    /**
+     * Closes and deletes every run file of {@code this}.
+     *
+     * @updates $this.runs
+     * @ensures [the files and streams of $this.runs[0, $this.runCount) are
+     *          closed and deleted]
+     */
+    private void deleteRuns() {
+        for (int i = 0; i < this.runCount; i++) {
+            Run<T> run = this.runs[i];
+            try {
+                if (run.in != null) {
+                    run.in.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            run.file.delete();
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.threshold >= 1  and
+     * 0 <= $this.front  and
+     * 0 <= $this.bufferSize <= $this.threshold  and
+     * $this.front + $this.bufferSize <= |$this.buffer|  and
+     * 0 <= $this.runCount <= |$this.runs|  and
+     * $this.size = $this.bufferSize +
+     *   [sum of |RUN_ENTRIES(r)| for r in $this.runs[0, $this.runCount)]  and
+     * if $this.insertionMode then
+     *   $this.front = 0  and
+     *   for all r in $this.runs[0, $this.runCount)
+     *     (r.in = null  and  r.head = null  and  r.remaining = r.count > 0)
+     * else
+     *   IS_SORTED($this.buffer[$this.front, $this.front + $this.bufferSize),
+     *     [relation computed by $this.machineOrder.compare method])  and
+     *   if $this.runCount > 0 then $this.bufferSize = 0  and
+     *   for all r in $this.runs[0, $this.runCount)
+     *     (r.in /= null  and  r.head /= null)  and
+     *   [$this.runs[0, $this.runCount) is a binary heap ordered by
+     *    [relation computed by $this.machineOrder.compare method] on heads]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.threshold >= 1 : "Violation of: $this.threshold >= 1";
+        assert 0 <= this.front : "Violation of: 0 <= $this.front";
+        assert 0 <= this.bufferSize && this.bufferSize <= this.threshold
+                : "Violation of: 0 <= $this.bufferSize <= $this.threshold";
+        assert this.front + this.bufferSize <= this.buffer.length
+                : "Violation of: $this.front + $this.bufferSize <= |$this.buffer|";
+        assert 0 <= this.runCount && this.runCount <= this.runs.length
+                : "Violation of: 0 <= $this.runCount <= |$this.runs|";
+        int total = this.bufferSize;
+        for (int i = 0; i < this.runCount; i++) {
+            Run<T> run = this.runs[i];
+            total += run.remaining;
+            if (run.head != null) {
+                total++;
+            }
+            if (this.insertionMode) {
+                assert run.in == null && run.head == null
+                        && run.remaining == run.count && run.count > 0
+                        : "" + "Violation of: if $this.insertionMode then"
+                                + " r.in = null  and  r.head = null  and"
+                                + " r.remaining = r.count > 0";
+            } else {
+                assert run.in != null && run.head != null
+                        : "" + "Violation of: if not $this.insertionMode then"
+                                + " r.in /= null  and  r.head /= null";
+                if (i > 0) {
+                    assert this.machineOrder.compare(this.runs[(i - 1) / 2].head,
+                            run.head) <= 0
+                            : "" + "Violation of: if not $this.insertionMode then"
+                                    + " [$this.runs[0, $this.runCount) is a heap]";
+                }
+            }
+        }
+        assert this.size == total : ""
+                + "Violation of: $this.size = $this.bufferSize + [entries in runs]";
+        if (this.insertionMode) {
+            assert this.front == 0
+                    : "Violation of: if $this.insertionMode then $this.front = 0";
+        } else {
+            assert this.runCount == 0 || this.bufferSize == 0
+                    : "" + "Violation of: if not $this.insertionMode then"
+                            + " if $this.runCount > 0 then $this.bufferSize = 0";
+            int end = this.front + this.bufferSize;
+            for (int i = this.front + 1; i < end; i++) {
+                assert this.machineOrder.compare(this.buffer[i - 1],
+                        this.buffer[i]) <= 0
+                        : "" + "Violation of: if not $this.insertionMode then"
+                                + " IS_SORTED($this.buffer[$this.front,"
+                                + " $this.front + $this.bufferSize),"
+                                + " [relation computed by $this.machineOrder.compare"
+                                + " method])";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param s
+     *            serializer used to spill entries
+     * @param t
+     *            maximum number of entries kept in memory
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])  and
+     * t >= 1
+     * </pre>
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * $this.serializer = s  and
+     * $this.threshold = t  and
+     * $this.bufferSize = 0  and  $this.runCount = 0  and  $this.size = 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, Serializer<T> s, int t) {
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.buffer = (T[]) (new Object[Math.min(t, INITIAL_CAPACITY)]);
+        this.runs = (Run<T>[]) (new Run<?>[1]);
+        this.front = 0;
+        this.bufferSize = 0;
+        this.runCount = 0;
+        this.size = 0;
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.serializer = s;
+        this.threshold = t;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order and serializer, keeping up to 1,000,000 entries
+     * in memory.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param serializer
+     *            serializer used to spill entries
+     */
+    public SortingMachineExternal(Comparator<T> order, Serializer<T> serializer) {
+        this(order, serializer, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructor from order, serializer, and in-memory threshold.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param serializer
+     *            serializer used to spill entries
+     * @param threshold
+     *            maximum number of entries kept in memory
+     * @requires threshold >= 1
+     */
+    public SortingMachineExternal(Comparator<T> order, Serializer<T> serializer,
+            int threshold) {
+        assert serializer != null : "Violation of: serializer is not null";
+        assert threshold >= 1 : "Violation of: threshold >= 1";
+
+        this.createNewRep(order, serializer, threshold);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass()
+                    .getConstructor(Comparator.class, Serializer.class, int.class)
+                    .newInstance(this.machineOrder, this.serializer, this.threshold);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.deleteRuns();
+        this.createNewRep(this.machineOrder, this.serializer, this.threshold);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachineExternal<?> : ""
+                + "Violation of: source is of dynamic type SortingMachineExternal<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachineExternal<?>, and the ? must be T or the call would
+         * not have compiled.
+         */
+        SortingMachineExternal<T> localSource = (SortingMachineExternal<T>) source;
+        this.deleteRuns();
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.serializer = localSource.serializer;
+        this.threshold = localSource.threshold;
+        this.buffer = localSource.buffer;
+        this.front = localSource.front;
+        this.bufferSize = localSource.bufferSize;
+        this.runs = localSource.runs;
+        this.runCount = localSource.runCount;
+        this.size = localSource.size;
+        localSource.createNewRep(localSource.machineOrder, localSource.serializer,
+                localSource.threshold);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+        if (this.bufferSize == this.threshold) {
+            this.spill();
+        } else if (this.bufferSize == this.buffer.length) {
+            // Grow the buffer, up to threshold, when it is full
+            int length = (int) Math.min(2L * this.buffer.length, this.threshold);
+            T[] bigger = (T[]) (new Object[length]);
+            System.arraycopy(this.buffer, 0, bigger, 0, this.bufferSize);
+            this.buffer = bigger;
+        }
+        this.buffer[this.bufferSize] = x;
+        this.bufferSize++;
+        this.size++;
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+        if (this.runCount == 0) {
+            Arrays.sort(this.buffer, 0, this.bufferSize, this.machineOrder);
+        } else {
+            if (this.bufferSize > 0) {
+                this.spill();
+            }
+            // Start reading every run, then order the runs by head
+            for (int i = 0; i < this.runCount; i++) {
+                this.runs[i].in = openRun(this.runs[i].file);
+                advance(this.runs[i], this.serializer);
+            }
+            for (int i = (this.runCount - 2) / 2; i >= 0; i--) {
+                siftDown(this.runs, i, this.runCount, this.machineOrder);
+            }
+        }
+        this.insertionMode = false;
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this.isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+        assert this.conventionHolds();
+        T first;
+        if (this.runCount == 0) {
+            first = this.buffer[this.front];
+            this.buffer[this.front] = null;
+            this.front++;
+            this.bufferSize--;
+        } else {
+            Run<T> top = this.runs[0];
+            first = top.head;
+            advance(top, this.serializer);
+            if (top.head == null) {
+                // The run is exhausted: replace it by the last one
+                top.file.delete();
+                this.runCount--;
+                this.runs[0] = this.runs[this.runCount];
+                this.runs[this.runCount] = null;
+            }
+            if (this.runCount > 0) {
+                siftDown(this.runs, 0, this.runCount, this.machineOrder);
+            }
+        }
+        this.size--;
+        assert this.conventionHolds();
+        return first;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Entries that have been spilled are read back from their run files, each
+     * through a stream of its own.
+     */
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachineExternalIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachineExternal}. Returns the entries of each run in turn,
+     * then those of the buffer. Each run is read into memory, and its file
+     * closed, when the iterator reaches it, so an iterator dropped early
+     * leaves no file open; a run holds at most {@code threshold} entries, the
+     * same bound as the buffer.
+     */
+    private final class SortingMachineExternalIterator implements Iterator<T> {
+
+        /**
+         * Index in {@code runs} of the run being returned.
+         */
+        private int runIndex;
+
+        /**
+         * Entries of the run being returned not yet returned by the merge.
+         */
+        private T[] runEntries;
+
+        /**
+         * Index in {@code runEntries} of the next entry to return.
+         */
+        private int runEntryIndex;
+
+        /**
+         * Index in {@code buffer} of the next buffered entry to return.
+         */
+        private int bufferIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        @SuppressWarnings("unchecked")
+        private SortingMachineExternalIterator() {
+            this.runIndex = -1;
+            this.runEntries = (T[]) (new Object[0]);
+            this.runEntryIndex = 0;
+            this.bufferIndex = SortingMachineExternal.this.front;
+            this.nextRun();
+            assert SortingMachineExternal.this.conventionHolds();
+        }
+
+        /**
+         * Moves on to the next run that still has entries, if any, and reads
+         * {@code RUN_ENTRIES} of it into {@code runEntries}.
+         */
+        @SuppressWarnings("unchecked")
+        private void nextRun() {
+            SortingMachineExternal<T> sm = SortingMachineExternal.this;
+            this.runEntryIndex = 0;
+            this.runEntries = (T[]) (new Object[0]);
+            while (this.runEntries.length == 0
+                    && this.runIndex + 1 < sm.runCount) {
+                this.runIndex++;
+                Run<T> run = sm.runs[this.runIndex];
+                int first = 0;
+                if (run.head != null) {
+                    first = 1;
+                }
+                this.runEntries = (T[]) (new Object[first + run.remaining]);
+                if (run.head != null) {
+                    this.runEntries[0] = run.head;
+                }
+                if (run.remaining > 0) {
+                    try {
+                        DataInputStream in = openRun(run.file);
+                        try {
+                            for (int i = run.count - run.remaining; i > 0; i--) {
+                                sm.serializer.read(in);
+                            }
+                            for (int i = first; i < this.runEntries.length; i++) {
+                                this.runEntries[i] = sm.serializer.read(in);
+                            }
+                        } finally {
+                            in.close();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            SortingMachineExternal<T> sm = SortingMachineExternal.this;
+            return this.runEntryIndex < this.runEntries.length
+                    || this.bufferIndex < sm.front + sm.bufferSize;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            SortingMachineExternal<T> sm = SortingMachineExternal.this;
+            T next;
+            if (this.runEntryIndex < this.runEntries.length) {
+                next = this.runEntries[this.runEntryIndex];
+                this.runEntries[this.runEntryIndex] = null;
+                this.runEntryIndex++;
+                if (this.runEntryIndex == this.runEntries.length) {
+                    this.nextRun();
+                }
+            } else {
+                next = sm.buffer[this.bufferIndex];
+                this.bufferIndex++;
+            }
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
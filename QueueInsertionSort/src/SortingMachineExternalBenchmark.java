@@ -0,0 +1,140 @@
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program to sort a stream of generated lines too large for the heap with
+ * {@code SortingMachineExternal}, check that they come out in order, and
+ * report how long each phase took.
+ *
+ * <p>
+ * Usage: {@code SortingMachineExternalBenchmark [numberOfLines [threshold]]}
+ * (defaults 1,000,000 and 100,000). Lines are {@code LINE_LENGTH} random
+ * letters, so 10,000,000 lines are about 1 GB of text; they are generated as
+ * they are added and checked as they are removed, so only
+ * {@code threshold} of them are ever in memory. Run files go to
+ * {@code java.io.tmpdir}. The time of {@code add} includes sorting and
+ * writing each full buffer; {@code changeToExtractionMode} spills the last
+ * one and opens the numberOfLines / threshold runs; and the time of
+ * {@code removeFirst} is the k-way merge, mostly reading the runs back.
+ */
+public final class SortingMachineExternalBenchmark {
+
+    /**
+     * Default number of lines sorted.
+     */
+    private static final int DEFAULT_LINES = 1_000_000;
+
+    /**
+     * Default maximum number of lines kept in memory.
+     */
+    private static final int DEFAULT_THRESHOLD = 100_000;
+
+    /**
+     * Number of characters per line.
+     */
+    private static final int LINE_LENGTH = 100;
+
+    /**
+     * Number of distinct characters in lines.
+     */
+    private static final int ALPHABET_SIZE = 26;
+
+    /**
+     * Seed for the random lines, so runs are repeatable.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Compare {@code String}s in lexicographic order.
+     */
+    private static class StringLT implements Comparator<String> {
+        @Override
+        public int compare(String o1, String o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachineExternalBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns a line of {@code LINE_LENGTH} random lower-case letters.
+     *
+     * @param random
+     *            source of randomness
+     * @return the line
+     * @updates random
+     */
+    private static String randomLine(Random random) {
+        char[] line = new char[LINE_LENGTH];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = (char) ('a' + random.nextInt(ALPHABET_SIZE));
+        }
+        return new String(line);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional number of lines and
+     *            threshold
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int lines = DEFAULT_LINES;
+        int threshold = DEFAULT_THRESHOLD;
+        if (args.length > 0) {
+            lines = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            threshold = Integer.parseInt(args[1]);
+        }
+
+        SortingMachine<String> sm = new SortingMachineExternal<String>(
+                new StringLT(), new SortingMachineExternal.StringSerializer(),
+                threshold);
+        Random random = new Random(SEED);
+        long start = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            sm.add(randomLine(random));
+        }
+        long added = System.nanoTime();
+        sm.changeToExtractionMode();
+        long changed = System.nanoTime();
+        int count = 0;
+        int outOfOrder = 0;
+        String last = null;
+        while (sm.size() > 0) {
+            String line = sm.removeFirst();
+            if (last != null && last.compareTo(line) > 0) {
+                outOfOrder++;
+            }
+            last = line;
+            count++;
+        }
+        long done = System.nanoTime();
+
+        out.println(lines + " lines, threshold " + threshold);
+        out.println("add: " + TimeUnit.NANOSECONDS.toMillis(added - start)
+                + " ms");
+        out.println("changeToExtractionMode: "
+                + TimeUnit.NANOSECONDS.toMillis(changed - added) + " ms");
+        out.println("removeFirst: " + TimeUnit.NANOSECONDS.toMillis(done - changed)
+                + " ms");
+        out.println(count + " lines out, " + outOfOrder + " out of order");
+
+        out.close();
+    }
+
+}
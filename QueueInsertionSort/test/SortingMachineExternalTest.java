@@ -0,0 +1,104 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachineExternal}. The
+ * threshold is so small that the inherited tests spill to disk too.
+ */
+public final class SortingMachineExternalTest extends SortingMachineTest {
+
+    /**
+     * Maximum number of entries kept in memory in tests.
+     */
+    private static final int TEST_THRESHOLD = 2;
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachineExternal<String>(order,
+                new SortingMachineExternal.StringSerializer(), TEST_THRESHOLD);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Sorts the lines of data/lines.txt with both machines and checks that
+     * they agree, both as multisets and entry by entry.
+     *
+     * @param threshold
+     *            maximum number of entries kept in memory
+     */
+    private static void checkLines(int threshold) {
+        Comparator<String> order = new Comparator<String>() {
+            @Override
+            public int compare(String s1, String s2) {
+                return s1.compareTo(s2);
+            }
+        };
+        SortingMachine<String> m = new SortingMachineExternal<String>(order,
+                new SortingMachineExternal.StringSerializer(), threshold);
+        SortingMachine<String> mExpected = new SortingMachine1L<String>(order);
+        SimpleReader in = new SimpleReader1L("data/lines.txt");
+        while (!in.atEOS()) {
+            String line = in.nextLine();
+            m.add(line);
+            mExpected.add(line);
+        }
+        in.close();
+        assertEquals(mExpected, m);
+        m.changeToExtractionMode();
+        mExpected.changeToExtractionMode();
+        assertEquals(mExpected, m);
+        while (mExpected.size() > 0) {
+            assertEquals(mExpected.removeFirst(), m.removeFirst());
+            assertEquals(mExpected, m);
+        }
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public final void testLinesInMemory() {
+        final int threshold = 1000;
+        checkLines(threshold);
+    }
+
+    @Test
+    public final void testLinesManyRuns() {
+        final int threshold = 5;
+        checkLines(threshold);
+    }
+
+    @Test
+    public final void testLinesOneEntryRuns() {
+        checkLines(1);
+    }
+
+    @Test
+    public final void testClearAfterSpill() {
+        SortingMachine<String> m = this.constructorTest(String.CASE_INSENSITIVE_ORDER);
+        m.add("c");
+        m.add("b");
+        m.add("a");
+        m.add("d");
+        m.changeToExtractionMode();
+        assertEquals("a", m.removeFirst());
+        m.clear();
+        SortingMachine<String> mExpected = this
+                .constructorRef(String.CASE_INSENSITIVE_ORDER);
+        assertEquals(mExpected, m);
+        m.add("e");
+        mExpected.add("e");
+        assertEquals(mExpected, m);
+    }
+
+}
@@ -86,7 +86,7 @@ public class Queue3<T> extends QueueSecondary<T> {
     public final void enqueue(T x) {
         assert x != null : "Violation of: x is not null";
 
-        // TODO - fill in body
+        this.entries.add(this.entries.length(), x);
 
     }
 
@@ -94,19 +94,13 @@ public class Queue3<T> extends QueueSecondary<T> {
     public final T dequeue() {
         assert this.length() > 0 : "Violation of: this /= <>";
 
-        // TODO - fill in body
-
-        // This line added just to make the component compilable.
-        return null;
+        return this.entries.remove(0);
     }
 
     @Override
     public final int length() {
 
-        // TODO - fill in body
-
-        // This line added just to make the component compilable.
-        return 0;
+        return this.entries.length();
     }
 
     @Override
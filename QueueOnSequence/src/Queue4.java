@@ -0,0 +1,399 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.queue.Queue;
+import components.queue.QueueSecondary;
+
+/**
+ * {@code Queue} represented as a circular buffer (a ring) in an array, done
+ * "bare-handed", with implementations of primary methods and {@code front},
+ * {@code replaceFront} and {@code append} secondary methods.
+ *
+ * <p>
+ * The entries occupy {@code length} consecutive slots of the array starting
+ * at {@code front}, wrapping around from the last slot to slot 0. The array
+ * length is a power of two, so wrapping is a mask rather than a division; it
+ * doubles when {@code enqueue} finds it full and halves when {@code dequeue}
+ * leaves it less than a quarter full, so {@code enqueue} and {@code dequeue}
+ * take amortized O(1) time with no allocation per entry, unlike
+ * {@code Queue1L}'s nodes or {@code Queue3}'s {@code Sequence}. {@code append}
+ * copies the entries of its argument with at most two array copies, and when
+ * {@code this} is empty simply takes its argument's array. Execution-time
+ * performance of all other methods implemented in this class is O(1).
+ *
+ * @param <T>
+ *            type of {@code Queue} entries
+ * @convention <pre>
+ * |$this.entries| >= MIN_CAPACITY  and
+ * [|$this.entries| is a power of 2]  and
+ * 0 <= $this.front < |$this.entries|  and
+ * 0 <= $this.length <= |$this.entries|  and
+ * [entries in the $this.length slots of $this.entries starting at
+ *  $this.front, wrapping around, are not null]  and
+ * [entries in all other slots of $this.entries are null]
+ * </pre>
+ * @correspondence <pre>
+ * this = [the $this.length entries of $this.entries starting at
+ *         $this.front, wrapping around]
+ * </pre>
+ */
+public class Queue4<T> extends QueueSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Smallest length of the entries array; a power of 2.
+     */
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * Ring buffer of entries.
+     */
+    private T[] entries;
+
+    /**
+     * Index of the front entry in entries.
+     */
+    private int front;
+
+    /**
+     * Number of entries, i.e., length = |this|.
+     */
+    private int length;
+
+    /**
+     * Returns the index of the slot {@code i} places after the front.
+     *
+     * @param i
+     *            the position in this
+     * @return the index in $this.entries of this[i, i+1)
+     * @requires 0 <= i <= |$this.entries|
+     */
+    private int slot(int i) {
+        return (this.front + i) & (this.entries.length - 1);
+    }
+
+    /**
+     * Copies {@code n} entries of the ring in {@code from}, starting at index
+     * {@code start}, to {@code to[at, at + n)}.
+     *
+     * @param from
+     *            the ring copied from
+     * @param start
+     *            index in from of the first entry copied
+     * @param n
+     *            the number of entries copied
+     * @param to
+     *            the array copied to
+     * @param at
+     *            index in to of the first entry copied
+     * @requires <pre>
+     * [|from| is a power of 2]  and  0 <= start < |from|  and  n <= |from|  and
+     * 0 <= at  and  at + n <= |to|
+     * </pre>
+     */
+    private static void copyOut(Object[] from, int start, int n, Object[] to,
+            int at) {
+        int first = Math.min(n, from.length - start);
+        System.arraycopy(from, start, to, at, first);
+        System.arraycopy(from, 0, to, at + first, n - first);
+    }
+
+    /**
+     * Replaces the entries array with one of length {@code capacity} holding
+     * the same entries, starting at index 0.
+     *
+     * @param capacity
+     *            the new length of the array
+     * @updates $this.entries, $this.front
+     * @requires <pre>
+     * capacity >= MIN_CAPACITY  and  [capacity is a power of 2]  and
+     * $this.length <= capacity
+     * </pre>
+     * @ensures <pre>
+     * |$this.entries| = capacity  and  $this.front = 0  and
+     * [this is unchanged]
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        T[] resized = (T[]) (new Object[capacity]);
+        copyOut(this.entries, this.front, this.length, resized, 0);
+        this.entries = resized;
+        this.front = 0;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * |$this.entries| >= MIN_CAPACITY  and
+     * [|$this.entries| is a power of 2]  and
+     * 0 <= $this.front < |$this.entries|  and
+     * 0 <= $this.length <= |$this.entries|  and
+     * [entries in the $this.length slots of $this.entries starting at
+     *  $this.front, wrapping around, are not null]  and
+     * [entries in all other slots of $this.entries are null]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        int capacity = this.entries.length;
+        assert capacity >= MIN_CAPACITY
+                : "Violation of: |$this.entries| >= MIN_CAPACITY";
+        assert (capacity & (capacity - 1)) == 0
+                : "Violation of: [|$this.entries| is a power of 2]";
+        assert 0 <= this.front && this.front < capacity
+                : "Violation of: 0 <= $this.front < |$this.entries|";
+        assert 0 <= this.length && this.length <= capacity
+                : "Violation of: 0 <= $this.length <= |$this.entries|";
+        for (int i = 0; i < capacity; i++) {
+            boolean inUse = i < this.length;
+            assert (this.entries[this.slot(i)] != null) == inUse
+                    : "" + "Violation of: [entries in the $this.length slots"
+                            + " starting at $this.front are not null, and"
+                            + " entries in all other slots are null]";
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep() {
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.entries = (T[]) (new Object[MIN_CAPACITY]);
+        this.front = 0;
+        this.length = 0;
+    }
+
+    /*
+     * Constructor ------------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Queue4() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Queue<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Queue<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Queue4<?> : ""
+                + "Violation of: source is of dynamic type Queue4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Queue4<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Queue4<T> localSource = (Queue4<T>) source;
+        this.entries = localSource.entries;
+        this.front = localSource.front;
+        this.length = localSource.length;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void enqueue(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        if (this.length == this.entries.length) {
+            this.resize(2 * this.entries.length);
+        }
+        this.entries[this.slot(this.length)] = x;
+        this.length++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T dequeue() {
+        assert this.length() > 0 : "Violation of: this /= <>";
+
+        T removed = this.entries[this.front];
+        this.entries[this.front] = null;
+        this.front = this.slot(1);
+        this.length--;
+        if (this.entries.length > MIN_CAPACITY
+                && this.length < this.entries.length / 4) {
+            this.resize(this.entries.length / 2);
+        }
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final int length() {
+        assert this.conventionHolds();
+        return this.length;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Queue4Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Queue4}.
+     */
+    private final class Queue4Iterator implements Iterator<T> {
+
+        /**
+         * Position in the queue of the next entry to return.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Queue4Iterator() {
+            this.current = 0;
+            assert Queue4.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < Queue4.this.length;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = Queue4.this.entries[Queue4.this.slot(this.current)];
+            this.current++;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final T front() {
+        assert this.length() > 0 : "Violation of: this /= <>";
+
+        return this.entries[this.front];
+    }
+
+    @Override
+    public final T replaceFront(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.length() > 0 : "Violation of: this /= <>";
+
+        T replaced = this.entries[this.front];
+        this.entries[this.front] = x;
+        return replaced;
+    }
+
+    @Override
+    public final void append(Queue<T> q) {
+        assert q != null : "Violation of: q is not null";
+        assert q != this : "Violation of: q is not this";
+
+        if (!(q instanceof Queue4<?>)) {
+            super.append(q);
+        } else if (this.length == 0) {
+            this.transferFrom(q);
+        } else {
+            /*
+             * This cast cannot fail since q is of dynamic type Queue4<?>, and
+             * the ? must be T or the call would not have compiled.
+             */
+            this.appendRing((Queue4<T>) q);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Concatenates ("appends") {@code q} to the end of {@code this} by copying
+     * its ring into this one.
+     *
+     * @param q
+     *            the {@code Queue4} to be appended to the end of {@code this}
+     * @updates this
+     * @clears q
+     * @ensures this = #this * #q
+     */
+    private void appendRing(Queue4<T> q) {
+        int total = this.length + q.length;
+        if (total > this.entries.length) {
+            int capacity = this.entries.length;
+            while (capacity < total) {
+                capacity *= 2;
+            }
+            this.resize(capacity);
+        }
+        /*
+         * The free slots of this ring start at slot(length) and may wrap
+         * around, and so may q's entries: copy q out into them in at most two
+         * pieces, each of which copyOut may split in two again
+         */
+        int copied = 0;
+        while (copied < q.length) {
+            int to = this.slot(this.length + copied);
+            int n = Math.min(q.length - copied, this.entries.length - to);
+            copyOut(q.entries, q.slot(copied), n, this.entries, to);
+            copied += n;
+        }
+        this.length = total;
+        q.createNewRep();
+    }
+
+}
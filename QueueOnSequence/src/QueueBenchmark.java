@@ -0,0 +1,138 @@
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare the time {@code Queue1L}, {@code Queue3} (on a
+ * {@code Sequence}) and {@code Queue4} (a ring buffer) take to fill and drain
+ * a long queue, to run a short queue in steady state, and to append one long
+ * queue to another.
+ *
+ * <p>
+ * Usage: {@code QueueBenchmark [numberOfEntries]} (default 10,000,000).
+ * {@code Queue3} pays for {@code Sequence}'s positional {@code add} and
+ * {@code remove} on every call, so it is only run on the first
+ * {@code QUEUE3_LIMIT} entries. Fill/drain and steady-state times are per
+ * entry, in nanoseconds: the first shows the cost of growing the queue, the
+ * second that of a queue short enough to stay in cache. The append time is
+ * for a single call, in microseconds, and shows whether the implementation
+ * moves the entries one at a time or in bulk.
+ */
+public final class QueueBenchmark {
+
+    /**
+     * Default number of entries.
+     */
+    private static final int DEFAULT_ENTRIES = 10_000_000;
+
+    /**
+     * Largest number of entries given to {@code Queue3}.
+     */
+    private static final int QUEUE3_LIMIT = 100_000;
+
+    /**
+     * Length of the queue in the steady-state run.
+     */
+    private static final int STEADY_LENGTH = 64;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private QueueBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Runs the three workloads on {@code q} (and, for {@code append}, on
+     * {@code q.newInstance()}) and outputs the times taken.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param q
+     *            an empty queue of the implementation to time
+     * @param entries
+     *            the entries to enqueue
+     * @updates out.content
+     * @requires out.is_open and q = <> and |entries| >= STEADY_LENGTH
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void run(SimpleWriter out, String label, Queue<Integer> q,
+            Integer[] entries) {
+        long checksum = 0;
+
+        long start = System.nanoTime();
+        for (Integer x : entries) {
+            q.enqueue(x);
+        }
+        while (q.length() > 0) {
+            checksum += q.dequeue();
+        }
+        long filled = System.nanoTime();
+
+        for (int i = 0; i < STEADY_LENGTH; i++) {
+            q.enqueue(entries[i]);
+        }
+        for (Integer x : entries) {
+            q.enqueue(x);
+            checksum += q.dequeue();
+        }
+        q.clear();
+        long steady = System.nanoTime();
+
+        Queue<Integer> other = q.newInstance();
+        for (int i = 0; i < entries.length / 2; i++) {
+            q.enqueue(entries[i]);
+            other.enqueue(entries[i]);
+        }
+        long appendStart = System.nanoTime();
+        q.append(other);
+        long appended = System.nanoTime();
+        checksum += q.length();
+
+        double perEntry = entries.length;
+        out.println(label + " fill/drain: " + ((filled - start) / perEntry)
+                + " ns/entry, steady: " + ((steady - filled) / perEntry)
+                + " ns/entry, append: "
+                + TimeUnit.NANOSECONDS.toMicros(appended - appendStart)
+                + " us (checksum " + checksum + ")");
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional number of entries
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int n = DEFAULT_ENTRIES;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+        n = Math.max(n, STEADY_LENGTH);
+        Integer[] entries = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            entries[i] = i;
+        }
+        Integer[] fewEntries = Arrays.copyOf(entries, Math.min(n, QUEUE3_LIMIT));
+
+        run(out, "Queue1L n=" + fewEntries.length, new Queue1L<Integer>(),
+                fewEntries);
+        run(out, "Queue3 n=" + fewEntries.length, new Queue3<Integer>(),
+                fewEntries);
+        run(out, "Queue4 n=" + fewEntries.length, new Queue4<Integer>(),
+                fewEntries);
+        run(out, "Queue1L n=" + n, new Queue1L<Integer>(), entries);
+        run(out, "Queue4 n=" + n, new Queue4<Integer>(), entries);
+
+        out.close();
+    }
+
+}
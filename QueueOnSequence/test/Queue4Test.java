@@ -0,0 +1,98 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Customized JUnit test fixture for {@code Queue4}. The tests below are long
+ * enough to make the ring wrap around, grow and shrink.
+ */
+public class Queue4Test extends QueueTest {
+
+    @Override
+    protected final Queue<String> constructorTest() {
+        return new Queue4<String>();
+    }
+
+    @Override
+    protected final Queue<String> constructorRef() {
+        return new Queue1L<String>();
+    }
+
+    @Test
+    public final void testEnqueueDequeueWrapAround() {
+        final int rounds = 100;
+        Queue<String> q = this.constructorTest();
+        Queue<String> qExpected = this.constructorRef();
+        for (int i = 0; i < rounds; i++) {
+            q.enqueue(Integer.toString(i));
+            qExpected.enqueue(Integer.toString(i));
+            q.enqueue(Integer.toString(-i));
+            qExpected.enqueue(Integer.toString(-i));
+            assertEquals(qExpected.dequeue(), q.dequeue());
+        }
+        assertEquals(qExpected, q);
+        while (qExpected.length() > 0) {
+            assertEquals(qExpected.dequeue(), q.dequeue());
+        }
+        assertEquals(qExpected, q);
+    }
+
+    @Test
+    public final void testFrontAndReplaceFront() {
+        Queue<String> q = this.constructorTest();
+        Queue<String> qExpected = this.constructorRef();
+        q.enqueue("red");
+        q.enqueue("green");
+        qExpected.enqueue("blue");
+        qExpected.enqueue("green");
+        assertEquals("red", q.front());
+        assertEquals("red", q.replaceFront("blue"));
+        assertEquals(qExpected, q);
+    }
+
+    @Test
+    public final void testAppendBothWrapped() {
+        final int n = 20;
+        Queue<String> q1 = this.constructorTest();
+        Queue<String> q2 = this.constructorTest();
+        Queue<String> q1Expected = this.constructorRef();
+        Queue<String> q2Expected = this.constructorRef();
+        for (int i = 0; i < n; i++) {
+            q1.enqueue("a" + i);
+            q2.enqueue("b" + i);
+        }
+        for (int i = 0; i < n - 3; i++) {
+            q1.enqueue(q1.dequeue());
+            q2.enqueue(q2.dequeue());
+        }
+        // rotating by n - 3 leaves each queue starting at entry n - 3
+        for (int i = 0; i < n; i++) {
+            q1Expected.enqueue("a" + (i + n - 3) % n);
+        }
+        for (int i = 0; i < n; i++) {
+            q1Expected.enqueue("b" + (i + n - 3) % n);
+        }
+        q1.append(q2);
+        assertEquals(q1Expected, q1);
+        assertEquals(q2Expected, q2);
+    }
+
+    @Test
+    public final void testAppendToEmpty() {
+        Queue<String> q1 = this.constructorTest();
+        Queue<String> q2 = this.constructorTest();
+        Queue<String> q1Expected = this.constructorRef();
+        Queue<String> q2Expected = this.constructorRef();
+        q2.enqueue("red");
+        q2.enqueue("green");
+        q1Expected.enqueue("red");
+        q1Expected.enqueue("green");
+        q1.append(q2);
+        assertEquals(q1Expected, q1);
+        assertEquals(q2Expected, q2);
+    }
+
+}
@@ -0,0 +1,150 @@
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program to compare the time {@code SortingMachine4} and
+ * {@code SortingMachine4b} take to sort sorted, reverse-sorted, all-equal and
+ * random {@code Integer} entries.
+ *
+ * <p>
+ * Usage: {@code SortingMachine4Benchmark [numberOfEntries]} (default
+ * 10,000,000, which needs a heap of a few GB, {@code -Xmx}).
+ * {@code SortingMachine4} is quadratic, and recurses once per entry on sorted
+ * input, so it is only run on the first {@code SM4_LIMIT} entries. Each time,
+ * in milliseconds, covers adding, sorting and removing every entry. The four
+ * inputs are the classic quicksort hazards: sorted and reverse-sorted input
+ * test the pivot choice, and all-equal input tests the three-way partition,
+ * so {@code SortingMachine4b} should take about n log n time on each.
+ */
+public final class SortingMachine4Benchmark {
+
+    /**
+     * Default number of entries sorted.
+     */
+    private static final int DEFAULT_ENTRIES = 10_000_000;
+
+    /**
+     * Largest input given to {@code SortingMachine4}.
+     */
+    private static final int SM4_LIMIT = 2_000;
+
+    /**
+     * Seed for the random input, so runs are repeatable.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static final class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachine4Benchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns {@code n} entries of the given kind.
+     *
+     * @param kind
+     *            one of "sorted", "reverse", "equal" or "random"
+     * @param n
+     *            the number of entries
+     * @return the entries
+     * @requires n >= 0
+     */
+    private static Integer[] entries(String kind, int n) {
+        Integer[] entries = new Integer[n];
+        Random random = new Random(SEED);
+        Integer zero = 0;
+        for (int i = 0; i < n; i++) {
+            if (kind.equals("sorted")) {
+                entries[i] = i;
+            } else if (kind.equals("reverse")) {
+                entries[i] = n - i;
+            } else if (kind.equals("equal")) {
+                entries[i] = zero;
+            } else {
+                entries[i] = random.nextInt();
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Sorts {@code input} with {@code sm} and outputs the time taken.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param sm
+     *            the sorting machine to use
+     * @param input
+     *            the entries to sort
+     * @updates out.content
+     * @requires out.is_open and sm = (true, [some order], {})
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void run(SimpleWriter out, String label,
+            SortingMachine<Integer> sm, Integer[] input) {
+        long start = System.nanoTime();
+        for (Integer x : input) {
+            sm.add(x);
+        }
+        sm.changeToExtractionMode();
+        Integer last = null;
+        boolean sorted = true;
+        while (sm.size() > 0) {
+            Integer x = sm.removeFirst();
+            sorted = sorted && (last == null || last.compareTo(x) <= 0);
+            last = x;
+        }
+        long done = System.nanoTime();
+        out.println(label + " n=" + input.length + ": "
+                + TimeUnit.NANOSECONDS.toMillis(done - start) + " ms"
+                + (sorted ? "" : " UNSORTED"));
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional number of entries
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int n = DEFAULT_ENTRIES;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+        int smallN = Math.min(n, SM4_LIMIT);
+        Comparator<Integer> order = new IntegerLT();
+
+        String[] kinds = { "sorted", "reverse", "equal", "random" };
+        for (String kind : kinds) {
+            run(out, "SortingMachine4 " + kind,
+                    new SortingMachine4<Integer>(order), entries(kind, smallN));
+            run(out, "SortingMachine4b " + kind,
+                    new SortingMachine4b<Integer>(order), entries(kind, smallN));
+            run(out, "SortingMachine4b " + kind,
+                    new SortingMachine4b<Integer>(order), entries(kind, n));
+        }
+
+        out.close();
+    }
+
+}
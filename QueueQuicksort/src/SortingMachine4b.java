@@ -0,0 +1,678 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as a {@code Queue} in insertion mode and a
+ * sorted array in extraction mode (using an embedding of introsort), with
+ * implementations of primary methods.
+ *
+ * <p>
+ * {@code changeToExtractionMode} copies the queue into an array once and
+ * sorts the array in place:
+ * <ul>
+ * <li>the pivot is the median of three entries, or for large partitions the
+ * median of three such medians (Tukey's "ninther");</li>
+ * <li>partitioning is three-way, so entries equivalent to the pivot are
+ * gathered in the middle and never looked at again, which makes inputs with
+ * few distinct keys cheap;</li>
+ * <li>the smaller side is sorted recursively and the larger one iteratively,
+ * so the recursion depth is O(log n);</li>
+ * <li>a partition still being split after 2 log n levels is heapsorted
+ * instead, so the worst case is O(n log n);</li>
+ * <li>partitions of at most {@code INSERTION_SORT_THRESHOLD} entries are
+ * insertion sorted.</li>
+ * </ul>
+ * Afterwards {@code removeFirst} takes entries from the front of the array in
+ * O(1) time.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_SORTED (
+ *   s: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y: T where (<x, y> is substring of s) (r(x, y))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])  and
+ * 0 <= $this.front <= |$this.sorted|  and
+ * if $this.insertionMode then
+ *   $this.sorted = <>  and  $this.front = 0
+ * else
+ *   $this.entries = <>  and
+ *   [entries in $this.sorted[$this.front, |$this.sorted|) are not null]  and
+ *   IS_SORTED($this.sorted[$this.front, |$this.sorted|),
+ *     [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * if $this.insertionMode then
+ *   this = (true, $this.machineOrder, multiset_entries($this.entries))
+ * else
+ *   this = (false, $this.machineOrder,
+ *           multiset_entries($this.sorted[$this.front, |$this.sorted|)))
+ * </pre>
+ */
+public class SortingMachine4b<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Partitions of at most this many entries are insertion sorted.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Partitions of more than this many entries use the ninther as pivot.
+     */
+    private static final int NINTHER_THRESHOLD = 128;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Entries, in insertion mode.
+     */
+    private Queue<T> entries;
+
+    /**
+     * Entries, sorted, in extraction mode.
+     */
+    private T[] sorted;
+
+    /**
+     * Index of the first entry of {@code sorted} not yet removed.
+     */
+    private int front;
+
+    /**
+     * Exchanges entries {@code i} and {@code j} of {@code array}.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param i
+     *            the first index
+     * @param j
+     *            the second index
+     * @updates array
+     * @requires 0 <= i < |array|  and  0 <= j < |array|
+     * @ensures <pre>
+     * array = [#array with entries at indexes i and j exchanged]
+     * </pre>
+     */
+    private static <T> void exchange(T[] array, int i, int j) {
+        T tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    /**
+     * Returns whichever of indexes {@code i}, {@code j} and {@code k} holds
+     * the median of the three entries there.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param i
+     *            the first index
+     * @param j
+     *            the second index
+     * @param k
+     *            the third index
+     * @param order
+     *            total preorder for sorting
+     * @return the index of the median entry
+     * @requires <pre>
+     * [i, j and k are valid indexes of array]  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * medianOfThree is in {i, j, k}  and
+     * [array[medianOfThree] is the median of array[i], array[j], array[k]]
+     * </pre>
+     */
+    private static <T> int medianOfThree(T[] array, int i, int j, int k,
+            Comparator<T> order) {
+        int median;
+        if (order.compare(array[i], array[j]) < 0) {
+            if (order.compare(array[j], array[k]) < 0) {
+                median = j;
+            } else if (order.compare(array[i], array[k]) < 0) {
+                median = k;
+            } else {
+                median = i;
+            }
+        } else {
+            if (order.compare(array[i], array[k]) < 0) {
+                median = i;
+            } else if (order.compare(array[j], array[k]) < 0) {
+                median = k;
+            } else {
+                median = j;
+            }
+        }
+        return median;
+    }
+
+    /**
+     * Returns the index of a pivot for {@code array[low, high)}: the median of
+     * its first, middle and last entries, or, if the slice is longer than
+     * {@code NINTHER_THRESHOLD}, the median of the medians of three evenly
+     * spaced triples.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param low
+     *            start index of the slice
+     * @param high
+     *            end index of the slice (exclusive)
+     * @param order
+     *            total preorder for sorting
+     * @return the index of the pivot
+     * @requires <pre>
+     * 0 <= low  and  low + 3 <= high <= |array|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures low <= pivotIndex < high
+     */
+    private static <T> int pivotIndex(T[] array, int low, int high,
+            Comparator<T> order) {
+        int last = high - 1;
+        int middle = (low + last) >>> 1;
+        int pivot;
+        if (high - low > NINTHER_THRESHOLD) {
+            int step = (high - low) / 8;
+            int m1 = medianOfThree(array, low, low + step, low + 2 * step, order);
+            int m2 = medianOfThree(array, middle - step, middle, middle + step,
+                    order);
+            int m3 = medianOfThree(array, last - 2 * step, last - step, last,
+                    order);
+            pivot = medianOfThree(array, m1, m2, m3, order);
+        } else {
+            pivot = medianOfThree(array, low, middle, last, order);
+        }
+        return pivot;
+    }
+
+    /**
+     * Sorts {@code array[low, high)} by insertion sort.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param low
+     *            start index of the slice
+     * @param high
+     *            end index of the slice (exclusive)
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= low <= high <= |array|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(array[low, high), [relation computed by order.compare method])  and
+     * perms(array, #array)
+     * </pre>
+     */
+    private static <T> void insertionSort(T[] array, int low, int high,
+            Comparator<T> order) {
+        for (int i = low + 1; i < high; i++) {
+            T x = array[i];
+            int j = i;
+            while (j > low && order.compare(x, array[j - 1]) < 0) {
+                array[j] = array[j - 1];
+                j--;
+            }
+            array[j] = x;
+        }
+    }
+
+    /**
+     * Given a slice {@code array[low, high)} that represents a complete binary
+     * tree (the root at {@code low}) and would be a max-heap except at
+     * {@code low + top}, sifts that entry down to turn the subtree rooted there
+     * into a max-heap.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param low
+     *            start index of the slice
+     * @param top
+     *            offset from low of the root of the "subtree"
+     * @param length
+     *            the number of entries in the tree
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= top < length  and  0 <= low  and  low + length <= |array|  and
+     * [the subtrees rooted at the children of top are max-heaps]
+     * </pre>
+     * @ensures <pre>
+     * [the subtree rooted at top is a max-heap]  and
+     * perms(array, #array)
+     * </pre>
+     */
+    private static <T> void siftDown(T[] array, int low, int top, int length,
+            Comparator<T> order) {
+        T x = array[low + top];
+        int hole = top;
+        int child = 2 * hole + 1;
+        boolean placed = false;
+        while (!placed && child < length) {
+            if (child + 1 < length && order.compare(array[low + child],
+                    array[low + child + 1]) < 0) {
+                child++;
+            }
+            if (order.compare(x, array[low + child]) < 0) {
+                array[low + hole] = array[low + child];
+                hole = child;
+                child = 2 * hole + 1;
+            } else {
+                placed = true;
+            }
+        }
+        array[low + hole] = x;
+    }
+
+    /**
+     * Sorts {@code array[low, high)} by heapsort.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param low
+     *            start index of the slice
+     * @param high
+     *            end index of the slice (exclusive)
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= low <= high <= |array|  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(array[low, high), [relation computed by order.compare method])  and
+     * perms(array, #array)
+     * </pre>
+     */
+    private static <T> void heapsort(T[] array, int low, int high,
+            Comparator<T> order) {
+        int length = high - low;
+        for (int i = (length - 2) / 2; i >= 0; i--) {
+            siftDown(array, low, i, length, order);
+        }
+        for (int last = length - 1; last > 0; last--) {
+            exchange(array, low, low + last);
+            siftDown(array, low, 0, last, order);
+        }
+    }
+
+    /**
+     * Sorts {@code array[low, high)} by introsort, switching to heapsort once
+     * {@code depth} more levels of partitioning have not sufficed.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array
+     * @param low
+     *            start index of the slice
+     * @param high
+     *            end index of the slice (exclusive)
+     * @param depth
+     *            remaining partitioning levels allowed
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= low <= high <= |array|  and  depth >= 0  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_SORTED(array[low, high), [relation computed by order.compare method])  and
+     * perms(array, #array)
+     * </pre>
+     */
+    private static <T> void introsort(T[] array, int low, int high, int depth,
+            Comparator<T> order) {
+        int lo = low;
+        int hi = high;
+        int levels = depth;
+        while (hi - lo > INSERTION_SORT_THRESHOLD && levels > 0) {
+            levels--;
+            T pivot = array[pivotIndex(array, lo, hi, order)];
+            /*
+             * Three-way partition: array[lo, lt) comes before pivot,
+             * array[lt, i) is equivalent to it, array[i, gt) is still to be
+             * looked at, and array[gt, hi) comes after it.
+             */
+            int lt = lo;
+            int i = lo;
+            int gt = hi;
+            while (i < gt) {
+                int c = order.compare(array[i], pivot);
+                if (c < 0) {
+                    exchange(array, lt, i);
+                    lt++;
+                    i++;
+                } else if (c > 0) {
+                    gt--;
+                    exchange(array, i, gt);
+                } else {
+                    i++;
+                }
+            }
+            // Recur on the smaller side, loop on the larger one
+            if (lt - lo < hi - gt) {
+                introsort(array, lo, lt, levels, order);
+                lo = gt;
+            } else {
+                introsort(array, gt, hi, levels, order);
+                hi = lt;
+            }
+        }
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(array, lo, hi, order);
+        } else {
+            heapsort(array, lo, hi, order);
+        }
+    }
+
+    /**
+     * Returns the depth limit for introsort of {@code n} entries,
+     * 2 floor(log2(n)).
+     *
+     * @param n
+     *            the number of entries
+     * @return the depth limit
+     * @requires n >= 1
+     * @ensures depthLimit = 2 * floor(log2(n))
+     */
+    private static int depthLimit(int n) {
+        return 2 * (Integer.SIZE - 1 - Integer.numberOfLeadingZeros(n));
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.front <= |$this.sorted|  and
+     * if $this.insertionMode then
+     *   $this.sorted = <>  and  $this.front = 0
+     * else
+     *   $this.entries = <>  and
+     *   [entries in $this.sorted[$this.front, |$this.sorted|) are not null]  and
+     *   IS_SORTED($this.sorted[$this.front, |$this.sorted|),
+     *     [relation computed by $this.machineOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.front && this.front <= this.sorted.length
+                : "Violation of: 0 <= $this.front <= |$this.sorted|";
+        if (this.insertionMode) {
+            assert this.sorted.length == 0 && this.front == 0 : ""
+                    + "Violation of: if $this.insertionMode then"
+                    + " $this.sorted = <>  and  $this.front = 0";
+        } else {
+            assert this.entries.length() == 0
+                    : "Violation of: if not $this.insertionMode then $this.entries = <>";
+            for (int i = this.front; i < this.sorted.length; i++) {
+                assert this.sorted[i] != null : "Violation of: entries in"
+                        + " $this.sorted[$this.front, |$this.sorted|) are not null";
+                assert i == this.front || this.machineOrder
+                        .compare(this.sorted[i - 1], this.sorted[i]) <= 0
+                        : "" + "Violation of: if not $this.insertionMode then"
+                                + " IS_SORTED($this.sorted[$this.front,"
+                                + " |$this.sorted|), [relation computed by"
+                                + " $this.machineOrder.compare method])";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order) {
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.entries = new Queue1L<T>();
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.sorted = (T[]) (new Object[0]);
+        this.front = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public SortingMachine4b(Comparator<T> order) {
+        this.createNewRep(order);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class)
+                    .newInstance(this.machineOrder);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine4b<?>
+                : "" + "Violation of: source is of dynamic type SortingMachine4b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine4b<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine4b<T> localSource = (SortingMachine4b<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.entries = localSource.entries;
+        this.sorted = localSource.sorted;
+        this.front = localSource.front;
+        localSource.createNewRep(localSource.machineOrder);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+
+        this.entries.enqueue(x);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+
+        int n = this.entries.length();
+        T[] array = (T[]) (new Object[n]);
+        for (int i = 0; i < n; i++) {
+            array[i] = this.entries.dequeue();
+        }
+        if (n > 1) {
+            introsort(array, 0, n, depthLimit(n), this.machineOrder);
+        }
+        this.sorted = array;
+        this.front = 0;
+        this.insertionMode = false;
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this.isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+        assert this.conventionHolds();
+
+        T first = this.sorted[this.front];
+        this.sorted[this.front] = null;
+        this.front++;
+        assert this.conventionHolds();
+        return first;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        int size;
+        if (this.insertionMode) {
+            size = this.entries.length();
+        } else {
+            size = this.sorted.length - this.front;
+        }
+        return size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        Iterator<T> it;
+        if (this.insertionMode) {
+            it = this.entries.iterator();
+        } else {
+            it = new SortingMachine4bIterator();
+        }
+        return it;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine4b} in extraction mode.
+     */
+    private final class SortingMachine4bIterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry to return.
+         */
+        private int currentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine4bIterator() {
+            this.currentIndex = SortingMachine4b.this.front;
+            assert SortingMachine4b.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.currentIndex < SortingMachine4b.this.sorted.length;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachine4b.this.sorted[this.currentIndex];
+            this.currentIndex++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,156 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachine4b}.
+ */
+public final class SortingMachine4bTest extends SortingMachineTest {
+
+    /**
+     * Number of entries in the larger tests; enough for ninther pivots and
+     * several levels of partitioning.
+     */
+    private static final int MANY = 2000;
+
+    /**
+     * Comparator to be used in the larger tests.
+     */
+    private static final Comparator<String> ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String s1, String s2) {
+            return s1.compareTo(s2);
+        }
+    };
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachine4b<String>(order);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Adds {@code entries} to a {@code SortingMachine4b}, changes it to
+     * extraction mode, and checks that it returns them in sorted order.
+     *
+     * @param entries
+     *            the entries to sort
+     */
+    private static void checkSorts(String[] entries) {
+        SortingMachine<String> m = new SortingMachine4b<String>(ORDER);
+        for (String x : entries) {
+            m.add(x);
+        }
+        String[] expected = entries.clone();
+        Arrays.sort(expected, ORDER);
+        m.changeToExtractionMode();
+        assertEquals(expected.length, m.size());
+        for (String x : expected) {
+            assertEquals(x, m.removeFirst());
+        }
+    }
+
+    /**
+     * Returns {@code n} zero-padded numbers, in increasing order.
+     *
+     * @param n
+     *            the number of entries
+     * @return the entries
+     */
+    private static String[] sortedEntries(int n) {
+        String[] entries = new String[n];
+        for (int i = 0; i < n; i++) {
+            entries[i] = String.format("%05d", i);
+        }
+        return entries;
+    }
+
+    @Test
+    public final void testSortedInput() {
+        checkSorts(sortedEntries(MANY));
+    }
+
+    @Test
+    public final void testReverseSortedInput() {
+        String[] entries = sortedEntries(MANY);
+        for (int i = 0, j = entries.length - 1; i < j; i++, j--) {
+            String tmp = entries[i];
+            entries[i] = entries[j];
+            entries[j] = tmp;
+        }
+        checkSorts(entries);
+    }
+
+    @Test
+    public final void testNearlySortedInput() {
+        final long seed = 1L;
+        final int swaps = 20;
+        String[] entries = sortedEntries(MANY);
+        Random random = new Random(seed);
+        for (int k = 0; k < swaps; k++) {
+            int i = random.nextInt(entries.length);
+            int j = random.nextInt(entries.length);
+            String tmp = entries[i];
+            entries[i] = entries[j];
+            entries[j] = tmp;
+        }
+        checkSorts(entries);
+    }
+
+    @Test
+    public final void testSortedPiecesInput() {
+        final int pieces = 7;
+        String[] sorted = sortedEntries(MANY);
+        String[] entries = new String[MANY];
+        int k = 0;
+        for (int p = 0; p < pieces; p++) {
+            for (int i = p; i < MANY; i += pieces) {
+                entries[k] = sorted[i];
+                k++;
+            }
+        }
+        checkSorts(entries);
+    }
+
+    @Test
+    public final void testAllEqualInput() {
+        String[] entries = new String[MANY];
+        Arrays.fill(entries, "same");
+        checkSorts(entries);
+    }
+
+    @Test
+    public final void testOrganPipeInput() {
+        String[] sorted = sortedEntries(MANY);
+        String[] entries = new String[MANY];
+        for (int i = 0; i < MANY / 2; i++) {
+            entries[i] = sorted[2 * i];
+            entries[MANY - 1 - i] = sorted[2 * i + 1];
+        }
+        checkSorts(entries);
+    }
+
+    @Test
+    public final void testRandomInputWithDuplicates() {
+        final long seed = 2L;
+        final int distinct = 100;
+        String[] entries = new String[MANY];
+        Random random = new Random(seed);
+        for (int i = 0; i < MANY; i++) {
+            entries[i] = Integer.toString(random.nextInt(distinct));
+        }
+        checkSorts(entries);
+    }
+
+}
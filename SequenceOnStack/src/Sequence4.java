@@ -0,0 +1,351 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+
+/**
+ * {@code Sequence} represented as a gap buffer, done "bare-handed", with
+ * implementations of primary methods and {@code entry} and
+ * {@code replaceEntry} secondary methods.
+ *
+ * <p>
+ * The entries are kept in an array with a single run of unused slots, the
+ * gap, at the position of the most recent edit. {@code add} and
+ * {@code remove} first move the gap to {@code pos}, copying the entries in
+ * between with one {@code System.arraycopy} and no allocation, and then take
+ * or free one slot at its edge. So, like {@code Sequence3}'s two stacks, a run
+ * of edits at or near the same position costs O(1) each, but moving from one
+ * position to another costs a block copy rather than a pop, a push and a node
+ * allocation per entry in between. {@code entry} and {@code replaceEntry} are
+ * O(1) and do not move the gap. The array doubles when the gap is used up and
+ * halves when less than a quarter of it is in use.
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @convention <pre>
+ * |$this.entries| >= MIN_CAPACITY  and
+ * 0 <= $this.gapStart <= $this.gapEnd <= |$this.entries|  and
+ * [entries in $this.entries[0, $this.gapStart) and
+ *  $this.entries[$this.gapEnd, |$this.entries|) are not null]  and
+ * [entries in $this.entries[$this.gapStart, $this.gapEnd) are null]
+ * </pre>
+ * @correspondence <pre>
+ * this = $this.entries[0, $this.gapStart) *
+ *        $this.entries[$this.gapEnd, |$this.entries|)
+ * </pre>
+ */
+public class Sequence4<T> extends SequenceSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Smallest length of the entries array.
+     */
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * Entries, with the gap in the middle.
+     */
+    private T[] entries;
+
+    /**
+     * Index in entries of the first slot of the gap.
+     */
+    private int gapStart;
+
+    /**
+     * Index in entries of the first slot after the gap.
+     */
+    private int gapEnd;
+
+    /**
+     * Returns the index in the entries array of the entry at position
+     * {@code pos}.
+     *
+     * @param pos
+     *            the position in this
+     * @return the index in $this.entries of this[pos, pos+1)
+     * @requires 0 <= pos < |this|
+     */
+    private int index(int pos) {
+        int index = pos;
+        if (pos >= this.gapStart) {
+            index += this.gapEnd - this.gapStart;
+        }
+        return index;
+    }
+
+    /**
+     * Moves the gap so that it starts at {@code pos}.
+     *
+     * @param pos
+     *            the new start of the gap
+     * @updates $this.entries, $this.gapStart, $this.gapEnd
+     * @requires 0 <= pos <= |this|
+     * @ensures $this.gapStart = pos  and  [this is unchanged]
+     */
+    private void moveGap(int pos) {
+        int gapLength = this.gapEnd - this.gapStart;
+        if (pos < this.gapStart) {
+            /*
+             * Entries [pos, gapStart) move to the far side of the gap
+             */
+            int n = this.gapStart - pos;
+            System.arraycopy(this.entries, pos, this.entries, this.gapEnd - n, n);
+            Arrays.fill(this.entries, pos, Math.min(this.gapStart, this.gapEnd - n),
+                    null);
+        } else if (pos > this.gapStart) {
+            /*
+             * Entries [gapEnd, gapEnd + n) move to the near side of the gap
+             */
+            int n = pos - this.gapStart;
+            System.arraycopy(this.entries, this.gapEnd, this.entries,
+                    this.gapStart, n);
+            Arrays.fill(this.entries, Math.max(this.gapEnd, this.gapStart + n),
+                    this.gapEnd + n, null);
+        }
+        this.gapStart = pos;
+        this.gapEnd = pos + gapLength;
+    }
+
+    /**
+     * Replaces the entries array with one of length {@code capacity} holding
+     * the same entries, keeping the gap where it is.
+     *
+     * @param capacity
+     *            the new length of the array
+     * @updates $this.entries, $this.gapEnd
+     * @requires capacity >= MIN_CAPACITY  and  |this| <= capacity
+     * @ensures |$this.entries| = capacity  and  [this is unchanged]
+     */
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        T[] resized = (T[]) (new Object[capacity]);
+        int afterGap = this.entries.length - this.gapEnd;
+        System.arraycopy(this.entries, 0, resized, 0, this.gapStart);
+        System.arraycopy(this.entries, this.gapEnd, resized,
+                capacity - afterGap, afterGap);
+        this.entries = resized;
+        this.gapEnd = capacity - afterGap;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * |$this.entries| >= MIN_CAPACITY  and
+     * 0 <= $this.gapStart <= $this.gapEnd <= |$this.entries|  and
+     * [entries in $this.entries[0, $this.gapStart) and
+     *  $this.entries[$this.gapEnd, |$this.entries|) are not null]  and
+     * [entries in $this.entries[$this.gapStart, $this.gapEnd) are null]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.entries.length >= MIN_CAPACITY
+                : "Violation of: |$this.entries| >= MIN_CAPACITY";
+        assert 0 <= this.gapStart && this.gapStart <= this.gapEnd
+                && this.gapEnd <= this.entries.length
+                : "Violation of: 0 <= $this.gapStart <= $this.gapEnd <= |$this.entries|";
+        for (int i = 0; i < this.entries.length; i++) {
+            boolean inGap = this.gapStart <= i && i < this.gapEnd;
+            assert (this.entries[i] == null) == inGap
+                    : "" + "Violation of: [entries outside the gap are not null,"
+                            + " and entries in the gap are null]";
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep() {
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.entries = (T[]) (new Object[MIN_CAPACITY]);
+        this.gapStart = 0;
+        this.gapEnd = MIN_CAPACITY;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Sequence4() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Sequence<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Sequence4<?>
+                : "" + "Violation of: source is of dynamic type Sequence4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Sequence4<?>,
+         * and the ? must be T or the call would not have compiled.
+         */
+        Sequence4<T> localSource = (Sequence4<T>) source;
+        this.entries = localSource.entries;
+        this.gapStart = localSource.gapStart;
+        this.gapEnd = localSource.gapEnd;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        if (this.gapStart == this.gapEnd) {
+            this.resize(2 * this.entries.length);
+        }
+        this.moveGap(pos);
+        this.entries[this.gapStart] = x;
+        this.gapStart++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        this.moveGap(pos);
+        T removed = this.entries[this.gapEnd];
+        this.entries[this.gapEnd] = null;
+        this.gapEnd++;
+        if (this.entries.length > MIN_CAPACITY
+                && this.length() < this.entries.length / 4) {
+            this.resize(this.entries.length / 2);
+        }
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final int length() {
+        return this.entries.length - (this.gapEnd - this.gapStart);
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Sequence4Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Sequence4}.
+     */
+    private final class Sequence4Iterator implements Iterator<T> {
+
+        /**
+         * Position in the sequence of the next entry to return.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Sequence4Iterator() {
+            this.current = 0;
+            assert Sequence4.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current < Sequence4.this.length();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = Sequence4.this.entries[Sequence4.this.index(this.current)];
+            this.current++;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final T entry(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        return this.entries[this.index(pos)];
+    }
+
+    @Override
+    public final T replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        int index = this.index(pos);
+        T replaced = this.entries[index];
+        this.entries[index] = x;
+        return replaced;
+    }
+
+}
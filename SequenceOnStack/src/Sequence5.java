@@ -0,0 +1,535 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+import components.stack.Stack;
+import components.stack.Stack1L;
+
+/**
+ * {@code Sequence} represented as an AVL tree indexed by position (a simple
+ * rope), done "bare-handed", with implementations of primary methods and
+ * {@code entry} and {@code replaceEntry} secondary methods.
+ *
+ * <p>
+ * The entries are the labels of the tree in in-order, and every node records
+ * the size of its subtree, so the node at position {@code pos} is found by
+ * comparing {@code pos} with the size of the left subtree at each level,
+ * without looking at the entries themselves. The heights of the two subtrees
+ * of every node are kept within one of each other, so {@code add},
+ * {@code remove}, {@code entry} and {@code replaceEntry} are O(log n) wherever
+ * {@code pos} is, unlike {@code Sequence3}, whose cost is the distance from
+ * the previous edit. For runs of edits at or near the same position,
+ * {@code Sequence4} is faster.
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @mathdefinitions <pre>
+ * IS_AVL(
+ *   tree: binary tree of T
+ *  ): boolean satisfies
+ *  [for every subtree of tree, the heights of its left and right subtrees
+ *   differ by at most 1]
+ * </pre>
+ * @convention <pre>
+ * [$this.root is null or points to the root node of a binary tree, tree,
+ *  whose nodes are all distinct]  and
+ * IS_AVL(tree)  and  [labels of tree are not null]  and
+ * [in every node n of tree, n.height = height of the subtree rooted at n
+ *  and n.size = size of the subtree rooted at n]
+ * </pre>
+ * @correspondence this = in_order(tree)
+ */
+public class Sequence5<T> extends SequenceSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node class for AVL tree nodes.
+     */
+    private final class Node {
+
+        /**
+         * Label in node.
+         */
+        private T label;
+
+        /**
+         * Left subtree, or null.
+         */
+        private Node left;
+
+        /**
+         * Right subtree, or null.
+         */
+        private Node right;
+
+        /**
+         * Height of the subtree rooted at this node.
+         */
+        private int height;
+
+        /**
+         * Number of nodes in the subtree rooted at this node.
+         */
+        private int size;
+
+    }
+
+    /**
+     * Root of the AVL tree, or null if {@code this} is empty.
+     */
+    private Node root;
+
+    /**
+     * Returns the height of the subtree rooted at {@code n}.
+     *
+     * @param n
+     *            the subtree root, or null
+     * @return the height of the subtree (0 if n is null)
+     */
+    private int height(Node n) {
+        int height = 0;
+        if (n != null) {
+            height = n.height;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of nodes in the subtree rooted at {@code n}.
+     *
+     * @param n
+     *            the subtree root, or null
+     * @return the size of the subtree (0 if n is null)
+     */
+    private int size(Node n) {
+        int size = 0;
+        if (n != null) {
+            size = n.size;
+        }
+        return size;
+    }
+
+    /**
+     * Recomputes {@code n.height} and {@code n.size} from its children.
+     *
+     * @param n
+     *            the node to update
+     * @updates n
+     * @requires n is not null and the fields of its children are correct
+     * @ensures [n.height and n.size are correct]
+     */
+    private void update(Node n) {
+        n.height = 1 + Math.max(this.height(n.left), this.height(n.right));
+        n.size = 1 + this.size(n.left) + this.size(n.right);
+    }
+
+    /**
+     * Rotates the subtree rooted at {@code n} to the right.
+     *
+     * @param n
+     *            the subtree root
+     * @return the new subtree root
+     * @requires n is not null and n.left is not null
+     * @ensures <pre>
+     * [rotateRight is the root of a subtree with the same labels in the same
+     *  in-order sequence, whose old left child is now its root]
+     * </pre>
+     */
+    private Node rotateRight(Node n) {
+        Node l = n.left;
+        n.left = l.right;
+        l.right = n;
+        this.update(n);
+        this.update(l);
+        return l;
+    }
+
+    /**
+     * Rotates the subtree rooted at {@code n} to the left.
+     *
+     * @param n
+     *            the subtree root
+     * @return the new subtree root
+     * @requires n is not null and n.right is not null
+     * @ensures <pre>
+     * [rotateLeft is the root of a subtree with the same labels in the same
+     *  in-order sequence, whose old right child is now its root]
+     * </pre>
+     */
+    private Node rotateLeft(Node n) {
+        Node r = n.right;
+        n.right = r.left;
+        r.left = n;
+        this.update(n);
+        this.update(r);
+        return r;
+    }
+
+    /**
+     * Restores the AVL property at {@code n}, whose subtrees are AVL trees
+     * with heights differing by at most 2.
+     *
+     * @param n
+     *            the subtree root
+     * @return the new subtree root
+     * @requires <pre>
+     * n is not null  and  [both subtrees of n satisfy the convention]  and
+     * |height(n.left) - height(n.right)| <= 2
+     * </pre>
+     * @ensures <pre>
+     * [rebalance is the root of a subtree satisfying the convention with the
+     *  same labels in the same in-order sequence as the subtree rooted at n]
+     * </pre>
+     */
+    private Node rebalance(Node n) {
+        this.update(n);
+        int balance = this.height(n.left) - this.height(n.right);
+        Node result = n;
+        if (balance > 1) {
+            // left-right case is reduced to left-left first
+            if (this.height(n.left.left) < this.height(n.left.right)) {
+                n.left = this.rotateLeft(n.left);
+            }
+            result = this.rotateRight(n);
+        } else if (balance < -1) {
+            // right-left case is reduced to right-right first
+            if (this.height(n.right.right) < this.height(n.right.left)) {
+                n.right = this.rotateRight(n.right);
+            }
+            result = this.rotateLeft(n);
+        }
+        return result;
+    }
+
+    /**
+     * Inserts {@code x} at position {@code pos} of the subtree rooted at
+     * {@code n}.
+     *
+     * @param n
+     *            the subtree root, or null
+     * @param pos
+     *            the position at which to insert
+     * @param x
+     *            the label to be inserted
+     * @return the new subtree root
+     * @aliases reference {@code x}
+     * @requires 0 <= pos <= size(n)
+     * @ensures <pre>
+     * [insert is the root of an AVL tree with in-order sequence
+     *  in_order(#n)[0, pos) * <x> * in_order(#n)[pos, size(#n))]
+     * </pre>
+     */
+    private Node insert(Node n, int pos, T x) {
+        Node result;
+        if (n == null) {
+            result = new Node();
+            result.label = x;
+            this.update(result);
+        } else {
+            int leftSize = this.size(n.left);
+            if (pos <= leftSize) {
+                n.left = this.insert(n.left, pos, x);
+            } else {
+                n.right = this.insert(n.right, pos - leftSize - 1, x);
+            }
+            result = this.rebalance(n);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the node at position {@code pos} of the subtree rooted at
+     * {@code n}, and stores its label in {@code removed[0]}.
+     *
+     * @param n
+     *            the subtree root
+     * @param pos
+     *            the position of the label to be removed
+     * @param removed
+     *            one-element array in which the removed label is returned
+     * @return the new subtree root
+     * @replaces removed
+     * @requires 0 <= pos < size(n)
+     * @ensures <pre>
+     * <removed[0]> = in_order(#n)[pos, pos+1)  and
+     * [delete is the root of an AVL tree with in-order sequence
+     *  in_order(#n)[0, pos) * in_order(#n)[pos+1, size(#n))]
+     * </pre>
+     */
+    private Node delete(Node n, int pos, T[] removed) {
+        Node result;
+        int leftSize = this.size(n.left);
+        if (pos < leftSize) {
+            n.left = this.delete(n.left, pos, removed);
+            result = this.rebalance(n);
+        } else if (pos > leftSize) {
+            n.right = this.delete(n.right, pos - leftSize - 1, removed);
+            result = this.rebalance(n);
+        } else {
+            removed[0] = n.label;
+            if (n.left == null) {
+                result = n.right;
+            } else if (n.right == null) {
+                result = n.left;
+            } else {
+                // replace the label by its in-order successor
+                n.right = this.delete(n.right, 0, removed);
+                T successor = removed[0];
+                removed[0] = n.label;
+                n.label = successor;
+                result = this.rebalance(n);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the node at position {@code pos} of the tree.
+     *
+     * @param pos
+     *            the position of the node
+     * @return the node whose label is this[pos, pos+1)
+     * @requires 0 <= pos < |this|
+     */
+    private Node find(int pos) {
+        Node n = this.root;
+        int offset = pos;
+        int leftSize = this.size(n.left);
+        while (offset != leftSize) {
+            if (offset < leftSize) {
+                n = n.left;
+            } else {
+                offset -= leftSize + 1;
+                n = n.right;
+            }
+            leftSize = this.size(n.left);
+        }
+        return n;
+    }
+
+    /**
+     * Checks that the subtree rooted at {@code n} satisfies the convention.
+     *
+     * @param n
+     *            the subtree root, or null
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     */
+    private boolean subtreeHolds(Node n) {
+        if (n != null) {
+            assert n.label != null : "Violation of: [labels of tree are not null]";
+            this.subtreeHolds(n.left);
+            this.subtreeHolds(n.right);
+            assert Math.abs(this.height(n.left) - this.height(n.right)) <= 1
+                    : "Violation of: IS_AVL(tree)";
+            assert n.height == 1 + Math.max(this.height(n.left), this.height(n.right))
+                    : "Violation of: n.height = height of the subtree rooted at n";
+            assert n.size == 1 + this.size(n.left) + this.size(n.right)
+                    : "Violation of: n.size = size of the subtree rooted at n";
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the convention holds for the current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     */
+    private boolean conventionHolds() {
+        return this.subtreeHolds(this.root);
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.root = null;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Sequence5() {
+
+        this.createNewRep();
+        assert this.conventionHolds();
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Sequence<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Sequence5<?>
+                : "" + "Violation of: source is of dynamic type Sequence5<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Sequence5<?>,
+         * and the ? must be T or the call would not have compiled.
+         */
+        Sequence5<T> localSource = (Sequence5<T>) source;
+        this.root = localSource.root;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        this.root = this.insert(this.root, pos, x);
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        @SuppressWarnings("unchecked")
+        T[] removed = (T[]) (new Object[1]);
+        this.root = this.delete(this.root, pos, removed);
+
+        assert this.conventionHolds();
+        return removed[0];
+    }
+
+    @Override
+    public final int length() {
+        return this.size(this.root);
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Sequence5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Sequence5}.
+     */
+    private final class Sequence5Iterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels, and those of their right subtrees, are yet to be
+         * returned, the next one on top.
+         */
+        private Stack<Node> pending;
+
+        /**
+         * No-argument constructor.
+         */
+        private Sequence5Iterator() {
+            this.pending = new Stack1L<Node>();
+            this.pushLeftSpine(Sequence5.this.root);
+            assert Sequence5.this.conventionHolds();
+        }
+
+        /**
+         * Pushes {@code n} and its chain of left children onto
+         * {@code pending}.
+         *
+         * @param n
+         *            the subtree root, or null
+         * @updates this.pending
+         */
+        private void pushLeftSpine(Node n) {
+            Node current = n;
+            while (current != null) {
+                this.pending.push(current);
+                current = current.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.pending.length() > 0;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node n = this.pending.pop();
+            this.pushLeftSpine(n.right);
+            return n.label;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final T entry(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        return this.find(pos).label;
+    }
+
+    @Override
+    public final T replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        Node n = this.find(pos);
+        T replaced = n.label;
+        n.label = x;
+        return replaced;
+    }
+
+}
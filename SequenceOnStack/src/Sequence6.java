@@ -0,0 +1,810 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+import components.stack.Stack;
+import components.stack.Stack1L;
+
+/**
+ * {@code Sequence} represented as a persistent rope: an AVL tree indexed by
+ * position whose nodes are never changed once built, done "bare-handed", with
+ * implementations of primary methods and {@code entry}, {@code replaceEntry},
+ * {@code append}, {@code insert}, {@code extract} and {@code flip} secondary
+ * methods.
+ *
+ * <p>
+ * Every change builds new nodes along one path from the root and shares the
+ * rest of the tree with the old version, so several {@code Sequence6} objects
+ * can share subtrees without copying them, and a change to one of them,
+ * including {@code replaceEntry}, never disturbs the others. All the
+ * operations are built from {@code join}, which makes a balanced tree out of
+ * two trees and an entry in time proportional to the difference of their
+ * heights, and from {@code take} and {@code drop}, which cut a tree at a
+ * position with O(log n) joins of decreasing height. As a result {@code add},
+ * {@code remove}, {@code entry} and {@code replaceEntry} are O(log n), and so
+ * are {@code append}, {@code insert} and {@code extract} when the argument is
+ * also a {@code Sequence6}, instead of an {@code add} and a {@code remove} per
+ * entry. {@code slice} returns a new {@code Sequence6} with a range of the
+ * entries in O(log n), leaving {@code this} unchanged. {@code flip} rebuilds
+ * the tree in O(n).
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @mathdefinitions <pre>
+ * IS_AVL(
+ *   tree: binary tree of T
+ *  ): boolean satisfies
+ *  [for every subtree of tree, the heights of its left and right subtrees
+ *   differ by at most 1]
+ * </pre>
+ * @convention <pre>
+ * [$this.root is null or points to the root node of a binary tree, tree,
+ *  whose nodes are never changed and may be shared with other Sequence6
+ *  objects]  and
+ * IS_AVL(tree)  and  [labels of tree are not null]  and
+ * [in every node n of tree, n.height = height of the subtree rooted at n
+ *  and n.size = size of the subtree rooted at n]
+ * </pre>
+ * @correspondence this = in_order(tree)
+ */
+public class Sequence6<T> extends SequenceSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node class for AVL tree nodes. Nodes are never changed once built.
+     *
+     * @param <T>
+     *            type of data
+     */
+    private static final class Node<T> {
+
+        /**
+         * Label in node.
+         */
+        private final T label;
+
+        /**
+         * Left subtree, or null.
+         */
+        private final Node<T> left;
+
+        /**
+         * Right subtree, or null.
+         */
+        private final Node<T> right;
+
+        /**
+         * Height of the subtree rooted at this node.
+         */
+        private final int height;
+
+        /**
+         * Number of nodes in the subtree rooted at this node.
+         */
+        private final int size;
+
+        /**
+         * Constructor.
+         *
+         * @param left
+         *            left subtree, or null
+         * @param label
+         *            label in node
+         * @param right
+         *            right subtree, or null
+         */
+        private Node(Node<T> left, T label, Node<T> right) {
+            this.label = label;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+
+    }
+
+    /**
+     * Root of the AVL tree, or null if {@code this} is empty.
+     */
+    private Node<T> root;
+
+    /**
+     * Returns the height of the subtree rooted at {@code n}.
+     *
+     * @param n
+     *            the subtree root, or null
+     * @return the height of the subtree (0 if n is null)
+     */
+    private static int height(Node<?> n) {
+        int height = 0;
+        if (n != null) {
+            height = n.height;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of nodes in the subtree rooted at {@code n}.
+     *
+     * @param n
+     *            the subtree root, or null
+     * @return the size of the subtree (0 if n is null)
+     */
+    private static int size(Node<?> n) {
+        int size = 0;
+        if (n != null) {
+            size = n.size;
+        }
+        return size;
+    }
+
+    /**
+     * Returns a tree like the one rooted at {@code n}, rotated to the left.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the subtree root
+     * @return the root of the rotated tree
+     * @requires n is not null and n.right is not null
+     * @ensures <pre>
+     * [rotateLeft is the root of a tree with the same in-order sequence as
+     *  the one rooted at n, whose root is labeled like n.right]
+     * </pre>
+     */
+    private static <T> Node<T> rotateLeft(Node<T> n) {
+        Node<T> r = n.right;
+        return new Node<T>(new Node<T>(n.left, n.label, r.left), r.label,
+                r.right);
+    }
+
+    /**
+     * Returns a tree like the one rooted at {@code n}, rotated to the right.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the subtree root
+     * @return the root of the rotated tree
+     * @requires n is not null and n.left is not null
+     * @ensures <pre>
+     * [rotateRight is the root of a tree with the same in-order sequence as
+     *  the one rooted at n, whose root is labeled like n.left]
+     * </pre>
+     */
+    private static <T> Node<T> rotateRight(Node<T> n) {
+        Node<T> l = n.left;
+        return new Node<T>(l.left, l.label,
+                new Node<T>(l.right, n.label, n.right));
+    }
+
+    /**
+     * Joins {@code l}, {@code x} and {@code r} when {@code l} is the taller,
+     * by descending the right spine of {@code l} to a subtree about as tall as
+     * {@code r}.
+     *
+     * @param <T>
+     *            type of labels
+     * @param l
+     *            the left tree
+     * @param x
+     *            the middle label
+     * @param r
+     *            the right tree, or null
+     * @return the root of the joined tree
+     * @requires height(l) > height(r) + 1  and  [l and r are AVL trees]
+     * @ensures <pre>
+     * [joinRight is the root of an AVL tree with in-order sequence
+     *  in_order(l) * <x> * in_order(r), and height at most height(l) + 1]
+     * </pre>
+     */
+    private static <T> Node<T> joinRight(Node<T> l, T x, Node<T> r) {
+        Node<T> result;
+        Node<T> c = l.right;
+        if (height(c) <= height(r) + 1) {
+            Node<T> t = new Node<T>(c, x, r);
+            if (height(t) <= height(l.left) + 1) {
+                result = new Node<T>(l.left, l.label, t);
+            } else {
+                result = rotateLeft(new Node<T>(l.left, l.label, rotateRight(t)));
+            }
+        } else {
+            Node<T> t = joinRight(c, x, r);
+            result = new Node<T>(l.left, l.label, t);
+            if (height(t) > height(l.left) + 1) {
+                result = rotateLeft(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Joins {@code l}, {@code x} and {@code r} when {@code r} is the taller,
+     * by descending the left spine of {@code r} to a subtree about as tall as
+     * {@code l}.
+     *
+     * @param <T>
+     *            type of labels
+     * @param l
+     *            the left tree, or null
+     * @param x
+     *            the middle label
+     * @param r
+     *            the right tree
+     * @return the root of the joined tree
+     * @requires height(r) > height(l) + 1  and  [l and r are AVL trees]
+     * @ensures <pre>
+     * [joinLeft is the root of an AVL tree with in-order sequence
+     *  in_order(l) * <x> * in_order(r), and height at most height(r) + 1]
+     * </pre>
+     */
+    private static <T> Node<T> joinLeft(Node<T> l, T x, Node<T> r) {
+        Node<T> result;
+        Node<T> c = r.left;
+        if (height(c) <= height(l) + 1) {
+            Node<T> t = new Node<T>(l, x, c);
+            if (height(t) <= height(r.right) + 1) {
+                result = new Node<T>(t, r.label, r.right);
+            } else {
+                result = rotateRight(new Node<T>(rotateLeft(t), r.label, r.right));
+            }
+        } else {
+            Node<T> t = joinLeft(l, x, c);
+            result = new Node<T>(t, r.label, r.right);
+            if (height(t) > height(r.right) + 1) {
+                result = rotateRight(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Joins {@code l}, {@code x} and {@code r} into one tree, in
+     * O(|height(l) - height(r)| + 1) time.
+     *
+     * @param <T>
+     *            type of labels
+     * @param l
+     *            the left tree, or null
+     * @param x
+     *            the middle label
+     * @param r
+     *            the right tree, or null
+     * @return the root of the joined tree
+     * @requires [l and r are AVL trees]
+     * @ensures <pre>
+     * [join is the root of an AVL tree with in-order sequence
+     *  in_order(l) * <x> * in_order(r)]
+     * </pre>
+     */
+    private static <T> Node<T> join(Node<T> l, T x, Node<T> r) {
+        Node<T> result;
+        if (height(l) > height(r) + 1) {
+            result = joinRight(l, x, r);
+        } else if (height(r) > height(l) + 1) {
+            result = joinLeft(l, x, r);
+        } else {
+            result = new Node<T>(l, x, r);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a tree with the first {@code pos} entries of the tree rooted at
+     * {@code n}, sharing what it can with it.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the subtree root, or null
+     * @param pos
+     *            the number of entries to keep
+     * @return the root of the new tree
+     * @requires 0 <= pos <= size(n)  and  [n is an AVL tree]
+     * @ensures [take is the root of an AVL tree, and in_order(take) =
+     *          in_order(n)[0, pos)]
+     */
+    private static <T> Node<T> take(Node<T> n, int pos) {
+        Node<T> result;
+        if (pos == 0) {
+            result = null;
+        } else if (pos == size(n)) {
+            result = n;
+        } else {
+            int leftSize = size(n.left);
+            if (pos <= leftSize) {
+                result = take(n.left, pos);
+            } else {
+                result = join(n.left, n.label, take(n.right, pos - leftSize - 1));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a tree with the entries of the tree rooted at {@code n} from
+     * position {@code pos} on, sharing what it can with it.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the subtree root, or null
+     * @param pos
+     *            the number of entries to leave out
+     * @return the root of the new tree
+     * @requires 0 <= pos <= size(n)  and  [n is an AVL tree]
+     * @ensures [drop is the root of an AVL tree, and in_order(drop) =
+     *          in_order(n)[pos, size(n))]
+     */
+    private static <T> Node<T> drop(Node<T> n, int pos) {
+        Node<T> result;
+        if (pos == 0) {
+            result = n;
+        } else if (pos == size(n)) {
+            result = null;
+        } else {
+            int leftSize = size(n.left);
+            if (pos <= leftSize) {
+                result = join(drop(n.left, pos), n.label, n.right);
+            } else {
+                result = drop(n.right, pos - leftSize - 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a tree with the entries of {@code l} followed by those of
+     * {@code r}.
+     *
+     * @param <T>
+     *            type of labels
+     * @param l
+     *            the left tree, or null
+     * @param r
+     *            the right tree, or null
+     * @return the root of the concatenated tree
+     * @requires [l and r are AVL trees]
+     * @ensures [concat is the root of an AVL tree, and in_order(concat) =
+     *          in_order(l) * in_order(r)]
+     */
+    private static <T> Node<T> concat(Node<T> l, Node<T> r) {
+        Node<T> result;
+        if (l == null) {
+            result = r;
+        } else if (r == null) {
+            result = l;
+        } else {
+            result = join(l, find(r, 0).label, drop(r, 1));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the node at position {@code pos} of the tree rooted at
+     * {@code n}.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the subtree root
+     * @param pos
+     *            the position of the node
+     * @return the node whose label is in_order(n)[pos, pos+1)
+     * @requires 0 <= pos < size(n)
+     */
+    private static <T> Node<T> find(Node<T> n, int pos) {
+        Node<T> current = n;
+        int offset = pos;
+        int leftSize = size(current.left);
+        while (offset != leftSize) {
+            if (offset < leftSize) {
+                current = current.left;
+            } else {
+                offset -= leftSize + 1;
+                current = current.right;
+            }
+            leftSize = size(current.left);
+        }
+        return current;
+    }
+
+    /**
+     * Returns a tree like the one rooted at {@code n} but with {@code x} at
+     * position {@code pos}, copying only the nodes on the path to it.
+     *
+     * @param <T>
+     *            type of labels
+     * @param n
+     *            the subtree root
+     * @param pos
+     *            the position of the label to replace
+     * @param x
+     *            the new label
+     * @return the root of the new tree
+     * @aliases reference {@code x}
+     * @requires 0 <= pos < size(n)
+     * @ensures <pre>
+     * in_order(replace) =
+     *   in_order(n)[0, pos) * <x> * in_order(n)[pos+1, size(n))
+     * </pre>
+     */
+    private static <T> Node<T> replace(Node<T> n, int pos, T x) {
+        Node<T> result;
+        int leftSize = size(n.left);
+        if (pos < leftSize) {
+            result = new Node<T>(replace(n.left, pos, x), n.label, n.right);
+        } else if (pos > leftSize) {
+            result = new Node<T>(n.left, n.label,
+                    replace(n.right, pos - leftSize - 1, x));
+        } else {
+            result = new Node<T>(n.left, x, n.right);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a perfectly balanced tree with the entries of
+     * {@code entries[lo, hi)}.
+     *
+     * @param <T>
+     *            type of labels
+     * @param entries
+     *            the entries
+     * @param lo
+     *            index of the first entry
+     * @param hi
+     *            index after the last entry
+     * @return the root of the new tree
+     * @requires 0 <= lo <= hi <= |entries|
+     * @ensures [build is the root of an AVL tree, and in_order(build) =
+     *          entries[lo, hi)]
+     */
+    private static <T> Node<T> build(T[] entries, int lo, int hi) {
+        Node<T> result = null;
+        if (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            result = new Node<T>(build(entries, lo, mid), entries[mid],
+                    build(entries, mid + 1, hi));
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the subtree rooted at {@code n} satisfies the convention.
+     *
+     * @param n
+     *            the subtree root, or null
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     */
+    private static boolean subtreeHolds(Node<?> n) {
+        if (n != null) {
+            assert n.label != null : "Violation of: [labels of tree are not null]";
+            subtreeHolds(n.left);
+            subtreeHolds(n.right);
+            assert Math.abs(height(n.left) - height(n.right)) <= 1
+                    : "Violation of: IS_AVL(tree)";
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the convention holds for the current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     */
+    private boolean conventionHolds() {
+        return subtreeHolds(this.root);
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.root = null;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Sequence6() {
+
+        this.createNewRep();
+        assert this.conventionHolds();
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Sequence<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Sequence6<?>
+                : "" + "Violation of: source is of dynamic type Sequence6<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Sequence6<?>,
+         * and the ? must be T or the call would not have compiled.
+         */
+        Sequence6<T> localSource = (Sequence6<T>) source;
+        this.root = localSource.root;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        this.root = join(take(this.root, pos), x, drop(this.root, pos));
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        T removed = find(this.root, pos).label;
+        this.root = concat(take(this.root, pos), drop(this.root, pos + 1));
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final int length() {
+        return size(this.root);
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Sequence6Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Sequence6}.
+     * Since nodes are never changed, it returns the entries of the sequence as
+     * it was when the iterator was created.
+     */
+    private final class Sequence6Iterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels, and those of their right subtrees, are yet to be
+         * returned, the next one on top.
+         */
+        private Stack<Node<T>> pending;
+
+        /**
+         * No-argument constructor.
+         */
+        private Sequence6Iterator() {
+            this.pending = new Stack1L<Node<T>>();
+            this.pushLeftSpine(Sequence6.this.root);
+            assert Sequence6.this.conventionHolds();
+        }
+
+        /**
+         * Pushes {@code n} and its chain of left children onto
+         * {@code pending}.
+         *
+         * @param n
+         *            the subtree root, or null
+         * @updates this.pending
+         */
+        private void pushLeftSpine(Node<T> n) {
+            Node<T> current = n;
+            while (current != null) {
+                this.pending.push(current);
+                current = current.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.pending.length() > 0;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node<T> n = this.pending.pop();
+            this.pushLeftSpine(n.right);
+            return n.label;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final T entry(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        return find(this.root, pos).label;
+    }
+
+    @Override
+    public final T replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        T replaced = find(this.root, pos).label;
+        this.root = replace(this.root, pos, x);
+
+        assert this.conventionHolds();
+        return replaced;
+    }
+
+    @Override
+    public final void append(Sequence<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+
+        if (s instanceof Sequence6<?>) {
+            /*
+             * This cast cannot fail since s is of dynamic type Sequence6<?>,
+             * and the ? must be T or the call would not have compiled.
+             */
+            Sequence6<T> localS = (Sequence6<T>) s;
+            this.root = concat(this.root, localS.root);
+            localS.clear();
+        } else {
+            super.append(s);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void insert(int pos, Sequence<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        if (s instanceof Sequence6<?>) {
+            /*
+             * This cast cannot fail since s is of dynamic type Sequence6<?>,
+             * and the ? must be T or the call would not have compiled.
+             */
+            Sequence6<T> localS = (Sequence6<T>) s;
+            this.root = concat(concat(take(this.root, pos), localS.root),
+                    drop(this.root, pos));
+            localS.clear();
+        } else {
+            super.insert(pos, s);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void extract(int pos1, int pos2, Sequence<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert s != this : "Violation of: s is not this";
+        assert 0 <= pos1 : "Violation of: 0 <= pos1";
+        assert pos1 <= pos2 : "Violation of: pos1 <= pos2";
+        assert pos2 <= this.length() : "Violation of: pos2 <= |this|";
+
+        if (s instanceof Sequence6<?>) {
+            /*
+             * This cast cannot fail since s is of dynamic type Sequence6<?>,
+             * and the ? must be T or the call would not have compiled.
+             */
+            Sequence6<T> localS = (Sequence6<T>) s;
+            localS.root = take(drop(this.root, pos1), pos2 - pos1);
+            this.root = concat(take(this.root, pos1), drop(this.root, pos2));
+        } else {
+            super.extract(pos1, pos2, s);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void flip() {
+        @SuppressWarnings("unchecked")
+        T[] entries = (T[]) (new Object[this.length()]);
+        int i = entries.length;
+        for (T x : this) {
+            i--;
+            entries[i] = x;
+        }
+        this.root = build(entries, 0, entries.length);
+
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Returns a new {@code Sequence6} with the entries of {@code this} from
+     * position {@code pos1} up to, but not including, position {@code pos2}.
+     * The two share their nodes, so this takes O(log n) time and space, and
+     * later changes to either one do not affect the other.
+     *
+     * @param pos1
+     *            the lowest position included in the slice
+     * @param pos2
+     *            the lowest position after the slice
+     * @return the slice
+     * @requires 0 <= pos1 and pos1 <= pos2 and pos2 <= |this|
+     * @ensures slice = this[pos1, pos2)
+     */
+    public final Sequence6<T> slice(int pos1, int pos2) {
+        assert 0 <= pos1 : "Violation of: 0 <= pos1";
+        assert pos1 <= pos2 : "Violation of: pos1 <= pos2";
+        assert pos2 <= this.length() : "Violation of: pos2 <= |this|";
+
+        /*
+         * This cast cannot fail since newInstance returns an object of the
+         * dynamic type of this, and the ? must be T.
+         */
+        Sequence6<T> slice = (Sequence6<T>) this.newInstance();
+        slice.root = take(drop(this.root, pos1), pos2 - pos1);
+
+        assert slice.conventionHolds();
+        return slice;
+    }
+
+}
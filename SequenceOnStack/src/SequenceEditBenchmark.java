@@ -0,0 +1,176 @@
+import java.util.Random;
+
+import components.sequence.Sequence;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare the time {@code Sequence3} (two stacks),
+ * {@code Sequence4} (a gap buffer) and {@code Sequence5} (an AVL tree indexed
+ * by position) take to run a mix of edits at random positions, and the same
+ * mix at positions that drift slowly, as in a text editor.
+ *
+ * <p>
+ * Usage: {@code SequenceEditBenchmark [length] [edits]} (default 1,000,000
+ * and 100,000). Each edit removes the entry at one position and adds it back
+ * at the position of the next edit, so the length stays fixed, and then reads
+ * it back with {@code entry}. {@code Sequence3} moves entries one at a time
+ * between its stacks, so it is only run on sequences of at most
+ * {@code SEQUENCE3_LIMIT} entries. Times are per edit, in nanoseconds. At
+ * random positions the two-stack and gap-buffer kernels move about a third of
+ * the sequence per edit; at drifting positions they move only a few entries,
+ * which is where they can beat the tree's O(log n) walk.
+ */
+public final class SequenceEditBenchmark {
+
+    /**
+     * Default length of the sequences.
+     */
+    private static final int DEFAULT_LENGTH = 1_000_000;
+
+    /**
+     * Default number of edits.
+     */
+    private static final int DEFAULT_EDITS = 100_000;
+
+    /**
+     * Largest sequence given to {@code Sequence3}.
+     */
+    private static final int SEQUENCE3_LIMIT = 10_000;
+
+    /**
+     * Largest distance between the positions of consecutive localized edits.
+     */
+    private static final int LOCAL_STEP = 16;
+
+    /**
+     * Seed for the random positions, so every implementation sees the same
+     * edits.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SequenceEditBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns the positions of {@code edits} edits in a sequence of length
+     * {@code length}, either uniformly random or each within
+     * {@code LOCAL_STEP} of the one before.
+     *
+     * @param length
+     *            the length of the sequence
+     * @param edits
+     *            the number of positions
+     * @param local
+     *            whether the positions drift instead of jumping
+     * @return the positions
+     * @requires length > 0 and edits >= 0
+     * @ensures [every entry of positions is in [0, length)]
+     */
+    private static int[] positions(int length, int edits, boolean local) {
+        Random random = new Random(SEED);
+        int[] positions = new int[edits];
+        int pos = length / 2;
+        for (int i = 0; i < edits; i++) {
+            if (local) {
+                pos += random.nextInt(2 * LOCAL_STEP + 1) - LOCAL_STEP;
+                pos = Math.max(0, Math.min(length - 1, pos));
+            } else {
+                pos = random.nextInt(length);
+            }
+            positions[i] = pos;
+        }
+        return positions;
+    }
+
+    /**
+     * Fills {@code s} with {@code length} entries, runs an edit at each of
+     * {@code positions}, and outputs the time taken.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param s
+     *            an empty sequence of the implementation to time
+     * @param length
+     *            the length of the sequence
+     * @param positions
+     *            the positions of the edits
+     * @updates out.content
+     * @requires <pre>
+     * out.is_open  and  s = <>  and  length > 0  and
+     * [every entry of positions is in [0, length)]
+     * </pre>
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void run(SimpleWriter out, String label, Sequence<Integer> s,
+            int length, int[] positions) {
+        for (int i = 0; i < length; i++) {
+            s.add(i, i);
+        }
+        long checksum = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < positions.length; i++) {
+            Integer x = s.remove(positions[i]);
+            int next = positions[(i + 1) % positions.length];
+            s.add(next, x);
+            checksum += s.entry(next);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        out.println(label + ": " + (elapsed / positions.length)
+                + " ns/edit (checksum " + checksum + ")");
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional length and number of
+     *            edits
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int length = DEFAULT_LENGTH;
+        if (args.length > 0) {
+            length = Integer.parseInt(args[0]);
+        }
+        int edits = DEFAULT_EDITS;
+        if (args.length > 1) {
+            edits = Integer.parseInt(args[1]);
+        }
+        length = Math.max(length, 1);
+        int shortLength = Math.min(length, SEQUENCE3_LIMIT);
+        int fewEdits = Math.min(edits, SEQUENCE3_LIMIT);
+
+        for (boolean local : new boolean[] { false, true }) {
+            String mix = "random";
+            if (local) {
+                mix = "local";
+            }
+            int[] fewPositions = positions(shortLength, fewEdits, local);
+            run(out, "Sequence3 " + mix + " n=" + shortLength,
+                    new Sequence3<Integer>(), shortLength, fewPositions);
+            run(out, "Sequence4 " + mix + " n=" + shortLength,
+                    new Sequence4<Integer>(), shortLength, fewPositions);
+            run(out, "Sequence5 " + mix + " n=" + shortLength,
+                    new Sequence5<Integer>(), shortLength, fewPositions);
+
+            int[] allPositions = positions(length, edits, local);
+            run(out, "Sequence4 " + mix + " n=" + length,
+                    new Sequence4<Integer>(), length, allPositions);
+            run(out, "Sequence5 " + mix + " n=" + length,
+                    new Sequence5<Integer>(), length, allPositions);
+        }
+
+        out.close();
+    }
+
+}
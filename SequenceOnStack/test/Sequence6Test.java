@@ -0,0 +1,212 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+
+/**
+ * Customized JUnit test fixture for {@code Sequence6}.
+ */
+public class Sequence6Test extends SequenceTest {
+
+    @Override
+    protected final Sequence<String> constructorTest() {
+        return new Sequence6<String>();
+    }
+
+    @Override
+    protected final Sequence<String> constructorRef() {
+        return new Sequence1L<String>();
+    }
+
+    /**
+     * Creates and returns a {@code Sequence6<String>} with the given entries.
+     *
+     * @param args
+     *            the entries for the sequence
+     * @return the constructed sequence
+     * @ensures createFromArgs = [entries in args]
+     */
+    private Sequence6<String> createFromArgs(String... args) {
+        Sequence6<String> sequence = new Sequence6<String>();
+        for (String s : args) {
+            sequence.add(sequence.length(), s);
+        }
+        return sequence;
+    }
+
+    /**
+     * Creates and returns a {@code Sequence<String>} of the reference
+     * implementation type with the given entries.
+     *
+     * @param args
+     *            the entries for the sequence
+     * @return the constructed sequence
+     * @ensures createFromArgsExpected = [entries in args]
+     */
+    private Sequence<String> createFromArgsExpected(String... args) {
+        Sequence<String> sequence = this.constructorRef();
+        for (String s : args) {
+            sequence.add(sequence.length(), s);
+        }
+        return sequence;
+    }
+
+    /**
+     * Creates and returns a {@code Sequence6<String>} with entries "0" to
+     * {@code n - 1}, in order, together with the same entries in a reference
+     * sequence.
+     *
+     * @param n
+     *            the length of the sequences
+     * @param expected
+     *            the reference sequence
+     * @return the constructed sequence
+     * @replaces expected
+     * @ensures <pre>
+     * createRange = <"0", "1", ..., n - 1>  and  expected = createRange
+     * </pre>
+     */
+    private Sequence6<String> createRange(int n, Sequence<String> expected) {
+        Sequence6<String> sequence = new Sequence6<String>();
+        expected.clear();
+        for (int i = 0; i < n; i++) {
+            sequence.add(i, Integer.toString(i));
+            expected.add(i, Integer.toString(i));
+        }
+        return sequence;
+    }
+
+    @Test
+    public final void testAppend() {
+        Sequence<String> s = this.createFromArgs("red", "green");
+        Sequence<String> t = this.createFromArgs("blue", "yellow");
+        Sequence<String> sExpected = this.createFromArgsExpected("red", "green",
+                "blue", "yellow");
+        Sequence<String> tExpected = this.createFromArgsExpected();
+        s.append(t);
+        assertEquals(sExpected, s);
+        assertEquals(tExpected, t);
+    }
+
+    @Test
+    public final void testAppendOtherImplementation() {
+        Sequence<String> s = this.createFromArgs("red", "green");
+        Sequence<String> t = this.createFromArgsExpected("blue");
+        Sequence<String> sExpected = this.createFromArgsExpected("red", "green",
+                "blue");
+        Sequence<String> tExpected = this.createFromArgsExpected();
+        s.append(t);
+        assertEquals(sExpected, s);
+        assertEquals(tExpected, t);
+    }
+
+    @Test
+    public final void testAppendLongToShort() {
+        final int n = 1000;
+        Sequence<String> sExpected = this.constructorRef();
+        Sequence<String> t = this.createRange(n, sExpected);
+        Sequence<String> s = this.createFromArgs("first");
+        sExpected.add(0, "first");
+        s.append(t);
+        assertEquals(sExpected, s);
+        assertEquals(0, t.length());
+    }
+
+    @Test
+    public final void testInsert() {
+        Sequence<String> s = this.createFromArgs("a", "d");
+        Sequence<String> t = this.createFromArgs("b", "c");
+        Sequence<String> sExpected = this.createFromArgsExpected("a", "b", "c",
+                "d");
+        Sequence<String> tExpected = this.createFromArgsExpected();
+        s.insert(1, t);
+        assertEquals(sExpected, s);
+        assertEquals(tExpected, t);
+    }
+
+    @Test
+    public final void testExtract() {
+        Sequence<String> s = this.createFromArgs("a", "b", "c", "d", "e");
+        Sequence<String> t = this.createFromArgs("z");
+        Sequence<String> sExpected = this.createFromArgsExpected("a", "e");
+        Sequence<String> tExpected = this.createFromArgsExpected("b", "c",
+                "d");
+        s.extract(1, 4, t);
+        assertEquals(sExpected, s);
+        assertEquals(tExpected, t);
+    }
+
+    @Test
+    public final void testExtractEmptyRange() {
+        Sequence<String> s = this.createFromArgs("a", "b");
+        Sequence<String> t = this.createFromArgs("z");
+        Sequence<String> sExpected = this.createFromArgsExpected("a", "b");
+        Sequence<String> tExpected = this.createFromArgsExpected();
+        s.extract(1, 1, t);
+        assertEquals(sExpected, s);
+        assertEquals(tExpected, t);
+    }
+
+    @Test
+    public final void testExtractLong() {
+        final int n = 1000;
+        final int pos1 = 123;
+        final int pos2 = 877;
+        Sequence<String> sExpected = this.constructorRef();
+        Sequence<String> s = this.createRange(n, sExpected);
+        Sequence<String> t = this.constructorTest();
+        Sequence<String> tExpected = this.constructorRef();
+        sExpected.extract(pos1, pos2, tExpected);
+        s.extract(pos1, pos2, t);
+        assertEquals(sExpected, s);
+        assertEquals(tExpected, t);
+    }
+
+    @Test
+    public final void testFlip() {
+        Sequence<String> s = this.createFromArgs("a", "b", "c", "d");
+        Sequence<String> sExpected = this.createFromArgsExpected("d", "c", "b",
+                "a");
+        s.flip();
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testSlice() {
+        Sequence6<String> s = this.createFromArgs("a", "b", "c", "d");
+        Sequence<String> sExpected = this.createFromArgsExpected("a", "b", "c",
+                "d");
+        Sequence<String> tExpected = this.createFromArgsExpected("b", "c");
+        Sequence<String> t = s.slice(1, 3);
+        assertEquals(sExpected, s);
+        assertEquals(tExpected, t);
+    }
+
+    @Test
+    public final void testSliceThenReplaceEntry() {
+        Sequence6<String> s = this.createFromArgs("a", "b", "c", "d");
+        Sequence<String> sExpected = this.createFromArgsExpected("a", "x", "c",
+                "d");
+        Sequence<String> tExpected = this.createFromArgsExpected("b", "y");
+        Sequence<String> t = s.slice(1, 3);
+        s.replaceEntry(1, "x");
+        t.replaceEntry(1, "y");
+        assertEquals(sExpected, s);
+        assertEquals(tExpected, t);
+    }
+
+    @Test
+    public final void testSliceThenAppendToItself() {
+        final int n = 500;
+        Sequence<String> sExpected = this.constructorRef();
+        Sequence6<String> s = this.createRange(n, sExpected);
+        for (int i = 0; i < n; i++) {
+            sExpected.add(sExpected.length(), Integer.toString(i));
+        }
+        s.append(s.slice(0, n));
+        assertEquals(sExpected, s);
+    }
+
+}
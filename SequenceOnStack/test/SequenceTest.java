@@ -1,3 +1,7 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
 import components.sequence.Sequence;
 
 /**
@@ -63,6 +67,353 @@ public abstract class SequenceTest {
         return sequence;
     }
 
-    // TODO - add test cases for constructor, add, remove, and length
+    /*
+     * Test cases for constructors
+     */
+
+    @Test
+    public final void testNoArgumentConstructor() {
+        /*
+         * Set up variables and call method under test
+         */
+        Sequence<String> s = this.constructorTest();
+        Sequence<String> sExpected = this.constructorRef();
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sExpected, s);
+    }
+
+    /*
+     * Test cases for kernel methods
+     */
+
+    @Test
+    public final void testAddEmpty() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest();
+        Sequence<String> sExpected = this.createFromArgsRef("red");
+        /*
+         * Call method under test
+         */
+        s.add(0, "red");
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testAddFront() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red", "blue");
+        Sequence<String> sExpected = this.createFromArgsRef("green", "red", "blue");
+        /*
+         * Call method under test
+         */
+        s.add(0, "green");
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testAddMiddle() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red", "blue");
+        Sequence<String> sExpected = this.createFromArgsRef("red", "green", "blue");
+        /*
+         * Call method under test
+         */
+        s.add(1, "green");
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testAddEnd() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red", "blue");
+        Sequence<String> sExpected = this.createFromArgsRef("red", "blue", "green");
+        /*
+         * Call method under test
+         */
+        s.add(2, "green");
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testAddSeveralPositions() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("a", "c", "e");
+        Sequence<String> sExpected = this.createFromArgsRef("a", "b", "c", "d", "e", "f");
+        /*
+         * Call method under test
+         */
+        s.add(3, "f");
+        s.add(1, "b");
+        s.add(3, "d");
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testRemoveLeavingEmpty() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red");
+        Sequence<String> sExpected = this.createFromArgsRef();
+        /*
+         * Call method under test
+         */
+        String x = s.remove(0);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("red", x);
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testRemoveFront() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red", "green", "blue");
+        Sequence<String> sExpected = this.createFromArgsRef("green", "blue");
+        /*
+         * Call method under test
+         */
+        String x = s.remove(0);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("red", x);
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testRemoveMiddle() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red", "green", "blue");
+        Sequence<String> sExpected = this.createFromArgsRef("red", "blue");
+        /*
+         * Call method under test
+         */
+        String x = s.remove(1);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("green", x);
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testRemoveEnd() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red", "green", "blue");
+        Sequence<String> sExpected = this.createFromArgsRef("red", "green");
+        /*
+         * Call method under test
+         */
+        String x = s.remove(2);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("blue", x);
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testRemoveAfterAdd() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("a", "b", "c", "d");
+        Sequence<String> sExpected = this.createFromArgsRef("a", "x", "c", "d");
+        /*
+         * Call method under test
+         */
+        s.add(3, "x");
+        String y = s.remove(1);
+        String z = s.remove(2);
+        s.add(1, z);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("b", y);
+        assertEquals("x", z);
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testLengthEmpty() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest();
+        Sequence<String> sExpected = this.createFromArgsRef();
+        /*
+         * Call method under test
+         */
+        int i = s.length();
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(0, i);
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testLengthNonEmpty() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red", "green", "blue");
+        Sequence<String> sExpected = this.createFromArgsRef("red", "green", "blue");
+        /*
+         * Call method under test
+         */
+        int i = s.length();
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(3, i);
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testAddRemoveMany() {
+        /*
+         * Set up variables
+         */
+        final int n = 1000;
+        Sequence<String> s = this.createFromArgsTest();
+        Sequence<String> sExpected = this.createFromArgsRef();
+        for (int i = 0; i < n; i++) {
+            // spread the insertions over the whole sequence
+            int pos = (i * 7) % (s.length() + 1);
+            s.add(pos, Integer.toString(i));
+            sExpected.add(pos, Integer.toString(i));
+        }
+        /*
+         * Call method under test
+         */
+        String x = "";
+        String xExpected = "";
+        for (int i = 0; i < n / 2; i++) {
+            int pos = (i * 13) % s.length();
+            x += s.remove(pos);
+            xExpected += sExpected.remove(pos);
+        }
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(xExpected, x);
+        assertEquals(sExpected, s);
+    }
+
+    /*
+     * Test cases for other methods
+     */
+
+    @Test
+    public final void testEntry() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red", "green", "blue");
+        Sequence<String> sExpected = this.createFromArgsRef("red", "green", "blue");
+        /*
+         * Call method under test
+         */
+        String x = s.entry(1);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("green", x);
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testEntryAfterEdits() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("a", "b", "c", "d");
+        Sequence<String> sExpected = this.createFromArgsRef("a", "c", "x", "d");
+        /*
+         * Call method under test
+         */
+        s.remove(1);
+        s.add(2, "x");
+        String x = s.entry(3);
+        String y = s.entry(0);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("d", x);
+        assertEquals("a", y);
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testReplaceEntry() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red", "green", "blue");
+        Sequence<String> sExpected = this.createFromArgsRef("red", "yellow", "blue");
+        /*
+         * Call method under test
+         */
+        String x = s.replaceEntry(1, "yellow");
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("green", x);
+        assertEquals(sExpected, s);
+    }
+
+    @Test
+    public final void testReplaceEntryLast() {
+        /*
+         * Set up variables
+         */
+        Sequence<String> s = this.createFromArgsTest("red", "green", "blue");
+        Sequence<String> sExpected = this.createFromArgsRef("red", "green", "yellow");
+        /*
+         * Call method under test
+         */
+        String x = s.replaceEntry(2, "yellow");
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals("blue", x);
+        assertEquals(sExpected, s);
+    }
 
 }
@@ -0,0 +1,206 @@
+import java.nio.IntBuffer;
+
+/**
+ * Implements methods to smooth a series of {@code int}s held in an array or an
+ * {@code IntBuffer}, averaging each run of {@code window} consecutive values.
+ *
+ * <p>
+ * Unlike {@code SequenceSmooth} and {@code SequenceSmoothNewSeq}, these make
+ * one pass over the input with no boxing and no recursion, keeping a running
+ * sum of the current window, so they take O(n) time whatever the window size
+ * and handle series of any length. Sums are kept in a {@code long}, so they do
+ * not overflow. With the default window of 2, each average is computed with
+ * branch-free {@code int} arithmetic, a loop the JIT compiler turns into SIMD
+ * instructions on processors that have them.
+ *
+ * <p>
+ * The {@code IntBuffer} version can be called repeatedly on a stream of
+ * values: it consumes all but the last {@code window - 1} values of its
+ * input, which are needed for the next average, so the caller can
+ * {@code compact} the buffer, read more values into it, and call it again.
+ */
+public final class SequenceSmoothArray {
+
+    /**
+     * Window size of {@code smooth(int[])}, the same as
+     * {@code SequenceSmooth.smooth}.
+     */
+    public static final int PAIR = 2;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SequenceSmoothArray() {
+        // no code needed here
+    }
+
+    /**
+     * Returns the average of {@code a} and {@code b}, rounded toward zero like
+     * {@code (a + b) / 2} but without overflow.
+     *
+     * @param a
+     *            the first value
+     * @param b
+     *            the second value
+     * @return the average
+     * @ensures mean = [(a + b) / 2, computed without overflow]
+     */
+    private static int mean(int a, int b) {
+        // floor((a + b) / 2), with no carry out of 32 bits
+        int floor = (a & b) + ((a ^ b) >> 1);
+        // round a negative odd sum up, toward zero
+        return floor + ((floor >>> 31) & (a ^ b));
+    }
+
+    /**
+     * Writes {@code count} averages of windows of {@code in} to {@code out}.
+     *
+     * @param in
+     *            the values to smooth
+     * @param inOffset
+     *            index in in of the first value
+     * @param out
+     *            the array to hold the averages
+     * @param outOffset
+     *            index in out of the first average
+     * @param count
+     *            the number of averages
+     * @param window
+     *            the number of values averaged together
+     * @updates out
+     * @requires <pre>
+     * window >= 1  and  count >= 0  and
+     * 0 <= inOffset  and  inOffset + count + window - 1 <= |in|  and
+     * 0 <= outOffset  and  outOffset + count <= |out|
+     * </pre>
+     * @ensures <pre>
+     * for all i: integer where (0 <= i < count)
+     *   (out[outOffset + i] =
+     *      [sum of in[inOffset + i, inOffset + i + window)] / window)
+     * </pre>
+     */
+    private static void smooth(int[] in, int inOffset, int[] out, int outOffset,
+            int count, int window) {
+        if (window == PAIR) {
+            for (int i = 0; i < count; i++) {
+                out[outOffset + i] = mean(in[inOffset + i], in[inOffset + i + 1]);
+            }
+        } else if (count > 0) {
+            long sum = 0;
+            for (int i = 0; i < window - 1; i++) {
+                sum += in[inOffset + i];
+            }
+            for (int i = 0; i < count; i++) {
+                sum += in[inOffset + i + window - 1];
+                out[outOffset + i] = (int) (sum / window);
+                sum -= in[inOffset + i];
+            }
+        }
+    }
+
+    /**
+     * Smooths a given array of {@code int}s, averaging each pair of adjacent
+     * values.
+     *
+     * @param s1
+     *            the values to smooth
+     * @return the smoothed values
+     * @requires |s1| >= 1
+     * @ensures <pre>
+     * |smooth| = |s1| - 1  and
+     *  for all i, j: integer, a, b: string of integer
+     *      where (s1 = a * <i> * <j> * b)
+     *    (there exists c, d: string of integer
+     *       (|c| = |a|  and
+     *        smooth = c * <(i+j)/2> * d))
+     * </pre>
+     */
+    public static int[] smooth(int[] s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1.length >= 1 : "Violation of: |s1| >= 1";
+
+        return smooth(s1, PAIR);
+    }
+
+    /**
+     * Smooths a given array of {@code int}s, averaging each run of
+     * {@code window} adjacent values.
+     *
+     * @param s1
+     *            the values to smooth
+     * @param window
+     *            the number of values averaged together
+     * @return the smoothed values
+     * @requires 1 <= window <= |s1| + 1
+     * @ensures <pre>
+     * |smooth| = |s1| - window + 1  and
+     *  for all i: integer where (0 <= i < |smooth|)
+     *    (smooth[i] = [sum of s1[i, i + window)] / window)
+     * </pre>
+     */
+    public static int[] smooth(int[] s1, int window) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert 1 <= window : "Violation of: 1 <= window";
+        assert window <= s1.length + 1 : "Violation of: window <= |s1| + 1";
+
+        int[] s2 = new int[s1.length - window + 1];
+        smooth(s1, 0, s2, 0, s2.length, window);
+        return s2;
+    }
+
+    /**
+     * Smooths the values remaining in {@code in}, averaging each run of
+     * {@code window} adjacent values, and puts as many of the averages as fit
+     * in {@code out}. Both buffers' positions advance by the number of
+     * averages written, so the last {@code window - 1} values of {@code in}
+     * remain for the next call.
+     *
+     * @param in
+     *            the values to smooth
+     * @param out
+     *            the buffer to hold the averages
+     * @param window
+     *            the number of values averaged together
+     * @return the number of averages written
+     * @updates in.position, out
+     * @requires in is not out  and  window >= 1
+     * @ensures <pre>
+     * smooth = max(0, min(#in.remaining - window + 1, #out.remaining))  and
+     * in.position = #in.position + smooth  and
+     * out.position = #out.position + smooth  and
+     * for all i: integer where (0 <= i < smooth)
+     *   (out[#out.position + i] =
+     *      [sum of in[#in.position + i, #in.position + i + window)] / window)
+     * </pre>
+     */
+    public static int smooth(IntBuffer in, IntBuffer out, int window) {
+        assert in != null : "Violation of: in is not null";
+        assert out != null : "Violation of: out is not null";
+        assert in != out : "Violation of: in is not out";
+        assert window >= 1 : "Violation of: window >= 1";
+
+        int count = Math.max(0,
+                Math.min(in.remaining() - window + 1, out.remaining()));
+        int inStart = in.position();
+        int outStart = out.position();
+        if (in.hasArray() && out.hasArray()) {
+            smooth(in.array(), in.arrayOffset() + inStart, out.array(),
+                    out.arrayOffset() + outStart, count, window);
+        } else if (count > 0) {
+            // direct or read-only buffers: one value at a time
+            long sum = 0;
+            for (int i = 0; i < window - 1; i++) {
+                sum += in.get(inStart + i);
+            }
+            for (int i = 0; i < count; i++) {
+                sum += in.get(inStart + i + window - 1);
+                out.put(outStart + i, (int) (sum / window));
+                sum -= in.get(inStart + i);
+            }
+        }
+        in.position(inStart + count);
+        out.position(outStart + count);
+        return count;
+    }
+
+}
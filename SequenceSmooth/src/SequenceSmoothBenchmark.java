@@ -0,0 +1,176 @@
+import java.util.Random;
+
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare the time {@code SequenceSmoothNewSeq.smooth} (a loop of
+ * {@code entry} calls), {@code SequenceSmoothNewSeq.smooth2} (recursive) and
+ * {@code SequenceSmoothArray.smooth} take to smooth a series of random values.
+ *
+ * <p>
+ * Usage: {@code SequenceSmoothBenchmark [length]} (default 10,000,000). The
+ * {@code Sequence} versions box every value, and {@code smooth2} recurses once
+ * per value, so they are only run on the first {@code SEQUENCE_LIMIT} values.
+ * Times are per value, in nanoseconds. The array version keeps a running sum,
+ * so its time per value should not change when the window widens to
+ * {@code WIDE_WINDOW}.
+ */
+public final class SequenceSmoothBenchmark {
+
+    /**
+     * Default length of the series.
+     */
+    private static final int DEFAULT_LENGTH = 10_000_000;
+
+    /**
+     * Largest series given to the {@code Sequence} versions.
+     */
+    private static final int SEQUENCE_LIMIT = 5_000;
+
+    /**
+     * Window size for the wider {@code SequenceSmoothArray} run.
+     */
+    private static final int WIDE_WINDOW = 16;
+
+    /**
+     * Number of times each run is repeated, so the JIT compiler has compiled
+     * the code by the last one, which is the one reported.
+     */
+    private static final int REPEATS = 5;
+
+    /**
+     * Seed for the random values.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SequenceSmoothBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Outputs the time taken by a run.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param n
+     *            the length of the series
+     * @param nanos
+     *            the time taken, in nanoseconds
+     * @param checksum
+     *            a value computed from the result
+     * @updates out.content
+     * @requires out.is_open and n > 0
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void report(SimpleWriter out, String label, int n, long nanos,
+            long checksum) {
+        out.println(label + " n=" + n + ": " + ((double) nanos / n)
+                + " ns/value (checksum " + checksum + ")");
+    }
+
+    /**
+     * Times {@code SequenceSmoothNewSeq}'s two methods on the first {@code n}
+     * of {@code values}.
+     *
+     * @param out
+     *            the output stream
+     * @param values
+     *            the series
+     * @param n
+     *            the number of values used
+     * @updates out.content
+     * @requires out.is_open and 1 <= n <= |values|
+     * @ensures out.content = #out.content * [timing for these runs]
+     */
+    private static void runSequence(SimpleWriter out, int[] values, int n) {
+        Sequence<Integer> s = new Sequence1L<Integer>();
+        for (int i = 0; i < n; i++) {
+            s.add(i, values[i]);
+        }
+        long elapsed = 0;
+        long checksum = 0;
+        for (int r = 0; r < REPEATS; r++) {
+            long start = System.nanoTime();
+            checksum = SequenceSmoothNewSeq.smooth(s).entry(0);
+            elapsed = System.nanoTime() - start;
+        }
+        report(out, "SequenceSmoothNewSeq.smooth", n, elapsed, checksum);
+        for (int r = 0; r < REPEATS; r++) {
+            long start = System.nanoTime();
+            checksum = SequenceSmoothNewSeq.smooth2(s).entry(0);
+            elapsed = System.nanoTime() - start;
+        }
+        report(out, "SequenceSmoothNewSeq.smooth2", n, elapsed, checksum);
+    }
+
+    /**
+     * Times {@code SequenceSmoothArray.smooth} with the given window on the
+     * first {@code n} of {@code values}.
+     *
+     * @param out
+     *            the output stream
+     * @param values
+     *            the series
+     * @param n
+     *            the number of values used
+     * @param window
+     *            the number of values averaged together
+     * @updates out.content
+     * @requires out.is_open and 1 <= n <= |values| and 1 <= window <= n
+     * @ensures out.content = #out.content * [timing for this run]
+     */
+    private static void runArray(SimpleWriter out, int[] values, int n,
+            int window) {
+        int[] s1 = new int[n];
+        System.arraycopy(values, 0, s1, 0, n);
+        long elapsed = 0;
+        long checksum = 0;
+        for (int r = 0; r < REPEATS; r++) {
+            long start = System.nanoTime();
+            int[] s2 = SequenceSmoothArray.smooth(s1, window);
+            elapsed = System.nanoTime() - start;
+            checksum = s2[0];
+        }
+        report(out, "SequenceSmoothArray.smooth window=" + window, n, elapsed,
+                checksum);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional length of the series
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int n = DEFAULT_LENGTH;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+        n = Math.max(n, WIDE_WINDOW);
+        Random random = new Random(SEED);
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            // halved, since SequenceSmoothNewSeq overflows on larger sums
+            values[i] = random.nextInt() >> 1;
+        }
+        int few = Math.min(n, SEQUENCE_LIMIT);
+
+        runSequence(out, values, few);
+        runArray(out, values, few, SequenceSmoothArray.PAIR);
+        runArray(out, values, n, SequenceSmoothArray.PAIR);
+        runArray(out, values, n, WIDE_WINDOW);
+
+        out.close();
+    }
+
+}
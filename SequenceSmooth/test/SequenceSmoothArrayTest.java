@@ -0,0 +1,285 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for SequenceSmoothArray.
+ */
+public final class SequenceSmoothArrayTest {
+
+    /**
+     * Returns the averages of each run of {@code window} adjacent values of
+     * {@code s1}, computed one window at a time.
+     *
+     * @param s1
+     *            the values to smooth
+     * @param window
+     *            the number of values averaged together
+     * @return the smoothed values
+     * @requires 1 <= window <= |s1| + 1
+     */
+    private static int[] smoothSlowly(int[] s1, int window) {
+        int[] s2 = new int[s1.length - window + 1];
+        for (int i = 0; i < s2.length; i++) {
+            long sum = 0;
+            for (int j = i; j < i + window; j++) {
+                sum += s1[j];
+            }
+            s2[i] = (int) (sum / window);
+        }
+        return s2;
+    }
+
+    /**
+     * Returns {@code n} values, alternating in sign and spread over the whole
+     * range of {@code int}.
+     *
+     * @param n
+     *            the number of values
+     * @return the values
+     */
+    private static int[] series(int n) {
+        final int step = 0x9E3779B1;
+        int[] s = new int[n];
+        int x = 0;
+        for (int i = 0; i < n; i++) {
+            x += step;
+            s[i] = x;
+        }
+        return s;
+    }
+
+    /**
+     * Test smooth with s1 = <2, 4, 6>.
+     */
+    @Test
+    public void testSmoothThree() {
+        /*
+         * Set up variables and call method under test
+         */
+        int[] s1 = { 2, 4, 6 };
+        int[] expectedS1 = { 2, 4, 6 };
+        int[] expectedS2 = { 3, 5 };
+        int[] s2 = SequenceSmoothArray.smooth(s1);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertArrayEquals(expectedS1, s1);
+        assertArrayEquals(expectedS2, s2);
+    }
+
+    /**
+     * Test smooth with s1 = <7>.
+     */
+    @Test
+    public void testSmoothOne() {
+        /*
+         * Set up variables and call method under test
+         */
+        int[] s1 = { 7 };
+        int[] expectedS1 = { 7 };
+        int[] expectedS2 = {};
+        int[] s2 = SequenceSmoothArray.smooth(s1);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertArrayEquals(expectedS1, s1);
+        assertArrayEquals(expectedS2, s2);
+    }
+
+    /**
+     * Test smooth with s1 = <4, 5, 12, 20>.
+     */
+    @Test
+    public void testSmoothFour() {
+        /*
+         * Set up variables and call method under test
+         */
+        int[] s1 = { 4, 5, 12, 20 };
+        int[] expectedS1 = { 4, 5, 12, 20 };
+        int[] expectedS2 = { 4, 8, 16 };
+        int[] s2 = SequenceSmoothArray.smooth(s1);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertArrayEquals(expectedS1, s1);
+        assertArrayEquals(expectedS2, s2);
+    }
+
+    /**
+     * Test smooth with s1 = <-3, 0, -20, 3>, rounding toward zero.
+     */
+    @Test
+    public void testSmoothNegative() {
+        /*
+         * Set up variables and call method under test
+         */
+        int[] s1 = { -3, 0, -20, 3 };
+        int[] expectedS1 = { -3, 0, -20, 3 };
+        int[] expectedS2 = { -1, -10, -8 };
+        int[] s2 = SequenceSmoothArray.smooth(s1);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertArrayEquals(expectedS1, s1);
+        assertArrayEquals(expectedS2, s2);
+    }
+
+    /**
+     * Test smooth with s1 = <Integer.MAX_VALUE, Integer.MAX_VALUE,
+     * Integer.MIN_VALUE, Integer.MIN_VALUE>.
+     */
+    @Test
+    public void testSmoothExtremes() {
+        /*
+         * Set up variables and call method under test
+         */
+        int[] s1 = { Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE };
+        int[] expectedS1 = { Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE };
+        int[] expectedS2 = { Integer.MAX_VALUE, 0, Integer.MIN_VALUE };
+        int[] s2 = SequenceSmoothArray.smooth(s1);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertArrayEquals(expectedS1, s1);
+        assertArrayEquals(expectedS2, s2);
+    }
+
+    /**
+     * Test smooth with s1 = <1, 2, 3, 4, 5, 6> and window 3.
+     */
+    @Test
+    public void testSmoothWindowThree() {
+        /*
+         * Set up variables and call method under test
+         */
+        int[] s1 = { 1, 2, 3, 4, 5, 6 };
+        int[] expectedS1 = { 1, 2, 3, 4, 5, 6 };
+        int[] expectedS2 = { 2, 3, 4, 5 };
+        int[] s2 = SequenceSmoothArray.smooth(s1, 3);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertArrayEquals(expectedS1, s1);
+        assertArrayEquals(expectedS2, s2);
+    }
+
+    /**
+     * Test smooth with s1 = <1, -2, 3, -4> and window 4.
+     */
+    @Test
+    public void testSmoothWindowWhole() {
+        /*
+         * Set up variables and call method under test
+         */
+        int[] s1 = { 1, -2, 3, -4 };
+        int[] expectedS1 = { 1, -2, 3, -4 };
+        int[] expectedS2 = { 0 };
+        int[] s2 = SequenceSmoothArray.smooth(s1, 4);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertArrayEquals(expectedS1, s1);
+        assertArrayEquals(expectedS2, s2);
+    }
+
+    /**
+     * Test smooth with s1 = <1, -2, 3> and window 1.
+     */
+    @Test
+    public void testSmoothWindowOne() {
+        /*
+         * Set up variables and call method under test
+         */
+        int[] s1 = { 1, -2, 3 };
+        int[] expectedS1 = { 1, -2, 3 };
+        int[] expectedS2 = { 1, -2, 3 };
+        int[] s2 = SequenceSmoothArray.smooth(s1, 1);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertArrayEquals(expectedS1, s1);
+        assertArrayEquals(expectedS2, s2);
+    }
+
+    /**
+     * Test smooth with s1 of 3,000,000 values, with windows 2 and 5.
+     */
+    @Test
+    public void testSmoothLong() {
+        /*
+         * Set up variables and call method under test
+         */
+        final int n = 3_000_000;
+        final int window = 5;
+        int[] s1 = series(n);
+        int[] s2 = SequenceSmoothArray.smooth(s1);
+        int[] s3 = SequenceSmoothArray.smooth(s1, window);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertArrayEquals(smoothSlowly(s1, 2), s2);
+        assertArrayEquals(smoothSlowly(s1, window), s3);
+    }
+
+    /**
+     * Test smooth on an {@code IntBuffer} read and written in chunks.
+     */
+    @Test
+    public void testSmoothBufferChunks() {
+        /*
+         * Set up variables and call method under test
+         */
+        final int n = 10_000;
+        final int window = 3;
+        final int chunk = 64;
+        int[] s1 = series(n);
+        IntBuffer in = IntBuffer.allocate(chunk);
+        IntBuffer out = IntBuffer.allocate(n);
+        int next = 0;
+        while (next < n) {
+            while (in.hasRemaining() && next < n) {
+                in.put(s1[next]);
+                next++;
+            }
+            in.flip();
+            SequenceSmoothArray.smooth(in, out, window);
+            in.compact();
+        }
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(window - 1, in.position());
+        out.flip();
+        int[] s2 = new int[out.remaining()];
+        out.get(s2);
+        assertArrayEquals(smoothSlowly(s1, window), s2);
+    }
+
+    /**
+     * Test smooth on direct {@code IntBuffer}s, with a short output buffer.
+     */
+    @Test
+    public void testSmoothDirectBuffer() {
+        /*
+         * Set up variables and call method under test
+         */
+        int[] s1 = { 4, 5, 12, 20, -7 };
+        IntBuffer in = ByteBuffer.allocateDirect(4 * s1.length).asIntBuffer();
+        in.put(s1).flip();
+        IntBuffer out = ByteBuffer.allocateDirect(4 * 2).asIntBuffer();
+        int count = SequenceSmoothArray.smooth(in, out, 2);
+        /*
+         * Assert that values of variables match expectations
+         */
+        assertEquals(2, count);
+        assertEquals(2, in.position());
+        assertEquals(4, out.get(0));
+        assertEquals(8, out.get(1));
+    }
+
+}
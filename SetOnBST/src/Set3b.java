@@ -0,0 +1,761 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+import components.stack.Stack;
+import components.stack.Stack1L;
+
+/**
+ * {@code Set} represented as an AVL tree (a height-balanced binary search
+ * tree), done "bare-handed", with implementations of primary methods.
+ *
+ * <p>
+ * Unlike {@code Set3a}, whose tree takes the shape of the insertion order
+ * (a sorted input degenerates into a list), every node here keeps the heights
+ * of its two subtrees within one of each other, so the tree height is
+ * O(log n) and {@code add}, {@code remove}, {@code contains} and
+ * {@code removeAny} are O(log n) in the worst case.
+ *
+ * <p>
+ * Because every node also records the size of its subtree, the ordered
+ * queries {@code floor}, {@code ceiling}, {@code rank}, {@code select} and
+ * {@code rangeCount} are O(log n), and {@code rangeIterator} visits the k
+ * elements of a range in O(log n + k), without walking the whole set.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @mathdefinitions <pre>
+ * IS_BST(
+ *   tree: binary tree of T
+ *  ): boolean satisfies
+ *  [tree satisfies the binary search tree properties as described in the
+ *   slides with the ordering reported by compareTo for T, including that
+ *   it has no duplicate labels]
+ *
+ * IS_AVL(
+ *   tree: binary tree of T
+ *  ): boolean satisfies
+ *  [for every subtree of tree, the heights of its left and right subtrees
+ *   differ by at most 1]
+ * </pre>
+ * @convention <pre>
+ * [$this.root is null or points to the root node of a binary tree, tree,
+ *  whose nodes are all distinct]  and
+ * IS_BST(tree)  and  IS_AVL(tree)  and
+ * [in every node n of tree, n.height = height of the subtree rooted at n
+ *  and n.size = size of the subtree rooted at n]
+ * </pre>
+ * @correspondence this = labels(tree)
+ */
+public class Set3b<T extends Comparable<T>> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node class for AVL tree nodes.
+     */
+    private final class Node {
+
+        /**
+         * Label in node.
+         */
+        private T label;
+
+        /**
+         * Left subtree, or null.
+         */
+        private Node left;
+
+        /**
+         * Right subtree, or null.
+         */
+        private Node right;
+
+        /**
+         * Height of the subtree rooted at this node.
+         */
+        private int height;
+
+        /**
+         * Number of nodes in the subtree rooted at this node.
+         */
+        private int size;
+
+    }
+
+    /**
+     * Root of the AVL tree, or null if {@code this} is empty.
+     */
+    private Node root;
+
+    /**
+     * Returns the height of the subtree rooted at {@code n}.
+     *
+     * @param n
+     *            the subtree root, or null
+     * @return the height of the subtree (0 if n is null)
+     */
+    private int height(Node n) {
+        int height = 0;
+        if (n != null) {
+            height = n.height;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of nodes in the subtree rooted at {@code n}.
+     *
+     * @param n
+     *            the subtree root, or null
+     * @return the size of the subtree (0 if n is null)
+     */
+    private int size(Node n) {
+        int size = 0;
+        if (n != null) {
+            size = n.size;
+        }
+        return size;
+    }
+
+    /**
+     * Recomputes {@code n.height} and {@code n.size} from its children.
+     *
+     * @param n
+     *            the node to update
+     * @updates n
+     * @requires n is not null and the fields of its children are correct
+     * @ensures [n.height and n.size are correct]
+     */
+    private void update(Node n) {
+        n.height = 1 + Math.max(this.height(n.left), this.height(n.right));
+        n.size = 1 + this.size(n.left) + this.size(n.right);
+    }
+
+    /**
+     * Rotates the subtree rooted at {@code n} to the right.
+     *
+     * @param n
+     *            the subtree root
+     * @return the new subtree root
+     * @requires n is not null and n.left is not null
+     * @ensures <pre>
+     * [rotateRight is the root of a subtree with the same labels in the same
+     *  in-order sequence, whose old left child is now its root]
+     * </pre>
+     */
+    private Node rotateRight(Node n) {
+        Node l = n.left;
+        n.left = l.right;
+        l.right = n;
+        this.update(n);
+        this.update(l);
+        return l;
+    }
+
+    /**
+     * Rotates the subtree rooted at {@code n} to the left.
+     *
+     * @param n
+     *            the subtree root
+     * @return the new subtree root
+     * @requires n is not null and n.right is not null
+     * @ensures <pre>
+     * [rotateLeft is the root of a subtree with the same labels in the same
+     *  in-order sequence, whose old right child is now its root]
+     * </pre>
+     */
+    private Node rotateLeft(Node n) {
+        Node r = n.right;
+        n.right = r.left;
+        r.left = n;
+        this.update(n);
+        this.update(r);
+        return r;
+    }
+
+    /**
+     * Restores the AVL property at {@code n}, whose subtrees are AVL trees
+     * with heights differing by at most 2.
+     *
+     * @param n
+     *            the subtree root
+     * @return the new subtree root
+     * @requires <pre>
+     * n is not null  and  [both subtrees of n satisfy the convention]  and
+     * |height(n.left) - height(n.right)| <= 2
+     * </pre>
+     * @ensures <pre>
+     * [rebalance is the root of a subtree satisfying the convention with the
+     *  same labels as the subtree rooted at n]
+     * </pre>
+     */
+    private Node rebalance(Node n) {
+        this.update(n);
+        int balance = this.height(n.left) - this.height(n.right);
+        Node result = n;
+        if (balance > 1) {
+            // left-right case is reduced to left-left first
+            if (this.height(n.left.left) < this.height(n.left.right)) {
+                n.left = this.rotateLeft(n.left);
+            }
+            result = this.rotateRight(n);
+        } else if (balance < -1) {
+            // right-left case is reduced to right-right first
+            if (this.height(n.right.right) < this.height(n.right.left)) {
+                n.right = this.rotateRight(n.right);
+            }
+            result = this.rotateLeft(n);
+        }
+        return result;
+    }
+
+    /**
+     * Inserts {@code x} in the subtree rooted at {@code n}.
+     *
+     * @param n
+     *            the subtree root, or null
+     * @param x
+     *            the label to be inserted
+     * @return the new subtree root
+     * @aliases reference {@code x}
+     * @requires x is not in labels(subtree rooted at n)
+     * @ensures <pre>
+     * [insert is the root of an AVL tree with labels
+     *  labels(subtree rooted at n) union {x}]
+     * </pre>
+     */
+    private Node insert(Node n, T x) {
+        Node result;
+        if (n == null) {
+            result = new Node();
+            result.label = x;
+            this.update(result);
+        } else {
+            if (x.compareTo(n.label) < 0) {
+                n.left = this.insert(n.left, x);
+            } else {
+                n.right = this.insert(n.right, x);
+            }
+            result = this.rebalance(n);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the node of the subtree rooted at {@code n} with label
+     * {@code x}, removes it, and stores it in {@code removed[0]}.
+     *
+     * @param n
+     *            the subtree root
+     * @param x
+     *            the label to be removed
+     * @param removed
+     *            one-element array in which the removed label is returned
+     * @return the new subtree root
+     * @replaces removed
+     * @requires x is in labels(subtree rooted at n)
+     * @ensures <pre>
+     * removed[0] = x  and
+     * [delete is the root of an AVL tree with labels
+     *  labels(subtree rooted at n) \ {x}]
+     * </pre>
+     */
+    private Node delete(Node n, T x, T[] removed) {
+        Node result;
+        int cmp = x.compareTo(n.label);
+        if (cmp < 0) {
+            n.left = this.delete(n.left, x, removed);
+            result = this.rebalance(n);
+        } else if (cmp > 0) {
+            n.right = this.delete(n.right, x, removed);
+            result = this.rebalance(n);
+        } else {
+            removed[0] = n.label;
+            if (n.left == null) {
+                result = n.right;
+            } else if (n.right == null) {
+                result = n.left;
+            } else {
+                // replace the label by its in-order successor
+                n.right = this.deleteSmallest(n.right, removed);
+                T successor = removed[0];
+                removed[0] = n.label;
+                n.label = successor;
+                result = this.rebalance(n);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the node with the smallest label from the subtree rooted at
+     * {@code n}, and stores that label in {@code removed[0]}.
+     *
+     * @param n
+     *            the subtree root
+     * @param removed
+     *            one-element array in which the removed label is returned
+     * @return the new subtree root
+     * @replaces removed
+     * @requires n is not null
+     * @ensures <pre>
+     * removed[0] = [the smallest label in the subtree rooted at n]  and
+     * [deleteSmallest is the root of an AVL tree with the other labels]
+     * </pre>
+     */
+    private Node deleteSmallest(Node n, T[] removed) {
+        Node result;
+        if (n.left == null) {
+            removed[0] = n.label;
+            result = n.right;
+        } else {
+            n.left = this.deleteSmallest(n.left, removed);
+            result = this.rebalance(n);
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the subtree rooted at {@code n} satisfies the convention
+     * with all labels strictly between {@code lo} and {@code hi} (null meaning
+     * unbounded).
+     *
+     * @param n
+     *            the subtree root, or null
+     * @param lo
+     *            exclusive lower bound on the labels, or null
+     * @param hi
+     *            exclusive upper bound on the labels, or null
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     */
+    private boolean subtreeHolds(Node n, T lo, T hi) {
+        if (n != null) {
+            assert lo == null || lo.compareTo(n.label) < 0 : "Violation of: IS_BST(tree)";
+            assert hi == null || n.label.compareTo(hi) < 0 : "Violation of: IS_BST(tree)";
+            this.subtreeHolds(n.left, lo, n.label);
+            this.subtreeHolds(n.right, n.label, hi);
+            assert Math.abs(this.height(n.left) - this.height(n.right)) <= 1
+                    : "Violation of: IS_AVL(tree)";
+            assert n.height == 1 + Math.max(this.height(n.left), this.height(n.right))
+                    : "Violation of: n.height = height of the subtree rooted at n";
+            assert n.size == 1 + this.size(n.left) + this.size(n.right)
+                    : "Violation of: n.size = size of the subtree rooted at n";
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the convention holds for the current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     */
+    private boolean conventionHolds() {
+        return this.subtreeHolds(this.root, null, null);
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+
+        this.root = null;
+
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set3b() {
+
+        this.createNewRep();
+        assert this.conventionHolds();
+
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set3b<?>
+                : "" + "Violation of: source is of dynamic type Set3b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set3b<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set3b<T> localSource = (Set3b<T>) source;
+        this.root = localSource.root;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert !this.contains(x) : "Violation of: x is not in this";
+
+        this.root = this.insert(this.root, x);
+
+        assert this.conventionHolds();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) : "Violation of: x is in this";
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        T[] removed = (T[]) new Comparable[1];
+        this.root = this.delete(this.root, x, removed);
+
+        assert this.conventionHolds();
+        return removed[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        T[] removed = (T[]) new Comparable[1];
+        this.root = this.deleteSmallest(this.root, removed);
+
+        assert this.conventionHolds();
+        return removed[0];
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node n = this.root;
+        boolean found = false;
+        while (n != null && !found) {
+            int cmp = x.compareTo(n.label);
+            if (cmp < 0) {
+                n = n.left;
+            } else if (cmp > 0) {
+                n = n.right;
+            } else {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public final int size() {
+
+        return this.size(this.root);
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set3bIterator(null, null);
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports the number of elements of {@code this} smaller than {@code x}.
+     *
+     * @param x
+     *            the element to rank
+     * @return the number of elements smaller than x
+     * @ensures rank = |{y: T where (y is in this and y < x)}|
+     */
+    public final int rank(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        int rank = 0;
+        Node n = this.root;
+        while (n != null) {
+            int cmp = x.compareTo(n.label);
+            if (cmp <= 0) {
+                n = n.left;
+            } else {
+                rank += this.size(n.left) + 1;
+                n = n.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Reports the element of {@code this} with the given {@code rank}, i.e.,
+     * the {@code k}-th smallest counting from 0.
+     *
+     * @param k
+     *            the rank of the element to report
+     * @return the element of rank k
+     * @requires 0 <= k < |this|
+     * @ensures select is in this  and  rank(select) = k
+     */
+    public final T select(int k) {
+        assert 0 <= k : "Violation of: 0 <= k";
+        assert k < this.size() : "Violation of: k < |this|";
+
+        int remaining = k;
+        Node n = this.root;
+        int leftSize = this.size(n.left);
+        while (remaining != leftSize) {
+            if (remaining < leftSize) {
+                n = n.left;
+            } else {
+                remaining -= leftSize + 1;
+                n = n.right;
+            }
+            leftSize = this.size(n.left);
+        }
+        return n.label;
+    }
+
+    /**
+     * Reports the largest element of {@code this} that is not larger than
+     * {@code x}.
+     *
+     * @param x
+     *            the bound
+     * @return the largest element <= x
+     * @requires there exists y: T (y is in this and y <= x)
+     * @ensures <pre>
+     * floor is in this  and  floor <= x  and
+     * for all y: T where (y is in this and y <= x) (y <= floor)
+     * </pre>
+     */
+    public final T floor(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.contains(x) || this.rank(x) > 0
+                : "Violation of: there exists y: T (y is in this and y <= x)";
+
+        T floor = null;
+        Node n = this.root;
+        while (n != null) {
+            int cmp = x.compareTo(n.label);
+            if (cmp < 0) {
+                n = n.left;
+            } else {
+                floor = n.label;
+                if (cmp == 0) {
+                    n = null;
+                } else {
+                    n = n.right;
+                }
+            }
+        }
+        return floor;
+    }
+
+    /**
+     * Reports the smallest element of {@code this} that is not smaller than
+     * {@code x}.
+     *
+     * @param x
+     *            the bound
+     * @return the smallest element >= x
+     * @requires there exists y: T (y is in this and y >= x)
+     * @ensures <pre>
+     * ceiling is in this  and  ceiling >= x  and
+     * for all y: T where (y is in this and y >= x) (ceiling <= y)
+     * </pre>
+     */
+    public final T ceiling(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.rank(x) < this.size()
+                : "Violation of: there exists y: T (y is in this and y >= x)";
+
+        T ceiling = null;
+        Node n = this.root;
+        while (n != null) {
+            int cmp = x.compareTo(n.label);
+            if (cmp > 0) {
+                n = n.right;
+            } else {
+                ceiling = n.label;
+                if (cmp == 0) {
+                    n = null;
+                } else {
+                    n = n.left;
+                }
+            }
+        }
+        return ceiling;
+    }
+
+    /**
+     * Reports the number of elements of {@code this} in the range [{@code lo},
+     * {@code hi}).
+     *
+     * @param lo
+     *            the inclusive lower bound
+     * @param hi
+     *            the exclusive upper bound
+     * @return the number of elements in the range
+     * @requires lo <= hi
+     * @ensures rangeCount = |{y: T where (y is in this and lo <= y < hi)}|
+     */
+    public final int rangeCount(T lo, T hi) {
+        assert lo != null : "Violation of: lo is not null";
+        assert hi != null : "Violation of: hi is not null";
+        assert lo.compareTo(hi) <= 0 : "Violation of: lo <= hi";
+
+        return this.rank(hi) - this.rank(lo);
+    }
+
+    /**
+     * Returns an iterator over the elements of {@code this} in the range
+     * [{@code lo}, {@code hi}), in increasing order.
+     *
+     * @param lo
+     *            the inclusive lower bound
+     * @param hi
+     *            the exclusive upper bound
+     * @return an iterator over the elements in the range
+     * @requires lo <= hi
+     * @ensures <pre>
+     * ~rangeIterator.unseen = [the elements y of this with lo <= y < hi, in
+     *                          increasing order]
+     * </pre>
+     */
+    public final Iterator<T> rangeIterator(T lo, T hi) {
+        assert lo != null : "Violation of: lo is not null";
+        assert hi != null : "Violation of: hi is not null";
+        assert lo.compareTo(hi) <= 0 : "Violation of: lo <= hi";
+
+        return new Set3bIterator(lo, hi);
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set3b}, visiting
+     * the labels in increasing order, optionally only those in a range.
+     */
+    private final class Set3bIterator implements Iterator<T> {
+
+        /**
+         * Nodes whose labels and right subtrees have not been visited yet, the
+         * next one on top.
+         */
+        private Stack<Node> pending;
+
+        /**
+         * Exclusive upper bound on the labels visited, or null if unbounded.
+         */
+        private T hi;
+
+        /**
+         * Constructor from range bounds.
+         *
+         * @param lo
+         *            inclusive lower bound on the labels visited, or null if
+         *            unbounded
+         * @param hi
+         *            exclusive upper bound on the labels visited, or null if
+         *            unbounded
+         */
+        private Set3bIterator(T lo, T hi) {
+            this.pending = new Stack1L<>();
+            this.hi = hi;
+            /*
+             * Push the search path towards lo, skipping the nodes (and their
+             * left subtrees) that are smaller than lo.
+             */
+            Node n = Set3b.this.root;
+            while (n != null) {
+                if (lo != null && n.label.compareTo(lo) < 0) {
+                    n = n.right;
+                } else {
+                    this.pending.push(n);
+                    n = n.left;
+                }
+            }
+            assert Set3b.this.conventionHolds();
+        }
+
+        /**
+         * Pushes {@code n} and its chain of left descendants on
+         * {@code this.pending}.
+         *
+         * @param n
+         *            the subtree root, or null
+         * @updates this.pending
+         */
+        private void pushLeftSpine(Node n) {
+            Node p = n;
+            while (p != null) {
+                this.pending.push(p);
+                p = p.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.pending.length() > 0
+                    && (this.hi == null || this.pending.top().label.compareTo(this.hi) < 0);
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            Node n = this.pending.pop();
+            this.pushLeftSpine(n.right);
+            return n.label;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
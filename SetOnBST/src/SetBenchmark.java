@@ -0,0 +1,138 @@
+import java.util.Random;
+
+import components.set.Set;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program to compare insertion and lookup time of {@code Set3a} (unbalanced
+ * BST) and {@code Set3b} (AVL tree) on sorted and on random input.
+ *
+ * <p>
+ * Usage: {@code SetBenchmark [numberOfElements]} (default 1,000,000). Sorted
+ * input makes {@code Set3a} quadratic and deeply recursive, so it is only run
+ * on the first {@code SET3A_LIMIT} elements. Times are averaged per
+ * operation, in nanoseconds, so that runs of different sizes line up: a
+ * {@code Set3b} operation should cost about the same at both sizes, give or
+ * take a factor of log n, while {@code Set3a}'s cost on sorted input grows
+ * with the number of elements.
+ */
+public final class SetBenchmark {
+
+    /**
+     * Default number of elements inserted.
+     */
+    private static final int DEFAULT_ELEMENTS = 1_000_000;
+
+    /**
+     * Largest input given to {@code Set3a}.
+     */
+    private static final int SET3A_LIMIT = 5_000;
+
+    /**
+     * Seed for the random permutation, so runs are repeatable.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SetBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Returns {@code 0, 1, ..., n - 1}, shuffled if {@code shuffle}.
+     *
+     * @param n
+     *            the number of elements
+     * @param shuffle
+     *            whether to return a random permutation instead of sorted
+     *            order
+     * @return the elements
+     * @requires n >= 0
+     * @ensures [elements is a permutation of 0, 1, ..., n - 1, sorted unless
+     *          shuffle]
+     */
+    private static Integer[] elements(int n, boolean shuffle) {
+        Integer[] elements = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            elements[i] = i;
+        }
+        if (shuffle) {
+            Random random = new Random(SEED);
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Integer tmp = elements[i];
+                elements[i] = elements[j];
+                elements[j] = tmp;
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Adds every entry of {@code elements} to {@code s}, then looks each one
+     * up, and outputs the time taken by each phase.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param s
+     *            the set to fill
+     * @param elements
+     *            the elements to add
+     * @updates out.content, s
+     * @requires out.is_open and s = {} and [entries of elements are distinct]
+     * @ensures <pre>
+     * s = [entries of elements]  and
+     * out.content = #out.content * [timings for this run]
+     * </pre>
+     */
+    private static void run(SimpleWriter out, String label, Set<Integer> s,
+            Integer[] elements) {
+        long start = System.nanoTime();
+        for (Integer x : elements) {
+            s.add(x);
+        }
+        long added = System.nanoTime();
+        int found = 0;
+        for (Integer x : elements) {
+            if (s.contains(x)) {
+                found++;
+            }
+        }
+        long searched = System.nanoTime();
+        int n = Math.max(1, elements.length);
+        out.println(label + ": " + elements.length + " adds at "
+                + ((added - start) / n) + " ns each, " + found
+                + " contains at " + ((searched - added) / n) + " ns each");
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional number of elements
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int n = DEFAULT_ELEMENTS;
+        if (args.length > 0) {
+            n = Integer.parseInt(args[0]);
+        }
+        int smallN = Math.min(n, SET3A_LIMIT);
+
+        run(out, "Set3a sorted", new Set3a<Integer>(), elements(smallN, false));
+        run(out, "Set3a random", new Set3a<Integer>(), elements(smallN, true));
+        run(out, "Set3b sorted", new Set3b<Integer>(), elements(smallN, false));
+        run(out, "Set3b random", new Set3b<Integer>(), elements(smallN, true));
+        run(out, "Set3b sorted", new Set3b<Integer>(), elements(n, false));
+        run(out, "Set3b random", new Set3b<Integer>(), elements(n, true));
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,134 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set3b}, including its ordered
+ * query methods.
+ */
+public class Set3bTest extends SetTest {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set3b<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Creates and returns a {@code Set3b<String>} with the given entries.
+     *
+     * @param args
+     *            the entries for the set
+     * @return the constructed set
+     * @requires [every entry in args is unique]
+     * @ensures createFromArgs = [entries in args]
+     */
+    private Set3b<String> createFromArgs(String... args) {
+        Set3b<String> set = new Set3b<String>();
+        for (String s : args) {
+            set.add(s);
+        }
+        return set;
+    }
+
+    /**
+     * Testing rank for elements in and not in the set.
+     */
+    @Test
+    public final void testRank() {
+        Set3b<String> s = this.createFromArgs("d", "b", "f", "a", "c", "e", "g");
+
+        assertEquals(0, s.rank("a"));
+        assertEquals(3, s.rank("d"));
+        assertEquals(4, s.rank("da"));
+        assertEquals(7, s.rank("z"));
+    }
+
+    /**
+     * Testing select for every rank.
+     */
+    @Test
+    public final void testSelect() {
+        Set3b<String> s = this.createFromArgs("a", "b", "c", "d", "e", "f", "g");
+        String[] expected = { "a", "b", "c", "d", "e", "f", "g" };
+
+        for (int k = 0; k < expected.length; k++) {
+            assertEquals(expected[k], s.select(k));
+        }
+    }
+
+    /**
+     * Testing floor for elements in and not in the set.
+     */
+    @Test
+    public final void testFloor() {
+        Set3b<String> s = this.createFromArgs("b", "d", "f");
+
+        assertEquals("b", s.floor("b"));
+        assertEquals("d", s.floor("e"));
+        assertEquals("f", s.floor("z"));
+    }
+
+    /**
+     * Testing ceiling for elements in and not in the set.
+     */
+    @Test
+    public final void testCeiling() {
+        Set3b<String> s = this.createFromArgs("b", "d", "f");
+
+        assertEquals("b", s.ceiling("a"));
+        assertEquals("d", s.ceiling("d"));
+        assertEquals("f", s.ceiling("e"));
+    }
+
+    /**
+     * Testing rangeCount on empty, partial and full ranges.
+     */
+    @Test
+    public final void testRangeCount() {
+        Set3b<String> s = this.createFromArgs("b", "d", "f", "h");
+
+        assertEquals(0, s.rangeCount("c", "c"));
+        assertEquals(2, s.rangeCount("c", "g"));
+        assertEquals(2, s.rangeCount("d", "h"));
+        assertEquals(4, s.rangeCount("a", "z"));
+    }
+
+    /**
+     * Testing rangeIterator visits exactly the range, in order.
+     */
+    @Test
+    public final void testRangeIterator() {
+        Set3b<String> s = this.createFromArgs("e", "b", "h", "a", "c", "g", "i",
+                "d", "f");
+
+        Iterator<String> it = s.rangeIterator("c", "g");
+        assertEquals("c", it.next());
+        assertEquals("d", it.next());
+        assertEquals("e", it.next());
+        assertEquals("f", it.next());
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Testing rangeIterator on a range with no elements.
+     */
+    @Test
+    public final void testRangeIteratorEmpty() {
+        Set3b<String> s = this.createFromArgs("b", "d");
+
+        Iterator<String> it = s.rangeIterator("ba", "c");
+        assertFalse(it.hasNext());
+    }
+
+}
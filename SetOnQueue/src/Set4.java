@@ -0,0 +1,479 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.set.Set;
+import components.set.SetSecondary;
+
+/**
+ * {@code Set} represented as a doubly linked list of elements in recently used
+ * order, with a hash table (separate chaining) indexing its nodes, done
+ * "bare-handed", with implementations of primary methods.
+ *
+ * <p>
+ * Like {@code Set2}, this keeps its elements in a queue-like list and moves an
+ * element to the front whenever {@code add} or {@code contains} touches it,
+ * so the iterator returns the elements from the most recently used to the
+ * least recently used, and {@code removeAny} removes (evicts) the least
+ * recently used one. Unlike {@code Set2}, it finds an element through the
+ * hash table instead of rotating the whole queue, so {@code add},
+ * {@code remove}, {@code removeAny} and {@code contains} take expected O(1)
+ * time. The table doubles when there are more elements than three quarters of
+ * its buckets and halves when there are fewer than an eighth.
+ *
+ * <p>
+ * Because {@code contains} reorders the list, it must not be called on a set
+ * that is being iterated over.
+ *
+ * @param <T>
+ *            type of {@code Set} elements
+ * @convention <pre>
+ * $this.header is the sentinel node of a circular doubly linked list, list,
+ *  whose other nodes hold the non-null, pairwise distinct elements  and
+ * $this.size = [number of nodes in list other than $this.header]  and
+ * [|$this.buckets| is a power of 2, at least MIN_BUCKETS]  and
+ * [every node of list other than $this.header is in exactly one chain
+ *  starting at an entry of $this.buckets, the one at index
+ *  HOME(node.data, |$this.buckets|), and no other node is in any chain]
+ * </pre>
+ * @correspondence <pre>
+ * this = [set of data in the nodes of list other than $this.header]
+ * </pre>
+ */
+public class Set4<T> extends SetSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node class for the doubly linked list and the hash chains.
+     */
+    private final class Node {
+
+        /**
+         * Data in node.
+         */
+        private T data;
+
+        /**
+         * Previous (more recently used) node in the list.
+         */
+        private Node previous;
+
+        /**
+         * Next (less recently used) node in the list.
+         */
+        private Node next;
+
+        /**
+         * Next node in the same hash chain, or null.
+         */
+        private Node chain;
+
+    }
+
+    /**
+     * Smallest number of buckets.
+     */
+    private static final int MIN_BUCKETS = 8;
+
+    /**
+     * Numerator of the maximum load factor (3/4).
+     */
+    private static final int MAX_LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the maximum load factor (3/4).
+     */
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    /**
+     * The table halves once there are fewer than 1 / MIN_LOAD_DENOMINATOR as
+     * many elements as buckets.
+     */
+    private static final int MIN_LOAD_DENOMINATOR = 8;
+
+    /**
+     * Sentinel node of the list; its next node is the most recently used
+     * element, and its previous node the least recently used one.
+     */
+    private Node header;
+
+    /**
+     * Hash table of chains of nodes.
+     */
+    private Node[] buckets;
+
+    /**
+     * Number of elements.
+     */
+    private int size;
+
+    /**
+     * Returns the bucket of {@code x} in a table of size {@code n}.
+     *
+     * @param x
+     *            the element
+     * @param n
+     *            the number of buckets
+     * @return HOME(x, n)
+     * @requires [n is a power of 2]
+     */
+    private static int home(Object x, int n) {
+        int h = x.hashCode();
+        h ^= (h >>> 16);
+        return h & (n - 1);
+    }
+
+    /**
+     * Creates an array of {@code n} empty buckets.
+     *
+     * @param n
+     *            the number of buckets
+     * @return the new array
+     */
+    @SuppressWarnings("unchecked")
+    private Node[] newBuckets(int n) {
+        /*
+         * Arrays of an inner class of a generic class cannot be created
+         * directly, so this cast results in a warning about an unchecked cast,
+         * though it cannot fail.
+         */
+        return (Node[]) new Set4<?>.Node[n];
+    }
+
+    /**
+     * Returns the node holding {@code x}, or null if there is none.
+     *
+     * @param x
+     *            the element to be searched for
+     * @return the node, or null
+     * @ensures <pre>
+     * if x is in this then find.data = x  else  find = null
+     * </pre>
+     */
+    private Node find(T x) {
+        Node n = this.buckets[home(x, this.buckets.length)];
+        while (n != null && !n.data.equals(x)) {
+            n = n.chain;
+        }
+        return n;
+    }
+
+    /**
+     * Inserts {@code n} in the chain of its bucket.
+     *
+     * @param n
+     *            the node
+     * @updates $this.buckets
+     * @requires n.data is not null and n is in no chain
+     */
+    private void chain(Node n) {
+        int b = home(n.data, this.buckets.length);
+        n.chain = this.buckets[b];
+        this.buckets[b] = n;
+    }
+
+    /**
+     * Removes {@code n} from the chain of its bucket.
+     *
+     * @param n
+     *            the node
+     * @updates $this.buckets
+     * @requires n is in the chain of bucket HOME(n.data, |$this.buckets|)
+     */
+    private void unchain(Node n) {
+        int b = home(n.data, this.buckets.length);
+        if (this.buckets[b] == n) {
+            this.buckets[b] = n.chain;
+        } else {
+            Node p = this.buckets[b];
+            while (p.chain != n) {
+                p = p.chain;
+            }
+            p.chain = n.chain;
+        }
+        n.chain = null;
+    }
+
+    /**
+     * Links {@code n} into the list right after the header.
+     *
+     * @param n
+     *            the node
+     * @updates list
+     * @requires n is not in list
+     */
+    private void linkFront(Node n) {
+        n.previous = this.header;
+        n.next = this.header.next;
+        this.header.next.previous = n;
+        this.header.next = n;
+    }
+
+    /**
+     * Unlinks {@code n} from the list.
+     *
+     * @param n
+     *            the node
+     * @updates list
+     * @requires n is in list and n is not $this.header
+     */
+    private void unlink(Node n) {
+        n.previous.next = n.next;
+        n.next.previous = n.previous;
+    }
+
+    /**
+     * Moves every node into a new table of {@code n} buckets.
+     *
+     * @param n
+     *            the new number of buckets
+     * @updates $this.buckets
+     * @requires [n is a power of 2, at least MIN_BUCKETS]
+     * @ensures |$this.buckets| = n  and  this = #this
+     */
+    private void rehash(int n) {
+        this.buckets = this.newBuckets(n);
+        Node p = this.header.next;
+        while (p != this.header) {
+            this.chain(p);
+            p = p.next;
+        }
+    }
+
+    /**
+     * Removes node {@code n} and returns its element, shrinking the table if
+     * it has become too sparse.
+     *
+     * @param n
+     *            the node to be removed
+     * @return the removed element
+     * @updates this
+     * @requires n is in list and n is not $this.header
+     * @ensures removeNode = n.data  and  this = #this \ {n.data}
+     */
+    private T removeNode(Node n) {
+        this.unchain(n);
+        this.unlink(n);
+        this.size--;
+        if (this.buckets.length > MIN_BUCKETS
+                && this.size * MIN_LOAD_DENOMINATOR < this.buckets.length) {
+            this.rehash(this.buckets.length / 2);
+        }
+        return n.data;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.size = [number of nodes in list other than $this.header]  and
+     * [every node of list other than $this.header has non-null data, and
+     *  is found in the chain of bucket HOME(node.data, |$this.buckets|)]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        int count = 0;
+        Node p = this.header.next;
+        while (p != this.header) {
+            assert p.next.previous == p
+                    : "Violation of: [list is a doubly linked list]";
+            assert p.data != null : "Violation of: [data in list are not null]";
+            assert this.find(p.data) == p
+                    : "Violation of: [every node is in the chain of its bucket]";
+            count++;
+            p = p.next;
+        }
+        assert count == this.size
+                : "Violation of: $this.size = [number of nodes in list]";
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.header = new Node();
+        this.header.next = this.header;
+        this.header.previous = this.header;
+        this.buckets = this.newBuckets(MIN_BUCKETS);
+        this.size = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Set4() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Set<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Set<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Set4<?>
+                : "" + "Violation of: source is of dynamic type Set4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Set4<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Set4<T> localSource = (Set4<T>) source;
+        this.header = localSource.header;
+        this.buckets = localSource.buckets;
+        this.size = localSource.size;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.find(x) == null : "Violation of: x is not in this";
+
+        Node n = new Node();
+        n.data = x;
+        this.linkFront(n);
+        this.size++;
+        if (this.size * MAX_LOAD_DENOMINATOR > this.buckets.length
+                * MAX_LOAD_NUMERATOR) {
+            // rehash chains n along with all the others
+            this.rehash(2 * this.buckets.length);
+        } else {
+            this.chain(n);
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T remove(T x) {
+        assert x != null : "Violation of: x is not null";
+        Node n = this.find(x);
+        assert n != null : "Violation of: x is in this";
+
+        T removed = this.removeNode(n);
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final T removeAny() {
+        assert this.size() > 0 : "Violation of: this /= empty_set";
+
+        // the least recently used element
+        T removed = this.removeNode(this.header.previous);
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final boolean contains(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        Node n = this.find(x);
+        if (n != null && n != this.header.next) {
+            this.unlink(n);
+            this.linkFront(n);
+        }
+
+        assert this.conventionHolds();
+        return n != null;
+    }
+
+    @Override
+    public final int size() {
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Set4Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Set4}. Returns
+     * the elements from the most recently used to the least recently used.
+     */
+    private final class Set4Iterator implements Iterator<T> {
+
+        /**
+         * Node holding the next element to return, or the header if there is
+         * none.
+         */
+        private Node current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Set4Iterator() {
+            this.current = Set4.this.header.next;
+            assert Set4.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current != Set4.this.header;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = this.current.data;
+            this.current = this.current.next;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Customized JUnit test fixture for {@code Set4}.
+ */
+public class Set4Test extends SetTest {
+
+    @Override
+    protected final Set<String> constructorTest() {
+        return new Set4<String>();
+    }
+
+    @Override
+    protected final Set<String> constructorRef() {
+        return new Set1L<String>();
+    }
+
+    /**
+     * Test that the iterator returns the elements from the most recently
+     * added or found to the least recently.
+     */
+    @Test
+    public final void testIterationOrder() {
+        Set<String> s = this.constructorTest();
+        s.add("a");
+        s.add("b");
+        s.add("c");
+        assertTrue(s.contains("a"));
+        Iterator<String> it = s.iterator();
+        assertEquals("a", it.next());
+        assertEquals("c", it.next());
+        assertEquals("b", it.next());
+        assertTrue(!it.hasNext());
+    }
+
+    /**
+     * Test that removeAny removes the least recently used element.
+     */
+    @Test
+    public final void testRemoveAnyLeastRecentlyUsed() {
+        Set<String> s = this.constructorTest();
+        s.add("a");
+        s.add("b");
+        s.add("c");
+        assertTrue(s.contains("a"));
+        assertTrue(!s.contains("d"));
+        assertEquals("b", s.removeAny());
+        assertEquals("c", s.removeAny());
+        assertEquals("a", s.removeAny());
+        assertEquals(0, s.size());
+    }
+
+    /**
+     * Test add, contains and remove as the table grows and shrinks.
+     */
+    @Test
+    public final void testManyElements() {
+        final int n = 1000;
+        Set<String> s = this.constructorTest();
+        Set<String> sExpected = this.constructorRef();
+        for (int i = 0; i < n; i++) {
+            s.add("e" + i);
+            sExpected.add("e" + i);
+        }
+        assertEquals(sExpected, s);
+        for (int i = 0; i < n; i += 2) {
+            assertEquals("e" + i, s.remove("e" + i));
+            sExpected.remove("e" + i);
+        }
+        assertEquals(sExpected, s);
+        assertTrue(s.contains("e1"));
+        assertTrue(!s.contains("e0"));
+    }
+
+}
@@ -0,0 +1,451 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as a single growable array that holds the
+ * entries unordered in insertion mode and as a d-ary heap in extraction mode,
+ * with implementations of primary methods.
+ *
+ * <p>
+ * Compared with {@code SortingMachine5a} there is no {@code Queue} staging
+ * area: {@code add} appends to the array, and {@code changeToExtractionMode}
+ * turns it into a heap in place with Floyd's bottom-up construction (O(n)).
+ * Each node has {@code arity} children (2, 4 or 8 are typical), so the heap is
+ * shallower and a node's children are adjacent in memory. Sifting moves a
+ * "hole" down the heap and writes the sifted entry once at the end, instead
+ * of exchanging entries at every level.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_D_HEAP (
+ *   a: string of T,
+ *   d: integer,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all i: integer
+ *      where (0 < i  and  i < |a|)
+ *    (r(a[(i - 1) / d], a[i]))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])  and
+ * $this.arity >= 2  and
+ * 0 <= $this.size <= |$this.entries|  and
+ * for all i: integer
+ *     where (0 <= i  and  i < $this.size)
+ *   ([entry at position i in $this.entries is not null])  and
+ * if not $this.insertionMode then
+ *   IS_D_HEAP($this.entries[0, $this.size), $this.arity,
+ *     [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.entries[0, $this.size)))
+ * </pre>
+ */
+public class SortingMachine5b<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Default number of children per heap node.
+     */
+    private static final int DEFAULT_ARITY = 4;
+
+    /**
+     * Initial capacity of the entries array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Number of children per heap node.
+     */
+    private int arity;
+
+    /**
+     * Entries; a heap in extraction mode.
+     */
+    private T[] entries;
+
+    /**
+     * Number of entries in use.
+     */
+    private int size;
+
+    /**
+     * Given an array whose first {@code length} entries represent a complete
+     * d-ary tree that would be a heap except at index {@code top}, sifts the
+     * entry at {@code top} down to turn the subtree rooted there into a heap.
+     * The entry is held aside while smaller children move up into the "hole",
+     * and is written once, at its final position.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete d-ary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param length
+     *            the number of entries in the tree
+     * @param d
+     *            the number of children per node
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= top < length <= |array|  and  d >= 2  and
+     * [the subtrees rooted at the children of top satisfy IS_D_HEAP]  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * [the subtree rooted at top satisfies IS_D_HEAP]  and
+     * perms(array, #array)  and
+     * [the entries outside the subtree rooted at top are unchanged]
+     * </pre>
+     */
+    private static <T> void siftDown(T[] array, int top, int length, int d,
+            Comparator<T> order) {
+        T x = array[top];
+        int hole = top;
+        int firstChild = d * hole + 1;
+        boolean placed = false;
+        while (!placed && firstChild < length) {
+            // Find the smallest child
+            int smallest = firstChild;
+            int lastChild = Math.min(firstChild + d, length);
+            for (int c = firstChild + 1; c < lastChild; c++) {
+                if (order.compare(array[c], array[smallest]) < 0) {
+                    smallest = c;
+                }
+            }
+            if (order.compare(array[smallest], x) < 0) {
+                // Move the child up into the hole, and the hole down
+                array[hole] = array[smallest];
+                hole = smallest;
+                firstChild = d * hole + 1;
+            } else {
+                placed = true;
+            }
+        }
+        array[hole] = x;
+    }
+
+    /**
+     * Turns the first {@code length} entries of {@code array} into a d-ary
+     * heap using Floyd's bottom-up method: every internal node is sifted down,
+     * starting from the last one.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the array to heapify
+     * @param length
+     *            the number of entries to heapify
+     * @param d
+     *            the number of children per node
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= length <= |array|  and  d >= 2  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_D_HEAP(array[0, length), d, [relation computed by order.compare method])  and
+     * perms(array, #array)
+     * </pre>
+     */
+    private static <T> void heapify(T[] array, int length, int d, Comparator<T> order) {
+        for (int i = (length - 2) / d; i >= 0; i--) {
+            siftDown(array, i, length, d, order);
+        }
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.arity >= 2  and
+     * 0 <= $this.size <= |$this.entries|  and
+     * for all i: integer
+     *     where (0 <= i  and  i < $this.size)
+     *   ([entry at position i in $this.entries is not null])  and
+     * if not $this.insertionMode then
+     *   IS_D_HEAP($this.entries[0, $this.size), $this.arity,
+     *     [relation computed by $this.machineOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.arity >= 2 : "Violation of: $this.arity >= 2";
+        assert 0 <= this.size : "Violation of: 0 <= $this.size";
+        assert this.size <= this.entries.length
+                : "Violation of: $this.size <= |$this.entries|";
+        for (int i = 0; i < this.size; i++) {
+            assert this.entries[i] != null : ""
+                    + "Violation of: entries in $this.entries[0, $this.size) are not null";
+        }
+        if (!this.insertionMode) {
+            for (int i = 1; i < this.size; i++) {
+                assert this.machineOrder.compare(this.entries[(i - 1) / this.arity],
+                        this.entries[i]) <= 0
+                        : "" + "Violation of: if not $this.insertionMode then"
+                                + " IS_D_HEAP($this.entries[0, $this.size), $this.arity,"
+                                + " [relation computed by $this.machineOrder.compare"
+                                + " method])";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param d
+     *            the number of children per heap node
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])  and
+     * d >= 2
+     * </pre>
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * $this.arity = d  and
+     * $this.size = 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, int d) {
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.entries = (T[]) (new Object[INITIAL_CAPACITY]);
+        this.size = 0;
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.arity = d;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order, using a 4-ary heap.
+     *
+     * @param order
+     *            total preorder for sorting
+     */
+    public SortingMachine5b(Comparator<T> order) {
+        this.createNewRep(order, DEFAULT_ARITY);
+        assert this.conventionHolds();
+    }
+
+    /**
+     * Constructor from order and heap arity.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param arity
+     *            the number of children per heap node
+     * @requires arity >= 2
+     */
+    public SortingMachine5b(Comparator<T> order, int arity) {
+        assert arity >= 2 : "Violation of: arity >= 2";
+
+        this.createNewRep(order, arity);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class, int.class)
+                    .newInstance(this.machineOrder, this.arity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.arity);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachine5b<?>
+                : "" + "Violation of: source is of dynamic type SortingMachine5b<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachine5b<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        SortingMachine5b<T> localSource = (SortingMachine5b<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.arity = localSource.arity;
+        this.entries = localSource.entries;
+        this.size = localSource.size;
+        localSource.createNewRep(localSource.machineOrder, localSource.arity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+        // Double the array when it is full
+        if (this.size == this.entries.length) {
+            T[] bigger = (T[]) (new Object[2 * this.entries.length]);
+            System.arraycopy(this.entries, 0, bigger, 0, this.size);
+            this.entries = bigger;
+        }
+        this.entries[this.size] = x;
+        this.size++;
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+        // Build the heap in place
+        heapify(this.entries, this.size, this.arity, this.machineOrder);
+        this.insertionMode = false;
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this.isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+        assert this.conventionHolds();
+        T first = this.entries[0];
+        // Move the last entry to the root and sift it down
+        this.size--;
+        this.entries[0] = this.entries[this.size];
+        this.entries[this.size] = null;
+        if (this.size > 0) {
+            siftDown(this.entries, 0, this.size, this.arity, this.machineOrder);
+        }
+        assert this.conventionHolds();
+        return first;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachine5bIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachine5b}.
+     */
+    private final class SortingMachine5bIterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry to return.
+         */
+        private int currentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachine5bIterator() {
+            this.currentIndex = 0;
+            assert SortingMachine5b.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.currentIndex < SortingMachine5b.this.size;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachine5b.this.entries[this.currentIndex];
+            this.currentIndex++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,184 @@
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+
+/**
+ * Program to compare the time {@code SortingMachine5a},
+ * {@code SortingMachine5b} (with 2-, 4- and 8-ary heaps) and
+ * {@code SortingMachineParallel} take to sort random {@code Integer} and
+ * {@code String} entries: all adds, then
+ * {@code changeToExtractionMode}, then all {@code removeFirst}s.
+ *
+ * <p>
+ * Usage: {@code SortingMachineBenchmark [n ...]} (default 1,000,000). Sizes up
+ * to 50,000,000 need a correspondingly large heap ({@code -Xmx}). Each line
+ * splits the time, in milliseconds, between the three phases, because the
+ * machines do their work in different places: the heap machines build the
+ * heap in {@code changeToExtractionMode} and pay O(log n) for each
+ * {@code removeFirst}, with fewer levels but more comparisons per level as
+ * the arity grows, while {@code SortingMachineParallel} does the whole sort
+ * in {@code changeToExtractionMode} and removes in O(1).
+ */
+public final class SortingMachineBenchmark {
+
+    /**
+     * Default number of entries sorted.
+     */
+    private static final int DEFAULT_ENTRIES = 1_000_000;
+
+    /**
+     * Heap arities tried for {@code SortingMachine5b}.
+     */
+    private static final int[] ARITIES = { 2, 4, 8 };
+
+    /**
+     * Seed for the random input, so runs are repeatable.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Radix used to turn random numbers into {@code String} entries.
+     */
+    private static final int RADIX = 36;
+
+    /**
+     * Compare {@code Integer}s in increasing order.
+     */
+    private static final class IntegerLT implements Comparator<Integer> {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Compare {@code String}s in lexicographic order.
+     */
+    private static final class StringLT implements Comparator<String> {
+        @Override
+        public int compare(String o1, String o2) {
+            return o1.compareTo(o2);
+        }
+    }
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SortingMachineBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Sorts {@code input} with {@code sm} and outputs the time taken by each
+     * phase.
+     *
+     * @param <T>
+     *            type of entries
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param sm
+     *            the sorting machine to use
+     * @param input
+     *            the entries to sort
+     * @updates out.content
+     * @requires out.is_open and sm = (true, [some order], {})
+     * @ensures out.content = #out.content * [timings for this run]
+     */
+    private static <T> void run(SimpleWriter out, String label,
+            SortingMachine<T> sm, T[] input) {
+        long start = System.nanoTime();
+        for (T x : input) {
+            sm.add(x);
+        }
+        long added = System.nanoTime();
+        sm.changeToExtractionMode();
+        long built = System.nanoTime();
+        T last = null;
+        boolean sorted = true;
+        while (sm.size() > 0) {
+            T x = sm.removeFirst();
+            sorted = sorted
+                    && (last == null || sm.order().compare(last, x) <= 0);
+            last = x;
+        }
+        long done = System.nanoTime();
+        out.println(label + ": add "
+                + TimeUnit.NANOSECONDS.toMillis(added - start) + " ms, build "
+                + TimeUnit.NANOSECONDS.toMillis(built - added) + " ms, remove "
+                + TimeUnit.NANOSECONDS.toMillis(done - built) + " ms, total "
+                + TimeUnit.NANOSECONDS.toMillis(done - start) + " ms"
+                + (sorted ? "" : " UNSORTED"));
+    }
+
+    /**
+     * Runs every machine on {@code input}.
+     *
+     * @param <T>
+     *            type of entries
+     * @param out
+     *            the output stream
+     * @param type
+     *            name of the entry type
+     * @param order
+     *            the order to sort by
+     * @param input
+     *            the entries to sort
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures out.content = #out.content * [timings for every machine]
+     */
+    private static <T> void runAll(SimpleWriter out, String type,
+            Comparator<T> order, T[] input) {
+        String prefix = type + " n=" + input.length + " ";
+        run(out, prefix + "SortingMachine5a", new SortingMachine5a<T>(order),
+                input);
+        for (int d : ARITIES) {
+            run(out, prefix + "SortingMachine5b d=" + d,
+                    new SortingMachine5b<T>(order, d), input);
+        }
+        run(out, prefix + "SortingMachineParallel",
+                new SortingMachineParallel<T>(order), input);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional numbers of entries
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int[] sizes = { DEFAULT_ENTRIES };
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        Random random = new Random(SEED);
+        for (int n : sizes) {
+            Integer[] integers = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                integers[i] = random.nextInt();
+            }
+            runAll(out, "Integer", new IntegerLT(), integers);
+
+            String[] strings = new String[n];
+            for (int i = 0; i < n; i++) {
+                strings[i] = Long.toString(random.nextLong() & Long.MAX_VALUE,
+                        RADIX);
+            }
+            runAll(out, "String", new StringLT(), strings);
+        }
+
+        out.close();
+    }
+
+}
@@ -0,0 +1,616 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * {@code SortingMachine} represented as a single growable array that holds the
+ * entries unordered in insertion mode and sorted in extraction mode, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * {@code changeToExtractionMode} sorts the array with a fork/join merge sort
+ * that uses every core of the common {@code ForkJoinPool}: both halves are
+ * sorted in parallel, and are then merged in parallel by splitting the larger
+ * run at its middle entry and the smaller run at the matching position.
+ * Slices of at most {@code SEQUENTIAL_CUTOFF} entries are sorted by
+ * {@code Arrays.sort}, and machines smaller than that are sorted without
+ * forking at all. Afterwards {@code removeFirst} takes entries from the front
+ * of the array in O(1) time.
+ *
+ * <p>
+ * Because {@code machineOrder.compare} is called from several threads at once
+ * it must not depend on mutable state; every comparator in this project is
+ * stateless.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_SORTED (
+ *   a: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all i: integer
+ *      where (0 < i  and  i < |a|)
+ *    (r(a[i - 1], a[i]))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])  and
+ * 0 <= $this.front  and
+ * 0 <= $this.size  and
+ * $this.front + $this.size <= |$this.entries|  and
+ * for all i: integer
+ *     where ($this.front <= i  and  i < $this.front + $this.size)
+ *   ([entry at position i in $this.entries is not null])  and
+ * if $this.insertionMode then
+ *   $this.front = 0
+ * else
+ *   IS_SORTED($this.entries[$this.front, $this.front + $this.size),
+ *     [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.entries[$this.front,
+ *                                        $this.front + $this.size)))
+ * </pre>
+ */
+public class SortingMachineParallel<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial capacity of the entries array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Largest slice sorted, or pair of runs merged, by a single task.
+     */
+    private static final int SEQUENTIAL_CUTOFF = 1 << 13;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Entries; sorted from {@code front} on in extraction mode.
+     */
+    private T[] entries;
+
+    /**
+     * Index of the first entry in extraction mode.
+     */
+    private int front;
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * Task that sorts {@code source[lo, hi)}, leaving the result either in
+     * {@code source} or in the same slice of {@code scratch}. Each level of
+     * the recursion alternates between the two arrays, so merged runs never
+     * have to be copied back.
+     *
+     * @param <T>
+     *            type of array entries
+     */
+    private static final class SortTask<T> extends RecursiveAction {
+
+        /**
+         * Serialization version (tasks are never serialized).
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The array to sort.
+         */
+        private final T[] source;
+
+        /**
+         * Scratch array of the same length as {@code source}.
+         */
+        private final T[] scratch;
+
+        /**
+         * Start of the slice (inclusive).
+         */
+        private final int lo;
+
+        /**
+         * End of the slice (exclusive).
+         */
+        private final int hi;
+
+        /**
+         * Whether the sorted slice is left in {@code source} (rather than in
+         * {@code scratch}).
+         */
+        private final boolean inSource;
+
+        /**
+         * Order.
+         */
+        private final Comparator<T> order;
+
+        /**
+         * Constructor.
+         *
+         * @param source
+         *            the array to sort
+         * @param scratch
+         *            scratch array of the same length as {@code source}
+         * @param lo
+         *            start of the slice (inclusive)
+         * @param hi
+         *            end of the slice (exclusive)
+         * @param inSource
+         *            whether to leave the sorted slice in {@code source}
+         * @param order
+         *            total preorder for sorting
+         */
+        private SortTask(T[] source, T[] scratch, int lo, int hi,
+                boolean inSource, Comparator<T> order) {
+            this.source = source;
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+            this.inSource = inSource;
+            this.order = order;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo <= SEQUENTIAL_CUTOFF) {
+                T[] target = this.source;
+                if (!this.inSource) {
+                    System.arraycopy(this.source, this.lo, this.scratch, this.lo,
+                            this.hi - this.lo);
+                    target = this.scratch;
+                }
+                Arrays.sort(target, this.lo, this.hi, this.order);
+            } else {
+                /*
+                 * Sort the halves into the other array, then merge them back
+                 * into the one this task must leave its result in.
+                 */
+                int mid = (this.lo + this.hi) >>> 1;
+                invokeAll(
+                        new SortTask<T>(this.source, this.scratch, this.lo, mid,
+                                !this.inSource, this.order),
+                        new SortTask<T>(this.source, this.scratch, mid, this.hi,
+                                !this.inSource, this.order));
+                T[] from = this.source;
+                T[] to = this.scratch;
+                if (this.inSource) {
+                    from = this.scratch;
+                    to = this.source;
+                }
+                new MergeTask<T>(from, this.lo, mid, mid, this.hi, to, this.lo,
+                        this.order).compute();
+            }
+        }
+
+    }
+
+    /**
+     * Task that merges the sorted runs {@code from[lo1, hi1)} and
+     * {@code from[lo2, hi2)} into {@code to}, starting at index {@code dest}.
+     *
+     * @param <T>
+     *            type of array entries
+     */
+    private static final class MergeTask<T> extends RecursiveAction {
+
+        /**
+         * Serialization version (tasks are never serialized).
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The array holding both runs.
+         */
+        private final T[] from;
+
+        /**
+         * Start of the first run (inclusive).
+         */
+        private final int lo1;
+
+        /**
+         * End of the first run (exclusive).
+         */
+        private final int hi1;
+
+        /**
+         * Start of the second run (inclusive).
+         */
+        private final int lo2;
+
+        /**
+         * End of the second run (exclusive).
+         */
+        private final int hi2;
+
+        /**
+         * The array to merge into.
+         */
+        private final T[] to;
+
+        /**
+         * Index in {@code to} of the first merged entry.
+         */
+        private final int dest;
+
+        /**
+         * Order.
+         */
+        private final Comparator<T> order;
+
+        /**
+         * Constructor.
+         *
+         * @param from
+         *            the array holding both runs
+         * @param lo1
+         *            start of the first run (inclusive)
+         * @param hi1
+         *            end of the first run (exclusive)
+         * @param lo2
+         *            start of the second run (inclusive)
+         * @param hi2
+         *            end of the second run (exclusive)
+         * @param to
+         *            the array to merge into
+         * @param dest
+         *            index in {@code to} of the first merged entry
+         * @param order
+         *            total preorder for sorting
+         */
+        private MergeTask(T[] from, int lo1, int hi1, int lo2, int hi2, T[] to,
+                int dest, Comparator<T> order) {
+            this.from = from;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.to = to;
+            this.dest = dest;
+            this.order = order;
+        }
+
+        @Override
+        protected void compute() {
+            int length1 = this.hi1 - this.lo1;
+            int length2 = this.hi2 - this.lo2;
+            if (length1 + length2 <= SEQUENTIAL_CUTOFF) {
+                int i = this.lo1;
+                int j = this.lo2;
+                int k = this.dest;
+                while (i < this.hi1 && j < this.hi2) {
+                    if (this.order.compare(this.from[j], this.from[i]) < 0) {
+                        this.to[k] = this.from[j];
+                        j++;
+                    } else {
+                        this.to[k] = this.from[i];
+                        i++;
+                    }
+                    k++;
+                }
+                System.arraycopy(this.from, i, this.to, k, this.hi1 - i);
+                System.arraycopy(this.from, j, this.to, k + this.hi1 - i,
+                        this.hi2 - j);
+            } else if (length1 < length2) {
+                // Always split the longer run at its middle
+                new MergeTask<T>(this.from, this.lo2, this.hi2, this.lo1,
+                        this.hi1, this.to, this.dest, this.order).compute();
+            } else {
+                /*
+                 * Every entry of run 1 before mid1, and of run 2 before mid2,
+                 * comes no later than from[mid1]; every entry after them comes
+                 * no earlier. So from[mid1] goes to split, and the two sides
+                 * can be merged independently.
+                 */
+                int mid1 = (this.lo1 + this.hi1) >>> 1;
+                T pivot = this.from[mid1];
+                int low = this.lo2;
+                int high = this.hi2;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (this.order.compare(this.from[mid], pivot) < 0) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                int mid2 = low;
+                int split = this.dest + (mid1 - this.lo1) + (mid2 - this.lo2);
+                this.to[split] = pivot;
+                invokeAll(
+                        new MergeTask<T>(this.from, this.lo1, mid1, this.lo2,
+                                mid2, this.to, this.dest, this.order),
+                        new MergeTask<T>(this.from, mid1 + 1, this.hi1, mid2,
+                                this.hi2, this.to, split + 1, this.order));
+            }
+        }
+
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.front  and
+     * 0 <= $this.size  and
+     * $this.front + $this.size <= |$this.entries|  and
+     * for all i: integer
+     *     where ($this.front <= i  and  i < $this.front + $this.size)
+     *   ([entry at position i in $this.entries is not null])  and
+     * if $this.insertionMode then
+     *   $this.front = 0
+     * else
+     *   IS_SORTED($this.entries[$this.front, $this.front + $this.size),
+     *     [relation computed by $this.machineOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.front : "Violation of: 0 <= $this.front";
+        assert 0 <= this.size : "Violation of: 0 <= $this.size";
+        assert this.front + this.size <= this.entries.length
+                : "Violation of: $this.front + $this.size <= |$this.entries|";
+        int end = this.front + this.size;
+        for (int i = this.front; i < end; i++) {
+            assert this.entries[i] != null : "Violation of: entries in"
+                    + " $this.entries[$this.front, $this.front + $this.size)"
+                    + " are not null";
+        }
+        if (this.insertionMode) {
+            assert this.front == 0
+                    : "Violation of: if $this.insertionMode then $this.front = 0";
+        } else {
+            for (int i = this.front + 1; i < end; i++) {
+                assert this.machineOrder.compare(this.entries[i - 1],
+                        this.entries[i]) <= 0
+                        : "" + "Violation of: if not $this.insertionMode then"
+                                + " IS_SORTED($this.entries[$this.front,"
+                                + " $this.front + $this.size),"
+                                + " [relation computed by $this.machineOrder.compare"
+                                + " method])";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @requires IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * $this.front = 0  and
+     * $this.size = 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order) {
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.entries = (T[]) (new Object[INITIAL_CAPACITY]);
+        this.front = 0;
+        this.size = 0;
+        this.insertionMode = true;
+        this.machineOrder = order;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order.
+     *
+     * @param order
+     *            total preorder for sorting; its {@code compare} method may be
+     *            called from several threads at once
+     */
+    public SortingMachineParallel(Comparator<T> order) {
+        this.createNewRep(order);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class)
+                    .newInstance(this.machineOrder);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachineParallel<?> : ""
+                + "Violation of: source is of dynamic type SortingMachineParallel<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachineParallel<?>, and the ? must be T or the call would
+         * not have compiled.
+         */
+        SortingMachineParallel<T> localSource = (SortingMachineParallel<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.entries = localSource.entries;
+        this.front = localSource.front;
+        this.size = localSource.size;
+        localSource.createNewRep(localSource.machineOrder);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+        // Double the array when it is full
+        if (this.size == this.entries.length) {
+            T[] bigger = (T[]) (new Object[2 * this.entries.length]);
+            System.arraycopy(this.entries, 0, bigger, 0, this.size);
+            this.entries = bigger;
+        }
+        this.entries[this.size] = x;
+        this.size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+        if (this.size <= SEQUENTIAL_CUTOFF) {
+            Arrays.sort(this.entries, 0, this.size, this.machineOrder);
+        } else {
+            T[] scratch = (T[]) (new Object[this.size]);
+            ForkJoinPool.commonPool().invoke(new SortTask<T>(this.entries,
+                    scratch, 0, this.size, true, this.machineOrder));
+        }
+        this.insertionMode = false;
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this.isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+        assert this.conventionHolds();
+        T first = this.entries[this.front];
+        this.entries[this.front] = null;
+        this.front++;
+        this.size--;
+        assert this.conventionHolds();
+        return first;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachineParallelIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachineParallel}.
+     */
+    private final class SortingMachineParallelIterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry to return.
+         */
+        private int currentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachineParallelIterator() {
+            this.currentIndex = SortingMachineParallel.this.front;
+            assert SortingMachineParallel.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.currentIndex < SortingMachineParallel.this.front
+                    + SortingMachineParallel.this.size;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachineParallel.this.entries[this.currentIndex];
+            this.currentIndex++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,533 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachineSecondary;
+
+/**
+ * Bounded {@code SortingMachine} that keeps only the {@code capacity} entries
+ * that come first in its order, with implementations of primary methods.
+ *
+ * <p>
+ * Until {@code capacity} entries have been added it behaves exactly like any
+ * other {@code SortingMachine}. After that, {@code add(x)} keeps {@code x}
+ * only if it comes before the last entry kept, which it then evicts. This
+ * answers "the first k of m entries" in O(m log k) time and O(k) space,
+ * instead of sorting all m entries and extracting k of them.
+ *
+ * <p>
+ * In insertion mode the entries kept form a binary heap with the entry that
+ * comes <i>last</i> at the root, so the candidate for eviction is always at
+ * index 0. {@code changeToExtractionMode} heapsorts them in place, after which
+ * {@code removeFirst} takes entries from the front of the array in O(1) time.
+ *
+ * @param <T>
+ *            type of {@code SortingMachine} entries
+ * @mathdefinitions <pre>
+ * IS_TOTAL_PREORDER (
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all x, y, z: T
+ *   ((r(x, y) or r(y, x))  and
+ *    (if (r(x, y) and r(y, z)) then r(x, z)))
+ *
+ * IS_MAX_HEAP (
+ *   a: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all i: integer
+ *      where (0 < i  and  i < |a|)
+ *    (r(a[i], a[(i - 1) / 2]))
+ *
+ * IS_SORTED (
+ *   a: string of T,
+ *   r: binary relation on T
+ *  ) : boolean is
+ *  for all i: integer
+ *      where (0 < i  and  i < |a|)
+ *    (r(a[i - 1], a[i]))
+ * </pre>
+ * @convention <pre>
+ * IS_TOTAL_PREORDER([relation computed by $this.machineOrder.compare method])  and
+ * $this.capacity >= 0  and
+ * 0 <= $this.front  and
+ * 0 <= $this.size <= $this.capacity  and
+ * $this.front + $this.size <= |$this.entries|  and
+ * for all i: integer
+ *     where ($this.front <= i  and  i < $this.front + $this.size)
+ *   ([entry at position i in $this.entries is not null])  and
+ * if $this.insertionMode then
+ *   $this.front = 0  and
+ *   IS_MAX_HEAP($this.entries[0, $this.size),
+ *     [relation computed by $this.machineOrder.compare method])
+ * else
+ *   IS_SORTED($this.entries[$this.front, $this.front + $this.size),
+ *     [relation computed by $this.machineOrder.compare method])
+ * </pre>
+ * @correspondence <pre>
+ * this = ($this.insertionMode, $this.machineOrder,
+ *         multiset_entries($this.entries[$this.front,
+ *                                        $this.front + $this.size)))
+ * </pre>
+ */
+public class SortingMachineTopK<T> extends SortingMachineSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Largest initial length of the entries array; it grows up to
+     * {@code capacity} as entries are added.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Order.
+     */
+    private Comparator<T> machineOrder;
+
+    /**
+     * Insertion mode.
+     */
+    private boolean insertionMode;
+
+    /**
+     * Maximum number of entries kept.
+     */
+    private int capacity;
+
+    /**
+     * Entries; a max-heap in insertion mode, sorted in extraction mode.
+     */
+    private T[] entries;
+
+    /**
+     * Index of the first entry in extraction mode.
+     */
+    private int front;
+
+    /**
+     * Number of entries kept.
+     */
+    private int size;
+
+    /**
+     * Sifts the entry at {@code index} up the binary max-heap
+     * {@code array[0, index]}, moving entries it comes before down into the
+     * "hole" and writing it once, at its final position.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the heap
+     * @param index
+     *            the index of the entry to sift up
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= index < |array|  and
+     * IS_MAX_HEAP(array[0, index), [relation computed by order.compare method])  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * IS_MAX_HEAP(array[0, index + 1), [relation computed by order.compare method])  and
+     * perms(array, #array)
+     * </pre>
+     */
+    private static <T> void siftUp(T[] array, int index, Comparator<T> order) {
+        T x = array[index];
+        int hole = index;
+        boolean placed = false;
+        while (!placed && hole > 0) {
+            int parent = (hole - 1) / 2;
+            if (order.compare(array[parent], x) < 0) {
+                array[hole] = array[parent];
+                hole = parent;
+            } else {
+                placed = true;
+            }
+        }
+        array[hole] = x;
+    }
+
+    /**
+     * Given an array whose first {@code length} entries represent a complete
+     * binary tree that would be a max-heap except at index {@code top}, sifts
+     * the entry at {@code top} down to turn the subtree rooted there into a
+     * max-heap.
+     *
+     * @param <T>
+     *            type of array entries
+     * @param array
+     *            the complete binary tree
+     * @param top
+     *            the index of the root of the "subtree"
+     * @param length
+     *            the number of entries in the tree
+     * @param order
+     *            total preorder for sorting
+     * @updates array
+     * @requires <pre>
+     * 0 <= top < length <= |array|  and
+     * [the subtrees rooted at the children of top satisfy IS_MAX_HEAP]  and
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])
+     * </pre>
+     * @ensures <pre>
+     * [the subtree rooted at top satisfies IS_MAX_HEAP]  and
+     * perms(array, #array)  and
+     * [the entries outside the subtree rooted at top are unchanged]
+     * </pre>
+     */
+    private static <T> void siftDown(T[] array, int top, int length,
+            Comparator<T> order) {
+        T x = array[top];
+        int hole = top;
+        int child = 2 * hole + 1;
+        boolean placed = false;
+        while (!placed && child < length) {
+            // Find the child that comes last
+            if (child + 1 < length
+                    && order.compare(array[child], array[child + 1]) < 0) {
+                child++;
+            }
+            if (order.compare(x, array[child]) < 0) {
+                array[hole] = array[child];
+                hole = child;
+                child = 2 * hole + 1;
+            } else {
+                placed = true;
+            }
+        }
+        array[hole] = x;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.capacity >= 0  and
+     * 0 <= $this.front  and
+     * 0 <= $this.size <= $this.capacity  and
+     * $this.front + $this.size <= |$this.entries|  and
+     * for all i: integer
+     *     where ($this.front <= i  and  i < $this.front + $this.size)
+     *   ([entry at position i in $this.entries is not null])  and
+     * if $this.insertionMode then
+     *   $this.front = 0  and
+     *   IS_MAX_HEAP($this.entries[0, $this.size),
+     *     [relation computed by $this.machineOrder.compare method])
+     * else
+     *   IS_SORTED($this.entries[$this.front, $this.front + $this.size),
+     *     [relation computed by $this.machineOrder.compare method])
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.capacity >= 0 : "Violation of: $this.capacity >= 0";
+        assert 0 <= this.front : "Violation of: 0 <= $this.front";
+        assert 0 <= this.size : "Violation of: 0 <= $this.size";
+        assert this.size <= this.capacity
+                : "Violation of: $this.size <= $this.capacity";
+        assert this.front + this.size <= this.entries.length
+                : "Violation of: $this.front + $this.size <= |$this.entries|";
+        int end = this.front + this.size;
+        for (int i = this.front; i < end; i++) {
+            assert this.entries[i] != null : "Violation of: entries in"
+                    + " $this.entries[$this.front, $this.front + $this.size)"
+                    + " are not null";
+        }
+        if (this.insertionMode) {
+            assert this.front == 0
+                    : "Violation of: if $this.insertionMode then $this.front = 0";
+            for (int i = 1; i < this.size; i++) {
+                assert this.machineOrder.compare(this.entries[i],
+                        this.entries[(i - 1) / 2]) <= 0
+                        : "" + "Violation of: if $this.insertionMode then"
+                                + " IS_MAX_HEAP($this.entries[0, $this.size),"
+                                + " [relation computed by $this.machineOrder.compare"
+                                + " method])";
+            }
+        } else {
+            for (int i = this.front + 1; i < end; i++) {
+                assert this.machineOrder.compare(this.entries[i - 1],
+                        this.entries[i]) <= 0
+                        : "" + "Violation of: if not $this.insertionMode then"
+                                + " IS_SORTED($this.entries[$this.front,"
+                                + " $this.front + $this.size),"
+                                + " [relation computed by $this.machineOrder.compare"
+                                + " method])";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param k
+     *            the maximum number of entries kept
+     * @requires <pre>
+     * IS_TOTAL_PREORDER([relation computed by order.compare method])  and
+     * k >= 0
+     * </pre>
+     * @ensures <pre>
+     * $this.insertionMode = true  and
+     * $this.machineOrder = order  and
+     * $this.capacity = k  and
+     * $this.front = 0  and
+     * $this.size = 0
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep(Comparator<T> order, int k) {
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.entries = (T[]) (new Object[Math.min(k, INITIAL_CAPACITY)]);
+        this.front = 0;
+        this.size = 0;
+        this.insertionMode = true;
+        this.machineOrder = order;
+        this.capacity = k;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor from order and capacity.
+     *
+     * @param order
+     *            total preorder for sorting
+     * @param capacity
+     *            the maximum number of entries kept
+     * @requires capacity >= 0
+     */
+    public SortingMachineTopK(Comparator<T> order, int capacity) {
+        assert capacity >= 0 : "Violation of: capacity >= 0";
+
+        this.createNewRep(order, capacity);
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final SortingMachine<T> newInstance() {
+        try {
+            return this.getClass().getConstructor(Comparator.class, int.class)
+                    .newInstance(this.machineOrder, this.capacity);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep(this.machineOrder, this.capacity);
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(SortingMachine<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof SortingMachineTopK<?>
+                : "" + "Violation of: source is of dynamic type SortingMachineTopK<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * SortingMachineTopK<?>, and the ? must be T or the call would not
+         * have compiled.
+         */
+        SortingMachineTopK<T> localSource = (SortingMachineTopK<T>) source;
+        this.insertionMode = localSource.insertionMode;
+        this.machineOrder = localSource.machineOrder;
+        this.capacity = localSource.capacity;
+        this.entries = localSource.entries;
+        this.front = localSource.front;
+        this.size = localSource.size;
+        localSource.createNewRep(localSource.machineOrder, localSource.capacity);
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} to the entries of {@code this}, unless {@code this}
+     * already holds {@code capacity()} entries and {@code x} does not come
+     * before the last of them in {@code order()}; in that case {@code x}, or
+     * an entry that comes last, is dropped to keep the size at
+     * {@code capacity()}.
+     *
+     * @param x
+     *            the element to be added
+     * @aliases reference x
+     * @updates this.contents
+     * @requires this.insertion_mode
+     * @ensures <pre>
+     * if |#this.contents| < capacity() then
+     *   this.contents = #this.contents union {x}
+     * else
+     *   [this.contents is the multiset of the capacity() entries of
+     *    #this.contents union {x} that come first in this.ordering]
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void add(T x) {
+        assert x != null : "Violation of: x is not null";
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+        if (this.size < this.capacity) {
+            // Grow the array, up to capacity, when it is full
+            if (this.size == this.entries.length) {
+                int length = (int) Math.min(2L * this.entries.length,
+                        this.capacity);
+                T[] bigger = (T[]) (new Object[length]);
+                System.arraycopy(this.entries, 0, bigger, 0, this.size);
+                this.entries = bigger;
+            }
+            this.entries[this.size] = x;
+            siftUp(this.entries, this.size, this.machineOrder);
+            this.size++;
+        } else if (this.size > 0
+                && this.machineOrder.compare(x, this.entries[0]) < 0) {
+            // Evict the entry that comes last and put x in its place
+            this.entries[0] = x;
+            siftDown(this.entries, 0, this.size, this.machineOrder);
+        }
+    }
+
+    @Override
+    public final void changeToExtractionMode() {
+        assert this.isInInsertionMode() : "Violation of: this.insertion_mode";
+        assert this.conventionHolds();
+        // Heapsort: repeatedly move the root behind the shrinking heap
+        for (int last = this.size - 1; last > 0; last--) {
+            T root = this.entries[0];
+            this.entries[0] = this.entries[last];
+            this.entries[last] = root;
+            siftDown(this.entries, 0, last, this.machineOrder);
+        }
+        this.insertionMode = false;
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T removeFirst() {
+        assert !this.isInInsertionMode() : "Violation of: not this.insertion_mode";
+        assert this.size() > 0 : "Violation of: this.contents /= {}";
+        assert this.conventionHolds();
+        T first = this.entries[this.front];
+        this.entries[this.front] = null;
+        this.front++;
+        this.size--;
+        assert this.conventionHolds();
+        return first;
+    }
+
+    @Override
+    public final boolean isInInsertionMode() {
+        assert this.conventionHolds();
+        return this.insertionMode;
+    }
+
+    @Override
+    public final Comparator<T> order() {
+        assert this.conventionHolds();
+        return this.machineOrder;
+    }
+
+    @Override
+    public final int size() {
+        assert this.conventionHolds();
+        return this.size;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new SortingMachineTopKIterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports the maximum number of entries {@code this} keeps.
+     *
+     * @return the capacity of {@code this}
+     * @ensures [capacity is the maximum number of entries kept by this]
+     */
+    public final int capacity() {
+        assert this.conventionHolds();
+        return this.capacity;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code SortingMachineTopK}.
+     */
+    private final class SortingMachineTopKIterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry to return.
+         */
+        private int currentIndex;
+
+        /**
+         * No-argument constructor.
+         */
+        private SortingMachineTopKIterator() {
+            this.currentIndex = SortingMachineTopK.this.front;
+            assert SortingMachineTopK.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.currentIndex < SortingMachineTopK.this.front
+                    + SortingMachineTopK.this.size;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T next = SortingMachineTopK.this.entries[this.currentIndex];
+            this.currentIndex++;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
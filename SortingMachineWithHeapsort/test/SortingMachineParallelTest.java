@@ -0,0 +1,56 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachineParallel}. The
+ * inherited tests are all below the size at which sorting forks; the test
+ * below is well above it.
+ */
+public final class SortingMachineParallelTest extends SortingMachineTest {
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachineParallel<String>(order);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    @Test
+    public final void testRemoveFirstManyParallel() {
+        final int n = 20_000;
+        final int distinct = 5_000;
+        final long seed = 2231L;
+        Comparator<String> order = new Comparator<String>() {
+            @Override
+            public int compare(String s1, String s2) {
+                return s1.compareTo(s2);
+            }
+        };
+        Random random = new Random(seed);
+        String[] expected = new String[n];
+        SortingMachine<String> m = this.constructorTest(order);
+        for (int i = 0; i < n; i++) {
+            expected[i] = Integer.toString(random.nextInt(distinct));
+            m.add(expected[i]);
+        }
+        Arrays.sort(expected);
+        m.changeToExtractionMode();
+        assertEquals(n, m.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(expected[i], m.removeFirst());
+        }
+        assertEquals(0, m.size());
+    }
+
+}
@@ -0,0 +1,160 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Customized JUnit test fixture for {@code SortingMachineTopK}. The inherited
+ * tests use a capacity larger than any of their machines; the tests below
+ * exercise the bound.
+ */
+public final class SortingMachineTopKTest extends SortingMachineTest {
+
+    /**
+     * Capacity to be used in the inherited tests.
+     */
+    private static final int TEST_CAPACITY = 100;
+
+    /**
+     * Comparator to be used in the bounded tests.
+     */
+    private static final Comparator<String> ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String s1, String s2) {
+            return s1.compareTo(s2);
+        }
+    };
+
+    @Override
+    protected SortingMachine<String> constructorTest(Comparator<String> order) {
+        return new SortingMachineTopK<String>(order, TEST_CAPACITY);
+    }
+
+    @Override
+    protected SortingMachine<String> constructorRef(Comparator<String> order) {
+        return new SortingMachine1L<String>(order);
+    }
+
+    /**
+     * Creates a {@code SortingMachineTopK} with the given capacity and adds
+     * the given entries to it.
+     *
+     * @param capacity
+     *            the capacity
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries to add
+     * @return the constructed {@code SortingMachine}
+     */
+    private static SortingMachine<String> createTopK(int capacity,
+            boolean insertionMode, String... args) {
+        SortingMachine<String> sm = new SortingMachineTopK<String>(ORDER,
+                capacity);
+        for (String x : args) {
+            sm.add(x);
+        }
+        if (!insertionMode) {
+            sm.changeToExtractionMode();
+        }
+        return sm;
+    }
+
+    /**
+     * Creates a {@code SortingMachine1L} with the given entries.
+     *
+     * @param insertionMode
+     *            flag indicating the machine mode
+     * @param args
+     *            the entries to add
+     * @return the constructed {@code SortingMachine}
+     */
+    private static SortingMachine<String> createRef(boolean insertionMode,
+            String... args) {
+        SortingMachine<String> sm = new SortingMachine1L<String>(ORDER);
+        for (String x : args) {
+            sm.add(x);
+        }
+        if (!insertionMode) {
+            sm.changeToExtractionMode();
+        }
+        return sm;
+    }
+
+    @Test
+    public final void testAddBeyondCapacityKeepsFirst() {
+        SortingMachine<String> m = createTopK(3, true, "e", "b", "d", "a", "f",
+                "c");
+        SortingMachine<String> mExpected = createRef(true, "a", "b", "c");
+        assertEquals(mExpected, m);
+    }
+
+    @Test
+    public final void testAddBeyondCapacityDropsLast() {
+        SortingMachine<String> m = createTopK(2, true, "a", "b");
+        SortingMachine<String> mExpected = createRef(true, "a", "b");
+        m.add("c");
+        assertEquals(mExpected, m);
+    }
+
+    @Test
+    public final void testAddBeyondCapacityDuplicates() {
+        SortingMachine<String> m = createTopK(3, true, "b", "b", "a", "b", "c",
+                "a");
+        SortingMachine<String> mExpected = createRef(true, "a", "a", "b");
+        assertEquals(mExpected, m);
+    }
+
+    @Test
+    public final void testAddCapacityZero() {
+        SortingMachine<String> m = createTopK(0, true, "a", "b");
+        SortingMachine<String> mExpected = createRef(true);
+        assertEquals(mExpected, m);
+    }
+
+    @Test
+    public final void testRemoveFirstBeyondCapacity() {
+        SortingMachine<String> m = createTopK(4, false, "h", "c", "g", "a", "f",
+                "b", "e", "d");
+        SortingMachine<String> mExpected = createRef(false, "b", "c", "d");
+        String x = m.removeFirst();
+        assertEquals("a", x);
+        assertEquals(mExpected, m);
+        assertEquals("b", m.removeFirst());
+        assertEquals("c", m.removeFirst());
+        assertEquals("d", m.removeFirst());
+        assertEquals(0, m.size());
+    }
+
+    @Test
+    public final void testGrowToLargeCapacity() {
+        final int n = 1000;
+        final int k = 300;
+        SortingMachine<String> m = createTopK(k, true);
+        SortingMachine<String> mExpected = createRef(true);
+        for (int i = n - 1; i >= 0; i--) {
+            String x = String.format("%04d", i);
+            m.add(x);
+            if (i < k) {
+                mExpected.add(x);
+            }
+        }
+        assertEquals(mExpected, m);
+        m.changeToExtractionMode();
+        mExpected.changeToExtractionMode();
+        assertEquals(mExpected, m);
+    }
+
+    @Test
+    public final void testNewInstanceCapacity() {
+        SortingMachineTopK<String> m = new SortingMachineTopK<String>(ORDER, 7);
+        SortingMachineTopK<String> n = (SortingMachineTopK<String>) m
+                .newInstance();
+        assertEquals(7, n.capacity());
+    }
+
+}
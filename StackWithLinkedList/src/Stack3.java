@@ -0,0 +1,258 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.stack.Stack;
+import components.stack.StackSecondary;
+
+/**
+ * {@code Stack} represented as a growable array, done "bare-handed", with
+ * implementations of primary methods.
+ *
+ * <p>
+ * The bottom of the stack is at index 0 and the top at index
+ * {@code length - 1}. The array doubles when it is full and is never shrunk
+ * (only {@code clear} and {@code transferFrom} give it back), so once a stack
+ * has reached its working depth, {@code push} and {@code pop} allocate
+ * nothing, unlike {@code Stack2}, which allocates a node per {@code push}.
+ * Execution-time performance of all methods implemented in this class is O(1)
+ * (amortized, for {@code push}).
+ *
+ * @param <T>
+ *            type of Stack entries
+ * @convention <pre>
+ * 0 <= $this.length <= |$this.entries|  and
+ * |$this.entries| >= MIN_CAPACITY  and
+ * [entries in $this.entries[0, $this.length) are not null]  and
+ * [entries in $this.entries[$this.length, |$this.entries|) are null]
+ * </pre>
+ * @correspondence this = rev($this.entries[0, $this.length))
+ */
+public class Stack3<T> extends StackSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Smallest length of the entries array.
+     */
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * Entries, bottom first.
+     */
+    private T[] entries;
+
+    /**
+     * Number of entries in use, i.e., length = |this|.
+     */
+    private int length;
+
+    /**
+     * Replaces the entries array with one of length {@code capacity} holding
+     * the same entries.
+     *
+     * @param capacity
+     *            the new length of the array
+     * @updates $this.entries
+     * @requires $this.length <= capacity
+     * @ensures <pre>
+     * |$this.entries| = capacity  and
+     * $this.entries[0, $this.length) = #$this.entries[0, $this.length)
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        T[] resized = (T[]) (new Object[capacity]);
+        System.arraycopy(this.entries, 0, resized, 0, this.length);
+        this.entries = resized;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * 0 <= $this.length <= |$this.entries|  and
+     * |$this.entries| >= MIN_CAPACITY  and
+     * [entries in $this.entries[0, $this.length) are not null]  and
+     * [entries in $this.entries[$this.length, |$this.entries|) are null]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert 0 <= this.length : "Violation of: 0 <= $this.length";
+        assert this.length <= this.entries.length
+                : "Violation of: $this.length <= |$this.entries|";
+        assert this.entries.length >= MIN_CAPACITY
+                : "Violation of: |$this.entries| >= MIN_CAPACITY";
+        for (int i = 0; i < this.entries.length; i++) {
+            if (i < this.length) {
+                assert this.entries[i] != null : "Violation of: "
+                        + "[entries in $this.entries[0, $this.length) are not null]";
+            } else {
+                assert this.entries[i] == null : "Violation of: [entries in "
+                        + "$this.entries[$this.length, |$this.entries|) are null]";
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep() {
+        /*
+         * With "new T[...]" in place of "new Object[...]" it does not compile;
+         * as shown, it results in a warning about an unchecked cast, though it
+         * cannot fail.
+         */
+        this.entries = (T[]) (new Object[MIN_CAPACITY]);
+        this.length = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Stack3() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Stack<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Stack<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Stack3<?>
+                : "" + "Violation of: source is of dynamic type Stack3<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Stack3<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Stack3<T> localSource = (Stack3<T>) source;
+        this.entries = localSource.entries;
+        this.length = localSource.length;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void push(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        if (this.length == this.entries.length) {
+            this.resize(2 * this.entries.length);
+        }
+        this.entries[this.length] = x;
+        this.length++;
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T pop() {
+        assert this.length() > 0 : "Violation of: this /= <>";
+        assert this.conventionHolds();
+
+        this.length--;
+        T removed = this.entries[this.length];
+        this.entries[this.length] = null;
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    @Override
+    public final int length() {
+        assert this.conventionHolds();
+        return this.length;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Stack3Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Stack3}. Like
+     * {@code Stack2}'s, it returns entries from the top of the stack down.
+     */
+    private final class Stack3Iterator implements Iterator<T> {
+
+        /**
+         * Index of the next entry to return, or -1.
+         */
+        private int current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Stack3Iterator() {
+            this.current = Stack3.this.length - 1;
+            assert Stack3.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            assert Stack3.this.conventionHolds();
+            return this.current >= 0;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = Stack3.this.entries[this.current];
+            this.current--;
+            assert Stack3.this.conventionHolds();
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
@@ -0,0 +1,384 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Exchanger;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import components.stack.Stack;
+import components.stack.StackSecondary;
+
+/**
+ * {@code Stack} represented as a lock-free singly linked list (a Treiber
+ * stack) with an elimination array, safe to share between threads, with
+ * implementations of primary methods.
+ *
+ * <p>
+ * {@code push} and {@code pop} each swing {@code top} with a single
+ * compare-and-set, so no thread ever blocks another. When that
+ * compare-and-set fails because another thread got there first, the thread
+ * backs off to a random slot of an elimination array for a few microseconds
+ * instead of retrying at once: if a {@code push} and a {@code pop} meet there,
+ * the value is handed over directly and neither touches {@code top}, which is
+ * what lets throughput grow with the number of threads instead of collapsing
+ * on the one contended reference. {@code length} is kept in a
+ * {@code LongAdder}, which threads update in separate cells.
+ *
+ * <p>
+ * Thread safety: {@code push}, {@code pop}, {@code popOrNull} and the
+ * iterator may be used concurrently by any number of threads; each
+ * {@code push} and {@code pop} is atomic. {@code length} is exact whenever no
+ * {@code push} or {@code pop} is in progress, and otherwise may be off by the
+ * number in progress. The iterator returns the entries of a snapshot of the
+ * stack. {@code clear}, {@code transferFrom} and the secondary methods
+ * inherited from {@code StackSecondary} (which combine several kernel calls)
+ * are not atomic, and need external synchronization if other threads use the
+ * stack at the same time. Because another thread can empty the stack between
+ * a call to {@code length} and a call to {@code pop}, threads sharing a stack
+ * should use {@code popOrNull} instead.
+ *
+ * @param <T>
+ *            type of Stack entries
+ * @convention <pre>
+ * $this.top is not null  and  $this.length is not null  and
+ * [$this.top.get() is null, or points to the first node of a
+ *  null-terminated singly linked list]  and
+ * [data in every node of that list is not null]  and
+ * [if no push or pop is in progress, $this.length.sum() is the number
+ *  of nodes of that list]
+ * </pre>
+ * @correspondence this = [data in nodes starting at $this.top.get()]
+ */
+public class Stack4<T> extends StackSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node class for singly linked list nodes. Nodes are never changed once
+     * they are reachable from {@code top}.
+     *
+     * @param <T>
+     *            type of data
+     */
+    private static final class Node<T> {
+
+        /**
+         * Data in node.
+         */
+        private final T data;
+
+        /**
+         * Next node in singly linked list, or null.
+         */
+        private final Node<T> next;
+
+        /**
+         * Constructor.
+         *
+         * @param data
+         *            data in node
+         * @param next
+         *            next node, or null
+         */
+        private Node(T data, Node<T> next) {
+            this.data = data;
+            this.next = next;
+        }
+
+    }
+
+    /**
+     * Number of slots in the elimination array.
+     */
+    private static final int ELIMINATION_SLOTS = 16;
+
+    /**
+     * How long a thread waits in the elimination array for a partner, in
+     * nanoseconds.
+     */
+    private static final long ELIMINATION_WAIT_NANOS = 2_000L;
+
+    /**
+     * What a {@code pop} offers in the elimination array; anything else
+     * offered is a pushed entry.
+     */
+    private static final Object POP_REQUEST = new Object();
+
+    /**
+     * Top node of singly linked list.
+     */
+    private AtomicReference<Node<T>> top;
+
+    /**
+     * Number of nodes in singly linked list.
+     */
+    private LongAdder length;
+
+    /**
+     * Elimination array, where a {@code push} and a {@code pop} that both
+     * lost a race on {@code top} can cancel each other out.
+     */
+    private Exchanger<Object>[] elimination;
+
+    /**
+     * Offers {@code x} in a random slot of the elimination array, waiting up
+     * to {@code ELIMINATION_WAIT_NANOS} for a partner, and returns what the
+     * partner offered, or {@code null} if there was none.
+     *
+     * @param x
+     *            the entry being pushed, or {@code POP_REQUEST}
+     * @return what a partner offered, or null
+     */
+    private Object exchange(Object x) {
+        int slot = ThreadLocalRandom.current().nextInt(this.elimination.length);
+        Object y = null;
+        try {
+            y = this.elimination[slot].exchange(x, ELIMINATION_WAIT_NANOS,
+                    TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            y = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            y = null;
+        }
+        return y;
+    }
+
+    /**
+     * Checks that the part of the convention repeated below holds for the
+     * current representation.
+     *
+     * @return true if the convention holds (or if assertion checking is off);
+     *         otherwise reports a violated assertion
+     * @convention <pre>
+     * $this.top is not null  and  $this.length is not null  and
+     * [data in every node of the list starting at $this.top.get() is not
+     *  null]
+     * </pre>
+     */
+    private boolean conventionHolds() {
+        assert this.top != null : "Violation of: $this.top is not null";
+        assert this.length != null : "Violation of: $this.length is not null";
+        Node<T> n = this.top.get();
+        while (n != null) {
+            assert n.data != null
+                    : "Violation of: [data in every node of the list is not null]";
+            n = n.next;
+        }
+        return true;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    @SuppressWarnings("unchecked")
+    private void createNewRep() {
+        this.top = new AtomicReference<Node<T>>(null);
+        this.length = new LongAdder();
+        /*
+         * Arrays of a generic type cannot be created, so this cast results in
+         * a warning about an unchecked cast, though it cannot fail.
+         */
+        this.elimination = (Exchanger<Object>[]) (new Exchanger<?>[ELIMINATION_SLOTS]);
+        for (int i = 0; i < this.elimination.length; i++) {
+            this.elimination[i] = new Exchanger<Object>();
+        }
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Stack4() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Stack<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final void transferFrom(Stack<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Stack4<?>
+                : "" + "Violation of: source is of dynamic type Stack4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Stack4<?>, and
+         * the ? must be T or the call would not have compiled.
+         */
+        Stack4<T> localSource = (Stack4<T>) source;
+        this.top = localSource.top;
+        this.length = localSource.length;
+        this.elimination = localSource.elimination;
+        localSource.createNewRep();
+        assert this.conventionHolds();
+        assert localSource.conventionHolds();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void push(T x) {
+        assert x != null : "Violation of: x is not null";
+
+        boolean done = false;
+        while (!done) {
+            Node<T> oldTop = this.top.get();
+            if (this.top.compareAndSet(oldTop, new Node<T>(x, oldTop))) {
+                this.length.increment();
+                done = true;
+            } else {
+                // Lost the race on top: try to hand x to a pop directly
+                done = this.exchange(x) == POP_REQUEST;
+            }
+        }
+
+        assert this.conventionHolds();
+    }
+
+    @Override
+    public final T pop() {
+        T removed = this.popOrNull();
+        assert removed != null : "Violation of: this /= <>";
+        return removed;
+    }
+
+    @Override
+    public final int length() {
+        assert this.conventionHolds();
+        return (int) Math.max(0L, this.length.sum());
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Stack4Iterator();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Removes and returns the top of {@code this}, or returns {@code null} if
+     * {@code this} is empty. Unlike checking {@code length() > 0} and then
+     * calling {@code pop}, this is a single atomic step.
+     *
+     * @return the entry removed, or null
+     * @updates this
+     * @ensures <pre>
+     * if #this = <> then
+     *   this = <>  and  popOrNull = null
+     * else
+     *   #this = <popOrNull> * this
+     * </pre>
+     */
+    @SuppressWarnings("unchecked")
+    public final T popOrNull() {
+        assert this.conventionHolds();
+
+        T removed = null;
+        boolean done = false;
+        while (!done) {
+            Node<T> oldTop = this.top.get();
+            if (oldTop == null) {
+                done = true;
+            } else if (this.top.compareAndSet(oldTop, oldTop.next)) {
+                this.length.decrement();
+                removed = oldTop.data;
+                done = true;
+            } else {
+                // Lost the race on top: try to take an entry from a push
+                Object y = this.exchange(POP_REQUEST);
+                if (y != null && y != POP_REQUEST) {
+                    /*
+                     * This cast cannot fail: only push offers anything other
+                     * than POP_REQUEST, and it offers a T.
+                     */
+                    removed = (T) y;
+                    done = true;
+                }
+            }
+        }
+
+        assert this.conventionHolds();
+        return removed;
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Stack4}. Returns
+     * the entries of the stack as it was when the iterator was created, from
+     * the top down; later changes by any thread do not affect it.
+     */
+    private final class Stack4Iterator implements Iterator<T> {
+
+        /**
+         * Current node in the linked list.
+         */
+        private Node<T> current;
+
+        /**
+         * No-argument constructor.
+         */
+        private Stack4Iterator() {
+            this.current = Stack4.this.top.get();
+            assert Stack4.this.conventionHolds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.current != null;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = this.current.data;
+            this.current = this.current.next;
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove operation not supported");
+        }
+
+    }
+
+}
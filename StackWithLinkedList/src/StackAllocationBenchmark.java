@@ -0,0 +1,143 @@
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.stack.Stack;
+
+/**
+ * Program to compare the heap allocation and time per operation of
+ * {@code Stack2} (a linked list) and {@code Stack3} (a growable array) under
+ * a parser-like workload: repeatedly push a batch of entries, then pop them
+ * all.
+ *
+ * <p>
+ * Usage: {@code StackAllocationBenchmark [numberOfOperations [depth]]}
+ * (defaults 100,000,000 and 64). Bytes allocated are measured with
+ * {@code com.sun.management.ThreadMXBean.getThreadAllocatedBytes}, which
+ * HotSpot-based JVMs provide. The entries pushed are allocated before
+ * measuring, so only the stacks' own allocation is counted. {@code Stack2}
+ * should allocate one node per push, a few tens of bytes depending on the
+ * JVM's object layout, and {@code Stack3} nothing at all once its array has
+ * grown to {@code depth} entries, which happens in the warm-up runs.
+ */
+public final class StackAllocationBenchmark {
+
+    /**
+     * Default number of operations (pushes plus pops) per run.
+     */
+    private static final long DEFAULT_OPERATIONS = 100_000_000L;
+
+    /**
+     * Default number of entries pushed before they are popped.
+     */
+    private static final int DEFAULT_DEPTH = 64;
+
+    /**
+     * Number of warm-up runs of each stack before the measured one.
+     */
+    private static final int WARMUP_RUNS = 2;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private StackAllocationBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Pushes {@code entries} onto {@code s} and pops them all, until about
+     * {@code operations} pushes and pops have been done.
+     *
+     * @param s
+     *            the stack to use
+     * @param entries
+     *            the entries to push
+     * @param operations
+     *            the number of operations to do
+     * @return a checksum of the entries popped, so the work cannot be
+     *         optimized away
+     * @requires s = <>
+     * @ensures s = <>
+     */
+    private static long run(Stack<Integer> s, Integer[] entries,
+            long operations) {
+        long checksum = 0;
+        long rounds = operations / (2L * entries.length);
+        for (long r = 0; r < rounds; r++) {
+            for (Integer x : entries) {
+                s.push(x);
+            }
+            while (s.length() > 0) {
+                checksum += s.pop();
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * Runs {@code s} and reports the bytes allocated and time taken per
+     * operation.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param s
+     *            the stack to use
+     * @param entries
+     *            the entries to push
+     * @param operations
+     *            the number of operations to do
+     * @updates out.content
+     * @requires out.is_open and s = <>
+     * @ensures out.content = #out.content * [measurements for this run]
+     */
+    private static void measure(SimpleWriter out, String label,
+            Stack<Integer> s, Integer[] entries, long operations) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(s, entries, operations);
+        }
+        long bytesBefore = threads.getThreadAllocatedBytes(id);
+        long start = System.nanoTime();
+        long checksum = run(s, entries, operations);
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(id) - bytesBefore;
+        out.println(label + ": " + ((double) bytes / operations) + " bytes/op, "
+                + ((double) elapsed / operations) + " ns/op (checksum "
+                + checksum + ")");
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional number of operations
+     *            and depth
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        long operations = DEFAULT_OPERATIONS;
+        int depth = DEFAULT_DEPTH;
+        if (args.length > 0) {
+            operations = Long.parseLong(args[0]);
+        }
+        if (args.length > 1) {
+            depth = Integer.parseInt(args[1]);
+        }
+        Integer[] entries = new Integer[depth];
+        for (int i = 0; i < depth; i++) {
+            entries[i] = i + depth;
+        }
+
+        measure(out, "Stack2", new Stack2<Integer>(), entries, operations);
+        measure(out, "Stack3", new Stack3<Integer>(), entries, operations);
+
+        out.close();
+    }
+
+}
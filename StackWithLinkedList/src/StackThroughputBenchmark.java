@@ -0,0 +1,212 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.stack.Stack;
+
+/**
+ * Program to compare the throughput of {@code Stack4} (lock-free) and of a
+ * {@code Stack2} whose every call is {@code synchronized}, when shared as a
+ * work stack by 1, 2, 4, ... up to 64 threads.
+ *
+ * <p>
+ * Usage: {@code StackThroughputBenchmark [operationsPerThread [maxThreads]]}
+ * (defaults 1,000,000 and 64). Every thread pushes an entry and then pops one,
+ * over and over; the stack starts with {@code PREFILL} entries, and no thread
+ * pops more than it has pushed, so it is never empty. Throughput is total
+ * operations (pushes plus pops) per microsecond of wall-clock time, so on a
+ * machine with fewer cores than threads it measures contention, not
+ * parallelism. Going down a column shows how each stack scales with the
+ * number of threads: the locked stack serializes every call, while a push and
+ * a pop that collide on {@code Stack4}'s top can cancel out in its elimination
+ * array instead of retrying.
+ */
+public final class StackThroughputBenchmark {
+
+    /**
+     * Default number of push-pop pairs done by each thread.
+     */
+    private static final int DEFAULT_OPERATIONS = 1_000_000;
+
+    /**
+     * Default largest number of threads.
+     */
+    private static final int DEFAULT_MAX_THREADS = 64;
+
+    /**
+     * Number of entries on the stack before the threads start.
+     */
+    private static final int PREFILL = 1_024;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private StackThroughputBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Work of one thread: after {@code start} opens, pushes an entry onto
+     * {@code s} and pops one, {@code operations} times.
+     */
+    private static final class Worker implements Runnable {
+
+        /**
+         * The shared stack.
+         */
+        private final Stack<Integer> s;
+
+        /**
+         * Whether calls to {@code s} must hold its lock.
+         */
+        private final boolean lock;
+
+        /**
+         * Number of push-pop pairs.
+         */
+        private final int operations;
+
+        /**
+         * Opens when all threads are ready.
+         */
+        private final CountDownLatch start;
+
+        /**
+         * Sum of the entries popped, so the work cannot be optimized away.
+         */
+        private long checksum;
+
+        /**
+         * Constructor.
+         *
+         * @param s
+         *            the shared stack
+         * @param lock
+         *            whether calls to {@code s} must hold its lock
+         * @param operations
+         *            number of push-pop pairs
+         * @param start
+         *            opens when all threads are ready
+         */
+        private Worker(Stack<Integer> s, boolean lock, int operations,
+                CountDownLatch start) {
+            this.s = s;
+            this.lock = lock;
+            this.operations = operations;
+            this.start = start;
+            this.checksum = 0;
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Integer x = this.operations;
+            for (int i = 0; i < this.operations; i++) {
+                if (this.lock) {
+                    synchronized (this.s) {
+                        this.s.push(x);
+                    }
+                    synchronized (this.s) {
+                        this.checksum += this.s.pop();
+                    }
+                } else {
+                    this.s.push(x);
+                    this.checksum += this.s.pop();
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Runs {@code threads} workers on {@code s} and reports the throughput.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the run
+     * @param s
+     *            the stack to share
+     * @param lock
+     *            whether calls to {@code s} must hold its lock
+     * @param threads
+     *            number of threads
+     * @param operations
+     *            number of push-pop pairs per thread
+     * @updates out.content
+     * @requires out.is_open and s = <> and threads > 0
+     * @ensures out.content = #out.content * [measurements for this run]
+     */
+    private static void measure(SimpleWriter out, String label,
+            Stack<Integer> s, boolean lock, int threads, int operations) {
+        for (int i = 0; i < PREFILL; i++) {
+            s.push(i);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        Worker[] workers = new Worker[threads];
+        Thread[] running = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Worker(s, lock, operations, start);
+            running[t] = new Thread(workers[t]);
+            running[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long checksum = 0;
+        for (int t = 0; t < threads; t++) {
+            try {
+                running[t].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            checksum += workers[t].checksum;
+        }
+        long elapsed = System.nanoTime() - begin;
+        double total = 2.0 * threads * operations;
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(elapsed));
+        out.println(label + " threads=" + threads + ": " + (total / micros)
+                + " ops/us, length "
+                + s.length() + " (checksum " + checksum + ")");
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional number of operations
+     *            per thread and largest number of threads
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        int operations = DEFAULT_OPERATIONS;
+        int maxThreads = DEFAULT_MAX_THREADS;
+        if (args.length > 0) {
+            operations = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            maxThreads = Integer.parseInt(args[1]);
+        }
+
+        // Warm up both before measuring
+        measure(out, "warm-up synchronized Stack2", new Stack2<Integer>(), true,
+                2, operations);
+        measure(out, "warm-up Stack4", new Stack4<Integer>(), false, 2,
+                operations);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            measure(out, "synchronized Stack2", new Stack2<Integer>(), true,
+                    threads, operations);
+            measure(out, "Stack4", new Stack4<Integer>(), false, threads,
+                    operations);
+        }
+
+        out.close();
+    }
+
+}
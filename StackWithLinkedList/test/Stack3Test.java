@@ -0,0 +1,19 @@
+import components.stack.Stack;
+import components.stack.Stack1L;
+
+/**
+ * Customized JUnit test fixture for {@code Stack3}.
+ */
+public class Stack3Test extends StackTest {
+
+    @Override
+    protected final Stack<String> constructorTest() {
+        return new Stack3<String>();
+    }
+
+    @Override
+    protected final Stack<String> constructorRef() {
+        return new Stack1L<String>();
+    }
+
+}
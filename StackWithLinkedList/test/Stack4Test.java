@@ -0,0 +1,180 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+import org.junit.Test;
+
+import components.stack.Stack;
+import components.stack.Stack1L;
+
+/**
+ * Customized JUnit test fixture for {@code Stack4}. The inherited tests use
+ * one thread; the tests below also share a stack between threads.
+ */
+public class Stack4Test extends StackTest {
+
+    /**
+     * Number of threads in the concurrent tests.
+     */
+    private static final int THREADS = 4;
+
+    /**
+     * Number of entries each thread pushes in the concurrent tests.
+     */
+    private static final int PUSHES_PER_THREAD = 500;
+
+    @Override
+    protected final Stack<String> constructorTest() {
+        return new Stack4<String>();
+    }
+
+    @Override
+    protected final Stack<String> constructorRef() {
+        return new Stack1L<String>();
+    }
+
+    /**
+     * Runs {@code task} in {@code THREADS} threads at once, passing each its
+     * number, and waits for all of them to finish. If any thread fails, the
+     * first failure is rethrown here, so that it fails the test.
+     *
+     * @param task
+     *            the work of one thread, given its number
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    private static void runConcurrently(final IntConsumer task)
+            throws InterruptedException {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int number = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    task.accept(number);
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        /*
+         * An IntConsumer cannot throw a checked exception, so the failure is
+         * an Error (such as a failed assertion) or a RuntimeException
+         */
+        Throwable e = failure.get();
+        if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw (RuntimeException) e;
+        }
+    }
+
+    /**
+     * Tests popOrNull on an empty stack.
+     */
+    @Test
+    public final void testPopOrNullEmpty() {
+        Stack4<String> s = new Stack4<String>();
+        Stack<String> sExpected = this.constructorRef();
+        String x = s.popOrNull();
+        assertNull(x);
+        assertEquals(sExpected, s);
+    }
+
+    /**
+     * Tests popOrNull on a non-empty stack.
+     */
+    @Test
+    public final void testPopOrNullNonEmpty() {
+        Stack4<String> s = new Stack4<String>();
+        s.push("green");
+        s.push("red");
+        Stack<String> sExpected = this.constructorRef();
+        sExpected.push("green");
+        String x = s.popOrNull();
+        assertEquals("red", x);
+        assertEquals(sExpected, s);
+    }
+
+    /**
+     * Tests push from several threads at once, then checks that each
+     * thread's entries come off in reverse order.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the threads
+     */
+    @Test
+    public final void testConcurrentPush() throws InterruptedException {
+        final Stack4<Integer> s = new Stack4<Integer>();
+        runConcurrently(t -> {
+            for (int i = 0; i < PUSHES_PER_THREAD; i++) {
+                s.push(t * PUSHES_PER_THREAD + i);
+            }
+        });
+        assertEquals(THREADS * PUSHES_PER_THREAD, s.length());
+        /*
+         * Each thread's entries must come off in the reverse of the order it
+         * pushed them, whatever the interleaving
+         */
+        int[] last = new int[THREADS];
+        Arrays.fill(last, PUSHES_PER_THREAD);
+        while (s.length() > 0) {
+            int x = s.pop();
+            int t = x / PUSHES_PER_THREAD;
+            assertEquals(last[t] - 1, x % PUSHES_PER_THREAD);
+            last[t]--;
+        }
+    }
+
+    /**
+     * Tests push and popOrNull racing in several threads, checking that every
+     * entry is popped exactly once.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the threads
+     */
+    @Test
+    public final void testConcurrentPushAndPop() throws InterruptedException {
+        final int n = THREADS * PUSHES_PER_THREAD;
+        final Stack4<Integer> s = new Stack4<Integer>();
+        final AtomicIntegerArray seen = new AtomicIntegerArray(n);
+        /*
+         * Every thread pushes its own entries and pops as many, so pushes and
+         * pops race on top and meet in the elimination array
+         */
+        runConcurrently(t -> {
+            int popped = 0;
+            for (int i = 0; i < PUSHES_PER_THREAD; i++) {
+                s.push(t * PUSHES_PER_THREAD + i);
+                Integer x = s.popOrNull();
+                if (x != null) {
+                    seen.incrementAndGet(x);
+                    popped++;
+                }
+            }
+            while (popped < PUSHES_PER_THREAD) {
+                Integer x = s.popOrNull();
+                if (x != null) {
+                    seen.incrementAndGet(x);
+                    popped++;
+                }
+            }
+        });
+        assertEquals(0, s.length());
+        assertNull(s.popOrNull());
+        for (int i = 0; i < n; i++) {
+            assertEquals(1, seen.get(i));
+        }
+    }
+
+}
@@ -170,7 +170,7 @@ public final class TagCloud {
      * words = [for each word w in inFile, (w, count of w in inFile)]
      * </pre>
      */
-    private static void countWords(SimpleReader inFile, Map<String, Integer> words) {
+    private static void countWords(SimpleReader inFile, StringIntMap words) {
         assert inFile != null : "Violation of: inFile is not null";
         assert words != null : "Violation of: words is not null";
 
@@ -188,14 +188,9 @@ public final class TagCloud {
                 String token = nextWordOrSeparator(line, position, separators);
                 if (token.length() > 0 && !separators.contains(token.charAt(0))) {
                     /*
-                     * token is a word.
+                     * token is a word; one probe, no boxing.
                      */
-                    if (words.hasKey(token)) {
-                        int count = words.value(token);
-                        words.replaceValue(token, count + 1);
-                    } else {
-                        words.add(token, 1);
-                    }
+                    words.increment(token, 1);
                 }
                 position += token.length();
             }
@@ -280,7 +275,10 @@ public final class TagCloud {
 
     /**
      * Selects the top {@code n} words with the highest counts and returns them
-     * in a {@code SortingMachine} sorted alphabetically by word.
+     * in a {@code SortingMachine} sorted alphabetically by word. The words are
+     * ranked by a {@code SortingMachineTopK} that never holds more than
+     * {@code n} of them, so this takes O(|words| log n) time rather than
+     * sorting every word by count.
      *
      * @param words
      *            map from words to counts
@@ -306,11 +304,13 @@ public final class TagCloud {
         Comparator<Pair<String, Integer>> countLT = new CountLT();
         Comparator<Pair<String, Integer>> stringLT = new StringLT();
 
-        SortingMachine<Pair<String, Integer>> byCount = new SortingMachine1L<>(countLT);
+        SortingMachine<Pair<String, Integer>> byCount = new SortingMachineTopK<>(
+                countLT, n);
         SortingMachine<Pair<String, Integer>> byWord = new SortingMachine1L<>(stringLT);
 
         /*
-         * Move all entries from map to byCount.
+         * Move all entries from map to byCount, which keeps only the n with
+         * the largest counts.
          */
         while (words.size() > 0) {
             Pair<String, Integer> p = words.removeAny();
@@ -321,8 +321,7 @@ public final class TagCloud {
          * Extract top n by count and add them to byWord.
          */
         byCount.changeToExtractionMode();
-        int k = Math.min(n, byCount.size());
-        for (int i = 0; i < k; i++) {
+        while (byCount.size() > 0) {
             Pair<String, Integer> p = byCount.removeFirst();
             byWord.add(p);
         }
@@ -453,7 +452,7 @@ public final class TagCloud {
         /*
          * Count words.
          */
-        Map<String, Integer> words = new Map1L<>();
+        StringIntMap words = new StringIntMap();
         countWords(inFile, words);
 
         /*
@@ -0,0 +1,284 @@
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import components.map.Map.Pair;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+import components.sortingmachine.SortingMachine;
+import components.sortingmachine.SortingMachine1L;
+
+/**
+ * Program to compare two ways of selecting the {@code n} most frequent words
+ * for a tag cloud: sorting every (word, count) pair by count in a
+ * {@code SortingMachine1L} (the original {@code TagCloud.topWords}), and
+ * keeping only the best {@code n} in a {@code SortingMachineTopK} (the current
+ * one). In both, the selected pairs are then sorted by word in a
+ * {@code SortingMachine1L}.
+ *
+ * <p>
+ * Usage:
+ * {@code TagCloudBenchmark [inputFile [n [numberOfSyntheticWords]]]} (defaults
+ * data/lesmiz.txt, 100 and 1,000,000). The words of the input file are
+ * counted once, then each selection is timed {@code REPETITIONS} times on the
+ * same pairs and the best time is printed, in microseconds, which leaves out
+ * warm-up and garbage collection. This is repeated on synthetic words with
+ * random counts: with m distinct words, sorting them all costs O(m log m)
+ * comparisons and keeping the best {@code n} costs O(m log n), so the gap
+ * should widen with m.
+ */
+public final class TagCloudBenchmark {
+
+    /**
+     * Default input file.
+     */
+    private static final String DEFAULT_INPUT = "data/lesmiz.txt";
+
+    /**
+     * Default number of words selected.
+     */
+    private static final int DEFAULT_WORDS = 100;
+
+    /**
+     * Default number of distinct synthetic words.
+     */
+    private static final int DEFAULT_SYNTHETIC = 1_000_000;
+
+    /**
+     * Largest count of a synthetic word.
+     */
+    private static final int MAX_SYNTHETIC_COUNT = 100_000;
+
+    /**
+     * Number of times each selection is timed.
+     */
+    private static final int REPETITIONS = 5;
+
+    /**
+     * Seed for the synthetic counts, so runs are repeatable.
+     */
+    private static final long SEED = 2231L;
+
+    /**
+     * Comparator to order pairs alphabetically by word (key).
+     */
+    private static final class StringLT implements Comparator<Pair<String, Integer>> {
+
+        @Override
+        public int compare(Pair<String, Integer> p1, Pair<String, Integer> p2) {
+            return p1.key().compareTo(p2.key());
+        }
+    }
+
+    /**
+     * Comparator to order pairs by count (value) in decreasing order.
+     */
+    private static final class CountLT implements Comparator<Pair<String, Integer>> {
+
+        @Override
+        public int compare(Pair<String, Integer> p1, Pair<String, Integer> p2) {
+            return p2.value().compareTo(p1.value());
+        }
+    }
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private TagCloudBenchmark() {
+        // no code needed here
+    }
+
+    /**
+     * Counts the occurrences of each word of {@code inFile} in {@code words},
+     * in lower case. Words are split at anything but letters and digits, which
+     * is close enough to {@code TagCloud}'s separators for timing the
+     * selection.
+     *
+     * @param inFile
+     *            the input file
+     * @param words
+     *            the map from words to counts
+     * @updates inFile, words
+     * @requires inFile.is_open
+     * @ensures <pre>
+     * words = #words + [for each word w in #inFile.content,
+     *                   (w, count of w in #inFile.content)]  and
+     * inFile.content = <>
+     * </pre>
+     */
+    private static void countWords(SimpleReader inFile, StringIntMap words) {
+        while (!inFile.atEOS()) {
+            String line = inFile.nextLine().toLowerCase();
+            for (String word : line.split("[^\\p{L}\\p{N}]+")) {
+                if (word.length() > 0) {
+                    words.increment(word, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every pair from {@code words} and returns them in an array.
+     *
+     * @param words
+     *            map from words to counts
+     * @return the pairs of {@code words}
+     * @clears words
+     * @ensures [entries of pairs are the pairs of #words]
+     */
+    @SuppressWarnings("unchecked")
+    private static Pair<String, Integer>[] drain(StringIntMap words) {
+        Pair<String, Integer>[] pairs = (Pair<String, Integer>[]) (new Pair<?, ?>[words
+                .size()]);
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = words.removeAny();
+        }
+        return pairs;
+    }
+
+    /**
+     * Selects the top {@code n} pairs by sorting all of them by count.
+     *
+     * @param pairs
+     *            the (word, count) pairs
+     * @param n
+     *            number of words to select
+     * @return a {@code SortingMachine} in insertion mode, ordered by word,
+     *         containing the {@code n} pairs with the largest counts
+     * @requires n >= 0
+     */
+    private static SortingMachine<Pair<String, Integer>> sortAll(
+            Pair<String, Integer>[] pairs, int n) {
+        SortingMachine<Pair<String, Integer>> byCount = new SortingMachine1L<>(
+                new CountLT());
+        SortingMachine<Pair<String, Integer>> byWord = new SortingMachine1L<>(
+                new StringLT());
+        for (Pair<String, Integer> p : pairs) {
+            byCount.add(p);
+        }
+        byCount.changeToExtractionMode();
+        int k = Math.min(n, byCount.size());
+        for (int i = 0; i < k; i++) {
+            byWord.add(byCount.removeFirst());
+        }
+        return byWord;
+    }
+
+    /**
+     * Selects the top {@code n} pairs with a {@code SortingMachineTopK}.
+     *
+     * @param pairs
+     *            the (word, count) pairs
+     * @param n
+     *            number of words to select
+     * @return a {@code SortingMachine} in insertion mode, ordered by word,
+     *         containing the {@code n} pairs with the largest counts
+     * @requires n >= 0
+     */
+    private static SortingMachine<Pair<String, Integer>> keepTopK(
+            Pair<String, Integer>[] pairs, int n) {
+        SortingMachine<Pair<String, Integer>> byCount = new SortingMachineTopK<>(
+                new CountLT(), n);
+        SortingMachine<Pair<String, Integer>> byWord = new SortingMachine1L<>(
+                new StringLT());
+        for (Pair<String, Integer> p : pairs) {
+            byCount.add(p);
+        }
+        byCount.changeToExtractionMode();
+        while (byCount.size() > 0) {
+            byWord.add(byCount.removeFirst());
+        }
+        return byWord;
+    }
+
+    /**
+     * Times both selections on {@code pairs} and outputs the fastest of
+     * {@code REPETITIONS} runs of each, with the total count of the words
+     * selected as a check that they agree.
+     *
+     * @param out
+     *            the output stream
+     * @param label
+     *            description of the input
+     * @param pairs
+     *            the (word, count) pairs
+     * @param n
+     *            number of words to select
+     * @updates out.content
+     * @requires out.is_open and n >= 0
+     * @ensures out.content = #out.content * [timings for both selections]
+     */
+    private static void run(SimpleWriter out, String label,
+            Pair<String, Integer>[] pairs, int n) {
+        out.println(label + ": top " + n + " of " + pairs.length
+                + " distinct words");
+        for (int s = 0; s < 2; s++) {
+            long best = Long.MAX_VALUE;
+            long total = 0;
+            for (int r = 0; r < REPETITIONS; r++) {
+                long start = System.nanoTime();
+                SortingMachine<Pair<String, Integer>> cloudWords;
+                if (s == 0) {
+                    cloudWords = sortAll(pairs, n);
+                } else {
+                    cloudWords = keepTopK(pairs, n);
+                }
+                cloudWords.changeToExtractionMode();
+                total = 0;
+                while (cloudWords.size() > 0) {
+                    total += cloudWords.removeFirst().value();
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            String name;
+            if (s == 0) {
+                name = "  SortingMachine1L by count";
+            } else {
+                name = "  SortingMachineTopK by count";
+            }
+            out.println(name + ": " + TimeUnit.NANOSECONDS.toMicros(best)
+                    + " us (total count " + total + ")");
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments; optional input file name, number
+     *            of words to select and number of synthetic words
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+
+        String inputFileName = DEFAULT_INPUT;
+        int n = DEFAULT_WORDS;
+        int synthetic = DEFAULT_SYNTHETIC;
+        if (args.length > 0) {
+            inputFileName = args[0];
+        }
+        if (args.length > 1) {
+            n = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            synthetic = Integer.parseInt(args[2]);
+        }
+
+        StringIntMap words = new StringIntMap();
+        SimpleReader inFile = new SimpleReader1L(inputFileName);
+        countWords(inFile, words);
+        inFile.close();
+        run(out, inputFileName, drain(words), n);
+
+        Random random = new Random(SEED);
+        for (int i = 0; i < synthetic; i++) {
+            words.increment("w" + i, 1 + random.nextInt(MAX_SYNTHETIC_COUNT));
+        }
+        run(out, "synthetic", drain(words), n);
+
+        out.close();
+    }
+
+}
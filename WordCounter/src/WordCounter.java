@@ -2,7 +2,6 @@ import java.util.Comparator;
 
 import components.map.Map;
 import components.map.Map.Pair;
-import components.map.Map1L;
 import components.queue.Queue;
 import components.queue.Queue1L;
 import components.set.Set;
@@ -149,26 +148,19 @@ public final class WordCounter {
      * @param words
      *            queue of words
      * @param wordsMap
-     *            map of words and counts
+     *            map of words and counts; counted in place without boxing
      * @param alphabetical
      *            comparator for sorting like alphabetical
      * @param fileOutput
      *            output stream
      */
-    public static void wordSorting(Queue<String> words, Map<String, Integer> wordsMap,
+    public static void wordSorting(Queue<String> words, StringIntMap wordsMap,
             Comparator<String> alphabetical, SimpleWriter fileOutput) {
         // Count occurrences of words
         while (words.length() != 0) {
             String word = words.dequeue();
-            // To find if wordsMap has this word
-            // if not, add the word and count 1
-            if (!wordsMap.hasKey(word)) {
-                wordsMap.add(word, 1);
-            } else { // if it has, only update counts
-                int oldValue = wordsMap.value(word);
-                int newValue = oldValue + 1;
-                wordsMap.replaceValue(word, newValue);
-            }
+            // Adds the word with count 1 if it is new, else bumps its count
+            wordsMap.increment(word, 1);
         }
         // Create temporary containers
         Queue<String> tempWords = words.newInstance();
@@ -224,7 +216,7 @@ public final class WordCounter {
         SimpleWriter fileOutput = new SimpleWriter1L(outFile);
         // Initialize data structures
         Queue<String> words = new Queue1L<>();
-        Map<String, Integer> wordMap = new Map1L<>();
+        StringIntMap wordMap = new StringIntMap();
         // Read input file line by line and extract words
         while (!inFileReader.atEOS()) {
             String readLine = inFileReader.nextLine();